@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class holds the measured throughput of one benchmark at one size and
+ * distribution, and writes it in the JSON layout JMH uses for its results,
+ * so the tools made for JMH results can read it. The error is the half
+ * width of the 99.9% confidence interval of the mean, the same as JMH. The
+ * bytes allocated per operation, when the JVM can count them, are written
+ * as the secondary metric JMH's gc profiler names gc.alloc.rate.norm.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class BenchmarkResult {
+
+    //Two sided 99.9% quantiles of the Student t distribution for 1 to 20
+    // degrees of freedom, more degrees use the normal quantile
+    private static final double[] T_QUANTILES = {636.619, 31.599, 12.924,
+        8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587, 4.437, 4.318, 4.221,
+        4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850};
+    private static final double NORMAL_QUANTILE = 3.291;
+
+    private final String benchmark; //Name of the benchmark
+    private final int size; //Number of pairs in the database
+    private final Distribution distribution; //How the pairs were made
+    private final int warmupIterations; //Number of unmeasured iterations
+    private final long iterationMillis; //Time of every iteration
+    private final List<Double> scores; //Operations per second of every
+                                       // measured iteration
+    private double allocatedPerOp; //Bytes allocated per operation, or NaN
+
+    /**
+     * Initializes the result without scores
+     *
+     * @param benchmark        the name of the benchmark
+     * @param size             the number of pairs in the database
+     * @param distribution     how the pairs were made
+     * @param warmupIterations the number of unmeasured iterations
+     * @param iterationMillis  the time of every iteration
+     */
+    public BenchmarkResult(String benchmark, int size,
+                           Distribution distribution, int warmupIterations,
+                           long iterationMillis) {
+        this.benchmark = benchmark;
+        this.size = size;
+        this.distribution = distribution;
+        this.warmupIterations = warmupIterations;
+        this.iterationMillis = iterationMillis;
+        scores = new ArrayList<>();
+        allocatedPerOp = Double.NaN;
+    }
+
+    /**
+     * Adds the score of a measured iteration
+     *
+     * @param opsPerSecond the operations per second of the iteration
+     */
+    public void add(double opsPerSecond) {
+        scores.add(opsPerSecond);
+    }
+
+    /**
+     * Sets the bytes allocated per operation over the measured iterations
+     *
+     * @param bytesPerOp the bytes per operation, NaN if not counted
+     */
+    public void setAllocatedPerOp(double bytesPerOp) {
+        allocatedPerOp = bytesPerOp;
+    }
+
+    /**
+     * Returns the bytes allocated per operation over the measured iterations
+     *
+     * @return the bytes per operation, NaN if not counted
+     */
+    public double allocatedPerOp() {
+        return allocatedPerOp;
+    }
+
+    /**
+     * Returns the mean of the scores
+     *
+     * @return the mean operations per second, 0 without scores
+     */
+    public double score() {
+        double sum = 0;
+        for (double s : scores) {
+            sum += s;
+        }
+
+        return scores.isEmpty() ? 0 : sum / scores.size();
+    }
+
+    /**
+     * Returns the half width of the 99.9% confidence interval of the mean
+     *
+     * @return the error of the score, NaN with fewer than two scores
+     */
+    public double scoreError() {
+        int n = scores.size();
+        if (n < 2) {
+            return Double.NaN;
+        }
+
+        double mean = score();
+        double squares = 0;
+        for (double s : scores) {
+            squares += (s - mean) * (s - mean);
+        }
+
+        double t = (n - 1 <= T_QUANTILES.length) ? T_QUANTILES[n - 2]
+                : NORMAL_QUANTILE;
+        return t * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+    }
+
+    /**
+     * Returns the result as one line for the console
+     *
+     * @return the benchmark, its parameters, the score with its error and
+     * the bytes allocated per operation if counted
+     */
+    @Override
+    public String toString() {
+        String line = String.format(Locale.ROOT, "%-32s %10d %-10s %15.1f +- "
+                + "%12.1f ops/s", benchmark, size, distribution, score(),
+                scoreError());
+        return Double.isNaN(allocatedPerOp) ? line : line + String.format(
+                Locale.ROOT, " %12.1f B/op", allocatedPerOp);
+    }
+
+    /**
+     * Returns the result as a JSON object in the layout of JMH results
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        double error = scoreError();
+        double score = score();
+
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < scores.size(); i++) {
+            raw.append(i == 0 ? "" : ", ").append(number(scores.get(i)));
+        }
+
+        return "    {\n"
+               + "        \"benchmark\" : \"" + benchmark + "\",\n"
+               + "        \"mode\" : \"thrpt\",\n"
+               + "        \"threads\" : 1,\n"
+               + "        \"forks\" : 1,\n"
+               + "        \"jdkVersion\" : \""
+               + System.getProperty("java.version") + "\",\n"
+               + "        \"warmupIterations\" : " + warmupIterations + ",\n"
+               + "        \"warmupTime\" : \"" + iterationMillis + " ms\",\n"
+               + "        \"measurementIterations\" : " + scores.size()
+               + ",\n"
+               + "        \"measurementTime\" : \"" + iterationMillis
+               + " ms\",\n"
+               + "        \"params\" : {\n"
+               + "            \"size\" : \"" + size + "\",\n"
+               + "            \"distribution\" : \"" + distribution + "\"\n"
+               + "        },\n"
+               + "        \"primaryMetric\" : {\n"
+               + "            \"score\" : " + number(score) + ",\n"
+               + "            \"scoreError\" : " + number(error) + ",\n"
+               + "            \"scoreConfidence\" : [" + number(score - error)
+               + ", " + number(score + error) + "],\n"
+               + "            \"scoreUnit\" : \"ops/s\",\n"
+               + "            \"rawData\" : [[" + raw + "]]\n"
+               + "        },\n"
+               + "        \"secondaryMetrics\" : {" + secondaryMetrics() + "}\n"
+               + "    }";
+    }
+
+    /**
+     * Writes the secondary metrics for JSON
+     *
+     * @return the JSON members of the metrics, empty if none were counted
+     */
+    private String secondaryMetrics() {
+        if (Double.isNaN(allocatedPerOp)) {
+            return "";
+        }
+
+        return "\n"
+               + "            \"\u00b7gc.alloc.rate.norm\" : {\n"
+               + "                \"score\" : " + number(allocatedPerOp)
+               + ",\n"
+               + "                \"scoreError\" : \"NaN\",\n"
+               + "                \"scoreUnit\" : \"B/op\"\n"
+               + "            }\n"
+               + "        ";
+    }
+
+    /**
+     * Writes the number for JSON, which has no NaN
+     *
+     * @param value the number
+     * @return the JSON text of the number
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT,
+                "%.3f", value);
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The entry point of the benchmarks of the SkipList and SkipListDatabase hot
+ * paths. Every benchmark runs at every size and distribution: it is set up
+ * once, warmed up for a few iterations and then measured for a few more,
+ * every iteration timing batches of operations for a fixed time. The bytes
+ * allocated by the measured iterations are counted too, when the JVM can
+ * count the allocations of a thread. Results are printed and can be written
+ * as JSON in the layout of JMH results, to be compared release over release.
+ * <p>
+ * JMH itself cannot be used, it rejects benchmarks in the default package
+ * and classes in a named package cannot reach the ones of this project.
+ * <p>
+ * Options, all optional:
+ * <pre>
+ * -b  names     benchmarks to run, comma separated prefixes of their names
+ * -s  sizes     comma separated sizes, 1000 to 10000000 by default
+ * -d  dists     comma separated distributions, all by default
+ * -wi count     warmup iterations, 3 by default
+ * -i  count     measured iterations, 5 by default
+ * -t  millis    time of every iteration, 1000 by default
+ * -seed number  seed of the generated pairs, 42 by default
+ * -json file    file to write the results to as JSON
+ * </pre>
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class BenchmarkRunner {
+
+    //Sizes run by default
+    private static final String DEFAULT_SIZES =
+            "1000,10000,100000,1000000,10000000";
+
+    //Sum of the results of every run, read so they are not optimized away
+    private static volatile long sink;
+
+    /**
+     * Runs the benchmarks chosen by the options.
+     *
+     * @param args the options
+     * @throws IOException if the JSON file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String names = "";
+        String sizes = DEFAULT_SIZES;
+        String distributions = "";
+        int warmups = 3;
+        int iterations = 5;
+        long millis = 1000;
+        long seed = 42;
+        String json = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-b":
+                    names = args[i + 1];
+                    break;
+                case "-s":
+                    sizes = args[i + 1];
+                    break;
+                case "-d":
+                    distributions = args[i + 1];
+                    break;
+                case "-wi":
+                    warmups = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-t":
+                    millis = Long.parseLong(args[i + 1]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "-json":
+                    json = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option "
+                                                       + args[i]);
+            }
+        }
+
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        for (HotPathBenchmark benchmark : all()) {
+            if (matches(benchmark.name(), names)) {
+                benchmarks.add(benchmark);
+            }
+        }
+
+        List<Distribution> dists = new ArrayList<>();
+        for (Distribution d : Distribution.values()) {
+            if (distributions.isEmpty()
+                || ("," + distributions + ",").contains("," + d + ",")) {
+                dists.add(d);
+            }
+        }
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            int n = Integer.parseInt(size.trim());
+
+            for (Distribution d : dists) {
+                List<KVPair<String, Rectangle>> pairs = d.generate(n,
+                        new Random(seed + 31L * n + d.ordinal()));
+
+                for (HotPathBenchmark benchmark : benchmarks) {
+                    if (n > benchmark.maxSize()) {
+                        continue;
+                    }
+
+                    BenchmarkResult result = measure(benchmark, pairs, d,
+                            new Random(seed), warmups, iterations, millis);
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        }
+
+        if (json != null) {
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(json),
+                    StandardCharsets.UTF_8)) {
+                out.write("[\n");
+                for (int i = 0; i < results.size(); i++) {
+                    out.write(results.get(i).toJson());
+                    out.write(i + 1 < results.size() ? ",\n" : "\n");
+                }
+                out.write("]\n");
+            }
+        }
+    }
+
+    /**
+     * Returns every benchmark there is
+     *
+     * @return the benchmarks
+     */
+    private static List<HotPathBenchmark> all() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.addAll(SkipListBenchmarks.create());
+        benchmarks.addAll(DatabaseBenchmarks.create());
+        benchmarks.addAll(CommandBenchmarks.create());
+        benchmarks.addAll(KeyBenchmarks.create());
+        benchmarks.addAll(WalBenchmarks.create());
+        benchmarks.addAll(ConcurrencyBenchmarks.create());
+        return benchmarks;
+    }
+
+    /**
+     * Checks if the name starts with one of the prefixes
+     *
+     * @param name     the name of a benchmark
+     * @param prefixes the comma separated prefixes, empty to match all
+     * @return true if the benchmark is chosen
+     */
+    private static boolean matches(String name, String prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+
+        for (String prefix : prefixes.split(",")) {
+            if (name.startsWith(prefix.trim())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets up, warms up and measures the benchmark
+     *
+     * @param benchmark    the benchmark to measure
+     * @param pairs        the pairs to fill the structure under test with
+     * @param distribution how the pairs were made
+     * @param random       the source of randomness of the set up
+     * @param warmups      the number of unmeasured iterations
+     * @param iterations   the number of measured iterations
+     * @param millis       the time of every iteration
+     * @return the measured result
+     */
+    private static BenchmarkResult measure(HotPathBenchmark benchmark,
+                                           List<KVPair<String, Rectangle>>
+                                                   pairs,
+                                           Distribution distribution,
+                                           Random random, int warmups,
+                                           int iterations, long millis) {
+        BenchmarkResult result = new BenchmarkResult(benchmark.name(),
+                pairs.size(), distribution, warmups, millis);
+
+        long[] operations = new long[1];
+
+        benchmark.setUp(pairs, random);
+        for (int i = 0; i < warmups; i++) {
+            iteration(benchmark, millis, operations);
+        }
+
+        operations[0] = 0;
+        long allocated = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            result.add(iteration(benchmark, millis, operations));
+        }
+        if (allocated >= 0 && operations[0] > 0) {
+            result.setAllocatedPerOp((allocatedBytes() - allocated)
+                                     / (double) operations[0]);
+        }
+        benchmark.tearDown();
+
+        return result;
+    }
+
+    /**
+     * Runs the benchmark until the timed runs add up to the given time,
+     * at least once
+     *
+     * @param benchmark  the benchmark to run
+     * @param millis     the time of the iteration
+     * @param operations counts the operations made
+     * @return the operations per second
+     */
+    private static double iteration(HotPathBenchmark benchmark,
+                                    long millis, long[] operations) {
+        long limit = millis * 1_000_000L;
+        long timed = 0;
+        long count = 0;
+        long sum = 0;
+
+        while (timed < limit) {
+            long start = System.nanoTime();
+            sum += benchmark.run();
+            timed += System.nanoTime() - start;
+            count += benchmark.batchSize();
+
+            benchmark.restore();
+        }
+
+        sink += sum;
+        operations[0] += count;
+        return count * 1e9 / timed;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread
+     *
+     * @return the allocated bytes, -1 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        return threads.isThreadAllocatedMemoryEnabled()
+                ? threads.getThreadAllocatedBytes(
+                        Thread.currentThread().getId()) : -1;
+    }
+}
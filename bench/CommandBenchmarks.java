@@ -0,0 +1,550 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class creates the benchmarks of reading command lines: the
+ * CommandTokenizer, and the regular expression splitting the processor used
+ * before it, which is kept here to compare against. The lines are made from
+ * the pairs in the mix of the Data/P1test files, one line per pair, so a
+ * size of 10000000 reads ten million lines. All lines are held in one char
+ * array and handed over as a CharBuffer, the way a file read into a buffer
+ * would be. The same lines are also replayed into a database, one after
+ * the other through a RectangleCommandProcessor and through a
+ * CommandPipeline on 1 to 8 threads, with the output thrown away, and in
+ * the binary format of BinaryCommandCodec, which neither parses numbers
+ * nor formats the results.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class CommandBenchmarks {
+
+    //Number of lines read by every run, fewer if the size is smaller
+    private static final int BATCH = 100_000;
+    //Side of the searched regions
+    private static final int REGION_SIDE = 64;
+    //Numbers of threads of the replaying pipelines
+    private static final int[] PIPELINE_THREADS = {1, 2, 4, 8};
+
+    /**
+     * No instances, only the factory method
+     */
+    private CommandBenchmarks() {
+    }
+
+    /**
+     * Creates all the command reading benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new Tokenize());
+        benchmarks.add(new RegexSplit());
+        benchmarks.add(new Replay("commands.replay", 0));
+        for (int threads : PIPELINE_THREADS) {
+            benchmarks.add(new Replay("commands.pipeline.t" + threads,
+                    threads));
+        }
+        benchmarks.add(new BinaryReplay());
+        return benchmarks;
+    }
+
+    /**
+     * This class holds the lines, and the lines each run reads.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private abstract static class LineBenchmark extends HotPathBenchmark {
+        protected char[] text; //All lines, one after another
+        protected int[] starts; //Start of every line, and the end of text
+        private int next; //First line of the next run
+        private int batch; //Number of lines of a run
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name the name the results are reported under
+         */
+        protected LineBenchmark(String name) {
+            super(name, Integer.MAX_VALUE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            StringBuilder lines = new StringBuilder(pairs.size() * 24);
+            starts = new int[pairs.size() + 1];
+
+            for (int i = 0; i < pairs.size(); i++) {
+                starts[i] = lines.length();
+                appendLine(lines, pairs.get(i), random);
+            }
+            starts[pairs.size()] = lines.length();
+
+            text = new char[lines.length()];
+            lines.getChars(0, lines.length(), text, 0);
+            batch = Math.min(BATCH, pairs.size());
+            next = 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return batch;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            int lines = starts.length - 1;
+            int first = next;
+            //Start over once a whole batch no longer fits
+            next = (first + 2 * batch <= lines) ? first + batch : 0;
+            return read(first, first + batch);
+        }
+
+        /**
+         * Reads the lines in the range
+         *
+         * @param from first line to read
+         * @param to   line after the last line to read
+         * @return a value depending on what was read
+         */
+        protected abstract long read(int from, int to);
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            text = null;
+            starts = null;
+        }
+
+        /**
+         * Writes a command about the pair, mostly inserts with some region
+         * searches, searches and removals like the P1test files
+         *
+         * @param lines  receives the command
+         * @param pair   the pair the command is about
+         * @param random the source of randomness
+         */
+        private static void appendLine(StringBuilder lines,
+                                       KVPair<String, Rectangle> pair,
+                                       Random random) {
+            Rectangle rect = pair.getValue();
+            int kind = random.nextInt(10);
+
+            if (kind < 6) {
+                lines.append("insert ").append(pair.getKey()).append(' ');
+                appendRectangle(lines, rect);
+            }
+            else if (kind < 8) {
+                lines.append("regionSearch   ").append(rect.x)
+                        .append(' ').append(rect.y)
+                        .append(' ').append(REGION_SIDE).append(' ')
+                        .append(REGION_SIDE);
+            }
+            else if (kind == 8) {
+                lines.append("search ").append(pair.getKey());
+            }
+            else {
+                lines.append("remove \t");
+                appendRectangle(lines, rect);
+            }
+        }
+
+        /**
+         * Writes the coordinates and sides of the rectangle
+         *
+         * @param lines receives the rectangle
+         * @param rect  the rectangle to write
+         */
+        private static void appendRectangle(StringBuilder lines,
+                                            Rectangle rect) {
+            lines.append(rect.x).append(' ')
+                    .append(rect.y).append(' ')
+                    .append(rect.width).append(' ')
+                    .append(rect.height);
+        }
+    }
+
+    /**
+     * This class times the CommandTokenizer reading the command and every
+     * number of the lines from a single CharBuffer.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Tokenize extends LineBenchmark {
+        private final CommandTokenizer tokens = new CommandTokenizer();
+        private CharBuffer buffer; //Window over the line being read
+
+        /**
+         * Initializes the benchmark
+         */
+        Tokenize() {
+            super("commands.tokenize");
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            super.setUp(pairs, random);
+            buffer = CharBuffer.wrap(text);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected long read(int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                buffer.limit(starts[i + 1]).position(starts[i]);
+                CommandTokenizer.Opcode opcode = tokens.reset(buffer);
+                sum += opcode.ordinal();
+
+                int first = (opcode == CommandTokenizer.Opcode.INSERT) ? 2 : 1;
+                if (opcode != CommandTokenizer.Opcode.SEARCH) {
+                    for (int j = first; j < tokens.count(); j++) {
+                        sum += tokens.intAt(j);
+                    }
+                }
+            }
+
+            return sum;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            super.tearDown();
+            buffer = null;
+        }
+    }
+
+    /**
+     * This class times the regular expression split the processor used
+     * before the tokenizer: a String per line, a Pattern compiled per line,
+     * a list of word Strings and Integer.parseInt per number.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class RegexSplit extends LineBenchmark {
+
+        /**
+         * Initializes the benchmark
+         */
+        RegexSplit() {
+            super("commands.regex");
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected long read(int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                String line = new String(text, starts[i],
+                        starts[i + 1] - starts[i]);
+                List<String> words = new ArrayList<>();
+                Matcher matcher = Pattern.compile("[\\S]+").matcher(line);
+                while (matcher.find()) {
+                    words.add(matcher.group());
+                }
+
+                String command = words.get(0);
+                int first;
+                if (command.equalsIgnoreCase("insert")) {
+                    first = 2;
+                }
+                else if (command.equalsIgnoreCase("remove")) {
+                    first = 1;
+                    sum += 1;
+                }
+                else if (command.equalsIgnoreCase("regionSearch")) {
+                    first = 1;
+                    sum += 2;
+                }
+                else {
+                    first = words.size();
+                    sum += 4;
+                }
+
+                for (int j = first; j < words.size(); j++) {
+                    sum += Integer.parseInt(words.get(j));
+                }
+            }
+
+            return sum;
+        }
+    }
+
+    /**
+     * This class times replaying the lines into a database, one after the
+     * other or through a pipeline, writing the results into a buffer whose
+     * chunks are thrown away. Every run replays its lines into an empty
+     * database.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Replay extends LineBenchmark {
+        private final int threads; //Threads of the pipeline, 0 for none
+        private CommandBatch batch; //All lines, split into words
+        private BufferedChannelWriter out; //Receives the results
+        private RectangleCommandProcessor processor; //Replays one by one
+        private CommandPipeline pipeline; //Replays on many threads
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name    the name the results are reported under
+         * @param threads the number of threads of the pipeline, or 0 to
+         *                replay one line after the other
+         */
+        Replay(String name, int threads) {
+            super(name);
+            this.threads = threads;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            super.setUp(pairs, random);
+            StringBuilder lines = new StringBuilder(text.length
+                                                    + starts.length);
+            for (int i = 0; i + 1 < starts.length; i++) {
+                lines.append(text, starts[i], starts[i + 1] - starts[i])
+                        .append('\n');
+            }
+            batch = CommandBatch.parse(lines);
+            out = new BufferedChannelWriter(OutputStream.nullOutputStream(),
+                    BufferedChannelWriter.DEFAULT_BUFFER_SIZE,
+                    BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+            restore();
+        }
+
+        /**
+         * Empties the database, with a new processor or pipeline over a new
+         * one
+         */
+        @Override
+        public void restore() {
+            if (threads == 0) {
+                processor = new RectangleCommandProcessor();
+                return;
+            }
+
+            closePipeline();
+            pipeline = new CommandPipeline(new ConcurrentDatabase(), out,
+                    threads, CommandPipeline.DEFAULT_WINDOW);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected long read(int from, int to) {
+            try {
+                for (int i = from; i < to; i++) {
+                    if (pipeline == null) {
+                        processor.process(batch, i, out);
+                        out.write(System.lineSeparator());
+                    }
+                    else {
+                        pipeline.accept(batch, i);
+                    }
+                }
+                if (pipeline != null) {
+                    pipeline.finish();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return to - from;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            super.tearDown();
+            closePipeline();
+            batch = null;
+            out = null;
+            processor = null;
+        }
+
+        /**
+         * Stops the threads of the pipeline, if any
+         */
+        private void closePipeline() {
+            if (pipeline != null) {
+                try {
+                    pipeline.close();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                pipeline = null;
+            }
+        }
+    }
+
+
+    /**
+     * This class times replaying the lines into a database in the binary
+     * format: every line is made into a command frame once, and every run
+     * decodes the frames and writes their responses into a buffer that is
+     * emptied whenever it is full, the way Replay throws its output away.
+     * Every run replays its lines into an empty database.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class BinaryReplay extends LineBenchmark {
+        //Bytes of responses gathered before they are thrown away
+        private static final int RESPONSE_BUFFER_SIZE = 1 << 16;
+
+        private ByteBuffer frames; //Command frames of all lines
+        private int[] frameStarts; //Start of the frame of every line
+        private ByteBuffer responses; //Receives the response frames
+        private RectangleCommandProcessor processor; //Replays the frames
+
+        /**
+         * Initializes the benchmark
+         */
+        BinaryReplay() {
+            super("commands.binary");
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            super.setUp(pairs, random);
+            CommandTokenizer tokens = new CommandTokenizer();
+            CharBuffer line = CharBuffer.wrap(text);
+            frames = ByteBuffer.allocate(pairs.size() * 24);
+            frameStarts = new int[pairs.size()];
+
+            for (int i = 0; i < frameStarts.length; i++) {
+                frameStarts[i] = frames.position();
+                line.limit(starts[i + 1]).position(starts[i]);
+                frames = encode(tokens, tokens.reset(line));
+            }
+
+            responses = ByteBuffer.allocate(RESPONSE_BUFFER_SIZE);
+            restore();
+        }
+
+        /**
+         * Empties the database, with a new processor over a new one
+         */
+        @Override
+        public void restore() {
+            processor = new RectangleCommandProcessor();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected long read(int from, int to) {
+            ByteBuffer in = frames.duplicate().position(frameStarts[from]);
+            long bytes = 0;
+
+            for (int i = from; i < to; i++) {
+                responses = processor.process(
+                        BinaryCommandCodec.nextFrame(in, Integer.MAX_VALUE),
+                        responses);
+                if (responses.position() >= RESPONSE_BUFFER_SIZE) {
+                    bytes += responses.position();
+                    responses.clear();
+                }
+            }
+
+            return bytes + responses.position();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            super.tearDown();
+            frames = null;
+            frameStarts = null;
+            responses = null;
+            processor = null;
+        }
+
+        /**
+         * Writes the frame of the command the tokenizer holds
+         *
+         * @param tokens the tokenizer holding a line
+         * @param opcode the command of the line
+         * @return the buffer holding the frames
+         */
+        private ByteBuffer encode(CommandTokenizer tokens,
+                                  CommandTokenizer.Opcode opcode) {
+            switch (opcode) {
+                case INSERT:
+                    return BinaryCommandCodec.insert(frames, new KVPair<>(
+                            tokens.token(1), rectangleAt(tokens, 2)));
+                case REGION_SEARCH:
+                    return BinaryCommandCodec.regionSearch(frames,
+                            rectangleAt(tokens, 1));
+                case SEARCH:
+                    return BinaryCommandCodec.search(frames, tokens.token(1));
+                case REMOVE:
+                    return BinaryCommandCodec.removeByValue(frames,
+                            rectangleAt(tokens, 1));
+                default:
+                    throw new IllegalStateException(opcode.toString());
+            }
+        }
+
+        /**
+         * Reads the rectangle made of four words of the line
+         *
+         * @param tokens the tokenizer holding the line
+         * @param first  the index of the first of the words
+         * @return the rectangle
+         */
+        private static Rectangle rectangleAt(CommandTokenizer tokens,
+                                             int first) {
+            return new Rectangle(tokens.intAt(first), tokens.intAt(first + 1),
+                    tokens.intAt(first + 2), tokens.intAt(first + 3));
+        }
+    }
+}
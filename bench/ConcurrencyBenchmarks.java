@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class creates the stress benchmarks of a ConcurrentDatabase shared
+ * by 1 to 64 threads: reads only, searches by name and regionSearch in
+ * turn, and the same reads with every tenth operation a write, inserting
+ * and removing a pair of the thread. Every run splits the same batch of
+ * operations over the threads, so the operations per second of the thread
+ * counts show how the reads scale. The counters of the database, how many
+ * reads stayed optimistic and how long the threads waited for the lock,
+ * are printed when a benchmark is torn down. The same runs are made on a
+ * ShardedDatabase of 16 shards picked by name, whose writes only wait for
+ * writes of the same shard. Only the bytes allocated by the thread running
+ * the benchmark are counted, not by the threads it hands the operations
+ * to.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class ConcurrencyBenchmarks {
+
+    //Numbers of threads sharing the database
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    //Number of operations of every run, split over the threads
+    private static final int BATCH = 1_280;
+    //Every operation this many is a write in the mixed benchmarks
+    private static final int WRITE_EVERY = 10;
+    //Side of the searched regions
+    private static final int REGION_SIDE = 64;
+    //Largest size the database is filled to
+    private static final int MAX_SIZE = 1_000_000;
+    //Number of shards of the sharded database
+    private static final int SHARDS = 16;
+
+    /**
+     * No instances, only the factory method
+     */
+    private ConcurrencyBenchmarks() {
+    }
+
+    /**
+     * Creates all the concurrency benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        for (int shards : new int[]{0, SHARDS}) {
+            String prefix = (shards == 0) ? "concurrent." : "sharded.";
+            for (int threads : THREADS) {
+                benchmarks.add(new SharedDatabase(prefix + "read.t"
+                                                  + threads, threads, false,
+                        shards));
+            }
+            for (int threads : THREADS) {
+                benchmarks.add(new SharedDatabase(prefix + "mixed.t"
+                                                  + threads, threads, true,
+                        shards));
+            }
+        }
+        return benchmarks;
+    }
+
+    /**
+     * This class times a batch of operations on a ConcurrentDatabase, or a
+     * ShardedDatabase, split over a number of threads.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class SharedDatabase extends HotPathBenchmark {
+        private final int threads; //Number of threads sharing the database
+        private final boolean writes; //True to make every tenth op a write
+        private final int shards; //Number of shards, 0 if not sharded
+        private Database database; //Database under test
+        private ExecutorService pool; //Threads running the operations
+        private List<Callable<Long>> tasks; //Operations of every thread
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name    the name the results are reported under
+         * @param threads the number of threads sharing the database
+         * @param writes  true to make every tenth operation a write
+         * @param shards  the number of shards of a ShardedDatabase, or 0
+         *                for a ConcurrentDatabase
+         */
+        SharedDatabase(String name, int threads, boolean writes,
+                       int shards) {
+            super(name, MAX_SIZE);
+            this.threads = threads;
+            this.writes = writes;
+            this.shards = shards;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            if (shards == 0) {
+                SkipList<String, Rectangle> list = new SkipList<>();
+                for (KVPair<String, Rectangle> pair : pairs) {
+                    list.insert(pair);
+                }
+                database = new ConcurrentDatabase(new SkipListDatabase(list));
+            }
+            else {
+                database = new ShardedDatabase(shards);
+                for (KVPair<String, Rectangle> pair : pairs) {
+                    database.insert(pair);
+                }
+            }
+            pool = Executors.newFixedThreadPool(threads);
+
+            tasks = new ArrayList<>(threads);
+            int range = SkipListDatabase.WORLD_BOX_WIDTH - REGION_SIDE;
+            for (int t = 0; t < threads; t++) {
+                String[] names = new String[BATCH / threads];
+                int[] corners = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = pairs.get(random.nextInt(pairs.size()))
+                            .getKey();
+                    corners[i] = random.nextInt(range);
+                }
+                KVPair<String, Rectangle> own = new KVPair<>("thread" + t,
+                        new Rectangle(corners[0], corners[0], 10, 10));
+                tasks.add(() -> operate(names, corners, own));
+            }
+        }
+
+        /**
+         * Makes the operations of one thread
+         *
+         * @param names   the names searched
+         * @param corners the corners of the searched regions
+         * @param own     the pair the thread inserts and removes
+         * @return the number of pairs found
+         */
+        private long operate(String[] names, int[] corners,
+                             KVPair<String, Rectangle> own) {
+            long found = 0;
+            for (int i = 0; i < names.length; i++) {
+                if (writes && i % WRITE_EVERY == 0) {
+                    found += Boolean.TRUE.equals(database.insert(own))
+                            ? 1 : 0;
+                    found += (database.remove(own.getKey()) == null) ? 0 : 1;
+                }
+                else if (i % 2 == 0) {
+                    List<KVPair<String, Rectangle>> pairs =
+                            database.search(names[i]);
+                    found += (pairs == null) ? 0 : pairs.size();
+                }
+                else {
+                    found += database.regionSearch(corners[i],
+                            corners[i - 1], REGION_SIDE, REGION_SIDE).size();
+                }
+            }
+
+            return found;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return BATCH / threads * threads;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            try {
+                for (Future<Long> result : pool.invokeAll(tasks)) {
+                    found += result.get();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+
+            return found;
+        }
+
+        /**
+         * Prints the counters of a ConcurrentDatabase and stops the threads
+         */
+        @Override
+        public void tearDown() {
+            if (database instanceof ConcurrentDatabase) {
+                ConcurrentDatabase shared = (ConcurrentDatabase) database;
+                System.out.printf("%-36s optimistic %d, retried %d, "
+                                  + "contended %d, waited %.1f ms%n", name(),
+                        shared.optimisticReads(), shared.retriedReads(),
+                        shared.contendedLocks(), shared.waitNanos() / 1e6);
+            }
+            pool.shutdownNow();
+            pool = null;
+            database = null;
+            tasks = null;
+        }
+    }
+}
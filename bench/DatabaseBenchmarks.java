@@ -0,0 +1,478 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class creates the benchmarks of the SkipListDatabase queries:
+ * regionSearch over random regions and intersections over the whole
+ * database, on the default R-tree and sweep line and on off-heap columns,
+ * intersections swept in bands on the threads of the common pool,
+ * scanning the columns for random regions one rectangle at a time against
+ * many at once with the Vector API, reported in rectangles scanned,
+ * prefixSearch for random name prefixes against filtering every name,
+ * the way prefixes were listed before the list searched ranges, and pages
+ * of listAll at random offsets against iterating up to the offset.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class DatabaseBenchmarks {
+
+    //Number of region searches of every run
+    private static final int REGION_BATCH = 100;
+    //Side of the searched regions
+    private static final int REGION_SIDE = 64;
+    //Largest size intersections runs at, larger ones report too many pairs
+    // to keep in memory
+    private static final int INTERSECTIONS_MAX_SIZE = 1_000_000;
+    //Number of prefix searches of every run
+    private static final int PREFIX_BATCH = 100;
+    //Length of the searched prefixes
+    private static final int PREFIX_LENGTH = 3;
+    //Largest size filtering every name runs at, as it visits every pair
+    // for every prefix
+    private static final int PREFIX_SCAN_MAX_SIZE = 100_000;
+    //Number of pages listed by every run
+    private static final int PAGE_BATCH = 100;
+    //Number of pairs of every page
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * No instances, only the factory method
+     */
+    private DatabaseBenchmarks() {
+    }
+
+    /**
+     * Creates all the SkipListDatabase benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new RegionSearch("database.regionSearch", false));
+        benchmarks.add(new RegionSearch("database.regionSearch.columns",
+                true));
+        benchmarks.add(new RegionScan("database.regionScan.scalar",
+                RegionFilter.SCALAR));
+        RegionFilter preferred = RegionFilter.preferred();
+        if (preferred != RegionFilter.SCALAR) {
+            benchmarks.add(new RegionScan("database.regionScan.vector",
+                    preferred));
+        }
+        benchmarks.add(new Intersections("database.intersections",
+                new SweepLineIntersections()));
+        benchmarks.add(new Intersections("database.intersections.columns",
+                new ColumnIntersections()));
+        benchmarks.add(new Intersections("database.intersections.parallel",
+                new ParallelIntersections()));
+        benchmarks.add(new PrefixSearch("database.prefixSearch",
+                Integer.MAX_VALUE, false));
+        benchmarks.add(new PrefixSearch("database.prefixSearch.scan",
+                PREFIX_SCAN_MAX_SIZE, true));
+        benchmarks.add(new ListPage("database.listAll", false));
+        benchmarks.add(new ListPage("database.listAll.scan", true));
+        return benchmarks;
+    }
+
+    /**
+     * Fills a database with the pairs
+     *
+     * @param pairs   the pairs to insert
+     * @param columns true to keep the rectangles in off-heap columns
+     * @return the filled database
+     */
+    private static SkipListDatabase fill(
+            List<KVPair<String, Rectangle>> pairs, boolean columns) {
+        return columns ? fill(pairs, new ColumnIndex<>(),
+                new ColumnIntersections()) : fill(pairs, new RTree<>(),
+                new SweepLineIntersections());
+    }
+
+    /**
+     * Fills a database with the pairs
+     *
+     * @param pairs  the pairs to insert
+     * @param index  the empty spatial index of the database
+     * @param finder the algorithm finding the intersecting rectangles
+     * @return the filled database
+     */
+    private static SkipListDatabase fill(
+            List<KVPair<String, Rectangle>> pairs,
+            SpatialIndex<SequencedPair> index, IntersectionFinder finder) {
+        SkipList<String, Rectangle> list = new SkipList<>();
+        for (KVPair<String, Rectangle> pair : pairs) {
+            list.insert(pair);
+        }
+
+        return new SkipListDatabase(list, index, finder);
+    }
+
+    /**
+     * This class times searching random square regions.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class RegionSearch extends HotPathBenchmark {
+        private final boolean columns; //True to search off-heap columns
+        private SkipListDatabase database; //Database under test
+        private int[] regions; //Top left corners of the searched regions
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name    the name the results are reported under
+         * @param columns true to search off-heap columns
+         */
+        RegionSearch(String name, boolean columns) {
+            super(name, Integer.MAX_VALUE);
+            this.columns = columns;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            database = fill(pairs, columns);
+
+            int range = SkipListDatabase.WORLD_BOX_WIDTH - REGION_SIDE;
+            regions = new int[REGION_BATCH * 2];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = random.nextInt(range);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return REGION_BATCH;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            for (int i = 0; i < regions.length; i += 2) {
+                found += database.regionSearch(regions[i], regions[i + 1],
+                        REGION_SIDE, REGION_SIDE).size();
+            }
+
+            return found;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            database = null;
+        }
+    }
+
+    /**
+     * This class times scanning off-heap columns of every rectangle for
+     * random square regions with a region filter. A batch is every
+     * rectangle scanned, so the results are in rectangles per second.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class RegionScan extends HotPathBenchmark {
+        private final RegionFilter filter; //Filter under test
+        private RectangleColumns columns; //Rectangles scanned
+        private int[] regions; //Top left corners of the searched regions
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name   the name the results are reported under
+         * @param filter the filter under test
+         */
+        RegionScan(String name, RegionFilter filter) {
+            super(name, Integer.MAX_VALUE);
+            this.filter = filter;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            columns = new RectangleColumns(Math.max(1, pairs.size()));
+            for (KVPair<String, Rectangle> pair : pairs) {
+                Rectangle rect = pair.getValue();
+                columns.add(rect.x, rect.y, rect.width, rect.height);
+            }
+
+            int range = SkipListDatabase.WORLD_BOX_WIDTH - REGION_SIDE;
+            regions = new int[REGION_BATCH * 2];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = random.nextInt(range);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return REGION_BATCH * columns.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            for (int i = 0; i < regions.length; i += 2) {
+                found += filter.overlapping(columns, regions[i],
+                        regions[i + 1], REGION_SIDE, REGION_SIDE).length;
+            }
+
+            return found;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            columns = null;
+        }
+    }
+
+    /**
+     * This class times finding all intersecting pairs.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Intersections extends HotPathBenchmark {
+        private final IntersectionFinder finder; //Algorithm under test
+        private SkipListDatabase database; //Database under test
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name   the name the results are reported under
+         * @param finder the algorithm under test
+         */
+        Intersections(String name, IntersectionFinder finder) {
+            super(name, INTERSECTIONS_MAX_SIZE);
+            this.finder = finder;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            database = fill(pairs, new RTree<>(), finder);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return 1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            return database.intersections().size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            database = null;
+        }
+    }
+
+    /**
+     * This class times listing the pairs whose names start with random
+     * prefixes of the names in the database.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class PrefixSearch extends HotPathBenchmark {
+        private final boolean scan; //True to filter every name instead
+        private SkipList<String, Rectangle> list; //List of the database
+        private SkipListDatabase database; //Database under test
+        private String[] prefixes; //Searched prefixes
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name    the name the results are reported under
+         * @param maxSize the largest size the benchmark runs at
+         * @param scan    true to filter every name instead of searching
+         */
+        PrefixSearch(String name, int maxSize, boolean scan) {
+            super(name, maxSize);
+            this.scan = scan;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            list = new SkipList<>();
+            for (KVPair<String, Rectangle> pair : pairs) {
+                list.insert(pair);
+            }
+            database = new SkipListDatabase(list);
+
+            prefixes = new String[PREFIX_BATCH];
+            for (int i = 0; i < prefixes.length; i++) {
+                String key = pairs.get(random.nextInt(pairs.size())).getKey();
+                prefixes[i] = key.substring(0, Math.min(PREFIX_LENGTH,
+                        key.length()));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return PREFIX_BATCH;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            for (String prefix : prefixes) {
+                if (!scan) {
+                    found += database.prefixSearch(prefix).size();
+                    continue;
+                }
+
+                List<KVPair<String, Rectangle>> matches = new ArrayList<>();
+                for (KVPair<String, Rectangle> pair : list) {
+                    if (pair.getKey().startsWith(prefix)) {
+                        matches.add(pair);
+                    }
+                }
+                found += matches.size();
+            }
+
+            return found;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            list = null;
+            database = null;
+            prefixes = null;
+        }
+    }
+
+    /**
+     * This class times listing pages of all the pairs at random offsets.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class ListPage extends HotPathBenchmark {
+        private final boolean scan; //True to iterate up to the offsets
+        private SkipList<String, Rectangle> list; //List of the database
+        private SkipListDatabase database; //Database under test
+        private int[] offsets; //Offsets of the listed pages
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name the name the results are reported under
+         * @param scan true to iterate up to the offsets instead of listing
+         */
+        ListPage(String name, boolean scan) {
+            super(name, scan ? PREFIX_SCAN_MAX_SIZE : Integer.MAX_VALUE);
+            this.scan = scan;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            list = new SkipList<>();
+            for (KVPair<String, Rectangle> pair : pairs) {
+                list.insert(pair);
+            }
+            database = new SkipListDatabase(list);
+
+            offsets = new int[PAGE_BATCH];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = random.nextInt(pairs.size());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return PAGE_BATCH;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            for (int offset : offsets) {
+                if (!scan) {
+                    found += database.listAll(offset, PAGE_SIZE).size();
+                    continue;
+                }
+
+                List<KVPair<String, Rectangle>> page = new ArrayList<>();
+                int i = 0;
+                for (KVPair<String, Rectangle> pair : list) {
+                    if (page.size() == PAGE_SIZE) {
+                        break;
+                    }
+                    if (i++ >= offset) {
+                        page.add(pair);
+                    }
+                }
+                found += page.size();
+            }
+
+            return found;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            list = null;
+            database = null;
+            offsets = null;
+        }
+    }
+}
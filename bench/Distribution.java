@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This enum holds the ways the benchmarks fill the database: names and
+ * rectangles spread uniformly, rectangles gathered around a few centers, and
+ * names drawn from a small pool so that many pairs share a name. Rectangles
+ * shrink as the size grows so that every rectangle overlaps about the same
+ * number of others at every size.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public enum Distribution {
+    UNIFORM,
+    CLUSTERED,
+    DUPLICATES;
+
+    //Side of the square world the rectangles are put in
+    private static final int WORLD = SkipListDatabase.WORLD_BOX_WIDTH;
+    //Largest side of a rectangle
+    private static final int MAX_SIDE = 64;
+    //Number of centers of the clustered rectangles
+    private static final int CLUSTERS = 16;
+    //Standard deviation of the distance of a clustered rectangle from its
+    // center
+    private static final double CLUSTER_SPREAD = 32;
+    //Number of pairs per name when names are duplicated
+    private static final int PAIRS_PER_NAME = 100;
+    //Letters of the random names
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Creates the pairs a benchmark fills the database with
+     *
+     * @param size   the number of pairs
+     * @param random the source of randomness
+     * @return the pairs in no particular order
+     */
+    public List<KVPair<String, Rectangle>> generate(int size, Random random) {
+        int maxSide = Math.max(1, Math.min(MAX_SIDE,
+                (int) (2 * WORLD / Math.sqrt(size))));
+
+        int[] centers = new int[CLUSTERS * 2];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = random.nextInt(WORLD);
+        }
+
+        List<String> pool = new ArrayList<>();
+        if (this == DUPLICATES) {
+            for (int i = 0; i < Math.max(1, size / PAIRS_PER_NAME); i++) {
+                pool.add(name(random));
+            }
+        }
+
+        List<KVPair<String, Rectangle>> pairs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int w = 1 + random.nextInt(maxSide);
+            int h = 1 + random.nextInt(maxSide);
+            int x;
+            int y;
+
+            if (this == CLUSTERED) {
+                int c = random.nextInt(CLUSTERS) * 2;
+                x = clamp((int) (centers[c]
+                        + random.nextGaussian() * CLUSTER_SPREAD), WORLD - w);
+                y = clamp((int) (centers[c + 1]
+                        + random.nextGaussian() * CLUSTER_SPREAD), WORLD - h);
+            }
+            else {
+                x = random.nextInt(WORLD - w + 1);
+                y = random.nextInt(WORLD - h + 1);
+            }
+
+            String name = pool.isEmpty() ? name(random)
+                    : pool.get(random.nextInt(pool.size()));
+            pairs.add(new KVPair<>(name, new Rectangle(x, y, w, h)));
+        }
+
+        return pairs;
+    }
+
+    /**
+     * Creates a random valid name of eight letters
+     *
+     * @param random the source of randomness
+     * @return the name
+     */
+    private static String name(Random random) {
+        char[] name = new char[8];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        }
+
+        return new String(name);
+    }
+
+    /**
+     * Keeps the coordinate between 0 and the given limit
+     *
+     * @param value the coordinate
+     * @param max   the highest allowed coordinate
+     * @return the coordinate moved inside the limits
+     */
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
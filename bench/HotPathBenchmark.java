@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This abstract class holds what every benchmark of a hot path has: a name,
+ * the largest size it can run at, and the batch of operations it times. The
+ * runner sets the benchmark up once per size and distribution, then times
+ * run again and again, calling restore untimed after each run so that every
+ * run starts from the same state.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public abstract class HotPathBenchmark {
+
+    private final String name; //Name the results are reported under
+    private final int maxSize; //Largest size the benchmark runs at
+
+    /**
+     * Initializes the benchmark
+     *
+     * @param name    the name the results are reported under
+     * @param maxSize the largest size the benchmark runs at
+     */
+    protected HotPathBenchmark(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the name the results are reported under
+     *
+     * @return the name of the benchmark
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the largest size the benchmark runs at, bigger sizes are
+     * skipped
+     *
+     * @return the largest size
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Builds the structure under test from the pairs and picks the
+     * operations of a run
+     *
+     * @param pairs  the pairs to fill the structure with
+     * @param random the source of randomness
+     */
+    public abstract void setUp(List<KVPair<String, Rectangle>> pairs,
+                               Random random);
+
+    /**
+     * Returns the number of operations every run makes
+     *
+     * @return a positive integer
+     */
+    public abstract int batchSize();
+
+    /**
+     * Makes the batch of operations, the only timed part
+     *
+     * @return a value depending on the results, so they are not optimized
+     * away
+     */
+    public abstract long run();
+
+    /**
+     * Undoes the changes of the last run. Does nothing by default.
+     */
+    public void restore() {
+        //Nothing changed by default
+    }
+
+    /**
+     * Lets go of the structure under test so its memory can be reclaimed
+     */
+    public abstract void tearDown();
+
+    /**
+     * Picks distinct pairs at random
+     *
+     * @param pairs  the pairs to pick from
+     * @param count  the number of pairs to pick, at most the number of pairs
+     * @param random the source of randomness
+     * @return the picked pairs
+     */
+    protected static List<KVPair<String, Rectangle>> sample(
+            List<KVPair<String, Rectangle>> pairs, int count, Random random) {
+        int[] positions = new int[pairs.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+
+        //Shuffle only the first count positions
+        List<KVPair<String, Rectangle>> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(positions.length - i);
+            int swap = positions[i];
+            positions[i] = positions[j];
+            positions[j] = swap;
+            picked.add(pairs.get(positions[i]));
+        }
+
+        return picked;
+    }
+}
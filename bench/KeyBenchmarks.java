@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * This class creates the benchmarks of validating keys: the
+ * AsciiKeyValidator, the regular expression compiled for every key the way
+ * the database used to, and the same regular expression compiled once. The
+ * keys are the names of the pairs, a tenth of them made invalid in the
+ * ways the P1test files do, so both outcomes are timed.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class KeyBenchmarks {
+
+    //Number of keys validated by every run, fewer if the size is smaller
+    private static final int BATCH = 10_000;
+    //Regular expression of the project spec
+    private static final String REGEX = "^[a-zA-Z][\\w_]*$";
+    //Ways keys are made invalid, put in front of the name
+    private static final String[] INVALID_PREFIXES = {"_", "0", "inExist-"};
+
+    /**
+     * No instances, only the factory method
+     */
+    private KeyBenchmarks() {
+    }
+
+    /**
+     * Creates all the key validation benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new Validate("keys.ascii",
+                AsciiKeyValidator.STANDARD));
+        benchmarks.add(new Validate("keys.regex",
+                key -> Pattern.compile(REGEX).matcher(key).find()));
+
+        Pattern cached = Pattern.compile(REGEX);
+        benchmarks.add(new Validate("keys.regex.cached",
+                key -> cached.matcher(key).find()));
+        return benchmarks;
+    }
+
+    /**
+     * This class times a validator over a batch of keys.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Validate extends HotPathBenchmark {
+        private final KeyValidator validator; //Validator under test
+        private String[] keys; //Keys of a run
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name      the name the results are reported under
+         * @param validator the validator under test
+         */
+        Validate(String name, KeyValidator validator) {
+            super(name, Integer.MAX_VALUE);
+            this.validator = validator;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            List<KVPair<String, Rectangle>> picked = sample(pairs,
+                    Math.min(BATCH, pairs.size()), random);
+
+            keys = new String[picked.size()];
+            for (int i = 0; i < keys.length; i++) {
+                String key = picked.get(i).getKey();
+                keys[i] = (random.nextInt(10) == 0) ? INVALID_PREFIXES[
+                        random.nextInt(INVALID_PREFIXES.length)] + key : key;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return keys.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long valid = 0;
+            for (String key : keys) {
+                if (validator.isValid(key)) {
+                    valid++;
+                }
+            }
+
+            return valid;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            keys = null;
+        }
+    }
+}
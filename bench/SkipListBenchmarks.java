@@ -0,0 +1,354 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class creates the benchmarks of the SkipList operations: insert,
+ * search, remove and removeByValue, each timed on a list filled with the
+ * benchmark size. removeByValue is timed both with and without the value
+ * index. Inserting is timed pair by pair and at once, with batches of 10k
+ * pairs and as large as the list. Building a whole list of the benchmark
+ * size is timed both from sorted pairs and by inserting every pair.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class SkipListBenchmarks {
+
+    //Number of operations of every run
+    private static final int BATCH = 10_000;
+    //Number of removals by value of every run, each scans the list
+    private static final int VALUE_BATCH = 100;
+
+    /**
+     * No instances, only the factory method
+     */
+    private SkipListBenchmarks() {
+    }
+
+    /**
+     * Creates all the SkipList benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new Insert("skipList.insert", BATCH, false));
+        benchmarks.add(new Insert("skipList.insertAll", BATCH, true));
+        benchmarks.add(new Insert("skipList.insert.whole", Integer.MAX_VALUE,
+                false));
+        benchmarks.add(new Insert("skipList.insertAll.whole",
+                Integer.MAX_VALUE, true));
+        benchmarks.add(new Search());
+        benchmarks.add(new Remove());
+        benchmarks.add(new RemoveByValue("skipList.removeByValue", false));
+        benchmarks.add(new RemoveByValue("skipList.removeByValue.indexed",
+                true));
+        benchmarks.add(new Build("skipList.build.sorted", true));
+        benchmarks.add(new Build("skipList.build.insert", false));
+        return benchmarks;
+    }
+
+    /**
+     * This class times building a list of every pair, from the pairs sorted
+     * or by inserting them one by one.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Build extends HotPathBenchmark {
+        private final boolean sorted; //Whether the list is built at once
+        private List<KVPair<String, Rectangle>> pairs; //Pairs, sorted
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name   the name the results are reported under
+         * @param sorted true to build the list from the sorted pairs
+         */
+        Build(String name, boolean sorted) {
+            super(name, Integer.MAX_VALUE);
+            this.sorted = sorted;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> all,
+                          Random random) {
+            SkipList<String, Rectangle> list = new SkipList<>();
+            for (KVPair<String, Rectangle> pair : all) {
+                list.insert(pair);
+            }
+
+            pairs = new ArrayList<>(all.size());
+            for (KVPair<String, Rectangle> pair : list) {
+                pairs.add(pair);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return pairs.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            if (sorted) {
+                return new SkipList<>(new GeometricLevelGenerator(), true,
+                        pairs).size();
+            }
+
+            SkipList<String, Rectangle> list = new SkipList<>(
+                    new GeometricLevelGenerator(), true);
+            for (KVPair<String, Rectangle> pair : pairs) {
+                list.insert(pair);
+            }
+            return list.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            pairs = null;
+        }
+    }
+
+    /**
+     * This class holds the filled list and the pairs each run works on.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private abstract static class ListBenchmark extends HotPathBenchmark {
+        protected SkipList<String, Rectangle> list; //List under test
+        protected List<KVPair<String, Rectangle>> batch; //Pairs of a run
+        private final int batchLimit; //Largest number of pairs of a run
+        private final boolean indexValues; //Whether the list indexes values
+
+        /**
+         * Initializes the benchmark of a list without the value index
+         *
+         * @param name       the name the results are reported under
+         * @param batchLimit the largest number of pairs of a run
+         */
+        protected ListBenchmark(String name, int batchLimit) {
+            this(name, batchLimit, false);
+        }
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name        the name the results are reported under
+         * @param batchLimit  the largest number of pairs of a run
+         * @param indexValues true to keep the value index in the list
+         */
+        protected ListBenchmark(String name, int batchLimit,
+                                boolean indexValues) {
+            super(name, Integer.MAX_VALUE);
+            this.batchLimit = batchLimit;
+            this.indexValues = indexValues;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            list = new SkipList<>(new GeometricLevelGenerator(),
+                    indexValues);
+            for (KVPair<String, Rectangle> pair : pairs) {
+                list.insert(pair);
+            }
+
+            batch = sample(pairs, Math.min(batchLimit, pairs.size()), random);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return batch.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            list = null;
+            batch = null;
+        }
+    }
+
+    /**
+     * This class times inserting pairs, which are removed again afterwards.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Insert extends ListBenchmark {
+        private final boolean atOnce; //Whether the batch is inserted at once
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name       the name the results are reported under
+         * @param batchLimit the largest number of pairs of a run
+         * @param atOnce     true to insert the batch with insertAll
+         */
+        Insert(String name, int batchLimit, boolean atOnce) {
+            super(name, batchLimit);
+            this.atOnce = atOnce;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            if (atOnce) {
+                list.insertAll(batch);
+            }
+            else {
+                for (KVPair<String, Rectangle> pair : batch) {
+                    list.insert(pair);
+                }
+            }
+
+            return list.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restore() {
+            //The latest inserted pair comes first among equal names
+            for (KVPair<String, Rectangle> pair : batch) {
+                list.remove(pair.getKey());
+            }
+        }
+    }
+
+    /**
+     * This class times searching names in the list.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Search extends ListBenchmark {
+
+        /**
+         * Initializes the benchmark
+         */
+        Search() {
+            super("skipList.search", BATCH);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            long found = 0;
+            for (KVPair<String, Rectangle> pair : batch) {
+                found += list.search(pair.getKey()).size();
+            }
+
+            return found;
+        }
+    }
+
+    /**
+     * This class times removing by name, the removed pairs are inserted
+     * again afterwards.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Remove extends ListBenchmark {
+        private final List<KVPair<String, Rectangle>> removed =
+                new ArrayList<>(); //Pairs removed by the last run
+
+        /**
+         * Initializes the benchmark
+         */
+        Remove() {
+            super("skipList.remove", BATCH);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            for (KVPair<String, Rectangle> pair : batch) {
+                removed.add(list.remove(pair.getKey()));
+            }
+
+            return list.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restore() {
+            for (KVPair<String, Rectangle> pair : removed) {
+                list.insert(pair);
+            }
+            removed.clear();
+        }
+    }
+
+    /**
+     * This class times removing by rectangle, the removed pairs are inserted
+     * again afterwards.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class RemoveByValue extends ListBenchmark {
+        private final List<KVPair<String, Rectangle>> removed =
+                new ArrayList<>(); //Pairs removed by the last run
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name        the name the results are reported under
+         * @param indexValues true to keep the value index in the list
+         */
+        RemoveByValue(String name, boolean indexValues) {
+            super(name, VALUE_BATCH, indexValues);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            for (KVPair<String, Rectangle> pair : batch) {
+                removed.add(list.removeByValue(pair.getValue()));
+            }
+
+            return list.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void restore() {
+            for (KVPair<String, Rectangle> pair : removed) {
+                list.insert(pair);
+            }
+            removed.clear();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * This class measures the insert throughput of SkipList and
+ * ConcurrentSkipList with the level picked by a new java.util.Random on
+ * every insert, the way SkipList used to, and with a GeometricLevelGenerator.
+ * The single threaded SkipList runs show the cost of the allocation, the
+ * multi threaded ConcurrentSkipList runs add the contention on the seed of
+ * Random.
+ * <p>
+ * Usage: java SkipListInsertBenchmark [inserts] [threads] [rounds]
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SkipListInsertBenchmark {
+
+    //Number of inserts of every round, unless given
+    private static final int DEFAULT_INSERTS = 200_000;
+    //Number of measured rounds of every case, unless given
+    private static final int DEFAULT_ROUNDS = 7;
+    //Number of unmeasured rounds before measuring every case
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Runs every case and prints the median throughput of each.
+     *
+     * @param args the number of inserts, threads and rounds, all optional
+     */
+    public static void main(String[] args) {
+        int inserts = (args.length > 0) ? Integer.parseInt(args[0])
+                : DEFAULT_INSERTS;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int rounds = (args.length > 2) ? Integer.parseInt(args[2])
+                : DEFAULT_ROUNDS;
+
+        //The same shuffled keys for every case
+        Integer[] keys = new Integer[inserts];
+        for (int i = 0; i < inserts; i++) {
+            keys[i] = i;
+        }
+        Random shuffler = new Random(42);
+        for (int i = inserts - 1; i > 0; i--) {
+            int j = shuffler.nextInt(i + 1);
+            Integer swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+
+        System.out.println("inserts=" + inserts + " threads=" + threads
+                           + " rounds=" + rounds);
+
+        report("SkipList, new Random per insert", rounds, inserts, () ->
+                insertAll(new SkipList<>(new NewRandomLevelGenerator()),
+                        keys));
+        report("SkipList, GeometricLevelGenerator", rounds, inserts, () ->
+                insertAll(new SkipList<>(new GeometricLevelGenerator()),
+                        keys));
+        report("ConcurrentSkipList, new Random per insert", rounds, inserts,
+                () -> insertAll(new ConcurrentSkipList<>(
+                        new NewRandomLevelGenerator()), keys, threads));
+        report("ConcurrentSkipList, GeometricLevelGenerator", rounds,
+                inserts, () -> insertAll(new ConcurrentSkipList<>(
+                        new GeometricLevelGenerator()), keys, threads));
+    }
+
+    /**
+     * Runs the case for the warmup and measured rounds and prints the median
+     * number of inserts per second.
+     *
+     * @param name    the name of the case
+     * @param rounds  the number of measured rounds
+     * @param inserts the number of inserts of every round
+     * @param round   runs one round and returns its time in nanoseconds
+     */
+    private static void report(String name, int rounds, int inserts,
+                               Supplier<Long> round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.get();
+        }
+
+        long[] times = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            times[i] = round.get();
+        }
+        Arrays.sort(times);
+
+        double perSecond = inserts * 1e9 / times[rounds / 2];
+        System.out.printf("%-45s %10.0f inserts/s%n", name, perSecond);
+    }
+
+    /**
+     * Inserts every key into the list from the calling thread
+     *
+     * @param list the list to fill
+     * @param keys the keys to insert
+     * @return the time taken in nanoseconds
+     */
+    private static long insertAll(Container<Integer, Integer> list,
+                                  Integer[] keys) {
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            list.insert(new KVPair<>(key, key));
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Inserts the keys into the list from the given number of threads, each
+     * inserting an equal share of them
+     *
+     * @param list    the list to fill
+     * @param keys    the keys to insert
+     * @param threads the number of inserting threads
+     * @return the time taken in nanoseconds
+     */
+    private static long insertAll(Container<Integer, Integer> list,
+                                  Integer[] keys, int threads) {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int from = (int) ((long) keys.length * t / threads);
+            final int to = (int) ((long) keys.length * (t + 1) / threads);
+
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = from; i < to; i++) {
+                    list.insert(new KVPair<>(keys[i], keys[i]));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        try {
+            ready.await();
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            return System.nanoTime() - start;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * This class picks levels the way SkipList used to: a new Random on every
+     * call and one draw per level. Capped at the default maximum level so
+     * ConcurrentSkipList can use it.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class NewRandomLevelGenerator implements LevelGenerator {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int nextLevel() {
+            int lev = 0;
+            Random value = new Random();
+            while (Math.abs(value.nextInt()) % 2 == 0
+                   && lev < GeometricLevelGenerator.DEFAULT_MAX_LEVEL) {
+                lev++;
+            }
+
+            return lev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int maxLevel() {
+            return GeometricLevelGenerator.DEFAULT_MAX_LEVEL;
+        }
+    }
+}
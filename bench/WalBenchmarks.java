@@ -0,0 +1,445 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class creates the benchmarks of the write-ahead log: logging a batch
+ * of inserts under each sync policy, restarting a database of every pair
+ * by recovering it from its log against replaying the insert commands that
+ * made it, the way a restart worked before the log, and writing and loading
+ * a snapshot of every pair.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class WalBenchmarks {
+
+    //Number of inserts logged by every run, fewer if the size is smaller
+    private static final int BATCH = 1_000;
+
+    /**
+     * No instances, only the factory method
+     */
+    private WalBenchmarks() {
+    }
+
+    /**
+     * Creates all the write-ahead log benchmarks
+     *
+     * @return the benchmarks
+     */
+    public static List<HotPathBenchmark> create() {
+        List<HotPathBenchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new Append("wal.append.commit",
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT));
+        benchmarks.add(new Append("wal.append.interval",
+                WriteAheadLog.SyncPolicy.INTERVAL));
+        benchmarks.add(new Append("wal.append.never",
+                WriteAheadLog.SyncPolicy.NEVER));
+        benchmarks.add(new Recover());
+        benchmarks.add(new Replay());
+        benchmarks.add(new SnapshotLoad());
+        benchmarks.add(new SnapshotWrite());
+        return benchmarks;
+    }
+
+    /**
+     * Creates an empty file for a log
+     *
+     * @return the path of the file, which does not exist yet
+     */
+    private static Path newLogFile() {
+        try {
+            Path file = Files.createTempFile("bench", ".wal");
+            Files.delete(file);
+            return file;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes a log file, if any
+     *
+     * @param file the path of the file
+     */
+    private static void deleteLogFile(Path file) {
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This class times logging a batch of inserts under a sync policy, every
+     * run to a new log.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Append extends HotPathBenchmark {
+        private final WriteAheadLog.SyncPolicy policy; //Policy under test
+        private List<KVPair<String, Rectangle>> batch; //Inserts of a run
+        private Path file; //File of the log
+        private WriteAheadLog log; //Log of the run
+
+        /**
+         * Initializes the benchmark
+         *
+         * @param name   the name the results are reported under
+         * @param policy the sync policy under test
+         */
+        Append(String name, WriteAheadLog.SyncPolicy policy) {
+            super(name, Integer.MAX_VALUE);
+            this.policy = policy;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            batch = sample(pairs, Math.min(BATCH, pairs.size()), random);
+            restore();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return batch.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            try {
+                for (KVPair<String, Rectangle> pair : batch) {
+                    log.logInsert(pair);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return log.size();
+        }
+
+        /**
+         * Starts a new log, so every run appends to the same length
+         */
+        @Override
+        public void restore() {
+            tearDown();
+            file = newLogFile();
+            try {
+                log = WriteAheadLog.open(file, policy, new SkipList<>());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            try {
+                if (log != null) {
+                    log.close();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            deleteLogFile(file);
+            log = null;
+            file = null;
+        }
+    }
+
+    /**
+     * This class times opening a database of every pair from its log.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Recover extends HotPathBenchmark {
+        private Path file; //File of the log
+        private int size; //Number of pairs logged
+
+        /**
+         * Initializes the benchmark
+         */
+        Recover() {
+            super("wal.recover", Integer.MAX_VALUE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            file = newLogFile();
+            size = pairs.size();
+            try (WriteAheadLog log = WriteAheadLog.open(file,
+                    WriteAheadLog.SyncPolicy.NEVER, new SkipList<>())) {
+                for (KVPair<String, Rectangle> pair : pairs) {
+                    log.logInsert(pair);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            try (DurableDatabase data = DurableDatabase.open(file,
+                    WriteAheadLog.SyncPolicy.NEVER)) {
+                return data.log().recoveredRecords();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            deleteLogFile(file);
+            file = null;
+        }
+    }
+
+    /**
+     * This class times making a database of every pair by processing the
+     * insert commands of the pairs.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Replay extends HotPathBenchmark {
+        private String[] commands; //Insert commands of the pairs
+
+        /**
+         * Initializes the benchmark
+         */
+        Replay() {
+            super("wal.replay", Integer.MAX_VALUE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            commands = new String[pairs.size()];
+            for (int i = 0; i < commands.length; i++) {
+                Rectangle r = pairs.get(i).getValue();
+                commands[i] = "insert " + pairs.get(i).getKey() + " " + r.x
+                              + " " + r.y + " " + r.width + " " + r.height;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return commands.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            Processor processor = new RectangleCommandProcessor();
+            StringBuilder out = new StringBuilder();
+            long written = 0;
+
+            try {
+                for (String command : commands) {
+                    processor.process(command, out);
+                    written += out.length();
+                    out.setLength(0);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return written;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            commands = null;
+        }
+    }
+
+    /**
+     * This class times opening a database of every pair from its snapshot,
+     * with an empty log.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class SnapshotLoad extends HotPathBenchmark {
+        private Path file; //File of the log
+        private Path snapshot; //File of the snapshot
+        private int size; //Number of pairs saved
+
+        /**
+         * Initializes the benchmark
+         */
+        SnapshotLoad() {
+            super("wal.snapshot.load", Integer.MAX_VALUE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            file = newLogFile();
+            snapshot = newLogFile();
+            size = pairs.size();
+            try (DurableDatabase data = DurableDatabase.open(file, snapshot,
+                    WriteAheadLog.SyncPolicy.NEVER, Long.MAX_VALUE, false)) {
+                for (KVPair<String, Rectangle> pair : pairs) {
+                    data.insert(pair);
+                }
+                data.checkpoint();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            try (DurableDatabase data = DurableDatabase.open(file, snapshot,
+                    WriteAheadLog.SyncPolicy.NEVER, Long.MAX_VALUE, false)) {
+                return data.log().generation();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            deleteLogFile(file);
+            deleteLogFile(snapshot);
+            file = null;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * This class times saving a list of every pair in a snapshot.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class SnapshotWrite extends HotPathBenchmark {
+        private SkipList<String, Rectangle> list; //List of the pairs
+        private Path snapshot; //File of the snapshot
+
+        /**
+         * Initializes the benchmark
+         */
+        SnapshotWrite() {
+            super("wal.snapshot.write", Integer.MAX_VALUE);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setUp(List<KVPair<String, Rectangle>> pairs,
+                          Random random) {
+            list = new SkipList<>();
+            for (KVPair<String, Rectangle> pair : pairs) {
+                list.insert(pair);
+            }
+            snapshot = newLogFile();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int batchSize() {
+            return list.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long run() {
+            try {
+                Snapshot.write(snapshot, 1, list, false);
+                return Files.size(snapshot);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void tearDown() {
+            deleteLogFile(snapshot);
+            list = null;
+            snapshot = null;
+        }
+    }
+}
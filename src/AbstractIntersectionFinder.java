@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * This abstract class holds the functionality that is central to all the
+ * concrete implementations of the IntersectionFinder class, which is
+ * collecting the found pairs and handing them to both of their members.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public abstract class AbstractIntersectionFinder
+        implements IntersectionFinder {
+
+    /**
+     * This class collects the found pairs of positions in a flat array and
+     * turns them into the sorted partners of every position.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    protected static class PartnerCollector {
+        private int[] found; //Both members of every pair, one after another
+        private int count; //Number of used slots of found
+        private final int[] degree; //Number of partners of each position
+
+        /**
+         * Initializes an empty collector for the given number of positions
+         *
+         * @param n the number of positions
+         */
+        public PartnerCollector(int n) {
+            found = new int[16];
+            degree = new int[n];
+        }
+
+        /**
+         * Records that the rectangles at the two positions share area
+         *
+         * @param a the position of one rectangle
+         * @param b the position of the other rectangle
+         */
+        public void add(int a, int b) {
+            if (count + 2 > found.length) {
+                found = Arrays.copyOf(found, found.length * 2);
+            }
+
+            found[count++] = a;
+            found[count++] = b;
+            degree[a]++;
+            degree[b]++;
+        }
+
+        /**
+         * Gives each recorded pair to both of its members.
+         *
+         * @return for every position, the sorted positions it was paired with
+         */
+        public int[][] partners() {
+            int[][] partners = new int[degree.length][];
+            int[] filled = new int[degree.length];
+
+            for (int i = 0; i < degree.length; i++) {
+                partners[i] = new int[degree[i]];
+            }
+
+            for (int p = 0; p < count; p += 2) {
+                int a = found[p];
+                int b = found[p + 1];
+                partners[a][filled[a]++] = b;
+                partners[b][filled[b]++] = a;
+            }
+
+            for (int[] row : partners) {
+                Arrays.sort(row);
+            }
+
+            return partners;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * This class implements the KeyValidator interface with two tables of the
+ * ASCII chars a key may use: the chars it may start with and the chars that
+ * may follow. Each table is 128 bits held in two longs, so checking a char
+ * is a shift and a mask, and checking a key neither allocates nor backtracks
+ * the way a regular expression does. Chars outside ASCII are never accepted.
+ * The tables are given in the notation of a regular expression char class,
+ * such as "a-zA-Z0-9_".
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class AsciiKeyValidator implements KeyValidator {
+
+    //The naming policy of the project spec: a letter, then letters, digits
+    // and underscores, the same keys as ^[a-zA-Z][\w_]*$ matched
+    public static final AsciiKeyValidator STANDARD =
+            new AsciiKeyValidator("a-zA-Z", "a-zA-Z0-9_", Integer.MAX_VALUE);
+
+    private final long firstLow; //Chars 0 to 63 a key may start with
+    private final long firstHigh; //Chars 64 to 127 a key may start with
+    private final long restLow; //Chars 0 to 63 that may follow
+    private final long restHigh; //Chars 64 to 127 that may follow
+    private final int maxLength; //Longest key accepted
+
+    /**
+     * Initializes the validator with the chars keys are made of
+     *
+     * @param firstChars the chars a key may start with, as a char class
+     * @param restChars  the chars that may follow the first, as a char class
+     * @param maxLength  the longest key accepted
+     * @throws IllegalArgumentException if a class is null, has chars outside
+     *                                  ASCII or a range going backwards, or
+     *                                  maxLength is not positive
+     */
+    public AsciiKeyValidator(String firstChars, String restChars,
+                             int maxLength) {
+        if (firstChars == null || restChars == null || maxLength <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        long[] first = table(firstChars);
+        long[] rest = table(restChars);
+        firstLow = first[0];
+        firstHigh = first[1];
+        restLow = rest[0];
+        restHigh = rest[1];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid(CharSequence key) {
+        int length = key.length();
+        if (length == 0 || length > maxLength
+            || !contains(firstLow, firstHigh, key.charAt(0))) {
+            return false;
+        }
+
+        for (int i = 1; i < length; i++) {
+            if (!contains(restLow, restHigh, key.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the longest key accepted
+     *
+     * @return the largest length
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Checks if the char is in the table
+     *
+     * @param low  the bits of chars 0 to 63
+     * @param high the bits of chars 64 to 127
+     * @param c    the char to check
+     * @return true if the char is in the table
+     */
+    private static boolean contains(long low, long high, char c) {
+        if (c >= 128) {
+            return false;
+        }
+
+        //Shifts only use the low 6 bits of c
+        return (((c < 64) ? low : high) >>> c & 1) != 0;
+    }
+
+    /**
+     * Makes the table of the chars of a char class, made of single chars
+     * and ranges such as a-z. A '-' first or last in the class is the char
+     * itself.
+     *
+     * @param chars the char class
+     * @return the bits of chars 0 to 63 and 64 to 127
+     * @throws IllegalArgumentException if the class has chars outside ASCII
+     *                                  or a range going backwards
+     */
+    private static long[] table(String chars) {
+        long[] bits = new long[2];
+
+        for (int i = 0; i < chars.length(); i++) {
+            char from = chars.charAt(i);
+            char to = from;
+            if (i + 2 < chars.length() && chars.charAt(i + 1) == '-') {
+                to = chars.charAt(i + 2);
+                i += 2;
+            }
+
+            if (to >= 128 || from > to) {
+                throw new IllegalArgumentException();
+            }
+
+            for (char c = from; c <= to; c++) {
+                bits[c >> 6] |= 1L << c;
+            }
+        }
+
+        return bits;
+    }
+}
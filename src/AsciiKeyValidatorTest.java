@@ -0,0 +1,137 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the char tables of the
+ * AsciiKeyValidator class and the combining of validators into rule sets
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class AsciiKeyValidatorTest {
+
+    /**
+     * Tests that the standard policy accepts the same keys as the regular
+     * expression of the project spec, for keys without line terminators
+     */
+    @Test
+    public void testStandardMatchesRegex() {
+        Pattern pattern = Pattern.compile("^[a-zA-Z][\\w_]*$");
+        String chars = "aZz09_-. é$\t";
+        Random random = new Random(3);
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                key.append(chars.charAt(random.nextInt(chars.length())));
+            }
+
+            assertEquals(key.toString(), pattern.matcher(key).find(),
+                    AsciiKeyValidator.STANDARD.isValid(key));
+        }
+    }
+
+    /**
+     * Tests the standard policy on the keys of the P1test files
+     */
+    @Test
+    public void testStandard() {
+        KeyValidator standard = AsciiKeyValidator.STANDARD;
+
+        assertTrue(standard.isValid("r_r"));
+        assertTrue(standard.isValid("virtual_REC0"));
+        assertTrue(standard.isValid("a"));
+        assertFalse(standard.isValid(""));
+        assertFalse(standard.isValid("_a"));
+        assertFalse(standard.isValid("0a"));
+        assertFalse(standard.isValid("a-b"));
+        assertFalse(standard.isValid("a\n"));
+        assertFalse(standard.isValid("Ła"));
+        assertFalse(standard.isValid("aā"));
+        assertEquals(Integer.MAX_VALUE,
+                AsciiKeyValidator.STANDARD.maxLength());
+    }
+
+    /**
+     * Tests a policy of other chars and a length limit
+     */
+    @Test
+    public void testCustomPolicy() {
+        AsciiKeyValidator validator = new AsciiKeyValidator("A-Z_", "-a-z.",
+                4);
+
+        assertTrue(validator.isValid("_a.b"));
+        assertTrue(validator.isValid("Z-"));
+        assertTrue(validator.isValid("A"));
+        assertFalse(validator.isValid("a"));
+        assertFalse(validator.isValid("Aa.bc"));
+        assertFalse(validator.isValid("AB"));
+        assertFalse(validator.isValid("A\u007F"));
+        assertEquals(4, validator.maxLength());
+
+        AsciiKeyValidator all = new AsciiKeyValidator("\u0000-\u007F",
+                "\u0000-\u007F", 10);
+        assertTrue(all.isValid("\u0000?\u007F@"));
+        assertFalse(all.isValid("\u0080"));
+    }
+
+    /**
+     * Tests that a rule set accepts only the keys all its rules accept, and
+     * asks later rules only about keys the earlier ones accept
+     */
+    @Test
+    public void testRuleSet() {
+        int[] asked = {0};
+        KeyValidator rules = AsciiKeyValidator.STANDARD
+                .and(key -> key.length() <= 5)
+                .and(key -> {
+                    asked[0]++;
+                    return !key.toString().startsWith("tmp");
+                });
+
+        assertTrue(rules.isValid("rect"));
+        assertFalse(rules.isValid("tmp1"));
+        assertFalse(rules.isValid("rectangle"));
+        assertFalse(rules.isValid("1rect"));
+        assertEquals(2, asked[0]);
+    }
+
+    /**
+     * Tests the invalid arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        String[][] classes = {{null, "a"}, {"a", null}, {"z-a", "a"},
+            {"a", "a-Ā"}, {"é", "a"}};
+        for (String[] chars : classes) {
+            try {
+                new AsciiKeyValidator(chars[0], chars[1], 1);
+                fail();
+            }
+            catch (IllegalArgumentException e) {
+                assertNotNull(e);
+            }
+        }
+
+        try {
+            new AsciiKeyValidator("a", "a", 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            AsciiKeyValidator.STANDARD.and(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
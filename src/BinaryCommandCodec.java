@@ -0,0 +1,442 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class encodes and decodes the binary format of the commands and their
+ * results, an alternative to the text lines for clients sending many
+ * commands: nothing is parsed from digits or formatted into them, and a
+ * command takes a few bytes more than its name.
+ * <p>
+ * Every command and every response is a frame: the length of its body as an
+ * int, then the body. The body of a command is its opcode followed by the
+ * name as a short length and UTF-8 bytes and/or the four ints of the
+ * rectangle, the way the WriteAheadLog writes its records:
+ * <ul>
+ * <li>INSERT: the name and the rectangle;</li>
+ * <li>REMOVE and SEARCH: the name;</li>
+ * <li>REMOVE_BY_VALUE and REGION_SEARCH: the rectangle;</li>
+ * <li>INTERSECTIONS and DUMP: nothing more.</li>
+ * </ul>
+ * The body of a response is a status followed, when it is OK, by the result:
+ * nothing for an insert, the pair removed for a removal, the number of pairs
+ * and the pairs for a search or region search, the number of intersecting
+ * couples and both pairs of every couple for intersections, and the dump as
+ * an int length and UTF-8 bytes. A pair is its name and rectangle. A command
+ * that cannot be decoded is answered with INVALID and nothing more.
+ * <p>
+ * Ints are written big-endian, the order of a new ByteBuffer. The writing
+ * methods grow the buffer when it is too small, so they return the buffer
+ * holding what was written, which is the one given or a larger copy of it.
+ * The reading methods throw a BufferUnderflowException when the buffer ends
+ * too soon.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class BinaryCommandCodec {
+
+    //First bytes a client sends to speak the binary format to a
+    // CommandServer: a byte no text command starts with, then "RB1"
+    public static final int MAGIC = 0x80524231;
+    //Bytes of the length in front of every body
+    public static final int FRAME_HEADER_SIZE = 4;
+    //Longest name, in UTF-8 bytes
+    public static final int MAX_NAME_BYTES = 0xFFFF;
+
+    //Opcodes of the commands
+    public static final byte INSERT = 1;
+    public static final byte REMOVE = 2;
+    public static final byte REMOVE_BY_VALUE = 3;
+    public static final byte REGION_SEARCH = 4;
+    public static final byte INTERSECTIONS = 5;
+    public static final byte SEARCH = 6;
+    public static final byte DUMP = 7;
+
+    //Statuses of the responses
+    public static final byte OK = 0;
+    public static final byte REJECTED = 1;
+    public static final byte NOT_FOUND = 2;
+    public static final byte INVALID = 3;
+
+    /**
+     * No instances, only static methods
+     */
+    private BinaryCommandCodec() {
+    }
+
+    /**
+     * Writes an insert of the pair
+     *
+     * @param out  the buffer to write to
+     * @param pair the pair to insert
+     * @return the buffer holding the command
+     * @throws IllegalArgumentException if the name is too long
+     */
+    public static ByteBuffer insert(ByteBuffer out,
+                                    KVPair<String, Rectangle> pair) {
+        byte[] name = nameBytes(pair.getKey());
+        out = ensure(out, FRAME_HEADER_SIZE + 1 + 2 + name.length + 16);
+        int start = startFrame(out);
+        out.put(INSERT);
+        putName(out, name);
+        putRectangle(out, pair.getValue());
+        return endFrame(out, start);
+    }
+
+    /**
+     * Writes a removal of the newest pair with the name
+     *
+     * @param out  the buffer to write to
+     * @param name the name to remove
+     * @return the buffer holding the command
+     * @throws IllegalArgumentException if the name is too long
+     */
+    public static ByteBuffer remove(ByteBuffer out, String name) {
+        return named(out, REMOVE, name);
+    }
+
+    /**
+     * Writes a removal of a pair with the rectangle
+     *
+     * @param out       the buffer to write to
+     * @param rectangle the rectangle to remove
+     * @return the buffer holding the command
+     */
+    public static ByteBuffer removeByValue(ByteBuffer out,
+                                           Rectangle rectangle) {
+        return sized(out, REMOVE_BY_VALUE, rectangle);
+    }
+
+    /**
+     * Writes a search of the pairs intersecting the region
+     *
+     * @param out    the buffer to write to
+     * @param region the region to search
+     * @return the buffer holding the command
+     */
+    public static ByteBuffer regionSearch(ByteBuffer out, Rectangle region) {
+        return sized(out, REGION_SEARCH, region);
+    }
+
+    /**
+     * Writes a search of every couple of intersecting pairs
+     *
+     * @param out the buffer to write to
+     * @return the buffer holding the command
+     */
+    public static ByteBuffer intersections(ByteBuffer out) {
+        return bare(out, INTERSECTIONS);
+    }
+
+    /**
+     * Writes a search of the pairs with the name
+     *
+     * @param out  the buffer to write to
+     * @param name the name to search
+     * @return the buffer holding the command
+     * @throws IllegalArgumentException if the name is too long
+     */
+    public static ByteBuffer search(ByteBuffer out, String name) {
+        return named(out, SEARCH, name);
+    }
+
+    /**
+     * Writes a dump of the database
+     *
+     * @param out the buffer to write to
+     * @return the buffer holding the command
+     */
+    public static ByteBuffer dump(ByteBuffer out) {
+        return bare(out, DUMP);
+    }
+
+    /**
+     * Takes the next whole frame from the buffer, moving past it
+     *
+     * @param in    the buffer holding the frames, from its position to its
+     *              limit
+     * @param limit the longest body allowed
+     * @return the body of the frame, from its position to its limit, or null
+     * if the frame is not whole yet
+     * @throws IllegalArgumentException if the body is longer than the limit
+     */
+    public static ByteBuffer nextFrame(ByteBuffer in, int limit) {
+        if (in.remaining() < FRAME_HEADER_SIZE) {
+            return null;
+        }
+
+        int length = in.getInt(in.position());
+        if (length < 0 || length > limit) {
+            throw new IllegalArgumentException("Frame too long");
+        }
+        if (in.remaining() < FRAME_HEADER_SIZE + length) {
+            return null;
+        }
+
+        ByteBuffer body = in.slice(in.position() + FRAME_HEADER_SIZE,
+                length);
+        in.position(in.position() + FRAME_HEADER_SIZE + length);
+        return body;
+    }
+
+    /**
+     * Makes room for the length of a frame
+     *
+     * @param out the buffer the frame is written to, with room for the
+     *            length
+     * @return the position of the frame
+     */
+    public static int startFrame(ByteBuffer out) {
+        int start = out.position();
+        out.putInt(0);
+        return start;
+    }
+
+    /**
+     * Writes the length of the frame, which ends at the position
+     *
+     * @param out   the buffer the frame was written to
+     * @param start the position of the frame
+     * @return the buffer
+     */
+    public static ByteBuffer endFrame(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - FRAME_HEADER_SIZE);
+        return out;
+    }
+
+    /**
+     * Makes sure the buffer has room for the bytes, copying it into a larger
+     * one if it has not
+     *
+     * @param out   the buffer to write to
+     * @param bytes the number of bytes to write
+     * @return the buffer to write to, out or a larger copy of it
+     */
+    public static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+
+        int capacity = Math.max(out.capacity() * 2, out.position() + bytes);
+        ByteBuffer larger = out.isDirect() ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+        return larger.put(out.flip());
+    }
+
+    /**
+     * Writes a pair
+     *
+     * @param out  the buffer to write to
+     * @param pair the pair
+     * @return the buffer holding the pair
+     * @throws IllegalArgumentException if the name is too long
+     */
+    public static ByteBuffer putPair(ByteBuffer out,
+                                     KVPair<String, Rectangle> pair) {
+        byte[] name = nameBytes(pair.getKey());
+        out = ensure(out, 2 + name.length + 16);
+        putName(out, name);
+        putRectangle(out, pair.getValue());
+        return out;
+    }
+
+    /**
+     * Writes the length and UTF-8 bytes of a text
+     *
+     * @param out  the buffer to write to
+     * @param text the text
+     * @return the buffer holding the text
+     */
+    public static ByteBuffer putText(ByteBuffer out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out = ensure(out, 4 + bytes.length);
+        return out.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a name
+     *
+     * @param in the buffer to read from
+     * @return the name
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    public static String getName(ByteBuffer in) {
+        return getString(in, in.getShort() & 0xFFFF);
+    }
+
+    /**
+     * Reads a rectangle
+     *
+     * @param in the buffer to read from
+     * @return the rectangle
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    public static Rectangle getRectangle(ByteBuffer in) {
+        return new Rectangle(in.getInt(), in.getInt(), in.getInt(),
+                in.getInt());
+    }
+
+    /**
+     * Reads a pair
+     *
+     * @param in the buffer to read from
+     * @return the pair
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    public static KVPair<String, Rectangle> getPair(ByteBuffer in) {
+        String name = getName(in);
+        return new KVPair<>(name, getRectangle(in));
+    }
+
+    /**
+     * Reads the number of pairs and the pairs
+     *
+     * @param in the buffer to read from
+     * @return the pairs, in the order they were written
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    public static List<KVPair<String, Rectangle>> getPairs(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            throw new BufferUnderflowException();
+        }
+
+        List<KVPair<String, Rectangle>> pairs =
+                new ArrayList<>(Math.min(count, in.remaining() / 18));
+        for (int i = 0; i < count; i++) {
+            pairs.add(getPair(in));
+        }
+        return pairs;
+    }
+
+    /**
+     * Reads the length and UTF-8 bytes of a text
+     *
+     * @param in the buffer to read from
+     * @return the text
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    public static String getText(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            throw new BufferUnderflowException();
+        }
+        return getString(in, length);
+    }
+
+    /**
+     * Writes a command made of the opcode and a name
+     *
+     * @param out    the buffer to write to
+     * @param opcode the opcode of the command
+     * @param name   the name
+     * @return the buffer holding the command
+     */
+    private static ByteBuffer named(ByteBuffer out, byte opcode,
+                                    String name) {
+        byte[] bytes = nameBytes(name);
+        out = ensure(out, FRAME_HEADER_SIZE + 1 + 2 + bytes.length);
+        int start = startFrame(out);
+        out.put(opcode);
+        putName(out, bytes);
+        return endFrame(out, start);
+    }
+
+    /**
+     * Writes a command made of the opcode and a rectangle
+     *
+     * @param out       the buffer to write to
+     * @param opcode    the opcode of the command
+     * @param rectangle the rectangle
+     * @return the buffer holding the command
+     */
+    private static ByteBuffer sized(ByteBuffer out, byte opcode,
+                                    Rectangle rectangle) {
+        out = ensure(out, FRAME_HEADER_SIZE + 1 + 16);
+        int start = startFrame(out);
+        out.put(opcode);
+        putRectangle(out, rectangle);
+        return endFrame(out, start);
+    }
+
+    /**
+     * Writes a command made of the opcode alone
+     *
+     * @param out    the buffer to write to
+     * @param opcode the opcode of the command
+     * @return the buffer holding the command
+     */
+    private static ByteBuffer bare(ByteBuffer out, byte opcode) {
+        out = ensure(out, FRAME_HEADER_SIZE + 1);
+        int start = startFrame(out);
+        out.put(opcode);
+        return endFrame(out, start);
+    }
+
+    /**
+     * Encodes a name
+     *
+     * @param name the name
+     * @return the UTF-8 bytes of the name
+     * @throws IllegalArgumentException if the name is too long
+     */
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name too long");
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the length and bytes of an encoded name, with room for them
+     *
+     * @param out  the buffer to write to
+     * @param name the UTF-8 bytes of the name
+     */
+    private static void putName(ByteBuffer out, byte[] name) {
+        out.putShort((short) name.length).put(name);
+    }
+
+    /**
+     * Writes the four ints of a rectangle, with room for them
+     *
+     * @param out       the buffer to write to
+     * @param rectangle the rectangle
+     */
+    private static void putRectangle(ByteBuffer out, Rectangle rectangle) {
+        out.putInt(rectangle.x).putInt(rectangle.y).putInt(rectangle.width)
+                .putInt(rectangle.height);
+    }
+
+    /**
+     * Decodes UTF-8 bytes, straight from the array behind the buffer if it
+     * has one
+     *
+     * @param in     the buffer to read from
+     * @param length the number of bytes
+     * @return the decoded text
+     * @throws BufferUnderflowException if the buffer ends too soon
+     */
+    private static String getString(ByteBuffer in, int length) {
+        if (in.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+
+        String text;
+        if (in.hasArray()) {
+            text = new String(in.array(), in.arrayOffset() + in.position(),
+                    length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+}
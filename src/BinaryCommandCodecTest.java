@@ -0,0 +1,151 @@
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the BinaryCommandCodec
+ * class writes the frames of the commands and reads back what it writes
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class BinaryCommandCodecTest {
+
+    /**
+     * Tests if every command is written as its frame: the length, the
+     * opcode and the name and/or rectangle
+     */
+    @Test
+    public void testCommands() {
+        Rectangle rect = new Rectangle(1, 2, 3, 4);
+        ByteBuffer out = ByteBuffer.allocate(256);
+        out = BinaryCommandCodec.insert(out, new KVPair<>("né", rect));
+        out = BinaryCommandCodec.remove(out, "a");
+        out = BinaryCommandCodec.removeByValue(out, rect);
+        out = BinaryCommandCodec.regionSearch(out, rect);
+        out = BinaryCommandCodec.intersections(out);
+        out = BinaryCommandCodec.search(out, "b");
+        out = BinaryCommandCodec.dump(out).flip();
+
+        ByteBuffer body = BinaryCommandCodec.nextFrame(out, 256);
+        assertEquals(1 + 2 + 3 + 16, body.remaining());
+        assertEquals(BinaryCommandCodec.INSERT, body.get());
+        assertEquals(new KVPair<>("né", rect),
+                BinaryCommandCodec.getPair(body));
+
+        body = BinaryCommandCodec.nextFrame(out, 256);
+        assertEquals(BinaryCommandCodec.REMOVE, body.get());
+        assertEquals("a", BinaryCommandCodec.getName(body));
+        assertFalse(body.hasRemaining());
+
+        for (byte opcode : new byte[]{BinaryCommandCodec.REMOVE_BY_VALUE,
+            BinaryCommandCodec.REGION_SEARCH}) {
+            body = BinaryCommandCodec.nextFrame(out, 256);
+            assertEquals(opcode, body.get());
+            assertEquals(rect, BinaryCommandCodec.getRectangle(body));
+            assertFalse(body.hasRemaining());
+        }
+
+        body = BinaryCommandCodec.nextFrame(out, 256);
+        assertEquals(1, body.remaining());
+        assertEquals(BinaryCommandCodec.INTERSECTIONS, body.get());
+
+        body = BinaryCommandCodec.nextFrame(out, 256);
+        assertEquals(BinaryCommandCodec.SEARCH, body.get());
+        assertEquals("b", BinaryCommandCodec.getName(body));
+
+        body = BinaryCommandCodec.nextFrame(out, 256);
+        assertEquals(BinaryCommandCodec.DUMP, body.get());
+        assertFalse(body.hasRemaining());
+        assertFalse(out.hasRemaining());
+    }
+
+    /**
+     * Tests if a frame is only taken once it is whole, and a frame longer
+     * than the limit is refused
+     */
+    @Test
+    public void testNextFrame() {
+        ByteBuffer frames = BinaryCommandCodec.search(ByteBuffer.allocate(64),
+                "abc");
+        int end = frames.position();
+
+        for (int cut = 0; cut < end; cut++) {
+            ByteBuffer part = frames.duplicate().flip().limit(cut);
+            assertNull(BinaryCommandCodec.nextFrame(part, 64));
+            assertEquals(0, part.position());
+        }
+
+        try {
+            BinaryCommandCodec.nextFrame(frames.duplicate().flip(), 5);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            //Body of 6 bytes
+        }
+        assertNotNull(BinaryCommandCodec.nextFrame(frames.flip(), 6));
+    }
+
+    /**
+     * Tests if writing to a full buffer moves what it held to a larger one
+     */
+    @Test
+    public void testGrow() {
+        ByteBuffer out = ByteBuffer.allocate(4).putShort((short) 7);
+        out = BinaryCommandCodec.putText(out, "a longer text");
+        out = BinaryCommandCodec.putPair(out, new KVPair<>("x",
+                new Rectangle(5, 6, 7, 8))).flip();
+
+        assertEquals(7, out.getShort());
+        assertEquals("a longer text", BinaryCommandCodec.getText(out));
+        assertEquals(new KVPair<>("x", new Rectangle(5, 6, 7, 8)),
+                BinaryCommandCodec.getPair(out));
+        assertFalse(out.hasRemaining());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(2);
+        direct = BinaryCommandCodec.putText(direct, "direct").flip();
+        assertTrue(direct.isDirect());
+        assertEquals("direct", BinaryCommandCodec.getText(direct));
+    }
+
+    /**
+     * Tests if the pairs are read back in the order they were written
+     */
+    @Test
+    public void testPairs() {
+        List<KVPair<String, Rectangle>> pairs = List.of(
+                new KVPair<>("a", new Rectangle(1, 1, 1, 1)),
+                new KVPair<>("", new Rectangle(0, 0, 1024, 1024)),
+                new KVPair<>("a", new Rectangle(-5, 3, 2, 1)));
+        ByteBuffer out = ByteBuffer.allocate(4).putInt(pairs.size());
+        for (KVPair<String, Rectangle> pair : pairs) {
+            out = BinaryCommandCodec.putPair(out, pair);
+        }
+
+        assertEquals(pairs, BinaryCommandCodec.getPairs(out.flip()));
+    }
+
+    /**
+     * Tests if reading past the end of the buffer throws
+     */
+    @Test(expected = BufferUnderflowException.class)
+    public void testShortName() {
+        BinaryCommandCodec.getName(ByteBuffer.allocate(4).putShort((short) 3)
+                .put((byte) 'a').flip());
+        fail();
+    }
+
+    /**
+     * Tests if a name longer than a short length can tell is refused
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLongName() {
+        BinaryCommandCodec.search(ByteBuffer.allocate(4),
+                "a".repeat(BinaryCommandCodec.MAX_NAME_BYTES + 1));
+        fail();
+    }
+}
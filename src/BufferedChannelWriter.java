@@ -0,0 +1,296 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * This class writes the output of the commands into a large buffer and hands
+ * it to a byte channel in big chunks, so writing the result of a command
+ * neither builds a String nor goes through a synchronized PrintStream. When
+ * the buffer is emptied into the channel is chosen by the flush policy:
+ * after every command, which suits a person watching the output, or only
+ * once the buffer is full, which suits files of millions of commands.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class BufferedChannelWriter extends Writer {
+
+    //Number of chars buffered before they are written, unless given
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * This enum holds the moments the buffered output is handed to the
+     * channel, on top of whenever the buffer is full.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    public enum FlushPolicy {
+        //After every command
+        EVERY_COMMAND,
+        //Only when the buffer is full, or on flush and close
+        WHEN_FULL
+    }
+
+    private final WritableByteChannel channel; //Receives the encoded output
+    private final Flushable target; //Flushed after the channel, may be null
+    private final CharsetEncoder encoder; //Turns the chars into bytes
+    private final CharBuffer chars; //Output not yet encoded
+    private final ByteBuffer bytes; //Encoded output not yet written
+    private final FlushPolicy policy; //When to hand over the output
+    private boolean closed; //Whether close was called
+
+    /**
+     * Initializes the writer over the output stream, which is wrapped in a
+     * channel and flushed whenever this writer is flushed. Chars are
+     * encoded with the default charset.
+     *
+     * @param out        the stream receiving the output
+     * @param bufferSize the number of chars buffered before they are written
+     * @param policy     when to hand the output over to the stream
+     * @throws IllegalArgumentException if out or policy is null, or the
+     *                                  buffer size is not positive
+     */
+    public BufferedChannelWriter(OutputStream out, int bufferSize,
+                                 FlushPolicy policy) {
+        this((out == null) ? null : Channels.newChannel(out), out,
+                Charset.defaultCharset(), bufferSize, policy);
+    }
+
+    /**
+     * Initializes the writer over the channel.
+     *
+     * @param channel    the channel receiving the output
+     * @param charset    the charset encoding the chars
+     * @param bufferSize the number of chars buffered before they are written
+     * @param policy     when to hand the output over to the channel
+     * @throws IllegalArgumentException if any object is null, or the buffer
+     *                                  size is not positive
+     */
+    public BufferedChannelWriter(WritableByteChannel channel, Charset charset,
+                                 int bufferSize, FlushPolicy policy) {
+        this(channel, null, charset, bufferSize, policy);
+    }
+
+    /**
+     * Initializes the writer over the channel.
+     *
+     * @param channel    the channel receiving the output
+     * @param target     flushed after the channel is written, may be null
+     * @param charset    the charset encoding the chars
+     * @param bufferSize the number of chars buffered before they are written
+     * @param policy     when to hand the output over to the channel
+     */
+    private BufferedChannelWriter(WritableByteChannel channel,
+                                  Flushable target, Charset charset,
+                                  int bufferSize, FlushPolicy policy) {
+        if (channel == null || charset == null || policy == null
+            || bufferSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.channel = channel;
+        this.target = target;
+        this.policy = policy;
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        chars = CharBuffer.allocate(bufferSize);
+        bytes = ByteBuffer.allocateDirect(Math.max(16,
+                (int) Math.ceil(bufferSize * encoder.maxBytesPerChar())));
+    }
+
+    /**
+     * Returns the policy choosing when the output is handed over
+     *
+     * @return the flush policy
+     */
+    public FlushPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Marks the end of the output of a command, flushing the writer if the
+     * policy asks for it.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void commandDone() throws IOException {
+        if (policy == FlushPolicy.EVERY_COMMAND) {
+            flush();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+
+        chars.put((char) c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        append(str, off, off + len);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The chars are copied straight from the sequence, without making a
+     * String of it first.
+     */
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence seq = (csq == null) ? "null" : csq;
+        return append(seq, 0, seq.length());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Writer append(CharSequence csq, int start, int end)
+            throws IOException {
+        ensureOpen();
+        CharSequence seq = (csq == null) ? "null" : csq;
+
+        while (start < end) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+
+            int n = Math.min(end - start, chars.remaining());
+            chars.append(seq, start, start + n);
+            start += n;
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes everything buffered to the channel and flushes the stream
+     * under it, if any.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        drain();
+
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered and closes the channel. Closing again has
+     * no effect.
+     *
+     * @throws IOException if writing to or closing the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+        }
+        finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the buffered chars into bytes, writing the bytes to the
+     * channel whenever their buffer is full. A char starting a surrogate
+     * pair stays buffered until the rest of the pair arrives, unless this is
+     * the end of the input.
+     *
+     * @param endOfInput true if no more chars will be written
+     * @throws IOException if writing to the channel fails
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            }
+            else {
+                break;
+            }
+        }
+
+        chars.compact();
+    }
+
+    /**
+     * Writes all encoded bytes to the channel.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Checks that the writer was not closed
+     *
+     * @throws IOException if the writer was closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+}
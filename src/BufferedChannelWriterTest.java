@@ -0,0 +1,160 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the buffering, encoding and
+ * flush policies of the BufferedChannelWriter class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class BufferedChannelWriterTest {
+
+    /**
+     * Tests that output larger than the buffer is written in full and in
+     * order
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testLargerThanBuffer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedChannelWriter writer = new BufferedChannelWriter(
+                Channels.newChannel(out), StandardCharsets.UTF_8, 4,
+                BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            writer.append("line ").append(new StringBuilder().append(i));
+            writer.write('\n');
+            writer.write("ab".toCharArray(), 1, 1);
+            expected.append("line ").append(i).append('\n').append('b');
+        }
+        writer.close();
+
+        assertEquals(expected.toString(),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that nothing reaches the channel before the buffer fills when
+     * flushing only when full, and that flush writes everything
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testWhenFullPolicy() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedChannelWriter writer = new BufferedChannelWriter(out, 64,
+                BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+
+        writer.append("Rectangle inserted: (a, 1, 1, 1, 1)");
+        writer.commandDone();
+        assertEquals(0, out.size());
+
+        writer.flush();
+        assertEquals("Rectangle inserted: (a, 1, 1, 1, 1)", out.toString());
+    }
+
+    /**
+     * Tests that every command is handed over when flushing after every
+     * command
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testEveryCommandPolicy() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedChannelWriter writer = new BufferedChannelWriter(out, 64,
+                BufferedChannelWriter.FlushPolicy.EVERY_COMMAND);
+
+        writer.append("dump");
+        assertEquals(0, out.size());
+        writer.commandDone();
+        assertEquals("dump", out.toString());
+        assertEquals(BufferedChannelWriter.FlushPolicy.EVERY_COMMAND,
+                writer.policy());
+    }
+
+    /**
+     * Tests that chars needing several bytes, and surrogate pairs split
+     * over the buffer boundary, are encoded correctly
+     *
+     * @throws IOException if writing fails
+     */
+    @Test
+    public void testMultiByteChars() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedChannelWriter writer = new BufferedChannelWriter(
+                Channels.newChannel(out), StandardCharsets.UTF_8, 3,
+                BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+
+        String text = "ab😀é中";
+        writer.write(text);
+        writer.append(null);
+        writer.close();
+
+        assertEquals(text + "null", out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that writing after close fails and closing twice does not
+     *
+     * @throws IOException if closing fails
+     */
+    @Test
+    public void testClosed() throws IOException {
+        BufferedChannelWriter writer = new BufferedChannelWriter(
+                new ByteArrayOutputStream(), 8,
+                BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+        writer.close();
+        writer.close();
+
+        try {
+            writer.write("a");
+            fail();
+        }
+        catch (IOException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests invalid constructor arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            new BufferedChannelWriter(new ByteArrayOutputStream(), 0,
+                    BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new BufferedChannelWriter(new ByteArrayOutputStream(), 8, null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new BufferedChannelWriter((OutputStream) null, 8,
+                    BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements the SpatialIndex interface with RectangleColumns:
+ * the bounds of the items are kept off the heap, one int column per
+ * coordinate, and a region query scans the columns from the first slot to
+ * the last. The scan looks at every item, but it reads four adjacent ints
+ * per item with no pointer to follow and creates nothing but the list of
+ * found items, which beats descending a tree when the region covers much
+ * of the world or the items are few. The scan is done by a RegionFilter,
+ * by default the one testing many rectangles per instruction when the
+ * running Java supports it. The items themselves are kept in an array
+ * beside the columns, with a hash map from every item to its slot so
+ * removing one does not scan.
+ *
+ * @param <T> the type of the items indexed by their bounds
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ColumnIndex<T> implements SpatialIndex<T> {
+
+    //No slot, the end of a chain of slots
+    private static final int NONE = -1;
+
+    private final RectangleColumns columns; //Bounds of the items by slot
+    private final RegionFilter filter; //Scans the columns for a region
+    private Object[] items; //Item of every slot
+    private int[] nextEqual; //Next slot of an equal item, or NONE
+    //First slot of every item, chained to the other slots of equal items
+    private final Map<T, Integer> slots = new HashMap<>();
+
+    /**
+     * Initializes an empty index scanning with the preferred filter
+     */
+    public ColumnIndex() {
+        this(RegionFilter.preferred());
+    }
+
+    /**
+     * Initializes an empty index scanning with the given filter
+     *
+     * @param filter the filter finding the items of a region
+     * @throws IllegalArgumentException if filter is null
+     */
+    public ColumnIndex(RegionFilter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.filter = filter;
+        columns = new RectangleColumns();
+        items = new Object[columns.capacity()];
+        nextEqual = new int[columns.capacity()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = columns.add(bounds.x, bounds.y, bounds.width,
+                bounds.height);
+        if (columns.capacity() > items.length) {
+            items = Arrays.copyOf(items, columns.capacity());
+            nextEqual = Arrays.copyOf(nextEqual, columns.capacity());
+        }
+
+        items[slot] = item;
+        Integer first = slots.put(item, slot);
+        nextEqual[slot] = (first == null) ? NONE : first;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Integer first = slots.get(item);
+        if (first == null) {
+            return false;
+        }
+
+        int previous = NONE;
+        int slot = first;
+        while (slot != NONE && !columns.equals(slot, bounds.x, bounds.y,
+                bounds.width, bounds.height)) {
+            previous = slot;
+            slot = nextEqual[slot];
+        }
+        if (slot == NONE) {
+            return false;
+        }
+
+        relink(item, previous, nextEqual[slot]);
+
+        //Fill the slot with the last one so the slots in use stay together
+        int last = columns.removeByMovingLast(slot);
+        if (last != slot) {
+            @SuppressWarnings("unchecked")
+            T moved = (T) items[last];
+            items[slot] = moved;
+            nextEqual[slot] = nextEqual[last];
+
+            int before = NONE;
+            int current = slots.get(moved);
+            while (current != last) {
+                before = current;
+                current = nextEqual[current];
+            }
+            relink(moved, before, slot);
+        }
+        items[last] = null;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> search(Rectangle region) {
+        if (region == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int[] slots = filter.overlapping(columns, region.x, region.y,
+                region.width, region.height);
+        List<T> found = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            found.add((T) items[slot]);
+        }
+
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bulkLoad(List<Pair<Rectangle, T>> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException();
+        }
+        for (Pair<Rectangle, T> entry : entries) {
+            if (entry == null || entry.getVal1() == null
+                || entry.getVal2() == null) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        columns.clear();
+        Arrays.fill(items, null);
+        slots.clear();
+
+        for (Pair<Rectangle, T> entry : entries) {
+            insert(entry.getVal1(), entry.getVal2());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * Points whatever pointed to a slot of an item, its first slot in the
+     * map or the slot before it in its chain, to another slot
+     *
+     * @param item     the item of the slot
+     * @param previous the slot before in the chain, or NONE if it is first
+     * @param next     the slot to point to instead, or NONE to unlink
+     */
+    private void relink(T item, int previous, int next) {
+        if (previous != NONE) {
+            nextEqual[previous] = next;
+        }
+        else if (next == NONE) {
+            slots.remove(item);
+        }
+        else {
+            slots.put(item, next);
+        }
+    }
+}
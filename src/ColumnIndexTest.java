@@ -0,0 +1,178 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the ColumnIndex class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ColumnIndexTest {
+
+    //Represents an index holding rectangles A (0, 0, 10, 10), B (5, 5, 30,
+    // 30) and C (1000, 1000, 24, 24)
+    private ColumnIndex<String> columnsABC;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        columnsABC = new ColumnIndex<>();
+        columnsABC.insert(new Rectangle(0, 0, 10, 10), "A");
+        columnsABC.insert(new Rectangle(5, 5, 30, 30), "B");
+        columnsABC.insert(new Rectangle(1000, 1000, 24, 24), "C");
+    }
+
+    /**
+     * Tests if null bounds and items are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullInsert() {
+        columnsABC.insert(null, "D");
+        fail();
+    }
+
+    /**
+     * Tests if a region finds the rectangles it shares area with
+     */
+    @Test
+    public void testABCSearch() {
+        List<String> found = columnsABC.search(new Rectangle(0, 0, 40, 40));
+
+        assertEquals(2, found.size());
+        assertTrue(found.contains("A"));
+        assertTrue(found.contains("B"));
+        assertEquals("[C]", columnsABC.search(
+                new Rectangle(1010, 1010, 100, 100)).toString());
+    }
+
+    /**
+     * Tests if a region only touching the edge of A finds nothing
+     */
+    @Test
+    public void testABCTouchingSearch() {
+        assertEquals(0, columnsABC.search(new Rectangle(0, 35, 10, 5))
+                .size());
+        assertEquals(0, columnsABC.search(new Rectangle(3, 3, 0, 5))
+                .size());
+    }
+
+    /**
+     * Tests if only a rectangle with equal bounds and item is removed, and
+     * the last slot moved into its place is still found and removable
+     */
+    @Test
+    public void testABCRemove() {
+        assertFalse(columnsABC.remove(new Rectangle(5, 5, 30, 31), "B"));
+        assertFalse(columnsABC.remove(new Rectangle(5, 5, 30, 30), "D"));
+        assertTrue(columnsABC.remove(new Rectangle(0, 0, 10, 10), "A"));
+
+        assertEquals(2, columnsABC.size());
+        assertEquals("[B]", columnsABC.search(new Rectangle(0, 0, 10, 10))
+                .toString());
+        assertTrue(columnsABC.remove(new Rectangle(1000, 1000, 24, 24),
+                "C"));
+        assertFalse(columnsABC.remove(new Rectangle(1000, 1000, 24, 24),
+                "C"));
+        assertEquals(1, columnsABC.size());
+    }
+
+    /**
+     * Tests if a null filter is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFilter() {
+        new ColumnIndex<String>(null);
+        fail();
+    }
+
+    /**
+     * Tests if random inserts, removals of equal items under other bounds
+     * and a bulk load keep finding what comparing every rectangle finds,
+     * with the scalar and the preferred filter
+     */
+    @Test
+    public void testRandomSearch() {
+        assertRandomSearch(new ColumnIndex<>(RegionFilter.SCALAR));
+        assertRandomSearch(new ColumnIndex<>());
+    }
+
+    /**
+     * Checks random inserts, removals and a bulk load on an index
+     *
+     * @param index the empty index under test
+     */
+    private static void assertRandomSearch(ColumnIndex<Integer> index) {
+        Random random = new Random(7);
+        List<Rectangle> rects = new ArrayList<>();
+        List<Integer> items = new ArrayList<>();
+
+        for (int i = 0; i < 3000; i++) {
+            Rectangle rect = new Rectangle(random.nextInt(1000),
+                    random.nextInt(1000), random.nextInt(30) + 1,
+                    random.nextInt(30) + 1);
+            //Items repeat so that equal items are chained
+            int item = random.nextInt(500);
+            rects.add(rect);
+            items.add(item);
+            index.insert(rect, item);
+
+            if (random.nextInt(3) == 0) {
+                int victim = random.nextInt(rects.size());
+                assertTrue(index.remove(new Rectangle(rects.get(victim).x,
+                        rects.get(victim).y, rects.get(victim).width,
+                        rects.get(victim).height), items.get(victim)));
+                rects.remove(victim);
+                items.remove(victim);
+            }
+        }
+        assertEquals(rects.size(), index.size());
+        assertSearches(index, rects, items, random);
+
+        List<Pair<Rectangle, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < rects.size() / 2; i++) {
+            entries.add(new Pair<>(rects.get(i), items.get(i)));
+        }
+        index.bulkLoad(entries);
+        assertSearches(index, rects.subList(0, entries.size()),
+                items.subList(0, entries.size()), random);
+    }
+
+    /**
+     * Checks random regions against comparing every rectangle
+     *
+     * @param index  the index under test
+     * @param rects  the rectangles in the index
+     * @param items  the item of every rectangle
+     * @param random picks the regions
+     */
+    private static void assertSearches(ColumnIndex<Integer> index,
+                                       List<Rectangle> rects,
+                                       List<Integer> items, Random random) {
+        for (int q = 0; q < 100; q++) {
+            Rectangle region = new Rectangle(random.nextInt(1000),
+                    random.nextInt(1000), random.nextInt(200) + 1,
+                    random.nextInt(200) + 1);
+            List<Integer> found = index.search(region);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < rects.size(); i++) {
+                if (region.intersects(rects.get(i))) {
+                    expected.add(items.get(i));
+                }
+            }
+            found.sort(null);
+            expected.sort(null);
+            assertEquals(expected, found);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class finds all the pairs of rectangles that share some area by
+ * copying them, sorted by x, into off-heap RectangleColumns and sweeping
+ * the columns. The world is cut into horizontal bands as high as the
+ * average rectangle and every rectangle is listed in each band it covers,
+ * in x order. Within a band, each rectangle is compared with the ones
+ * after it until one starts right of its right edge, reading adjacent ints
+ * of the columns instead of Rectangle objects. A pair is only reported in
+ * the band holding the top of the area both share, so it is reported once.
+ * With bands as high as the average rectangle, the rectangles compared
+ * stay within a small factor of the pairs found.
+ * <p>
+ * The columns are kept from one search to the next so that searching
+ * allocates no new buffer once they are large enough, and searches are
+ * therefore run one at a time.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ColumnIntersections extends AbstractIntersectionFinder {
+
+    //Coordinates of the rectangles with area, in x order
+    private final RectangleColumns columns = new RectangleColumns();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int[][] find(List<Rectangle> rects) {
+        if (rects == null) {
+            throw new IllegalArgumentException();
+        }
+
+        PartnerCollector collector = new PartnerCollector(rects.size());
+        int[] position = load(rects);
+        int count = columns.size();
+        if (count == 0) {
+            return collector.partners();
+        }
+
+        long top = Long.MAX_VALUE;
+        long bottom = Long.MIN_VALUE;
+        long heights = 0;
+        for (int slot = 0; slot < count; slot++) {
+            top = Math.min(top, columns.y(slot));
+            bottom = Math.max(bottom,
+                    (long) columns.y(slot) + columns.height(slot));
+            heights += columns.height(slot);
+        }
+
+        //At most one band per rectangle, so a rectangle is listed in at
+        // most two bands on average
+        long bandHeight = Math.max(heights / count,
+                (bottom - top + count - 1) / count);
+        int bands = (int) ((bottom - top - 1) / bandHeight) + 1;
+
+        //Slots listed in every band in x order, band after band
+        int[] start = new int[bands + 1];
+        for (int slot = 0; slot < count; slot++) {
+            for (int b = firstBand(slot, top, bandHeight);
+                 b <= lastBand(slot, top, bandHeight); b++) {
+                start[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            start[b + 1] += start[b];
+        }
+
+        int[] listed = new int[start[bands]];
+        int[] filled = Arrays.copyOf(start, bands);
+        for (int slot = 0; slot < count; slot++) {
+            for (int b = firstBand(slot, top, bandHeight);
+                 b <= lastBand(slot, top, bandHeight); b++) {
+                listed[filled[b]++] = slot;
+            }
+        }
+
+        for (int b = 0; b < bands; b++) {
+            sweep(rects, position, listed, start[b], start[b + 1], b, top,
+                    bandHeight, collector);
+        }
+
+        return collector.partners();
+    }
+
+    /**
+     * Compares every rectangle listed in a band with the ones after it that
+     * start left of its right edge, and collects the pairs sharing area
+     * whose shared area has its top in the band
+     *
+     * @param rects      the rectangles searched
+     * @param position   the position in rects of every slot
+     * @param listed     the slots of all bands
+     * @param from       the index of the first slot of the band in listed
+     * @param to         the index after the last slot of the band
+     * @param band       the number of the band
+     * @param top        the top of the first band
+     * @param bandHeight the height of the bands
+     * @param collector  collects the pairs found
+     */
+    private void sweep(List<Rectangle> rects, int[] position, int[] listed,
+                       int from, int to, int band, long top,
+                       long bandHeight, PartnerCollector collector) {
+        for (int k = from; k < to; k++) {
+            int a = listed[k];
+            int ax = columns.x(a);
+            int ay = columns.y(a);
+            int aw = columns.width(a);
+            int ah = columns.height(a);
+            long right = (long) ax + aw;
+            long below = (long) ay + ah;
+
+            for (int m = k + 1; m < to; m++) {
+                int c = listed[m];
+                if (columns.x(c) >= right) {
+                    break;
+                }
+
+                int cy = columns.y(c);
+                if (cy >= below || ay >= (long) cy + columns.height(c)
+                    || (Math.max(ay, cy) - top) / bandHeight != band) {
+                    continue;
+                }
+
+                //A rectangle object listed twice is not paired with itself
+                if (columns.equals(c, ax, ay, aw, ah)
+                    && rects.get(position[a]) == rects.get(position[c])) {
+                    continue;
+                }
+
+                collector.add(position[a], position[c]);
+            }
+        }
+    }
+
+    /**
+     * Copies the rectangles with area into the columns in x order
+     *
+     * @param rects the rectangles
+     * @return the position in rects of every slot
+     */
+    private int[] load(List<Rectangle> rects) {
+        long[] byX = new long[rects.size()];
+        int count = 0;
+        for (int i = 0; i < rects.size(); i++) {
+            Rectangle rect = rects.get(i);
+            if (rect.width > 0 && rect.height > 0) {
+                byX[count++] = ((long) rect.x << 32) | i;
+            }
+        }
+        Arrays.sort(byX, 0, count);
+
+        columns.clear();
+        int[] position = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            position[slot] = (int) byX[slot];
+            Rectangle rect = rects.get(position[slot]);
+            columns.add(rect.x, rect.y, rect.width, rect.height);
+        }
+
+        return position;
+    }
+
+    /**
+     * Finds the band holding the top edge of the rectangle in the slot
+     *
+     * @param slot       the slot
+     * @param top        the top of the first band
+     * @param bandHeight the height of the bands
+     * @return the number of the band
+     */
+    private int firstBand(int slot, long top, long bandHeight) {
+        return (int) ((columns.y(slot) - top) / bandHeight);
+    }
+
+    /**
+     * Finds the band holding the last row of the rectangle in the slot
+     *
+     * @param slot       the slot
+     * @param top        the top of the first band
+     * @param bandHeight the height of the bands
+     * @return the number of the band
+     */
+    private int lastBand(int slot, long top, long bandHeight) {
+        return (int) (((long) columns.y(slot) + columns.height(slot) - 1
+                       - top) / bandHeight);
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the ColumnIntersections class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ColumnIntersectionsTest {
+
+    // The finder under test
+    private ColumnIntersections columns;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        columns = new ColumnIntersections();
+    }
+
+    /**
+     * Tests if null can be searched for intersections
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFind() {
+        columns.find(null);
+        fail();
+    }
+
+    /**
+     * Tests if an empty list, or one without area, has no intersections
+     */
+    @Test
+    public void testEmptyFind() {
+        assertEquals(0, columns.find(new ArrayList<>()).length);
+
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(new Rectangle(0, 0, 0, 10));
+        rects.add(new Rectangle(0, 0, 10, -1));
+        int[][] partners = columns.find(rects);
+        assertEquals(0, partners[0].length);
+        assertEquals(0, partners[1].length);
+    }
+
+    /**
+     * Tests if rectangles touching at edges and corners do not intersect
+     * but overlapping and nested ones do
+     */
+    @Test
+    public void testTouchingNestedFind() {
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(new Rectangle(0, 0, 10, 10));
+        rects.add(new Rectangle(10, 0, 10, 10));
+        rects.add(new Rectangle(10, 10, 10, 10));
+        rects.add(new Rectangle(2, 2, 3, 3));
+        rects.add(new Rectangle(15, 5, 10, 10));
+
+        int[][] partners = columns.find(rects);
+
+        assertArrayEquals(new int[]{3}, partners[0]);
+        assertArrayEquals(new int[]{4}, partners[1]);
+        assertArrayEquals(new int[]{4}, partners[2]);
+        assertArrayEquals(new int[]{0}, partners[3]);
+        assertArrayEquals(new int[]{1, 2}, partners[4]);
+    }
+
+    /**
+     * Tests if the same rectangle object listed twice is not paired with
+     * itself while an equal but distinct one is
+     */
+    @Test
+    public void testSameObjectFind() {
+        Rectangle rect = new Rectangle(0, 0, 10, 10);
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(rect);
+        rects.add(rect);
+        rects.add(new Rectangle(0, 0, 10, 10));
+
+        int[][] partners = columns.find(rects);
+
+        assertArrayEquals(new int[]{2}, partners[0]);
+        assertArrayEquals(new int[]{2}, partners[1]);
+        assertArrayEquals(new int[]{0, 1}, partners[2]);
+    }
+
+    /**
+     * Tests if random rectangles, small and tall, wide and outside the
+     * world box, give the same pairs as the sweep line, searching several
+     * times with the same finder
+     */
+    @Test
+    public void testRandomFind() {
+        Random random = new Random(13);
+        SweepLineIntersections sweep = new SweepLineIntersections();
+
+        for (int round = 0; round < 6; round++) {
+            List<Rectangle> rects = new ArrayList<>();
+            for (int i = 0; i < 200 + 300 * round; i++) {
+                int side = (i % 50 == 0) ? 900 : 60;
+                rects.add(new Rectangle(random.nextInt(1200) - 100,
+                        random.nextInt(1200) - 100,
+                        random.nextInt(side) + (round == 5 ? 0 : 1),
+                        random.nextInt(i % 70 == 0 ? 1000 : 60) + 1));
+            }
+            rects.add(rects.get(3));
+
+            int[][] expected = sweep.find(rects);
+            int[][] partners = columns.find(rects);
+            for (int i = 0; i < rects.size(); i++) {
+                assertArrayEquals(expected[i], partners[i]);
+            }
+        }
+    }
+}
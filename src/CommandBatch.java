@@ -0,0 +1,273 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * This class holds a chunk of a command file already split into lines and
+ * words, in a few flat arrays instead of an object per line: the decoded
+ * chars, the opcode and first word of every line, the bounds of every word
+ * and the value of every word that is a plain int. Lines are split the same
+ * way Scanner.nextLine splits them, trimmed the same way as String.trim, and
+ * lines left empty are dropped, so the batch holds exactly the commands
+ * Rectangle1 processes. A batch is made by one thread and can then be read
+ * by another, but it is never changed after it is made.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class CommandBatch {
+
+    //Lines and words a batch makes room for at first
+    private static final int INITIAL_LINES = 64;
+
+    private final CharBuffer text; //Decoded chars of the chunk
+    private int lines; //Number of commands
+    private byte[] opcodes; //Opcode ordinal of every command
+    private int[] firstWords; //First word of every command, and the end
+    private int[] lineBounds; //Start and end of every trimmed command
+    private int words; //Number of words of all commands
+    private int[] bounds; //Start and end of every word in text
+    private long[] values; //Value of every word, NOT_INT if not an int
+
+    /**
+     * Initializes an empty batch over the chars
+     *
+     * @param text the decoded chars, starting at position 0
+     */
+    private CommandBatch(CharBuffer text) {
+        this.text = text;
+        opcodes = new byte[INITIAL_LINES];
+        firstWords = new int[INITIAL_LINES + 1];
+        lineBounds = new int[INITIAL_LINES * 2];
+        bounds = new int[INITIAL_LINES * 12];
+        values = new long[INITIAL_LINES * 6];
+    }
+
+    /**
+     * Decodes the bytes and splits them into commands. The bytes should end
+     * at the end of a line, since the last line is taken as complete.
+     * Malformed bytes are replaced, the same as when Scanner reads them.
+     *
+     * @param bytes   the bytes of whole lines, read from position to limit
+     * @param charset the charset the bytes are written in
+     * @return the batch of commands in the bytes
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public static CommandBatch parse(ByteBuffer bytes, Charset charset) {
+        if (bytes == null || charset == null) {
+            throw new IllegalArgumentException();
+        }
+
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars;
+        try {
+            chars = decoder.decode(bytes.duplicate());
+        }
+        catch (CharacterCodingException e) {
+            //Cannot happen as errors are replaced
+            throw new IllegalStateException(e);
+        }
+
+        return parse(chars);
+    }
+
+    /**
+     * Splits the chars into commands
+     *
+     * @param chars the chars of whole lines, read from position to limit
+     * @return the batch of commands in the chars
+     * @throws IllegalArgumentException if chars is null
+     */
+    public static CommandBatch parse(CharSequence chars) {
+        if (chars == null) {
+            throw new IllegalArgumentException();
+        }
+
+        CharBuffer text = (chars instanceof CharBuffer)
+                ? ((CharBuffer) chars).slice() : CharBuffer.wrap(chars);
+        CommandBatch batch = new CommandBatch(text);
+        batch.split();
+        return batch;
+    }
+
+    /**
+     * Returns the number of commands in the batch
+     *
+     * @return the number of commands
+     */
+    public int size() {
+        return lines;
+    }
+
+    /**
+     * Returns the command of a line
+     *
+     * @param index position of the line
+     * @return the opcode of the line
+     * @throws IndexOutOfBoundsException if there is no line at index
+     */
+    public CommandTokenizer.Opcode opcode(int index) {
+        checkLine(index);
+        return CommandTokenizer.Opcode.values()[opcodes[index]];
+    }
+
+    /**
+     * Returns a trimmed line, sharing the chars of the batch
+     *
+     * @param index position of the line
+     * @return the line
+     * @throws IndexOutOfBoundsException if there is no line at index
+     */
+    public CharSequence line(int index) {
+        checkLine(index);
+        return text.subSequence(lineBounds[index * 2],
+                lineBounds[index * 2 + 1]);
+    }
+
+    /**
+     * Returns the chars of the whole batch, which word bounds refer to
+     *
+     * @return the decoded chars
+     */
+    CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Returns the bounds of every word, one after another
+     *
+     * @return the bounds, not to be changed
+     */
+    int[] bounds() {
+        return bounds;
+    }
+
+    /**
+     * Returns the value of every word, NOT_INT for words that are not plain
+     * ints
+     *
+     * @return the values, not to be changed
+     */
+    long[] values() {
+        return values;
+    }
+
+    /**
+     * Returns the position of the first word of a line among all words
+     *
+     * @param index position of the line, or the number of lines for the end
+     *              of the last line
+     * @return the position of the first word
+     */
+    int firstWord(int index) {
+        return firstWords[index];
+    }
+
+    /**
+     * Checks that there is a line at the index
+     *
+     * @param index position of the line
+     * @throws IndexOutOfBoundsException if there is no line at index
+     */
+    void checkLine(int index) {
+        if (index < 0 || index >= lines) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                                                + ", Size: " + lines);
+        }
+    }
+
+    /**
+     * Splits the text into lines at the separators of Scanner.nextLine,
+     * which are \r\n, \n, \r, \u2028, \u2029 and \u0085, and adds every
+     * line that is not empty once trimmed.
+     */
+    private void split() {
+        CommandTokenizer tokens = new CommandTokenizer();
+        CharBuffer window = text.duplicate();
+        int length = text.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = start;
+            while (end < length && !isLineSeparator(text.charAt(end))) {
+                end++;
+            }
+
+            add(tokens, window, start, end);
+
+            if (end < length && text.charAt(end) == '\r' && end + 1 < length
+                && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+
+        firstWords[lines] = words;
+    }
+
+    /**
+     * Trims the line the same as String.trim and adds it if anything is
+     * left
+     *
+     * @param tokens the tokenizer splitting the line into words
+     * @param window a view of the text the line is read through
+     * @param start  the first char of the line
+     * @param end    the char after the last char of the line
+     */
+    private void add(CommandTokenizer tokens, CharBuffer window, int start,
+                     int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        window.limit(end).position(start);
+        CommandTokenizer.Opcode opcode = tokens.reset(window);
+
+        if (lines == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, lines * 2);
+            firstWords = Arrays.copyOf(firstWords, lines * 2 + 1);
+            lineBounds = Arrays.copyOf(lineBounds, lines * 4);
+        }
+        opcodes[lines] = (byte) opcode.ordinal();
+        firstWords[lines] = words;
+        lineBounds[lines * 2] = start;
+        lineBounds[lines * 2 + 1] = end;
+        lines++;
+
+        if (words + tokens.count() > values.length) {
+            int capacity = Math.max(values.length * 2,
+                    words + tokens.count());
+            values = Arrays.copyOf(values, capacity);
+            bounds = Arrays.copyOf(bounds, capacity * 2);
+        }
+        for (int i = 0; i < tokens.count(); i++) {
+            bounds[words * 2] = start + tokens.start(i);
+            bounds[words * 2 + 1] = start + tokens.end(i);
+            values[words] = tokens.plainIntAt(i);
+            words++;
+        }
+    }
+
+    /**
+     * Checks if the char ends a line for Scanner.nextLine
+     *
+     * @param c the char to check
+     * @return true for a line separator
+     */
+    private static boolean isLineSeparator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029'
+               || c == '\u0085';
+    }
+}
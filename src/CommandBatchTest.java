@@ -0,0 +1,236 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the splitting of chunks into
+ * lines and words of the CommandBatch class, and the processing of its lines
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandBatchTest {
+
+    /**
+     * Tests that the lines are split and trimmed the same as Scanner and
+     * String.trim do, and empty lines dropped
+     */
+    @Test
+    public void testLinesLikeScanner() {
+        String text = "dump\r\n  insert a 1 2 3 4 \n\n \t \r"
+                      + "search a\rremove\u0001 a regionSearch 1 1 2 2"
+                      + " \u0085abc\r\n\u0001\u000B";
+        CommandBatch batch = CommandBatch.parse(text);
+
+        List<String> expected = new ArrayList<>();
+        Scanner scanner = new Scanner(text);
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine().trim();
+            if (!line.isEmpty()) {
+                expected.add(line);
+            }
+        }
+
+        assertEquals(expected.size(), batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(expected.get(i), batch.line(i).toString());
+        }
+
+        assertEquals(CommandTokenizer.Opcode.DUMP, batch.opcode(0));
+        assertEquals(CommandTokenizer.Opcode.INSERT, batch.opcode(1));
+        assertEquals(CommandTokenizer.Opcode.SEARCH, batch.opcode(2));
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, batch.opcode(3));
+        assertEquals(CommandTokenizer.Opcode.REGION_SEARCH, batch.opcode(4));
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, batch.opcode(5));
+    }
+
+    /**
+     * Tests that a tokenizer loaded with a line of a batch reads the same
+     * words and numbers as one reset to the line
+     */
+    @Test
+    public void testLoad() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("insert r").append(i).append("  ").append(i - 100)
+                    .append(" 1a 99999999999 +").append(i).append('\n');
+        }
+
+        CommandBatch batch = CommandBatch.parse(
+                CharBuffer.wrap("xx" + text, 2, text.length() + 2));
+        CommandTokenizer loaded = new CommandTokenizer();
+        CommandTokenizer reset = new CommandTokenizer();
+
+        assertEquals(200, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(CommandTokenizer.Opcode.INSERT,
+                    loaded.load(batch, i));
+            reset.reset(batch.line(i));
+
+            assertEquals(reset.count(), loaded.count());
+            assertEquals(reset.token(1), loaded.token(1));
+            assertEquals(reset.intAt(2), loaded.intAt(2));
+            assertEquals(i, loaded.intAt(5));
+
+            try {
+                loaded.intAt(3);
+                fail();
+            }
+            catch (NumberFormatException e) {
+                assertNotNull(e);
+            }
+        }
+
+        //The tokenizer still splits lines of its own once loaded
+        loaded.reset("remove r1");
+        assertEquals(2, loaded.count());
+        assertEquals("r1", loaded.token(1));
+    }
+
+    /**
+     * Tests that the bytes are decoded with the charset
+     */
+    @Test
+    public void testDecode() {
+        ByteBuffer bytes = ByteBuffer.wrap(
+                "insert é 1 1 1 1\n".getBytes(StandardCharsets.UTF_8));
+        CommandBatch batch = CommandBatch.parse(bytes,
+                StandardCharsets.UTF_8);
+
+        assertEquals(1, batch.size());
+        assertEquals("insert é 1 1 1 1", batch.line(0).toString());
+        assertEquals(0, bytes.position());
+        assertEquals(0, CommandBatch.parse("").size());
+    }
+
+    /**
+     * Tests that the processor gives the same output for the lines of a
+     * batch as for the lines themselves
+     *
+     * @throws IOException if appending fails
+     */
+    @Test
+    public void testProcessBatch() throws IOException {
+        String text = "insert A1 1 1 5 5\ninsert B1 2 2 5 5\n"
+                      + "regionSearch 0 0 10 10\nregionSearch 0 0 -1 10\n"
+                      + "intersections\nsearch A1\nremove B1\n"
+                      + "remove 1 1 5 5\nremove 1  1 5 5\nabc\n";
+        CommandBatch batch = CommandBatch.parse(text);
+        Processor fromBatch = new RectangleCommandProcessor();
+        Processor fromLine = new RectangleCommandProcessor();
+        Processor byDefault = new Processor() {
+            private final Processor processor =
+                    new RectangleCommandProcessor();
+
+            @Override
+            public String process(String input) {
+                return processor.process(input);
+            }
+        };
+
+        for (int i = 0; i < batch.size(); i++) {
+            StringBuilder out = new StringBuilder();
+            fromBatch.process(batch, i, out);
+            String expected = fromLine.process(batch.line(i).toString());
+            assertEquals(expected, out.toString());
+
+            out.setLength(0);
+            byDefault.process(batch, i, out);
+            assertEquals(expected, out.toString());
+        }
+    }
+
+    /**
+     * Tests that inserts and removals missing numbers fail the same for the
+     * lines of a batch as for the lines themselves, instead of reading the
+     * numbers of the next line or the unused end of the batch
+     *
+     * @throws IOException if appending fails
+     */
+    @Test
+    public void testShortLines() throws IOException {
+        CommandBatch batch = CommandBatch.parse("insert a 1 2 3\n"
+                                                + "remove 1 2 3\n5 6 7\n"
+                                                + "insert b 1 2 3 4\n"
+                                                + "remove 1 2 3");
+        RectangleCommandProcessor fromBatch = new RectangleCommandProcessor();
+        Processor fromLine = new RectangleCommandProcessor();
+
+        for (int i : new int[]{0, 1, 4}) {
+            try {
+                fromBatch.process(batch, i, new StringBuilder());
+                fail();
+            }
+            catch (IndexOutOfBoundsException e) {
+                assertNotNull(e);
+            }
+
+            try {
+                fromLine.process(batch.line(i).toString());
+                fail();
+            }
+            catch (IndexOutOfBoundsException e) {
+                assertNotNull(e);
+            }
+        }
+
+        CommandTokenizer tokens = new CommandTokenizer();
+        tokens.load(batch, 4);
+        assertEquals(3, tokens.intAt(3));
+        try {
+            tokens.intAt(4);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests the invalid arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        CommandBatch batch = CommandBatch.parse("dump");
+
+        try {
+            batch.line(1);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            CommandBatch.parse((CharSequence) null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            CommandBatch.parse(ByteBuffer.allocate(1), null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new CommandTokenizer().load(null, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class processes the commands of a file on a pool of threads while
+ * writing their results in the order of the file, exactly as processing one
+ * command after the other would. Commands are taken in order and each is
+ * run as soon as the commands before it that it depends on are done:
+ * <ul>
+ * <li>changes, inserts and removals, run one at a time in the order of the
+ * file;</li>
+ * <li>a search by name waits for the changes before it to the same name,
+ * and for the removals by rectangle before it, which may remove any name;
+ * </li>
+ * <li>region searches, intersections and dumps wait for all the changes
+ * before them;</li>
+ * <li>a change waits for the queries before it that it would affect.</li>
+ * </ul>
+ * Queries between changes, and searches by name around changes to other
+ * names, therefore run at the same time. The result of every command is
+ * kept until the results of the commands before it are written, and at
+ * most a window of commands is ahead of the last result written, so memory
+ * stays bounded however many commands there are.
+ * <p>
+ * The database is shared by the threads, so it must be safe to share, such
+ * as a ConcurrentDatabase or a ShardedDatabase. Every thread processes the
+ * commands with a RectangleCommandProcessor of its own. The commands are
+ * taken and the results written by the one thread feeding the pipeline.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandPipeline implements MappedCommandReader.CommandSink,
+        AutoCloseable {
+
+    //Most commands taken ahead of the last result written, unless given
+    public static final int DEFAULT_WINDOW = 4096;
+
+    private final Database data; //Database shared by the threads
+    private final BufferedChannelWriter out; //Receives the results in order
+    private final ExecutorService pool; //Threads processing the commands
+    private final int window; //Most commands ahead of the last result
+    private final String separator = System.lineSeparator();
+
+    //Processor of every thread of the pool, each with its own tokenizer
+    private final ThreadLocal<RectangleCommandProcessor> processors;
+    //Reads the name of the commands taken
+    private final CommandTokenizer tokens = new CommandTokenizer();
+
+    //Results of the commands taken, in order, not written yet
+    private final Deque<CompletableFuture<StringBuilder>> results =
+            new ArrayDeque<>();
+    //Last change taken, every change runs after the one before it
+    private CompletableFuture<?> lastChange = done();
+    //Last removal by rectangle taken, which searches by name wait for
+    private CompletableFuture<?> lastWideChange = done();
+    //Last change of every name taken since the last removal by rectangle
+    private final Map<String, CompletableFuture<?>> nameChanges =
+            new HashMap<>();
+    //Searches of every name taken since the last change that waits for them
+    private final Map<String, List<CompletableFuture<?>>> nameQueries =
+            new HashMap<>();
+    //Queries of the whole database taken since the last change
+    private final List<CompletableFuture<?>> wideQueries = new ArrayList<>();
+    private long taken; //Number of commands taken
+
+    /**
+     * Initializes the pipeline with a thread for every processor and the
+     * default window
+     *
+     * @param data the database the commands are processed on, safe to share
+     *             between threads
+     * @param out  the writer receiving the results
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public CommandPipeline(Database data, BufferedChannelWriter out) {
+        this(data, out, Runtime.getRuntime().availableProcessors(),
+                DEFAULT_WINDOW);
+    }
+
+    /**
+     * Initializes the pipeline
+     *
+     * @param data    the database the commands are processed on, safe to
+     *                share between threads
+     * @param out     the writer receiving the results
+     * @param threads the number of threads processing the commands
+     * @param window  the most commands taken ahead of the last result
+     *                written
+     * @throws IllegalArgumentException if data or out is null, or threads
+     *                                  or window is not positive
+     */
+    public CommandPipeline(Database data, BufferedChannelWriter out,
+                           int threads, int window) {
+        if (data == null || out == null || threads <= 0 || window <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.data = data;
+        this.out = out;
+        this.window = window;
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "command-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        processors = ThreadLocal.withInitial(() ->
+                new RectangleCommandProcessor(this.data));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The command is scheduled after the commands it depends on, and the
+     * results of the commands done by now are written. The feeding thread
+     * waits for the oldest result once the window is full.
+     *
+     * @throws IllegalArgumentException  if batch is null
+     * @throws IndexOutOfBoundsException if there is no command at index
+     */
+    @Override
+    public void accept(CommandBatch batch, int index) throws IOException {
+        if (batch == null) {
+            throw new IllegalArgumentException();
+        }
+
+        CommandTokenizer.Opcode opcode = tokens.load(batch, index);
+        String name = (tokens.count() >= 2) ? tokens.token(1) : null;
+
+        CompletableFuture<StringBuilder> result;
+        switch (opcode) {
+            case INSERT:
+                result = change(batch, index, name);
+                break;
+            case REMOVE:
+                result = change(batch, index,
+                        (tokens.count() == 2) ? name : null);
+                break;
+            case SEARCH:
+                result = (name == null) ? wideQuery(batch, index)
+                        : nameQuery(batch, index, name);
+                break;
+            case REGION_SEARCH:
+            case INTERSECTIONS:
+            case DUMP:
+                result = wideQuery(batch, index);
+                break;
+            default:
+                //Unknown commands give no output and touch nothing
+                result = CompletableFuture.completedFuture(
+                        new StringBuilder());
+                break;
+        }
+
+        results.add(result);
+        if (++taken % window == 0) {
+            forgetDone();
+        }
+
+        write(results.size() >= window);
+    }
+
+    /**
+     * Waits for the results of all the commands taken and writes them, and
+     * flushes the writer, which is not closed so the console stays open
+     *
+     * @throws IOException if writing the results fails
+     */
+    public void finish() throws IOException {
+        while (!results.isEmpty()) {
+            write(true);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Writes the results of all the commands taken and stops the threads
+     *
+     * @throws IOException if writing the results fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Schedules an insert or removal, after the change before it and the
+     * queries before it that it would affect
+     *
+     * @param batch the batch holding the command
+     * @param index position of the command in the batch
+     * @param name  the name changed, or null if any name may be removed
+     * @return the result of the command
+     */
+    private CompletableFuture<StringBuilder> change(CommandBatch batch,
+                                                    int index, String name) {
+        List<CompletableFuture<?>> after = new ArrayList<>(wideQueries);
+        after.add(lastChange);
+        if (name != null) {
+            List<CompletableFuture<?>> queries = nameQueries.remove(name);
+            if (queries != null) {
+                after.addAll(queries);
+            }
+        }
+        else {
+            for (List<CompletableFuture<?>> queries : nameQueries.values()) {
+                after.addAll(queries);
+            }
+            nameQueries.clear();
+        }
+
+        CompletableFuture<StringBuilder> result = run(after, batch, index);
+
+        //Later changes run after this one, so after the queries it waits for
+        wideQueries.clear();
+        lastChange = result;
+        if (name != null) {
+            nameChanges.put(name, result);
+        }
+        else {
+            nameChanges.clear();
+            lastWideChange = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Schedules a search by name, after the changes before it to the name
+     * and the removals by rectangle before it
+     *
+     * @param batch the batch holding the command
+     * @param index position of the command in the batch
+     * @param name  the name searched
+     * @return the result of the command
+     */
+    private CompletableFuture<StringBuilder> nameQuery(CommandBatch batch,
+                                                       int index,
+                                                       String name) {
+        List<CompletableFuture<?>> after = new ArrayList<>(2);
+        after.add(lastWideChange);
+        CompletableFuture<?> change = nameChanges.get(name);
+        if (change != null) {
+            after.add(change);
+        }
+
+        CompletableFuture<StringBuilder> result = run(after, batch, index);
+        nameQueries.computeIfAbsent(name, key -> new ArrayList<>())
+                .add(result);
+        return result;
+    }
+
+    /**
+     * Schedules a query of the whole database, after all the changes before
+     * it
+     *
+     * @param batch the batch holding the command
+     * @param index position of the command in the batch
+     * @return the result of the command
+     */
+    private CompletableFuture<StringBuilder> wideQuery(CommandBatch batch,
+                                                       int index) {
+        CompletableFuture<StringBuilder> result =
+                run(List.of(lastChange), batch, index);
+        wideQueries.add(result);
+        return result;
+    }
+
+    /**
+     * Processes the command on the pool once the commands it waits for are
+     * done
+     *
+     * @param after the commands to wait for
+     * @param batch the batch holding the command
+     * @param index position of the command in the batch
+     * @return the result of the command
+     */
+    private CompletableFuture<StringBuilder> run(
+            List<CompletableFuture<?>> after, CommandBatch batch, int index) {
+        return CompletableFuture.allOf(
+                        after.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> {
+                    StringBuilder result = new StringBuilder();
+                    try {
+                        processors.get().process(batch, index, result);
+                    }
+                    catch (IOException e) {
+                        //A StringBuilder never fails to append
+                        throw new CompletionException(e);
+                    }
+                    return result;
+                }, pool);
+    }
+
+    /**
+     * Writes the results of the oldest commands that are done, in order
+     *
+     * @param wait true to wait for the oldest result if it is not done
+     * @throws IOException if writing the results fails
+     */
+    private void write(boolean wait) throws IOException {
+        while (!results.isEmpty() && (wait || results.peek().isDone())) {
+            StringBuilder result;
+            try {
+                result = results.poll().join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+
+            out.append(result);
+            out.write(separator);
+            out.commandDone();
+            wait = false;
+        }
+    }
+
+    /**
+     * Forgets the names whose changes and searches are all done, so names
+     * that are never changed again are not kept
+     */
+    private void forgetDone() {
+        nameChanges.values().removeIf(CompletableFuture::isDone);
+        for (Iterator<List<CompletableFuture<?>>> it =
+             nameQueries.values().iterator(); it.hasNext();) {
+            List<CompletableFuture<?>> queries = it.next();
+            queries.removeIf(CompletableFuture::isDone);
+            if (queries.isEmpty()) {
+                it.remove();
+            }
+        }
+        wideQueries.removeIf(CompletableFuture::isDone);
+    }
+
+    /**
+     * Returns a future that is already done
+     *
+     * @return the future
+     */
+    private static CompletableFuture<?> done() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,228 @@
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the CommandPipeline class
+ * writes the same results as processing the commands one after the other,
+ * while running commands that do not depend on each other at the same time
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandPipelineTest {
+
+    // The output written by the pipeline under test
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    // The writer the pipeline under test writes into
+    private final BufferedChannelWriter out = new BufferedChannelWriter(bytes,
+            64, BufferedChannelWriter.FlushPolicy.WHEN_FULL);
+
+    /**
+     * Tests if a null database is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDatabase() {
+        new CommandPipeline(null, out);
+        fail();
+    }
+
+    /**
+     * Tests if no threads are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new CommandPipeline(new ConcurrentDatabase(), out, 0, 10);
+        fail();
+    }
+
+    /**
+     * Tests if an empty window is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWindow() {
+        new CommandPipeline(new ConcurrentDatabase(), out, 2, 0);
+        fail();
+    }
+
+    /**
+     * Tests if random commands, changes and queries of few names mixed with
+     * unknown lines, give the same results on one, two and four threads and
+     * small and large windows as processing them one after the other
+     *
+     * @throws IOException if the output cannot be written
+     */
+    @Test
+    public void testSameAsSequential() throws IOException {
+        Random random = new Random(23);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String name = "n" + random.nextInt(8);
+            String rect = random.nextInt(1000) + " " + random.nextInt(1000)
+                          + " " + (random.nextInt(60) + 1) + " "
+                          + (random.nextInt(60) + 1);
+            int kind = random.nextInt(100);
+            if (kind < 40) {
+                text.append("insert ").append(name).append(' ').append(rect);
+            }
+            else if (kind < 50) {
+                text.append("remove ").append(name);
+            }
+            else if (kind < 55) {
+                text.append("remove ").append(rect);
+            }
+            else if (kind < 80) {
+                text.append("search ").append(name);
+            }
+            else if (kind < 95) {
+                text.append("regionSearch ").append(rect);
+            }
+            else if (kind < 97) {
+                text.append("intersections");
+            }
+            else if (kind < 98) {
+                text.append("dump");
+            }
+            else {
+                text.append("unknown ").append(name);
+            }
+            text.append('\n');
+        }
+        CommandBatch batch = CommandBatch.parse(text);
+
+        StringBuilder expected = new StringBuilder();
+        RectangleCommandProcessor processor = new RectangleCommandProcessor();
+        for (int i = 0; i < batch.size(); i++) {
+            processor.process(batch, i, expected);
+            expected.append(System.lineSeparator());
+        }
+
+        int[][] settings = {{1, 4096}, {2, 8}, {4, 1}, {4, 4096}};
+        for (int[] setting : settings) {
+            bytes.reset();
+            try (CommandPipeline pipeline = new CommandPipeline(
+                    new ConcurrentDatabase(), out, setting[0], setting[1])) {
+                for (int i = 0; i < batch.size(); i++) {
+                    pipeline.accept(batch, i);
+                }
+            }
+
+            assertEquals(withoutDepths(expected.toString()),
+                    withoutDepths(bytes.toString(Charset.defaultCharset())));
+        }
+    }
+
+    /**
+     * Tests if a search of one name runs while a change to another name
+     * made after it in the file is processed, and its result is still
+     * written first
+     *
+     * @throws IOException          if the output cannot be written
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testOtherNameChangesOverlap() throws IOException,
+            InterruptedException {
+        CountDownLatch inserted = new CountDownLatch(1);
+        boolean[] overlapped = {false};
+        Database data = new ConcurrentDatabase() {
+            @Override
+            public Boolean insert(KVPair<String, Rectangle> pair) {
+                Boolean result = super.insert(pair);
+                if (pair.getKey().equals("b")) {
+                    inserted.countDown();
+                }
+                return result;
+            }
+
+            @Override
+            public List<KVPair<String, Rectangle>> search(String name) {
+                if (name.equals("a")) {
+                    try {
+                        overlapped[0] = inserted.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.search(name);
+            }
+        };
+
+        CommandBatch batch = CommandBatch.parse("insert a 1 1 1 1\n"
+                                                + "search a\n"
+                                                + "insert b 2 2 2 2\n"
+                                                + "search b\n");
+        try (CommandPipeline pipeline = new CommandPipeline(data, out, 2,
+                CommandPipeline.DEFAULT_WINDOW)) {
+            for (int i = 0; i < batch.size(); i++) {
+                pipeline.accept(batch, i);
+            }
+        }
+
+        assertTrue(overlapped[0]);
+        String separator = System.lineSeparator();
+        assertEquals("Rectangle inserted: (a, 1, 1, 1, 1)" + separator
+                     + "Rectangles found:\n(a, 1, 1, 1, 1)" + separator
+                     + "Rectangle inserted: (b, 2, 2, 2, 2)" + separator
+                     + "Rectangles found:\n(b, 2, 2, 2, 2)" + separator,
+                bytes.toString(Charset.defaultCharset()));
+    }
+
+    /**
+     * Tests if a command failing stops the pipeline with its exception,
+     * after the results of the commands before it are written
+     *
+     * @throws IOException if the output cannot be written
+     */
+    @Test
+    public void testFailure() throws IOException {
+        Database data = new ConcurrentDatabase() {
+            @Override
+            public List<KVPair<String, Rectangle>> search(String name) {
+                if (name.equals("boom")) {
+                    throw new IllegalStateException("boom");
+                }
+                return super.search(name);
+            }
+        };
+
+        CommandBatch batch = CommandBatch.parse("insert a 1 1 1 1\n"
+                                                + "search boom\n"
+                                                + "search a\n");
+        CommandPipeline pipeline = new CommandPipeline(data, out, 2, 1);
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                pipeline.accept(batch, i);
+            }
+            pipeline.close();
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+
+        out.flush();
+        assertEquals("Rectangle inserted: (a, 1, 1, 1, 1)"
+                     + System.lineSeparator(),
+                bytes.toString(Charset.defaultCharset()));
+    }
+
+    /**
+     * Removes the random depths from the dumps of the output
+     *
+     * @param output the output
+     * @return the output without depths
+     */
+    private static String withoutDepths(String output) {
+        return output.replaceAll("depth \\d+", "depth");
+    }
+}
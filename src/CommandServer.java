@@ -0,0 +1,557 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * This class serves the commands of many clients over TCP from one warm
+ * database. Clients send the same lines as a command file, split the same
+ * way, and may send many commands without waiting for their results. The
+ * commands of every client are processed in the order they were sent, the
+ * commands of different clients in the order they arrive, all on one thread
+ * running a selector, so the database needs no locks unless it is also used
+ * elsewhere.
+ * <p>
+ * The result of every command is sent back as its lines, each ending with
+ * a line feed, followed by an empty line, so a client can tell where every
+ * result ends. Commands giving no output, such as unknown ones, are
+ * answered with the empty line alone, and a line the processor cannot parse
+ * with "Invalid command: " and the line. Lines and results are read and
+ * written in UTF-8.
+ * <p>
+ * A client starting with the MAGIC of BinaryCommandCodec speaks the binary
+ * format instead: it sends command frames and is answered with a response
+ * frame for every command, in order, as that class describes them.
+ * <p>
+ * Every client has a bounded buffer for the lines it sends. A line or
+ * frame longer than the buffer closes the connection, and so does a frame
+ * cut short by the client ending. Results waiting to be sent are
+ * bounded too: once a client has more than the output limit waiting, no
+ * more of its commands are processed and nothing more is read from it
+ * until it reads its results, so a client that sends faster than it reads
+ * is held back by TCP instead of filling the memory of the server.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandServer implements Closeable {
+
+    //Port the server listens on, unless given
+    public static final int DEFAULT_PORT = 7272;
+    //Bytes of the longest line or frame a client can send, unless given
+    public static final int DEFAULT_LINE_LIMIT = 1 << 16;
+    //Chars of results waiting for a client before its commands wait too,
+    // unless given
+    public static final int DEFAULT_OUTPUT_LIMIT = 1 << 20;
+
+    //Charset of the lines and results
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+    //Bytes of results written to a client at once
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Selector selector; //Tells which clients are ready
+    private final ServerSocketChannel server; //Accepts the clients
+    private final RectangleCommandProcessor processor; //Runs the commands
+    private final int lineLimit; //Bytes of the longest line or frame
+    private final int outputLimit; //Chars of results waiting at most
+    private volatile boolean closed; //True once close was called
+    private boolean running; //True while run is selecting
+
+    /**
+     * Initializes a server listening on the address with the default
+     * limits
+     *
+     * @param data    the database the commands are processed on
+     * @param address the address to listen on, with port 0 for any free
+     *                port
+     * @throws IOException              if the address cannot be listened on
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public CommandServer(Database data, InetSocketAddress address)
+            throws IOException {
+        this(data, address, DEFAULT_LINE_LIMIT, DEFAULT_OUTPUT_LIMIT);
+    }
+
+    /**
+     * Initializes a server listening on the address
+     *
+     * @param data        the database the commands are processed on
+     * @param address     the address to listen on, with port 0 for any free
+     *                    port
+     * @param lineLimit   the bytes of the longest line or frame, with its
+     *                    length, a client can send
+     * @param outputLimit the chars of results waiting for a client before
+     *                    its commands wait too
+     * @throws IOException              if the address cannot be listened on
+     * @throws IllegalArgumentException if data or address is null, or a
+     *                                  limit is not positive
+     */
+    public CommandServer(Database data, InetSocketAddress address,
+                         int lineLimit, int outputLimit) throws IOException {
+        if (data == null || address == null || lineLimit <= 0
+            || outputLimit <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        processor = new RectangleCommandProcessor(data);
+        this.lineLimit = lineLimit;
+        this.outputLimit = outputLimit;
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the port the server listens on
+     *
+     * @return the local port
+     * @throws IOException if the port cannot be read
+     */
+    public int port() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Serves the clients until the server is closed. A client whose
+     * connection fails is dropped without stopping the server.
+     *
+     * @throws IOException if accepting clients fails
+     */
+    public void run() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            running = true;
+        }
+
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys =
+                        selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    }
+                    else {
+                        serve(key);
+                    }
+                }
+            }
+        }
+        finally {
+            release();
+        }
+    }
+
+    /**
+     * Stops the server, waking run if it is serving, and drops every client
+     *
+     * @throws IOException if closing the selector fails
+     */
+    @Override
+    public void close() throws IOException {
+        boolean release;
+        synchronized (this) {
+            closed = true;
+            release = !running;
+        }
+
+        selector.wakeup();
+        if (release) {
+            release();
+        }
+    }
+
+    /**
+     * Starts a server over a new SkipListDatabase, listening on the given
+     * port or the default one, until the process is stopped
+     *
+     * @param args the port, if any
+     * @throws IOException if the port cannot be listened on
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        if (args.length > 0) {
+            if (!args[0].matches("[1-9]\\d{0,4}")
+                || Integer.parseInt(args[0]) > 65535) {
+                System.out.println("Invalid port: " + args[0]);
+                return;
+            }
+            port = Integer.parseInt(args[0]);
+        }
+
+        try (CommandServer server = new CommandServer(new SkipListDatabase(),
+                new InetSocketAddress(port))) {
+            System.out.println("Serving on port " + server.port());
+            server.run();
+        }
+    }
+
+    /**
+     * Accepts a waiting client, if any
+     *
+     * @throws IOException if accepting fails
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Client());
+    }
+
+    /**
+     * Reads from and writes to a client, dropping it if its connection
+     * fails or it is done
+     *
+     * @param key the key of the client
+     */
+    private void serve(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+
+        try {
+            if (key.isReadable()) {
+                client.read(channel);
+            }
+            if (key.isValid() && key.isWritable()) {
+                client.write(channel);
+            }
+            client.process();
+
+            if (client.done()) {
+                channel.close();
+            }
+            else {
+                key.interestOps(client.interest());
+            }
+        }
+        catch (IOException e) {
+            close(channel);
+        }
+    }
+
+    /**
+     * Closes the channels of every client, the server and the selector
+     *
+     * @throws IOException if closing the selector fails
+     */
+    private synchronized void release() throws IOException {
+        running = false;
+        if (!selector.isOpen()) {
+            return;
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            close(key.channel());
+        }
+        selector.close();
+    }
+
+    /**
+     * Closes a channel, ignoring a failure as the channel is dropped anyway
+     *
+     * @param channel the channel
+     */
+    private static void close(Channel channel) {
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            //Nothing more can be done with the channel
+        }
+    }
+
+    /**
+     * This class holds the lines or frames a client sent that were not
+     * processed yet and the results not sent yet.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private final class Client {
+        //Bytes read and not processed yet, ready to be read into
+        private final ByteBuffer input = ByteBuffer.allocate(lineLimit);
+        //Results not encoded yet
+        private final StringBuilder output = new StringBuilder();
+        //Encoded results not written yet, ready to be read from
+        private final ByteBuffer encoded =
+                ByteBuffer.allocate(WRITE_BUFFER_SIZE).flip();
+        private final CharsetEncoder encoder = CHARSET.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        //Response frames not written yet, ready to be written into, once
+        // the client speaks the binary format
+        private ByteBuffer responses;
+        private int encodedChars; //Chars of output encoded already
+        private boolean decided; //True once the format of the client is known
+        private boolean ended; //True once the client sent all its lines
+        private boolean dropped; //True if the client sent too long a line
+
+        /**
+         * Reads the bytes the client sent
+         *
+         * @param channel the channel of the client
+         * @throws IOException if reading fails
+         */
+        void read(SocketChannel channel) throws IOException {
+            if (channel.read(input) < 0) {
+                ended = true;
+            }
+        }
+
+        /**
+         * Processes the whole lines or frames read, in order, while the
+         * results waiting for the client are under the limit
+         */
+        void process() {
+            input.flip();
+            if (!decided) {
+                decide();
+            }
+
+            if (responses != null) {
+                processFrames();
+            }
+            else if (decided) {
+                processLines();
+            }
+            input.compact();
+        }
+
+        /**
+         * Tells the format of the client from its first bytes, once enough
+         * of them are read: the binary format if they are the MAGIC, the
+         * lines otherwise
+         */
+        private void decide() {
+            int first = input.position();
+            if (!input.hasRemaining()
+                || (input.get(first) == (byte) (BinaryCommandCodec.MAGIC >>> 24)
+                    && input.remaining() < 4 && !ended)) {
+                return;
+            }
+
+            decided = true;
+            if (input.remaining() >= 4
+                && input.getInt(first) == BinaryCommandCodec.MAGIC) {
+                input.position(first + 4);
+                responses = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            }
+        }
+
+        /**
+         * Processes the whole lines read. The last line is processed once
+         * the client ended, even without a line feed.
+         */
+        private void processLines() {
+            while (!dropped && backlog() < outputLimit
+                   && input.hasRemaining()) {
+                int end = input.position();
+                while (end < input.limit() && input.get(end) != '\n') {
+                    end++;
+                }
+                if (end == input.limit() && !ended) {
+                    //Only part of the line was read
+                    dropped = input.position() == 0
+                              && input.limit() == input.capacity();
+                    break;
+                }
+
+                ByteBuffer line = input.slice(input.position(),
+                        end - input.position());
+                input.position(Math.min(end + 1, input.limit()));
+                answer(CommandBatch.parse(line, CHARSET));
+            }
+        }
+
+        /**
+         * Processes the whole frames read, writing their responses. A frame
+         * cut short by the client ending is dropped with the client.
+         */
+        private void processFrames() {
+            while (!dropped && backlog() < outputLimit) {
+                ByteBuffer request;
+                try {
+                    request = BinaryCommandCodec.nextFrame(input,
+                            lineLimit - BinaryCommandCodec.FRAME_HEADER_SIZE);
+                }
+                catch (IllegalArgumentException e) {
+                    dropped = true;
+                    break;
+                }
+
+                if (request == null) {
+                    dropped = ended && input.hasRemaining();
+                    break;
+                }
+                respond(request);
+            }
+        }
+
+        /**
+         * Writes the response frame of a command frame, or INVALID if the
+         * command fails while it is performed, as a line that fails is
+         * answered as invalid
+         *
+         * @param request the body of the command frame
+         */
+        private void respond(ByteBuffer request) {
+            ByteBuffer before = responses;
+            int start = before.position();
+            try {
+                responses = processor.process(request, before);
+            }
+            catch (RuntimeException e) {
+                //A buffer that was copied to a larger one was flipped
+                responses = before.limit(before.capacity()).position(start);
+                responses = BinaryCommandCodec.ensure(responses,
+                        BinaryCommandCodec.FRAME_HEADER_SIZE + 1);
+                int frame = BinaryCommandCodec.startFrame(responses);
+                responses.put(BinaryCommandCodec.INVALID);
+                BinaryCommandCodec.endFrame(responses, frame);
+            }
+        }
+
+        /**
+         * Writes the results of the commands of a line
+         *
+         * @param batch the commands of the line, none if it is empty
+         */
+        private void answer(CommandBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                int start = output.length();
+                try {
+                    processor.process(batch, i, output);
+                }
+                catch (RuntimeException e) {
+                    output.setLength(start);
+                    output.append("Invalid command: ").append(batch.line(i));
+                }
+                catch (IOException e) {
+                    //A StringBuilder never fails to append
+                    throw new IllegalStateException(e);
+                }
+
+                if (output.length() > start) {
+                    output.append('\n');
+                }
+                output.append('\n');
+            }
+        }
+
+        /**
+         * Writes as many results to the client as it takes
+         *
+         * @param channel the channel of the client
+         * @throws IOException if writing fails
+         */
+        void write(SocketChannel channel) throws IOException {
+            if (responses != null) {
+                channel.write(responses.flip());
+                responses.compact();
+                if (responses.position() == 0
+                    && responses.capacity() > WRITE_BUFFER_SIZE) {
+                    //Let go of the room a large response took
+                    responses = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                }
+                return;
+            }
+
+            while (true) {
+                if (!encoded.hasRemaining()) {
+                    if (encodedChars == output.length()) {
+                        output.setLength(0);
+                        encodedChars = 0;
+                        return;
+                    }
+
+                    CharBuffer chars = CharBuffer.wrap(output, encodedChars,
+                            output.length());
+                    encoded.clear();
+                    encoder.encode(chars, encoded, true);
+                    encoder.reset();
+                    encodedChars = chars.position();
+                    encoded.flip();
+                }
+
+                channel.write(encoded);
+                if (encoded.hasRemaining()) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of result chars and bytes not written yet, in
+         * either format
+         *
+         * @return the size of the results waiting for the client
+         */
+        private int backlog() {
+            return output.length() - encodedChars + encoded.remaining()
+                   + ((responses == null) ? 0 : responses.position());
+        }
+
+        /**
+         * Checks if the client is done: it ended or sent too long a line,
+         * and every result that can be is written
+         *
+         * @return true if the connection can be closed
+         */
+        boolean done() {
+            return (dropped || (ended && input.position() == 0))
+                   && backlog() == 0;
+        }
+
+        /**
+         * Finds the operations the selector should wait for: reading while
+         * the client may send more and its results are under the limit,
+         * and writing while results are waiting
+         *
+         * @return the interest set of the client
+         */
+        int interest() {
+            int ops = 0;
+            if (!ended && !dropped && backlog() < outputLimit
+                && input.hasRemaining()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (backlog() > 0) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+
+            return ops;
+        }
+    }
+}
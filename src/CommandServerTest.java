@@ -0,0 +1,418 @@
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the CommandServer class
+ * answers the commands of its clients in order, from one database, and
+ * holds back clients that do not read their results
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandServerTest {
+
+    // The server under test, if started
+    private CommandServer server;
+    // The thread running the server
+    private Thread serving;
+
+    /**
+     * Stops the server after every test case
+     *
+     * @throws Exception if the server cannot be stopped
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+            serving.join(10_000);
+            assertFalse(serving.isAlive());
+        }
+    }
+
+    /**
+     * Tests if a null database is rejected
+     *
+     * @throws IOException if the server cannot listen
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDatabase() throws IOException {
+        new CommandServer(null, new InetSocketAddress(0));
+        fail();
+    }
+
+    /**
+     * Tests if an empty line limit is rejected
+     *
+     * @throws IOException if the server cannot listen
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoLineLimit() throws IOException {
+        new CommandServer(new SkipListDatabase(), new InetSocketAddress(0),
+                0, 10);
+        fail();
+    }
+
+    /**
+     * Tests if every command is answered with its result and an empty
+     * line, unknown and unparsable commands included, and empty lines are
+     * not answered
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testCommands() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT,
+                CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket client = connect()) {
+            BufferedReader in = reader(client);
+            send(client, "insert a 1 1 10 10\r\n\n   \nsearch a\nhello\n"
+                         + "insert b x 1 1 1\nregionSearch 0 0 5 5\n");
+
+            assertEquals("Rectangle inserted: (a, 1, 1, 10, 10)",
+                    result(in));
+            assertEquals("Rectangles found:\n(a, 1, 1, 10, 10)", result(in));
+            assertEquals("", result(in));
+            assertEquals("Invalid command: insert b x 1 1 1", result(in));
+            assertEquals("Rectangles intersecting region (0, 0, 5, 5):\n"
+                         + "(a, 1, 1, 10, 10)", result(in));
+        }
+    }
+
+    /**
+     * Tests if many commands sent at once are all answered in order, and
+     * the commands of one client are seen by another
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testPipelining() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT,
+                CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket writer = connect(); Socket other = connect()) {
+            StringBuilder commands = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                commands.append("insert r").append(i).append(" ")
+                        .append(i % 900).append(" 1 10 10\nsearch r")
+                        .append(i).append('\n');
+            }
+            send(writer, commands.toString());
+
+            BufferedReader in = reader(writer);
+            for (int i = 0; i < 2000; i++) {
+                String pair = "r" + i + ", " + (i % 900) + ", 1, 10, 10";
+                assertEquals("Rectangle inserted: (" + pair + ")",
+                        result(in));
+                assertEquals("Rectangles found:\n(" + pair + ")", result(in));
+            }
+
+            send(other, "search r1999\n");
+            assertEquals("Rectangles found:\n(r1999, 199, 1, 10, 10)",
+                    result(reader(other)));
+        }
+    }
+
+    /**
+     * Tests if a client sending far more than it reads is held back while
+     * another client is still answered, and gets all its results in order
+     * once it reads
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testBackpressure() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT, 256);
+
+        try (Socket flooding = connect(); Socket other = connect()) {
+            send(flooding, "insert a 1 1 10 10\n");
+            BufferedReader floodIn = reader(flooding);
+            assertEquals("Rectangle inserted: (a, 1, 1, 10, 10)",
+                    result(floodIn));
+
+            StringBuilder searches = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                searches.append("search a\n");
+            }
+            for (int round = 0; round < 20; round++) {
+                send(flooding, searches.toString());
+            }
+
+            send(other, "search a\n");
+            assertEquals("Rectangles found:\n(a, 1, 1, 10, 10)",
+                    result(reader(other)));
+
+            for (int i = 0; i < 40_000; i++) {
+                assertEquals("Rectangles found:\n(a, 1, 1, 10, 10)",
+                        result(floodIn));
+            }
+        }
+    }
+
+    /**
+     * Tests if a line longer than the limit closes the connection after the
+     * results of the lines before it
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testLongLine() throws IOException {
+        start(32, CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket client = connect()) {
+            send(client, "search a\nsearch " + "b".repeat(40) + "\n");
+            BufferedReader in = reader(client);
+            assertEquals("Rectangle not found: a", result(in));
+            assertNull(in.readLine());
+        }
+    }
+
+    /**
+     * Tests if the last line is answered when the client ends without a
+     * line feed, and the connection is closed after it
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testLastLineWithoutFeed() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT,
+                CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket client = connect()) {
+            send(client, "search a\nsearch b");
+            client.shutdownOutput();
+
+            BufferedReader in = reader(client);
+            assertEquals("Rectangle not found: a", result(in));
+            assertEquals("Rectangle not found: b", result(in));
+            assertNull(in.readLine());
+        }
+    }
+
+    /**
+     * Tests if a client starting with the magic is answered with a response
+     * frame for every command frame, in order, from the database the text
+     * clients use
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testBinary() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT, 256);
+
+        try (Socket binary = connect(); Socket text = connect()) {
+            KVPair<String, Rectangle> pair = new KVPair<>("a",
+                    new Rectangle(1, 1, 10, 10));
+            ByteBuffer out = ByteBuffer.allocate(64)
+                    .putInt(BinaryCommandCodec.MAGIC);
+            out = BinaryCommandCodec.insert(out, pair);
+            for (int i = 0; i < 1000; i++) {
+                out = BinaryCommandCodec.search(out, "a");
+            }
+            out = BinaryCommandCodec.search(out, "b");
+            binary.getOutputStream().write(out.array(), 0, out.position());
+
+            DataInputStream in = new DataInputStream(binary.getInputStream());
+            assertEquals(BinaryCommandCodec.OK, response(in).get());
+            for (int i = 0; i < 1000; i++) {
+                ByteBuffer found = response(in);
+                assertEquals(BinaryCommandCodec.OK, found.get());
+                assertEquals(List.of(pair),
+                        BinaryCommandCodec.getPairs(found));
+            }
+            assertEquals(BinaryCommandCodec.NOT_FOUND, response(in).get());
+
+            send(text, "search a\n");
+            assertEquals("Rectangles found:\n(a, 1, 1, 10, 10)",
+                    result(reader(text)));
+        }
+    }
+
+    /**
+     * Tests if a binary command that fails while it is performed is answered
+     * with INVALID, and the client and the server are still served
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testFailedFrame() throws IOException {
+        start(100_000, CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket binary = connect(); Socket text = connect()) {
+            //A name too long for a frame can still be inserted as a line
+            String name = "n".repeat(BinaryCommandCodec.MAX_NAME_BYTES + 1);
+            BufferedReader lines = reader(text);
+            send(text, "insert " + name + " 1 1 10 10\n");
+            assertEquals("Rectangle inserted: (" + name + ", 1, 1, 10, 10)",
+                    result(lines));
+
+            ByteBuffer out = ByteBuffer.allocate(64)
+                    .putInt(BinaryCommandCodec.MAGIC);
+            out = BinaryCommandCodec.search(out, "a");
+            out = BinaryCommandCodec.regionSearch(out,
+                    new Rectangle(0, 0, 5, 5));
+            out = BinaryCommandCodec.search(out, "b");
+            binary.getOutputStream().write(out.array(), 0, out.position());
+
+            DataInputStream in = new DataInputStream(binary.getInputStream());
+            assertEquals(BinaryCommandCodec.NOT_FOUND, response(in).get());
+            ByteBuffer failed = response(in);
+            assertEquals(1, failed.remaining());
+            assertEquals(BinaryCommandCodec.INVALID, failed.get());
+            assertEquals(BinaryCommandCodec.NOT_FOUND, response(in).get());
+
+            send(text, "search a\n");
+            assertEquals("Rectangle not found: a", result(lines));
+        }
+    }
+
+    /**
+     * Tests if a binary client is dropped when a frame is cut short by its
+     * end, after the responses to the frames before it
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    public void testCutFrame() throws IOException {
+        start(CommandServer.DEFAULT_LINE_LIMIT,
+                CommandServer.DEFAULT_OUTPUT_LIMIT);
+
+        try (Socket client = connect()) {
+            ByteBuffer out = ByteBuffer.allocate(64)
+                    .putInt(BinaryCommandCodec.MAGIC);
+            out = BinaryCommandCodec.search(out, "a");
+            out = BinaryCommandCodec.search(out, "b");
+            client.getOutputStream().write(out.array(), 0,
+                    out.position() - 1);
+            client.shutdownOutput();
+
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            assertEquals(BinaryCommandCodec.NOT_FOUND, response(in).get());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * Tests if a server closed before it runs does not serve
+     *
+     * @throws IOException if the server cannot listen
+     */
+    @Test
+    public void testCloseBeforeRun() throws IOException {
+        CommandServer closed = new CommandServer(new SkipListDatabase(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        closed.close();
+        closed.run();
+    }
+
+    /**
+     * Starts a server on a free port of the loopback address
+     *
+     * @param lineLimit   the bytes of the longest line
+     * @param outputLimit the chars of results waiting for a client
+     * @throws IOException if the server cannot listen
+     */
+    private void start(int lineLimit, int outputLimit) throws IOException {
+        server = new CommandServer(new SkipListDatabase(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                lineLimit, outputLimit);
+        serving = new Thread(() -> {
+            try {
+                server.run();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.start();
+    }
+
+    /**
+     * Connects a client to the server
+     *
+     * @return the socket of the client
+     * @throws IOException if the connection fails
+     */
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                server.port());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    /**
+     * Sends the text to the server
+     *
+     * @param client the socket of the client
+     * @param text   the lines to send
+     * @throws IOException if sending fails
+     */
+    private static void send(Socket client, String text) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Creates a reader of the results the server sends to the client
+     *
+     * @param client the socket of the client
+     * @return the reader
+     * @throws IOException if the socket is closed
+     */
+    private static BufferedReader reader(Socket client) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                client.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads one result: the lines up to the next empty line
+     *
+     * @param in the reader of the results
+     * @return the lines of the result, joined with line feeds
+     * @throws IOException if reading fails or the server closed the
+     *                     connection
+     */
+    private static String result(BufferedReader in) throws IOException {
+        StringBuilder result = new StringBuilder();
+        for (String line = in.readLine(); !line.isEmpty();
+             line = in.readLine()) {
+            if (result.length() > 0) {
+                result.append('\n');
+            }
+            result.append(line);
+        }
+
+        return result.toString();
+    }
+
+
+    /**
+     * Reads one response frame
+     *
+     * @param in the stream of the frames
+     * @return the body of the frame
+     * @throws IOException if reading fails or the server closed the
+     *                     connection
+     */
+    private static ByteBuffer response(DataInputStream in) throws IOException {
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return ByteBuffer.wrap(body);
+    }
+}
@@ -0,0 +1,358 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class splits a command line into its whitespace separated words
+ * without making a String of any of them. The line is scanned once and only
+ * the start and end of every word are kept, so the command can be told apart
+ * by its opcode, the numbers parsed straight into ints, and the words copied
+ * into the output, all from the line itself. One tokenizer is reused for
+ * every line, so it is not safe to share between threads.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandTokenizer {
+
+    /**
+     * This enum holds the commands a line can start with, matched ignoring
+     * case.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    public enum Opcode {
+        INSERT("insert"),
+        REMOVE("remove"),
+        REGION_SEARCH("regionSearch"),
+        INTERSECTIONS("intersections"),
+        SEARCH("search"),
+        DUMP("dump"),
+        //Any other first word, or a line without words
+        UNKNOWN("");
+
+        private final String keyword; //The word starting the command
+
+        /**
+         * Initializes the opcode
+         *
+         * @param keyword the word starting the command
+         */
+        Opcode(String keyword) {
+            this.keyword = keyword;
+        }
+
+        /**
+         * Returns the word starting the command
+         *
+         * @return the keyword, empty for UNKNOWN
+         */
+        public String keyword() {
+            return keyword;
+        }
+    }
+
+    //Opcodes that have a keyword, checked in this order
+    private static final Opcode[] COMMANDS = {Opcode.INSERT, Opcode.REMOVE,
+        Opcode.REGION_SEARCH, Opcode.INTERSECTIONS, Opcode.SEARCH,
+        Opcode.DUMP};
+    //Words a line usually has, more grow the bounds
+    private static final int INITIAL_TOKENS = 8;
+    //Most chars an int can be written with, a sign and ten digits
+    private static final int MAX_INT_CHARS = 11;
+
+    //Value of a word that is not a plain int, for words parsed beforehand
+    static final long NOT_INT = Long.MIN_VALUE;
+
+    private CharSequence line; //The line being tokenized
+    private int[] ownBounds; //Bounds of the words of the lines reset to
+    private int[] bounds; //Start and end of every word, one after another
+    private long[] values; //Words parsed beforehand as ints, or null
+    private int base; //Position in bounds of the first word of the line
+    private int count; //Number of words in the line
+    private Opcode opcode; //Command the line starts with
+
+    /**
+     * Initializes a tokenizer without a line
+     */
+    public CommandTokenizer() {
+        ownBounds = new int[INITIAL_TOKENS * 2];
+        bounds = ownBounds;
+        opcode = Opcode.UNKNOWN;
+    }
+
+    /**
+     * Splits the line into its words and finds its command. Words are
+     * separated by the same whitespace as the regular expression \s, which
+     * are space, tab, line feed, vertical tab, form feed and carriage return.
+     *
+     * @param input the line to tokenize, kept until the next reset
+     * @return the command the line starts with
+     * @throws IllegalArgumentException if input is null
+     */
+    public Opcode reset(CharSequence input) {
+        if (input == null) {
+            throw new IllegalArgumentException();
+        }
+
+        line = input;
+        bounds = ownBounds;
+        values = null;
+        base = 0;
+        count = 0;
+
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSpace(input.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+
+            int start = i;
+            while (i < length && !isSpace(input.charAt(i))) {
+                i++;
+            }
+
+            if (count * 2 == bounds.length) {
+                ownBounds = Arrays.copyOf(bounds, bounds.length * 2);
+                bounds = ownBounds;
+            }
+            bounds[count * 2] = start;
+            bounds[count * 2 + 1] = i;
+            count++;
+        }
+
+        opcode = findOpcode();
+        return opcode;
+    }
+
+    /**
+     * Points the tokenizer at a line of a batch, whose words were split and
+     * parsed when the batch was made, so nothing is scanned again.
+     *
+     * @param batch the batch holding the line
+     * @param index position of the line in the batch
+     * @return the command the line starts with
+     * @throws IllegalArgumentException  if batch is null
+     * @throws IndexOutOfBoundsException if there is no line at index
+     */
+    public Opcode load(CommandBatch batch, int index) {
+        if (batch == null) {
+            throw new IllegalArgumentException();
+        }
+
+        batch.checkLine(index);
+        line = batch.text();
+        bounds = batch.bounds();
+        values = batch.values();
+        base = batch.firstWord(index);
+        count = batch.firstWord(index + 1) - base;
+        opcode = batch.opcode(index);
+        return opcode;
+    }
+
+    /**
+     * Returns the command the last line starts with
+     *
+     * @return the opcode, UNKNOWN before any line
+     */
+    public Opcode opcode() {
+        return opcode;
+    }
+
+    /**
+     * Returns the number of words in the last line, the command included
+     *
+     * @return the number of words
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of chars in a word
+     *
+     * @param index position of the word, 0 being the command
+     * @return the length of the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public int length(int index) {
+        return end(index) - start(index);
+    }
+
+    /**
+     * Returns the position in the line of the first char of a word
+     *
+     * @param index position of the word, 0 being the command
+     * @return the start of the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public int start(int index) {
+        checkIndex(index);
+        return bounds[(base + index) * 2];
+    }
+
+    /**
+     * Returns the position in the line after the last char of a word
+     *
+     * @param index position of the word, 0 being the command
+     * @return the end of the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public int end(int index) {
+        checkIndex(index);
+        return bounds[(base + index) * 2 + 1];
+    }
+
+    /**
+     * Parses a word as a decimal int, accepting the same words as
+     * Integer.parseInt
+     *
+     * @param index position of the word, 0 being the command
+     * @return the value of the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     * @throws NumberFormatException     if the word is not an int
+     */
+    public int intAt(int index) {
+        //The slots after the last word belong to the next line, if any
+        checkIndex(index);
+        long value = (values != null) ? values[base + index] : NOT_INT;
+        if (value == NOT_INT) {
+            value = plainIntAt(index);
+        }
+
+        //Words that are not plain ASCII digits, or too long to be sure of,
+        // are left to Integer.parseInt for the same result and message
+        return (value == NOT_INT) ? Integer.parseInt(token(index))
+                : (int) value;
+    }
+
+    /**
+     * Parses a word made of an optional sign and at most ten ASCII digits
+     * whose value fits in an int, the words intAt parses without
+     * Integer.parseInt
+     *
+     * @param index position of the word, 0 being the command
+     * @return the value of the word, NOT_INT if it is not such a word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    long plainIntAt(int index) {
+        int start = start(index);
+        int end = end(index);
+
+        char first = line.charAt(start);
+        boolean negative = first == '-';
+        int i = (negative || first == '+') ? start + 1 : start;
+        if (i == end || end - start > MAX_INT_CHARS) {
+            return NOT_INT;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_INT;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        value = negative ? -value : value;
+        return (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+                ? NOT_INT : value;
+    }
+
+    /**
+     * Makes a String of a word, for words that must be kept such as keys
+     *
+     * @param index position of the word, 0 being the command
+     * @return the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public String token(int index) {
+        return line.subSequence(start(index), end(index)).toString();
+    }
+
+    /**
+     * Writes a word into the output without making a String of it
+     *
+     * @param index position of the word, 0 being the command
+     * @param out   receives the word
+     * @throws IOException               if writing to out fails
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public void appendToken(int index, Appendable out) throws IOException {
+        out.append(line, start(index), end(index));
+    }
+
+    /**
+     * Checks if a word is the keyword, ignoring case the same way as
+     * String.equalsIgnoreCase
+     *
+     * @param index   position of the word, 0 being the command
+     * @param keyword the word to compare against
+     * @return true if the word matches the keyword
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    public boolean tokenEqualsIgnoreCase(int index, String keyword) {
+        int start = start(index);
+        if (end(index) - start != keyword.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < keyword.length(); i++) {
+            char a = line.charAt(start + i);
+            char b = keyword.charAt(i);
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the command the first word names
+     *
+     * @return the opcode of the first word, UNKNOWN if it names none
+     */
+    private Opcode findOpcode() {
+        if (count == 0) {
+            return Opcode.UNKNOWN;
+        }
+
+        for (Opcode command : COMMANDS) {
+            if (tokenEqualsIgnoreCase(0, command.keyword)) {
+                return command;
+            }
+        }
+
+        return Opcode.UNKNOWN;
+    }
+
+    /**
+     * Checks that there is a word at the index
+     *
+     * @param index position of the word
+     * @throws IndexOutOfBoundsException if there is no word at index
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                                                + ", Size: " + count);
+        }
+    }
+
+    /**
+     * Checks if the char separates words, the same chars as \s matches
+     *
+     * @param c the char to check
+     * @return true for whitespace
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+}
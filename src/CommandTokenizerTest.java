@@ -0,0 +1,164 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the splitting of lines into
+ * words, the opcodes and the parsing of numbers of the CommandTokenizer class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class CommandTokenizerTest {
+
+    // The tokenizer under test
+    private CommandTokenizer tokens;
+
+    /**
+     * Initializes the tokenizer before each test
+     */
+    @Before
+    public void setUp() {
+        tokens = new CommandTokenizer();
+    }
+
+    /**
+     * Tests that the words are split by every whitespace char and leading
+     * and trailing whitespace is ignored
+     */
+    @Test
+    public void testSplit() {
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, tokens.opcode());
+        assertEquals(CommandTokenizer.Opcode.INSERT,
+                tokens.reset(" \tinsert r_r \t    -1 -20\u000B3\f4\r\n"));
+
+        assertEquals(6, tokens.count());
+        assertEquals("insert", tokens.token(0));
+        assertEquals("r_r", tokens.token(1));
+        assertEquals(3, tokens.length(1));
+        assertEquals(-1, tokens.intAt(2));
+        assertEquals(-20, tokens.intAt(3));
+        assertEquals(3, tokens.intAt(4));
+        assertEquals(4, tokens.intAt(5));
+    }
+
+    /**
+     * Tests that the command is matched ignoring case and unknown commands
+     * and empty lines are UNKNOWN
+     */
+    @Test
+    public void testOpcodes() {
+        assertEquals(CommandTokenizer.Opcode.REGION_SEARCH,
+                tokens.reset("  regionsearch   11 11   0 0"));
+        assertEquals(CommandTokenizer.Opcode.INTERSECTIONS,
+                tokens.reset("INTERSECTIONS"));
+        assertEquals(CommandTokenizer.Opcode.REMOVE, tokens.reset("Remove a"));
+        assertEquals(CommandTokenizer.Opcode.SEARCH, tokens.reset("search a"));
+        assertEquals(CommandTokenizer.Opcode.DUMP, tokens.reset("dump"));
+        assertEquals(CommandTokenizer.Opcode.DUMP, tokens.opcode());
+
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, tokens.reset("dumps"));
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, tokens.reset("abc"));
+        assertEquals(CommandTokenizer.Opcode.UNKNOWN, tokens.reset(" \t "));
+        assertEquals(0, tokens.count());
+        assertEquals("regionSearch",
+                CommandTokenizer.Opcode.REGION_SEARCH.keyword());
+    }
+
+    /**
+     * Tests that numbers are parsed the same as Integer.parseInt, including
+     * the words it rejects
+     */
+    @Test
+    public void testIntAt() {
+        String[] words = {"0", "+7", "-0", "007", "2147483647", "-2147483648",
+            "2147483648", "-2147483649", "99999999999", "-", "+", "1a",
+            "--1", "٣", "1.5"};
+
+        for (String word : words) {
+            tokens.reset("insert " + word);
+            Integer expected;
+            try {
+                expected = Integer.parseInt(word);
+            }
+            catch (NumberFormatException e) {
+                expected = null;
+            }
+
+            try {
+                assertEquals(word, expected, (Integer) tokens.intAt(1));
+            }
+            catch (NumberFormatException e) {
+                assertNull(word, expected);
+            }
+        }
+    }
+
+    /**
+     * Tests that words are read from a CharBuffer and appended without
+     * change
+     *
+     * @throws IOException if appending fails
+     */
+    @Test
+    public void testCharBuffer() throws IOException {
+        CharBuffer buffer = CharBuffer.wrap("xx search  B1 yy", 3, 13);
+        assertEquals(CommandTokenizer.Opcode.SEARCH, tokens.reset(buffer));
+
+        StringBuilder out = new StringBuilder();
+        tokens.appendToken(1, out);
+        assertEquals("B1", out.toString());
+        assertTrue(tokens.tokenEqualsIgnoreCase(1, "b1"));
+        assertFalse(tokens.tokenEqualsIgnoreCase(1, "b"));
+    }
+
+    /**
+     * Tests that lines of many words are split in full
+     */
+    @Test
+    public void testManyWords() {
+        StringBuilder line = new StringBuilder("remove");
+        for (int i = 0; i < 100; i++) {
+            line.append(' ').append(i);
+        }
+
+        tokens.reset(line);
+        assertEquals(101, tokens.count());
+        assertEquals(99, tokens.intAt(100));
+    }
+
+    /**
+     * Tests the invalid arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            tokens.reset(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        tokens.reset("dump");
+        try {
+            tokens.token(1);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            tokens.intAt(-1);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            assertNotNull(e);
+        }
+    }
+}
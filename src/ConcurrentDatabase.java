@@ -0,0 +1,312 @@
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * This class makes a database safe to share between threads with a
+ * StampedLock. Changes take the write lock, so they are made one at a time
+ * and never while a locked read runs. Queries first run without any lock
+ * on an optimistic stamp and keep their result if no change was made in
+ * the meantime; a query overlapping a change, or failing because it read
+ * the database halfway through one, runs again under the read lock. Reads
+ * that meet no writer therefore never write to the lock, so readers on
+ * many cores do not contend for its cache line.
+ * <p>
+ * Every query is run optimistically or under the shared read lock, which
+ * nothing here checks, so the queries of the database must change nothing
+ * and must end even while a change is under way. Both hold for a
+ * SkipListDatabase on the R-tree, whose links only lead to greater keys and
+ * further down the tree, or on the grid index, whose queries stamp nothing;
+ * a database whose queries change shared state must not be wrapped. The
+ * database must be changed through this class only. Visitors and streams
+ * are given the found pairs after the lock is released, so a visitor may
+ * itself change the database.
+ * <p>
+ * Counters of the optimistic queries that were kept and retried and of
+ * the locks that had to wait, with the time spent waiting, tell how much
+ * the threads contend.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ConcurrentDatabase implements Database {
+
+    private final Database data; //Database holding the rectangles
+    private final StampedLock lock = new StampedLock(); //Guards data
+
+    private final LongAdder optimisticReads = new LongAdder(); //Kept reads
+    private final LongAdder retriedReads = new LongAdder(); //Locked again
+    private final LongAdder lockedReads = new LongAdder(); //Read locks
+    private final LongAdder writes = new LongAdder(); //Write locks
+    private final LongAdder contendedLocks = new LongAdder(); //Locks waited
+    private final LongAdder waitNanos = new LongAdder(); //Time waited
+
+    /**
+     * Initializes the database over a new empty SkipListDatabase
+     */
+    public ConcurrentDatabase() {
+        this(new SkipListDatabase());
+    }
+
+    /**
+     * Initializes the database over the given database, which is no longer
+     * to be used directly
+     *
+     * @param data the database holding the rectangles
+     * @throws IllegalArgumentException if data is null
+     */
+    public ConcurrentDatabase(Database data) {
+        if (data == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.data = data;
+    }
+
+    /**
+     * Returns the number of queries whose optimistic result was kept
+     *
+     * @return the number of queries made without a lock
+     */
+    public long optimisticReads() {
+        return optimisticReads.sum();
+    }
+
+    /**
+     * Returns the number of queries run under the read lock because a
+     * change overlapped their optimistic run or was under way when they
+     * started
+     *
+     * @return the number of retried queries
+     */
+    public long retriedReads() {
+        return retriedReads.sum();
+    }
+
+    /**
+     * Returns the number of times the read lock was taken, for retried
+     * queries and for dumps
+     *
+     * @return the number of locked reads
+     */
+    public long lockedReads() {
+        return lockedReads.sum();
+    }
+
+    /**
+     * Returns the number of times the write lock was taken
+     *
+     * @return the number of changes tried
+     */
+    public long writes() {
+        return writes.sum();
+    }
+
+    /**
+     * Returns the number of times a read or write lock could not be taken
+     * at once and the thread waited for it
+     *
+     * @return the number of contended locks
+     */
+    public long contendedLocks() {
+        return contendedLocks.sum();
+    }
+
+    /**
+     * Returns the time the threads spent waiting for a lock
+     *
+     * @return the total wait in nanoseconds
+     */
+    public long waitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean insert(KVPair<String, Rectangle> pair) {
+        return write(() -> data.insert(pair));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<String, Rectangle> remove(String name) {
+        return write(() -> data.remove(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<String, Rectangle> removeByValue(Rectangle rectangle) {
+        return write(() -> data.removeByValue(rectangle));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> regionSearch(int x, int y, int w,
+                                                        int h) {
+        return read(() -> data.regionSearch(x, y, w, h));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersections() {
+        return read(data::intersections);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name) {
+        return read(() -> data.search(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> prefixSearch(String prefix) {
+        return read(() -> data.prefixSearch(prefix));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name, int offset,
+                                                  int count) {
+        return read(() -> data.search(name, offset, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> listAll(int offset, int count) {
+        return read(() -> data.listAll(offset, count));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The dump is always made under the read lock, as it is long and
+     * would rarely survive a change.
+     */
+    @Override
+    public String dump() {
+        long stamp = readLock();
+        try {
+            return data.dump();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean validateRectangle(Rectangle rectangle) {
+        return data.validateRectangle(rectangle);
+    }
+
+    /**
+     * Runs a query optimistically, and again under the read lock if a
+     * change overlapped it, or only under the read lock if a change is
+     * under way. An exception thrown by a query that overlapped a change
+     * is dropped the same as its result.
+     *
+     * @param query the query
+     * @param <R>   the type of the result
+     * @return the result of the query
+     */
+    private <R> R read(Supplier<R> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                R result = query.get();
+                if (lock.validate(stamp)) {
+                    optimisticReads.increment();
+                    return result;
+                }
+            }
+            catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        retriedReads.increment();
+
+        stamp = readLock();
+        try {
+            return query.get();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Makes a change under the write lock
+     *
+     * @param change the change
+     * @param <R>    the type of the result
+     * @return the result of the change
+     */
+    private <R> R write(Supplier<R> change) {
+        writes.increment();
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0) {
+            long start = System.nanoTime();
+            stamp = lock.writeLock();
+            contended(start);
+        }
+
+        try {
+            return change.get();
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Takes the read lock, counting the wait if it cannot be taken at once
+     *
+     * @return the stamp of the lock
+     */
+    private long readLock() {
+        lockedReads.increment();
+        long stamp = lock.tryReadLock();
+        if (stamp == 0) {
+            long start = System.nanoTime();
+            stamp = lock.readLock();
+            contended(start);
+        }
+
+        return stamp;
+    }
+
+    /**
+     * Counts a lock that was waited for
+     *
+     * @param start the time the wait started, from System.nanoTime
+     */
+    private void contended(long start) {
+        contendedLocks.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,362 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the ConcurrentDatabase
+ * class answers the same as the database it guards, retries the queries a
+ * change overlapped and keeps the database whole under many threads
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ConcurrentDatabaseTest {
+
+    // The database under test, holding A (0, 0, 10, 10), B (5, 5, 10, 10)
+    // and C (100, 100, 5, 5)
+    private ConcurrentDatabase data;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        data = new ConcurrentDatabase();
+        data.insert(new KVPair<>("A", new Rectangle(0, 0, 10, 10)));
+        data.insert(new KVPair<>("B", new Rectangle(5, 5, 10, 10)));
+        data.insert(new KVPair<>("C", new Rectangle(100, 100, 5, 5)));
+    }
+
+    /**
+     * Tests if a null database is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDatabase() {
+        new ConcurrentDatabase(null);
+        fail();
+    }
+
+    /**
+     * Tests if every query and change answers the same as the database
+     * itself, and is counted
+     */
+    @Test
+    public void testDelegation() {
+        Database expected = new SkipListDatabase();
+        expected.insert(new KVPair<>("A", new Rectangle(0, 0, 10, 10)));
+        expected.insert(new KVPair<>("B", new Rectangle(5, 5, 10, 10)));
+        expected.insert(new KVPair<>("C", new Rectangle(100, 100, 5, 5)));
+
+        assertEquals(expected.search("A"), data.search("A"));
+        assertEquals(expected.search("1A"), data.search("1A"));
+        assertEquals(expected.regionSearch(0, 0, 50, 50),
+                data.regionSearch(0, 0, 50, 50));
+        assertEquals(expected.intersections().toString(),
+                data.intersections().toString());
+        assertEquals(expected.prefixSearch(""), data.prefixSearch(""));
+        assertEquals(expected.search("B", 0, 5), data.search("B", 0, 5));
+        assertEquals(expected.listAll(1, 5), data.listAll(1, 5));
+        assertTrue(data.dump().contains("SkipList size is: 3"));
+        assertEquals(expected.validateRectangle(new Rectangle(0, 0, 0, 1)),
+                data.validateRectangle(new Rectangle(0, 0, 0, 1)));
+        assertEquals(7, data.optimisticReads());
+        assertEquals(1, data.lockedReads());
+
+        assertEquals(expected.remove("A"), data.remove("A"));
+        assertEquals(expected.removeByValue(new Rectangle(5, 5, 10, 10)),
+                data.removeByValue(new Rectangle(5, 5, 10, 10)));
+        assertEquals(expected.insert(new KVPair<>("D",
+                        new Rectangle(1, 1, 1, 1))),
+                data.insert(new KVPair<>("D", new Rectangle(1, 1, 1, 1))));
+        assertTrue(data.dump().contains("SkipList size is: 2"));
+        assertEquals(6, data.writes());
+        assertEquals(0, data.retriedReads());
+        assertEquals(0, data.contendedLocks());
+        assertEquals(0, data.waitNanos());
+    }
+
+    /**
+     * Tests if a query failing without a change overlapping it throws
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueryException() {
+        data.search(null);
+        fail();
+    }
+
+    /**
+     * Tests if a query overlapped by a change, whether it returned or threw,
+     * is run again under the read lock and answers after the change
+     */
+    @Test
+    public void testOverlappedQuery() {
+        AtomicReference<ConcurrentDatabase> facade = new AtomicReference<>();
+        int[] calls = {0};
+        SkipListDatabase inner = new SkipListDatabase() {
+            @Override
+            public List<KVPair<String, Rectangle>> search(String name) {
+                calls[0]++;
+                if (calls[0] == 1) {
+                    facade.get().insert(new KVPair<>(name,
+                            new Rectangle(1, 1, 1, 1)));
+                }
+                else if (calls[0] == 3) {
+                    facade.get().remove(name);
+                    throw new IllegalStateException();
+                }
+                return super.search(name);
+            }
+        };
+        facade.set(new ConcurrentDatabase(inner));
+
+        assertEquals("[D, 1, 1, 1, 1]", facade.get().search("D").toString());
+        assertEquals(1, facade.get().retriedReads());
+        assertEquals(0, facade.get().optimisticReads());
+        assertNull(facade.get().search("D"));
+        assertEquals(2, facade.get().retriedReads());
+        assertEquals(2, facade.get().lockedReads());
+        assertEquals(4, calls[0]);
+    }
+
+    /**
+     * Tests if a visitor is given the pairs outside the lock, so it may
+     * change the database itself
+     */
+    @Test
+    public void testVisitorChanges() {
+        assertFalse(data.intersections(pair -> !data.insert(
+                new KVPair<>("D", new Rectangle(0, 0, 1, 1)))));
+        assertEquals("[D, 0, 0, 1, 1]", data.search("D").toString());
+        assertTrue(data.regionSearch(0, 0, 20, 20, pair -> {
+            data.remove(pair.getKey());
+            return true;
+        }));
+
+        assertEquals("[C, 100, 100, 5, 5]", data.listAll(0, 5).toString());
+        assertEquals(0, data.intersectionStream().count());
+    }
+
+    /**
+     * Tests if readers running alongside writers only ever see whole
+     * pairs, and the database ends with the pairs the writers left
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testReadersAndWriters() throws InterruptedException {
+        int writers = 2;
+        int readers = 4;
+        int keys = 200;
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < writers; t++) {
+            String prefix = "w" + t + "_";
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < 5; round++) {
+                    for (int k = 0; k < keys; k++) {
+                        data.insert(new KVPair<>(prefix + k, rectangleOf(k)));
+                    }
+                    for (int k = 0; k < keys; k += 2) {
+                        data.remove(prefix + k);
+                    }
+                    for (int k = 1; k < keys; k += 2) {
+                        data.remove(prefix + k);
+                    }
+                }
+                for (int k = 0; k < keys; k++) {
+                    data.insert(new KVPair<>(prefix + k, rectangleOf(k)));
+                }
+            }));
+        }
+        for (int t = 0; t < readers; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int k = random.nextInt(keys);
+                    List<KVPair<String, Rectangle>> found =
+                            data.search("w" + random.nextInt(writers) + "_"
+                                        + k);
+                    assertTrue(found == null || found.size() == 1);
+                    for (KVPair<String, Rectangle> pair
+                            : (found == null) ? List.<KVPair<String,
+                            Rectangle>>of() : found) {
+                        assertEquals(rectangleOf(k), pair.getValue());
+                    }
+
+                    for (KVPair<String, Rectangle> pair
+                            : data.prefixSearch("w")) {
+                        String key = pair.getKey();
+                        assertEquals(rectangleOf(Integer.parseInt(
+                                key.substring(key.indexOf('_') + 1))),
+                                pair.getValue());
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((th, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(new ArrayList<>(), failures);
+        assertEquals(readers * 2000 * 2,
+                data.optimisticReads() + data.retriedReads());
+        assertEquals(3 + writers * keys * 11, data.writes());
+        assertEquals(writers * keys + 3, data.listAll(0,
+                Integer.MAX_VALUE).size());
+    }
+
+    /**
+     * Tests that readers sharing a database on the grid index, which used to
+     * stamp the items a query looked at, all find every rectangle
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testGridReaders() throws InterruptedException {
+        ConcurrentDatabase grid = new ConcurrentDatabase(new SkipListDatabase(
+                new GridIndex<>(SkipListDatabase.WORLD_BOX_WIDTH,
+                        SkipListDatabase.WORLD_BOX_HEIGHT, 16),
+                new GridIntersections(SkipListDatabase.WORLD_BOX_WIDTH,
+                        SkipListDatabase.WORLD_BOX_HEIGHT)));
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            assertTrue(grid.insert(new KVPair<>("g" + i, new Rectangle(
+                    random.nextInt(900), random.nextInt(900),
+                    1 + random.nextInt(100), 1 + random.nextInt(100)))));
+        }
+        List<KVPair<String, Rectangle>> middle =
+                grid.regionSearch(300, 300, 200, 200);
+
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 300; i++) {
+                    assertEquals(3000, grid.regionSearch(0, 0,
+                            SkipListDatabase.WORLD_BOX_WIDTH,
+                            SkipListDatabase.WORLD_BOX_HEIGHT).size());
+                    assertEquals(middle, grid.regionSearch(300, 300, 200,
+                            200));
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((th, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(new ArrayList<>(), failures);
+        assertEquals(0, grid.retriedReads());
+    }
+
+    /**
+     * Tests that readers searching by name and region while a loader inserts
+     * into a database on a ConcurrentSkipList, shared through the external
+     * lock of a ConcurrentDatabase, see every pair loaded before they read
+     * and only whole pairs
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testConcurrentListDatabaseReaders()
+            throws InterruptedException {
+        ConcurrentSkipList<String, Rectangle> list =
+                new ConcurrentSkipList<>();
+        list.insert(new KVPair<>("seed", new Rectangle(0, 500, 5, 5)));
+        Database db = new ConcurrentDatabase(new SkipListDatabase(list));
+        int pairs = 3000;
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread loader = new Thread(() -> {
+            try {
+                for (int i = 0; i < pairs; i++) {
+                    assertTrue(db.insert(new KVPair<>("p" + i,
+                            new Rectangle(i % 1000, i / 1000, 5, 5))));
+                    loaded.set(i + 1);
+                }
+            }
+            catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                loaded.set(pairs);
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    while (loaded.get() < pairs) {
+                        int seen = loaded.get();
+                        if (seen > 0) {
+                            int i = seen - 1;
+                            assertEquals("[p" + i + ", " + (i % 1000) + ", "
+                                         + (i / 1000) + ", 5, 5]",
+                                    db.search("p" + i).toString());
+                        }
+
+                        List<KVPair<String, Rectangle>> found =
+                                db.regionSearch(0, 0, 1024, 1024);
+                        assertTrue(found.size() >= seen + 1);
+                        for (KVPair<String, Rectangle> pair : found) {
+                            assertNotNull(pair.getKey());
+                            assertEquals(5, pair.getValue().width);
+                            assertEquals(5, pair.getValue().height);
+                        }
+                    }
+                }
+                catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        loader.start();
+        loader.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(pairs + 1, list.size());
+        assertEquals(pairs + 1, db.regionSearch(0, 0, 1024, 1024).size());
+    }
+
+    /**
+     * Creates the rectangle of a key number
+     *
+     * @param k the number of the key
+     * @return the rectangle
+     */
+    private static Rectangle rectangleOf(int k) {
+        return new Rectangle(k % 32 * 30, k / 32 * 30, 10 + k % 7, 10);
+    }
+}
@@ -0,0 +1,472 @@
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+/**
+ * This class implements the Container interface with a lock-free skip list
+ * that many threads can read and change at the same time, following the
+ * lock-free skip list of Herlihy and Shavit. Every forward reference carries
+ * a mark, a node is removed by first marking its references from the top
+ * level down, the mark on level 0 deciding which thread removed it, and
+ * marked nodes are unlinked by whichever thread passes them next. All
+ * changes are made with compare-and-set, so no thread ever waits for a lock.
+ * <p>
+ * Pairs with equal keys are kept next to each other with the latest
+ * inserted first, the same as in SkipList. To keep them apart every node is
+ * given a sequence number when inserted and nodes are ordered by key and
+ * then by descending sequence number. Iterating, searching and dumping see
+ * a weakly consistent view: changes made while they run may or may not be
+ * seen.
+ *
+ * @param <K> Key
+ * @param <V> Value
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ConcurrentSkipList<K extends Comparable<? super K>, V>
+        extends AbstractContainer<K, V> {
+
+    private final Node head; //Node before every other node on every level
+    private final AtomicInteger size; //Number of entries in the list
+    private final AtomicInteger level; //Highest level a node ever reached
+    private final AtomicLong sequence; //Sequence number of the last insert
+    private final LevelGenerator levels; //Picks the level of new nodes
+    private final int maxLevel; //Highest level a node can have
+
+    /**
+     * Initializes the fields head, size and level, with levels picked by a
+     * GeometricLevelGenerator with p = 1/2
+     */
+    public ConcurrentSkipList() {
+        this(new GeometricLevelGenerator());
+    }
+
+    /**
+     * Initializes the fields head, size and level, with levels picked by the
+     * given generator, which is called from every inserting thread
+     *
+     * @param levels the thread-safe generator picking the level of every new
+     *               node
+     * @throws IllegalArgumentException if levels is null
+     */
+    public ConcurrentSkipList(LevelGenerator levels) {
+        if (levels == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.levels = levels;
+        maxLevel = levels.maxLevel();
+        head = new Node(null, Long.MAX_VALUE, maxLevel);
+        size = new AtomicInteger();
+        level = new AtomicInteger();
+        sequence = new AtomicLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<K, V>> search(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        //Move to the first node with the key
+        Node current = head;
+        for (int i = level.get(); i > -1; i--) {
+            Node next = current.next[i].getReference();
+            while (next != null && next.pair.getKey().compareTo(key) < 0) {
+                current = next;
+                next = current.next[i].getReference();
+            }
+        }
+        current = current.next[0].getReference();
+
+        List<KVPair<K, V>> foundElements = new ArrayList<>();
+        while (current != null && current.pair.getKey().equals(key)) {
+            if (!current.next[0].isMarked()) {
+                foundElements.add(current.pair);
+            }
+            current = current.next[0].getReference();
+        }
+
+        return foundElements.isEmpty() ? null : foundElements;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> first() {
+        Node current = firstLive(head.next[0].getReference());
+        return (current == null) ? null : current.pair;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int topLevel = Math.min(maxLevel, levels.nextLevel());
+        level.accumulateAndGet(topLevel, Math::max);
+
+        Node newNode = new Node(it, sequence.incrementAndGet(), topLevel);
+        Node[] preds = (Node[]) Array.newInstance(Node.class, maxLevel + 1);
+        Node[] succs = (Node[]) Array.newInstance(Node.class, maxLevel + 1);
+
+        //Link the node on level 0, which makes it part of the list
+        while (true) {
+            find(it.getKey(), newNode.seq, preds, succs);
+
+            for (int i = 0; i <= topLevel; i++) {
+                newNode.next[i].set(succs[i], false);
+            }
+
+            if (preds[0].next[0].compareAndSet(succs[0], newNode, false,
+                    false)) {
+                break;
+            }
+        }
+
+        size.incrementAndGet();
+
+        //Link the node on the upper levels
+        for (int i = 1; i <= topLevel; i++) {
+            while (true) {
+                Node succ = succs[i];
+
+                //Stop if another thread started removing the node
+                if (!newNode.next[i].compareAndSet(
+                        newNode.next[i].getReference(), succ, false, false)) {
+                    return;
+                }
+
+                if (preds[i].next[i].compareAndSet(succ, newNode, false,
+                        false)) {
+                    break;
+                }
+
+                find(it.getKey(), newNode.seq, preds, succs);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public KVPair<K, V> remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Node[] preds = (Node[]) Array.newInstance(Node.class, maxLevel + 1);
+        Node[] succs = (Node[]) Array.newInstance(Node.class, maxLevel + 1);
+
+        while (true) {
+            //The highest sequence number finds the first node with the key
+            find(key, Long.MAX_VALUE, preds, succs);
+            Node candidate = succs[0];
+
+            //key does not exist
+            if (candidate == null || !candidate.pair.getKey().equals(key)) {
+                return null;
+            }
+
+            if (markRemoved(candidate)) {
+                return candidate.pair;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        //Checks for null input and empty list
+        if (val == null) {
+            throw new IllegalArgumentException();
+        }
+
+        while (true) {
+            //Find the first live node with value
+            Node current = firstLive(head.next[0].getReference());
+            while (current != null && !current.pair.getValue().equals(val)) {
+                current = firstLive(current.next[0].getReference());
+            }
+
+            //return null if not found
+            if (current == null) {
+                return null;
+            }
+
+            if (markRemoved(current)) {
+                return current.pair;
+            }
+        }
+    }
+
+    /**
+     * Implements method from Iterable class
+     *
+     * @return the iterator used to traverse through the list
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new ConcurrentSkipListIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String dump() {
+        //Builder to append string in
+        StringBuilder sb = new StringBuilder("SkipList dump:");
+        sb.append("\nNode has depth ").append(level.get() + 1)
+                .append(", Value (null)");
+
+        //Iterate through each node and write their details to sb
+        Node current = firstLive(head.next[0].getReference());
+        while (current != null) {
+            sb.append("\nNode has depth ").append(current.topLevel + 1)
+                    .append(", Value (").append(current.pair).append(")");
+            current = firstLive(current.next[0].getReference());
+        }
+
+        sb.append("\nSkipList size is: ").append(size());
+        return sb.toString();
+    }
+
+    /**
+     * Finds the nodes right before and at or right after the position of the
+     * key and sequence number on every level, unlinking the marked nodes
+     * met on the way. If unlinking fails because another thread changed
+     * the list, the search starts over from the head.
+     *
+     * @param key   the key of the position
+     * @param seq   the sequence number of the position
+     * @param preds the array receiving the node before the position on each
+     *              level
+     * @param succs the array receiving the node at or after the position on
+     *              each level, null if there is none
+     */
+    private void find(K key, long seq, Node[] preds, Node[] succs) {
+        boolean[] marked = {false};
+
+        retry:
+        while (true) {
+            Node pred = head;
+            int top = level.get();
+
+            //No node is linked above the highest level reached
+            for (int i = maxLevel; i > top; i--) {
+                preds[i] = head;
+                succs[i] = null;
+            }
+
+            for (int i = top; i > -1; i--) {
+                Node curr = pred.next[i].getReference();
+
+                while (curr != null) {
+                    Node succ = curr.next[i].get(marked);
+
+                    //Unlink the marked nodes following pred
+                    while (marked[0]) {
+                        if (!pred.next[i].compareAndSet(curr, succ, false,
+                                false)) {
+                            continue retry;
+                        }
+
+                        curr = succ;
+                        if (curr == null) {
+                            break;
+                        }
+                        succ = curr.next[i].get(marked);
+                    }
+
+                    if (curr != null && isBefore(curr, key, seq)) {
+                        pred = curr;
+                        curr = succ;
+                    }
+                    else {
+                        break;
+                    }
+                }
+
+                preds[i] = pred;
+                succs[i] = curr;
+            }
+
+            return;
+        }
+    }
+
+    /**
+     * Removes the node by marking its forward references from the top level
+     * down. Only the thread marking level 0 removes the node, it then
+     * unlinks it from every level.
+     *
+     * @param node the node to remove
+     * @return true if this thread removed the node, false if another thread
+     * removed it first
+     */
+    @SuppressWarnings("unchecked")
+    private boolean markRemoved(Node node) {
+        boolean[] marked = {false};
+
+        for (int i = node.topLevel; i > 0; i--) {
+            Node succ = node.next[i].get(marked);
+            while (!marked[0]) {
+                node.next[i].attemptMark(succ, true);
+                succ = node.next[i].get(marked);
+            }
+        }
+
+        Node succ = node.next[0].get(marked);
+        while (true) {
+            if (marked[0]) {
+                return false;
+            }
+
+            if (node.next[0].compareAndSet(succ, succ, false, true)) {
+                size.decrementAndGet();
+
+                //Unlink the node from every level
+                find(node.pair.getKey(), node.seq,
+                        (Node[]) Array.newInstance(Node.class, maxLevel + 1),
+                        (Node[]) Array.newInstance(Node.class, maxLevel + 1));
+                return true;
+            }
+
+            succ = node.next[0].get(marked);
+        }
+    }
+
+    /**
+     * Checks if the node is ordered before the position of the key and
+     * sequence number
+     *
+     * @param node the node under consideration
+     * @param key  the key of the position
+     * @param seq  the sequence number of the position
+     * @return true if the node is before the position
+     */
+    private boolean isBefore(Node node, K key, long seq) {
+        int cmp = node.pair.getKey().compareTo(key);
+        return cmp < 0 || (cmp == 0 && node.seq > seq);
+    }
+
+    /**
+     * Returns the first node from the given one on level 0 that is not
+     * being removed.
+     *
+     * @param node the node to start from
+     * @return the first live node, or null if there is none
+     */
+    private Node firstLive(Node node) {
+        while (node != null && node.next[0].isMarked()) {
+            node = node.next[0].getReference();
+        }
+
+        return node;
+    }
+
+    /**
+     * This class implements a node of the ConcurrentSkipList.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class Node {
+
+        // the KVPair to hold
+        private final KVPair<K, V> pair;
+        // the sequence number ordering nodes with equal keys
+        private final long seq;
+        // the marked references to the following node on each level
+        private final AtomicMarkableReference<Node>[] next;
+        // the highest level of the node
+        private final int topLevel;
+
+        /**
+         * Initializes the node with the KVPair, its sequence number and the
+         * number of levels.
+         *
+         * @param pair     the KVPair to be inserted
+         * @param seq      the sequence number of the node
+         * @param topLevel the highest level of the node
+         */
+        @SuppressWarnings("unchecked")
+        public Node(KVPair<K, V> pair, long seq, int topLevel) {
+            this.pair = pair;
+            this.seq = seq;
+            this.topLevel = topLevel;
+            next = (AtomicMarkableReference<Node>[]) Array.newInstance(
+                    AtomicMarkableReference.class, topLevel + 1);
+
+            for (int i = 0; i <= topLevel; i++) {
+                next[i] = new AtomicMarkableReference<>(null, false);
+            }
+        }
+    }
+
+    /**
+     * This class implements a weakly consistent iterator over the live
+     * nodes of the ConcurrentSkipList.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class ConcurrentSkipListIterator
+            implements Iterator<KVPair<K, V>> {
+        private Node current; //Next node to be returned
+
+        /**
+         * Constructs this class object.
+         */
+        public ConcurrentSkipListIterator() {
+            current = firstLive(head.next[0].getReference());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public KVPair<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+
+            KVPair<K, V> pair = current.pair;
+            current = firstLive(current.next[0].getReference());
+            return pair;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the ConcurrentSkipList class, both from a single thread and from many
+ * threads at the same time
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ConcurrentSkipListTest {
+
+    //Number of threads changing the list at the same time
+    private static final int THREADS = 8;
+    //Number of operations every thread makes
+    private static final int OPERATIONS = 2000;
+
+    //Represents an empty skip list
+    private ConcurrentSkipList<String, String> listEmpty;
+    //Represents a skip list with 3 elements with keys A, B, C respectively
+    private ConcurrentSkipList<String, String> listA1B2C3;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        listEmpty = new ConcurrentSkipList<>();
+
+        listA1B2C3 = new ConcurrentSkipList<>();
+        listA1B2C3.insert(new KVPair<>("C", "3"));
+        listA1B2C3.insert(new KVPair<>("A", "1"));
+        listA1B2C3.insert(new KVPair<>("B", "2"));
+    }
+
+    /**
+     * Tests size and isEmpty on empty and filled lists
+     */
+    @Test
+    public void testSize() {
+        assertTrue(listEmpty.isEmpty());
+        assertEquals(0, listEmpty.size());
+        assertFalse(listA1B2C3.isEmpty());
+        assertEquals(3, listA1B2C3.size());
+    }
+
+    /**
+     * Tests that iterating returns the pairs sorted by key
+     */
+    @Test
+    public void testIterationOrder() {
+        assertEquals("[(A, 1), (B, 2), (C, 3)]:3", listA1B2C3.toString());
+        assertEquals("[]:0", listEmpty.toString());
+    }
+
+    /**
+     * Tests that insertAll inserts the pairs one by one in their order
+     */
+    @Test
+    public void testInsertAll() {
+        List<KVPair<String, String>> batch = new ArrayList<>();
+        batch.add(new KVPair<>("B", "4"));
+        batch.add(new KVPair<>("D", "5"));
+        listA1B2C3.insertAll(batch);
+        listEmpty.insertAll(batch.stream());
+
+        assertEquals(5, listA1B2C3.size());
+        assertEquals("[B, 4]", listA1B2C3.search("B").subList(0, 1)
+                .toString());
+        assertEquals("[(B, 4), (D, 5)]:2", listEmpty.toString());
+    }
+
+    /**
+     * Tests the ranges, floor, ceiling, last and descending view the list
+     * finds by iterating
+     */
+    @Test
+    public void testNavigation() {
+        listA1B2C3.insert(new KVPair<>("B", "4"));
+
+        assertEquals("[B, 4, B, 2]", listA1B2C3.range("B", "C").toString());
+        assertEquals("[A, 1]", listA1B2C3.range(null, "AA").toString());
+        assertEquals("[C, 3, B, 2, B, 4, A, 1]",
+                listA1B2C3.descending().toString());
+        assertEquals("4", listA1B2C3.floor("BA").getValue());
+        assertEquals("4", listA1B2C3.ceiling("AA").getValue());
+        assertNull(listA1B2C3.ceiling("D"));
+        assertEquals("3", listA1B2C3.last().getValue());
+        assertNull(listEmpty.last());
+        assertEquals("2", listA1B2C3.get(2).getValue());
+        assertNull(listA1B2C3.get(4));
+        assertEquals(1, listA1B2C3.rankOf("B"));
+        assertEquals("[B, 2, C, 3]", listA1B2C3.page(2, 3).toString());
+
+        try {
+            listA1B2C3.range("B", "A");
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests first on empty and filled lists
+     */
+    @Test
+    public void testFirst() {
+        assertNull(listEmpty.first());
+        assertEquals("A", listA1B2C3.first().getKey());
+    }
+
+    /**
+     * Tests search for present, missing and null keys
+     */
+    @Test
+    public void testSearch() {
+        assertEquals("[B, 2]", listA1B2C3.search("B").toString());
+        assertNull(listA1B2C3.search("D"));
+        assertNull(listEmpty.search("A"));
+
+        try {
+            listA1B2C3.search(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that pairs with equal keys are kept with the latest first, the
+     * same as in SkipList
+     */
+    @Test
+    public void testDuplicatesOrder() {
+        listA1B2C3.insert(new KVPair<>("B", "4"));
+        listA1B2C3.insert(new KVPair<>("B", "5"));
+
+        assertEquals("[B, 5, B, 4, B, 2]",
+                listA1B2C3.search("B").toString());
+        assertEquals("B", listA1B2C3.remove("B").getKey());
+        assertEquals("[B, 4, B, 2]", listA1B2C3.search("B").toString());
+    }
+
+    /**
+     * Tests remove for present, missing and null keys
+     */
+    @Test
+    public void testRemove() {
+        assertEquals("2", listA1B2C3.remove("B").getValue());
+        assertNull(listA1B2C3.remove("B"));
+        assertNull(listEmpty.remove("B"));
+        assertEquals(2, listA1B2C3.size());
+        assertEquals("[(A, 1), (C, 3)]:2", listA1B2C3.toString());
+
+        try {
+            listA1B2C3.remove(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests removeByValue for present, missing and null values
+     */
+    @Test
+    public void testRemoveByValue() {
+        assertEquals("C", listA1B2C3.removeByValue("3").getKey());
+        assertNull(listA1B2C3.removeByValue("3"));
+        assertNull(listEmpty.removeByValue("3"));
+        assertEquals("[(A, 1), (B, 2)]:2", listA1B2C3.toString());
+
+        try {
+            listA1B2C3.removeByValue(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests insert with a null pair
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNull() {
+        listEmpty.insert(null);
+    }
+
+    /**
+     * Tests the dump format of empty and filled lists
+     */
+    @Test
+    public void testDump() {
+        assertEquals("SkipList dump:\nNode has depth 1, Value (null)\n"
+                     + "SkipList size is: 0", listEmpty.dump());
+
+        String dump = listA1B2C3.dump();
+        assertTrue(dump.startsWith("SkipList dump:\nNode has depth "));
+        assertTrue(dump.contains("Value (A, 1)\nNode has depth "));
+        assertTrue(dump.endsWith("Value (C, 3)\nSkipList size is: 3"));
+    }
+
+    /**
+     * Tests that the iterator stops at the end of the list
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorEnd() {
+        Iterator<KVPair<String, String>> it = listEmpty.iterator();
+        assertFalse(it.hasNext());
+        it.next();
+    }
+
+    /**
+     * Tests that inserts from many threads are all kept in sorted order
+     *
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    @Test
+    public void testConcurrentInsert() throws InterruptedException {
+        runThreads(t -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                listEmpty.insert(new KVPair<>(key(t, i), t + ":" + i));
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS, listEmpty.size());
+        assertSorted(listEmpty, THREADS * OPERATIONS);
+
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(1, listEmpty.search(key(t, OPERATIONS / 2)).size());
+        }
+    }
+
+    /**
+     * Tests that threads removing the same keys remove every pair once
+     *
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    @Test
+    public void testConcurrentRemove() throws InterruptedException {
+        for (int i = 0; i < OPERATIONS; i++) {
+            listEmpty.insert(new KVPair<>(key(0, i), "v" + i));
+        }
+
+        AtomicInteger removed = new AtomicInteger();
+        runThreads(t -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (listEmpty.remove(key(0, i)) != null) {
+                    removed.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(OPERATIONS, removed.get());
+        assertEquals(0, listEmpty.size());
+        assertNull(listEmpty.first());
+    }
+
+    /**
+     * Tests inserts and removes of the same keys from many threads at the
+     * same time
+     *
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    @Test
+    public void testConcurrentMixed() throws InterruptedException {
+        runThreads(t -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                listEmpty.insert(new KVPair<>(key(0, i % 50), t + ":" + i));
+                if (i % 2 == 1) {
+                    assertNotNull(listEmpty.remove(key(0, i % 50)));
+                }
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS / 2, listEmpty.size());
+        assertSorted(listEmpty, THREADS * OPERATIONS / 2);
+    }
+
+    /**
+     * Returns a key that sorts by thread and then by index
+     *
+     * @param thread the number of the thread
+     * @param index  the index of the operation
+     * @return the key
+     */
+    private String key(int thread, int index) {
+        return String.format("k%06d-%d", index, thread);
+    }
+
+    /**
+     * Checks that the list holds the given number of pairs in sorted order
+     *
+     * @param list  the list to check
+     * @param count the expected number of pairs
+     */
+    private void assertSorted(ConcurrentSkipList<String, String> list,
+                              int count) {
+        List<String> keys = new ArrayList<>();
+        for (KVPair<String, String> pair : list) {
+            keys.add(pair.getKey());
+        }
+
+        assertEquals(count, keys.size());
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) <= 0);
+        }
+    }
+
+    /**
+     * Runs the task on all the threads at the same time and waits for them
+     *
+     * @param task the task, given the number of the thread running it
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private void runThreads(ThreadTask task) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            final int number = t;
+            Thread thread = new Thread(() -> task.run(number));
+            thread.setUncaughtExceptionHandler((th, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    /**
+     * A task run by each of the test threads
+     */
+    private interface ThreadTask {
+        /**
+         * Runs the task
+         *
+         * @param thread the number of the thread running it
+         */
+        void run(int thread);
+    }
+}
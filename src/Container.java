@@ -1,4 +1,8 @@
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This interface holds the generic functionality a container should have
@@ -30,6 +34,201 @@ public interface Container<K extends Comparable<? super K>, V>
     KVPair<K, V> first();
 
 
+    /**
+     * Gets the last element in the list.
+     * By default the whole container is iterated.
+     *
+     * @return The last element in the list, or null if it is empty
+     */
+    default KVPair<K, V> last() {
+        KVPair<K, V> last = null;
+        for (KVPair<K, V> pair : this) {
+            last = pair;
+        }
+
+        return last;
+    }
+
+
+    /**
+     * Returns the pairs with keys from fromKey, inclusive, to toKey,
+     * exclusive, in the order the container iterates them. A null bound
+     * leaves that end of the range open. By default the whole container is
+     * iterated and the pairs in the range are gathered in a list.
+     *
+     * @param fromKey the lowest key of the range, or null
+     * @param toKey   the key the range ends before, or null
+     * @return the pairs in the range
+     * @throws IllegalArgumentException if fromKey is greater than toKey
+     */
+    default Iterable<KVPair<K, V>> range(K fromKey, K toKey) {
+        if (fromKey != null && toKey != null
+            && fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<K, V>> found = new ArrayList<>();
+        for (KVPair<K, V> pair : this) {
+            K key = pair.getKey();
+            if ((fromKey == null || key.compareTo(fromKey) >= 0)
+                && (toKey == null || key.compareTo(toKey) < 0)) {
+                found.add(pair);
+            }
+        }
+
+        return found;
+    }
+
+
+    /**
+     * Gets the first pair, in the order the container iterates them, with
+     * the greatest key less than or equal to the given key. By default the
+     * whole container is iterated.
+     *
+     * @param key the key to look for
+     * @return the pair, or null if every key is greater
+     * @throws IllegalArgumentException @param cannot be null
+     */
+    default KVPair<K, V> floor(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        KVPair<K, V> found = null;
+        for (KVPair<K, V> pair : this) {
+            if (pair.getKey().compareTo(key) <= 0 && (found == null
+                    || pair.getKey().compareTo(found.getKey()) > 0)) {
+                found = pair;
+            }
+        }
+
+        return found;
+    }
+
+
+    /**
+     * Gets the first pair, in the order the container iterates them, with
+     * the least key greater than or equal to the given key. By default the
+     * whole container is iterated.
+     *
+     * @param key the key to look for
+     * @return the pair, or null if every key is less
+     * @throws IllegalArgumentException @param cannot be null
+     */
+    default KVPair<K, V> ceiling(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        KVPair<K, V> found = null;
+        for (KVPair<K, V> pair : this) {
+            if (pair.getKey().compareTo(key) >= 0 && (found == null
+                    || pair.getKey().compareTo(found.getKey()) < 0)) {
+                found = pair;
+            }
+        }
+
+        return found;
+    }
+
+
+    /**
+     * Gets the pair at the index in the order the container iterates them.
+     * By default the container is iterated up to the index.
+     *
+     * @param index the index of the pair, from 0
+     * @return the pair, or null if the index is not less than the size
+     * @throws IllegalArgumentException if index is negative
+     */
+    default KVPair<K, V> get(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int i = 0;
+        for (KVPair<K, V> pair : this) {
+            if (i++ == index) {
+                return pair;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Counts the pairs with keys less than the key, which is the index of
+     * the first pair with the key if there is one. By default the whole
+     * container is iterated.
+     *
+     * @param key the key to look for
+     * @return the number of pairs with lesser keys
+     * @throws IllegalArgumentException @param cannot be null
+     */
+    default int rankOf(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int rank = 0;
+        for (KVPair<K, V> pair : this) {
+            if (pair.getKey().compareTo(key) < 0) {
+                rank++;
+            }
+        }
+
+        return rank;
+    }
+
+
+    /**
+     * Returns at most count pairs from the pair at the offset on, in the
+     * order the container iterates them. By default the container is
+     * iterated up to the end of the page and the pairs are gathered in a
+     * list.
+     *
+     * @param offset the index of the first pair, from 0
+     * @param count  the number of pairs at most
+     * @return the pairs of the page, fewer past the end of the container
+     * @throws IllegalArgumentException if offset or count is negative
+     */
+    default Iterable<KVPair<K, V>> page(int offset, int count) {
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<K, V>> found = new ArrayList<>();
+        int i = 0;
+        for (KVPair<K, V> pair : this) {
+            if (found.size() == count) {
+                break;
+            }
+            if (i++ >= offset) {
+                found.add(pair);
+            }
+        }
+
+        return found;
+    }
+
+
+    /**
+     * Returns every pair in the reverse of the order the container iterates
+     * them. By default the pairs are gathered in a list and reversed.
+     *
+     * @return the pairs, last first
+     */
+    default Iterable<KVPair<K, V>> descending() {
+        List<KVPair<K, V>> all = new ArrayList<>();
+        for (KVPair<K, V> pair : this) {
+            all.add(pair);
+        }
+        Collections.reverse(all);
+
+        return all;
+    }
+
+
     /**
      * Inserts the KVPair in the SkipList at its appropriate spot as designated
      * by its lexicographical order.
@@ -40,6 +239,42 @@ public interface Container<K extends Comparable<? super K>, V>
     void insert(KVPair<K, V> it);
 
 
+    /**
+     * Inserts every pair, the same as inserting them one by one in the order
+     * given, so among equal keys the pairs given later come first. By
+     * default the pairs are inserted one by one, and the pairs before a
+     * null one are inserted before it is found.
+     *
+     * @param pairs the pairs to be inserted
+     * @throws IllegalArgumentException if pairs or any pair is null
+     */
+    default void insertAll(Iterable<KVPair<K, V>> pairs) {
+        if (pairs == null) {
+            throw new IllegalArgumentException();
+        }
+
+        for (KVPair<K, V> pair : pairs) {
+            insert(pair);
+        }
+    }
+
+
+    /**
+     * Inserts every pair of the stream in its encounter order, see
+     * insertAll(Iterable)
+     *
+     * @param pairs the pairs to be inserted
+     * @throws IllegalArgumentException if pairs or any pair is null
+     */
+    default void insertAll(Stream<KVPair<K, V>> pairs) {
+        if (pairs == null) {
+            throw new IllegalArgumentException();
+        }
+
+        insertAll(pairs.collect(Collectors.toList()));
+    }
+
+
     /**
      * Removes the KVPair that is passed in as a parameter and returns true if
      * the pair was valid and false if not.
@@ -1,4 +1,5 @@
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This class is responsible for interfacing between the command processor and
@@ -74,6 +75,101 @@ public interface Database {
             KVPair<String, Rectangle>>> intersections();
 
 
+    /**
+     * Visits the rectangles inside the specified region, in the same order
+     * as regionSearch returns them, without collecting them in a list. The
+     * search stops as soon as the visitor returns false.
+     *
+     * @param x       x-Coordinate of the region
+     * @param y       y-Coordinate of the region
+     * @param w       width of the region
+     * @param h       height of the region
+     * @param visitor takes every rectangle within the region
+     * @return null if the region is rejected, false if the visitor stopped
+     * the search, true otherwise
+     * @throws IllegalArgumentException if visitor is null
+     */
+    default Boolean regionSearch(int x, int y, int w, int h,
+                                 ResultVisitor<KVPair<String, Rectangle>>
+                                         visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<String, Rectangle>> found = regionSearch(x, y, w, h);
+        if (found == null) {
+            return null;
+        }
+
+        for (KVPair<String, Rectangle> pair : found) {
+            if (!visitor.visit(pair)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the rectangles inside the specified region as a stream, in
+     * the same order as regionSearch returns them. Operations such as limit
+     * or findFirst stop the search early.
+     *
+     * @param x x-Coordinate of the region
+     * @param y y-Coordinate of the region
+     * @param w width of the region
+     * @param h height of the region
+     * @return the rectangles within the region, empty if the region is
+     * rejected
+     */
+    default Stream<KVPair<String, Rectangle>> regionSearchStream(int x, int y,
+                                                                 int w,
+                                                                 int h) {
+        List<KVPair<String, Rectangle>> found = regionSearch(x, y, w, h);
+        return (found == null) ? Stream.empty() : found.stream();
+    }
+
+
+    /**
+     * Visits the pairs of intersecting rectangles, in the same order as
+     * intersections returns them, without collecting them in a list. The
+     * visiting stops as soon as the visitor returns false.
+     *
+     * @param visitor takes every intersecting pair
+     * @return false if the visitor stopped the visiting, true otherwise
+     * @throws IllegalArgumentException if visitor is null
+     */
+    default boolean intersections(ResultVisitor<Pair<KVPair<String,
+            Rectangle>, KVPair<String, Rectangle>>> visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException();
+        }
+
+        for (Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>> pair
+                : intersections()) {
+            if (!visitor.visit(pair)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the pairs of intersecting rectangles as a stream, in the same
+     * order as intersections returns them. Operations such as limit or
+     * findFirst stop creating pairs early.
+     *
+     * @return the intersecting pairs
+     */
+    default Stream<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersectionStream() {
+        return intersections().stream();
+    }
+
+
     /**
      * Prints out all the rectangles with the specified
      * name in the SkipList.
@@ -85,6 +181,47 @@ public interface Database {
      */
     List<KVPair<String, Rectangle>> search(String name);
 
+
+    /**
+     * Returns all the rectangles whose names start with the prefix, sorted
+     * by name, the same order a dump lists them in. Every name starts with
+     * an empty prefix.
+     *
+     * @param prefix the start of the names to be searched for
+     * @return list of the rectangles found, empty if none
+     * @throws IllegalArgumentException if prefix is null
+     */
+    List<KVPair<String, Rectangle>> prefixSearch(String prefix);
+
+
+    /**
+     * Returns a page of the rectangles with the specified name: at most
+     * count of them, skipping the first offset, in the order search
+     * returns them.
+     *
+     * @param name   name of the Rectangle to be searched for
+     * @param offset the number of rectangles to skip
+     * @param count  the number of rectangles at most
+     * @return list of the rectangles of the page, empty past the last one,
+     * or null if the name is rejected
+     * @throws IllegalArgumentException if name is null, or offset or count
+     *                                  is negative
+     */
+    List<KVPair<String, Rectangle>> search(String name, int offset,
+                                           int count);
+
+
+    /**
+     * Returns a page of all the rectangles: at most count of them, skipping
+     * the first offset, in the order a dump lists them.
+     *
+     * @param offset the number of rectangles to skip
+     * @param count  the number of rectangles at most
+     * @return list of the rectangles of the page, empty past the last one
+     * @throws IllegalArgumentException if offset or count is negative
+     */
+    List<KVPair<String, Rectangle>> listAll(int offset, int count);
+
     /**
      * Returns dump of the SkipList which includes information
      * about the size of the SkipList and shows all of the contents
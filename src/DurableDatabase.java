@@ -0,0 +1,422 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * This class makes a database durable by logging every change it makes to a
+ * WriteAheadLog. A change is logged only if it changes something, so
+ * rejected inserts and removals finding nothing leave no record; it is
+ * forced to the disk before the method returns when the log syncs every
+ * commit. A removal is logged before it is made, once a query tells it will
+ * remove a pair. An insert is made first, as only the database can tell if
+ * it accepts the pair, and taken back if logging it fails. Either way the
+ * database never holds a change the log lacks, and a failed log refuses
+ * every later change. Queries go straight to the database. Opening
+ * the database replays the log into a new SkipList and builds the spatial
+ * index from it in one bulk load, so a restart takes the time of reading the
+ * log instead of processing every command again.
+ * <p>
+ * Changes are logged as the operation made, not as its result, so recovery
+ * makes the same calls in the same order and removals by name or by value
+ * remove the same pairs they removed the first time.
+ * <p>
+ * A database opened with a snapshot file checkpoints itself: once the log
+ * grows past the given size, the pairs are saved in a new Snapshot and the
+ * log is reset, so a restart reads one snapshot, built into the list in one
+ * pass, and a log no longer than the checkpoint size.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class DurableDatabase implements Database, Closeable {
+
+    //Log size starting a checkpoint, unless given
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private final Database data; //Database holding the rectangles
+    private final WriteAheadLog log; //Log of the changes
+    private final Container<String, Rectangle> pairs; //Pairs to checkpoint
+    private final Path snapshot; //Snapshot file, null if never checkpointed
+    private final long checkpointBytes; //Log size starting a checkpoint
+    private final boolean compress; //Whether snapshots are compressed
+    private long checkpoints; //Number of checkpoints made
+
+    /**
+     * Initializes the durable database over a database that already holds
+     * what the log recovered, such as one built on the container the log was
+     * replayed into.
+     *
+     * @param data the database holding the rectangles
+     * @param log  the open log the changes are appended to
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public DurableDatabase(Database data, WriteAheadLog log) {
+        this(data, log, null, null, 0, false);
+    }
+
+    /**
+     * Initializes the durable database, checkpointing the container holding
+     * the pairs of the database to the snapshot file if one is given
+     *
+     * @param data            the database holding the rectangles
+     * @param log             the open log the changes are appended to
+     * @param pairs           the container of the database, iterating its
+     *                        pairs sorted by key, or null
+     * @param snapshot        the snapshot file, or null
+     * @param checkpointBytes the log size starting a checkpoint
+     * @param compress        true to compress the snapshots
+     */
+    private DurableDatabase(Database data, WriteAheadLog log,
+                            Container<String, Rectangle> pairs, Path snapshot,
+                            long checkpointBytes, boolean compress) {
+        if (data == null || log == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.data = data;
+        this.log = log;
+        this.pairs = pairs;
+        this.snapshot = snapshot;
+        this.checkpointBytes = checkpointBytes;
+        this.compress = compress;
+    }
+
+    /**
+     * Opens the database logged in the file, recovering everything logged
+     * before, or an empty database if the file is missing
+     *
+     * @param file   the log file
+     * @param policy when changes are forced to the disk
+     * @return the recovered database
+     * @throws IOException              if the log cannot be read or written
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public static DurableDatabase open(Path file,
+                                       WriteAheadLog.SyncPolicy policy)
+            throws IOException {
+        SkipList<String, Rectangle> list =
+                new SkipList<>(new GeometricLevelGenerator(), true);
+        WriteAheadLog log = WriteAheadLog.open(file, policy, list);
+
+        return new DurableDatabase(new SkipListDatabase(list), log);
+    }
+
+    /**
+     * Opens the database saved in the snapshot file and logged in the log
+     * file since, recovering everything saved or logged before. The
+     * snapshot is built into the list bottom-up and only the changes logged
+     * after it are replayed. A checkpoint is made whenever the log grows
+     * past the checkpoint size.
+     *
+     * @param file            the log file
+     * @param snapshot        the snapshot file, missing until the first
+     *                        checkpoint
+     * @param policy          when changes are forced to the disk
+     * @param checkpointBytes the log size starting a checkpoint
+     * @param compress        true to compress the snapshots
+     * @return the recovered database
+     * @throws IOException              if the snapshot or the log cannot be
+     *                                  read or written, or the log needs a
+     *                                  snapshot that is missing
+     * @throws IllegalArgumentException if any object is null or
+     *                                  checkpointBytes is not positive
+     */
+    public static DurableDatabase open(Path file, Path snapshot,
+                                       WriteAheadLog.SyncPolicy policy,
+                                       long checkpointBytes, boolean compress)
+            throws IOException {
+        if (file == null || snapshot == null || policy == null
+            || checkpointBytes <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        SkipList<String, Rectangle> list;
+        long generation = 0;
+        if (Files.exists(snapshot)) {
+            Snapshot saved = Snapshot.read(snapshot);
+            list = saved.toSkipList(new GeometricLevelGenerator(), true);
+            generation = saved.generation();
+        }
+        else {
+            list = new SkipList<>(new GeometricLevelGenerator(), true);
+        }
+
+        WriteAheadLog log = WriteAheadLog.open(file, policy,
+                WriteAheadLog.DEFAULT_SYNC_INTERVAL_MILLIS,
+                WriteAheadLog.DEFAULT_BUFFER_SIZE, list, generation);
+
+        return new DurableDatabase(new SkipListDatabase(list), log, list,
+                snapshot, checkpointBytes, compress);
+    }
+
+    /**
+     * Returns the log the changes are appended to
+     *
+     * @return the write-ahead log
+     */
+    public WriteAheadLog log() {
+        return log;
+    }
+
+    /**
+     * Returns the number of checkpoints made since the database was opened
+     *
+     * @return the number of checkpoints
+     */
+    public long checkpointCount() {
+        return checkpoints;
+    }
+
+    /**
+     * Saves every pair in a new snapshot and resets the log, so a restart
+     * replays no change made before
+     *
+     * @throws IOException           if the snapshot or the log cannot be
+     *                               written
+     * @throws IllegalStateException if the database was not opened with a
+     *                               snapshot file
+     */
+    public void checkpoint() throws IOException {
+        if (snapshot == null) {
+            throw new IllegalStateException("No snapshot file");
+        }
+
+        long generation = log.generation() + 1;
+        Snapshot.write(snapshot, generation, pairs, compress);
+        log.reset(generation);
+        checkpoints++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean insert(KVPair<String, Rectangle> pair) {
+        Boolean inserted = data.insert(pair);
+        if (Boolean.TRUE.equals(inserted)) {
+            try {
+                log.logInsert(pair);
+            }
+            catch (IOException | RuntimeException e) {
+                //Take the pair back, the newest with its name
+                data.remove(pair.getKey());
+                throw (e instanceof IOException)
+                        ? new UncheckedIOException((IOException) e)
+                        : (RuntimeException) e;
+            }
+            logged();
+        }
+
+        return inserted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<String, Rectangle> remove(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException();
+        }
+        if (data.search(name) == null) {
+            return null;
+        }
+
+        try {
+            log.logRemove(name);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        KVPair<String, Rectangle> removed = data.remove(name);
+        logged();
+
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<String, Rectangle> removeByValue(Rectangle rectangle) {
+        if (rectangle == null) {
+            throw new IllegalArgumentException();
+        }
+        if (!holds(rectangle)) {
+            return null;
+        }
+
+        try {
+            log.logRemoveByValue(rectangle);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        KVPair<String, Rectangle> removed = data.removeByValue(rectangle);
+        logged();
+
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> regionSearch(int x, int y, int w,
+                                                        int h) {
+        return data.regionSearch(x, y, w, h);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean regionSearch(int x, int y, int w, int h,
+                                ResultVisitor<KVPair<String, Rectangle>>
+                                        visitor) {
+        return data.regionSearch(x, y, w, h, visitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<KVPair<String, Rectangle>> regionSearchStream(int x, int y,
+                                                                int w,
+                                                                int h) {
+        return data.regionSearchStream(x, y, w, h);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersections() {
+        return data.intersections();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean intersections(ResultVisitor<Pair<KVPair<String,
+            Rectangle>, KVPair<String, Rectangle>>> visitor) {
+        return data.intersections(visitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersectionStream() {
+        return data.intersectionStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name) {
+        return data.search(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> prefixSearch(String prefix) {
+        return data.prefixSearch(prefix);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name, int offset,
+                                                  int count) {
+        return data.search(name, offset, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> listAll(int offset, int count) {
+        return data.listAll(offset, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String dump() {
+        return data.dump();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean validateRectangle(Rectangle rectangle) {
+        return data.validateRectangle(rectangle);
+    }
+
+    /**
+     * Makes a checkpoint if the database has a snapshot file and the log
+     * grew past the checkpoint size
+     *
+     * @throws IOException if the snapshot or the log cannot be written
+     */
+    private void checkpointIfDue() throws IOException {
+        if (snapshot != null && log.size() >= checkpointBytes) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Checkpoints the database, if due, after a change was logged and made
+     *
+     * @throws UncheckedIOException if the checkpoint fails
+     */
+    private void logged() {
+        try {
+            checkpointIfDue();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks if a pair of the database has the rectangle, so removing by it
+     * removes a pair
+     *
+     * @param rectangle the rectangle
+     * @return true if some pair has an equal rectangle
+     */
+    private boolean holds(Rectangle rectangle) {
+        boolean[] found = {false};
+        data.regionSearch(rectangle.x, rectangle.y, rectangle.width,
+                rectangle.height, pair -> {
+                    found[0] = rectangle.equals(pair.getValue());
+                    return !found[0];
+                });
+        return found[0];
+    }
+
+    /**
+     * Forces every logged change to the disk and closes the log
+     *
+     * @throws IOException if writing or closing the log fails
+     */
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,403 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the DurableDatabase class
+ * logs the changes it makes, and only those, and recovers the same database
+ * from its log
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class DurableDatabaseTest {
+
+    // The log file of the tests
+    private Path file;
+
+    /**
+     * Creates a name for the log file before each test
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("durable", ".log");
+        Files.delete(file);
+    }
+
+    /**
+     * Deletes the log file after each test
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that the database reopened from its log answers every query the
+     * same as a database that made the same changes in memory
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testRecovery() throws IOException {
+        Database expected = new SkipListDatabase();
+        DurableDatabase durable = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.NEVER);
+        Random random = new Random(11);
+
+        for (int i = 0; i < 2000; i++) {
+            int op = random.nextInt(6);
+            String key = "r" + random.nextInt(80);
+            Rectangle rect = new Rectangle(random.nextInt(100),
+                    random.nextInt(100), random.nextInt(30) - 2,
+                    1 + random.nextInt(30));
+
+            if (op < 4) {
+                KVPair<String, Rectangle> pair = new KVPair<>(key, rect);
+                assertEquals(expected.insert(pair), durable.insert(pair));
+            }
+            else if (op == 4) {
+                assertEquals(expected.remove(key), durable.remove(key));
+            }
+            else {
+                assertEquals(expected.removeByValue(rect),
+                        durable.removeByValue(rect));
+            }
+        }
+        assertEquals(expected.regionSearch(0, 0, 200, 200),
+                durable.regionSearch(0, 0, 200, 200));
+        durable.close();
+
+        DurableDatabase reopened = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT);
+        for (int i = 0; i < 80; i++) {
+            assertEquals(expected.search("r" + i),
+                    reopened.search("r" + i));
+        }
+        assertEquals(expected.regionSearch(0, 0, 200, 200),
+                reopened.regionSearch(0, 0, 200, 200));
+        assertEquals(expected.regionSearch(20, 30, 15, 10),
+                reopened.regionSearch(20, 30, 15, 10));
+        assertEquals(sorted(expected), sorted(reopened));
+        assertEquals(expected.prefixSearch("r1"),
+                reopened.prefixSearch("r1"));
+        assertEquals(expected.listAll(50, 30), reopened.listAll(50, 30));
+        assertEquals(expected.search("r7", 1, 2),
+                reopened.search("r7", 1, 2));
+        assertEquals(expected.regionSearchStream(5, 5, 50, 50)
+                        .collect(Collectors.toList()),
+                reopened.regionSearchStream(5, 5, 50, 50)
+                        .collect(Collectors.toList()));
+        reopened.close();
+    }
+
+    /**
+     * Tests that inserts that are rejected and removals that find nothing
+     * are not logged
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testRejectedNotLogged() throws IOException {
+        DurableDatabase durable = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT);
+        long empty = durable.log().size();
+
+        assertFalse(durable.insert(new KVPair<>("1a",
+                new Rectangle(1, 1, 1, 1))));
+        assertFalse(durable.insert(new KVPair<>("a",
+                new Rectangle(1, 1, 0, 1))));
+        assertNull(durable.remove("a"));
+        assertNull(durable.removeByValue(new Rectangle(1, 1, 1, 1)));
+        assertEquals(empty, durable.log().size());
+        assertEquals(0, durable.log().syncCount());
+
+        assertTrue(durable.insert(new KVPair<>("a",
+                new Rectangle(1, 1, 1, 1))));
+        assertTrue(durable.log().size() > empty);
+        assertEquals(1, durable.log().syncCount());
+        assertTrue(durable.validateRectangle(new Rectangle(1, 1, 1, 1)));
+        durable.close();
+
+        durable = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.NEVER);
+        assertEquals(1, durable.log().recoveredRecords());
+        assertEquals(1, durable.search("a").size());
+        durable.close();
+    }
+
+    /**
+     * Tests that a database checkpointing often recovers the same database
+     * from its snapshot and log, also when a crash stopped a checkpoint
+     * between the snapshot and the reset of the log
+     *
+     * @throws IOException if the files cannot be used
+     */
+    @Test
+    public void testCheckpoint() throws IOException {
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snp");
+        Database expected = new SkipListDatabase();
+        DurableDatabase durable = DurableDatabase.open(file, snapshot,
+                WriteAheadLog.SyncPolicy.NEVER, 2000, true);
+        Random random = new Random(13);
+
+        try {
+            for (int i = 0; i < 3000; i++) {
+                String key = "r" + random.nextInt(200);
+                Rectangle rect = new Rectangle(random.nextInt(100),
+                        random.nextInt(100), 1 + random.nextInt(30),
+                        1 + random.nextInt(30));
+
+                if (random.nextInt(4) > 0) {
+                    KVPair<String, Rectangle> pair = new KVPair<>(key, rect);
+                    assertEquals(expected.insert(pair), durable.insert(pair));
+                }
+                else {
+                    assertEquals(expected.remove(key), durable.remove(key));
+                }
+            }
+            assertTrue(durable.checkpointCount() > 10);
+            assertTrue(durable.log().size() < 2000);
+            long generation = durable.log().generation();
+            durable.close();
+
+            durable = DurableDatabase.open(file, snapshot,
+                    WriteAheadLog.SyncPolicy.NEVER, 1 << 20, false);
+            assertEquals(generation, durable.log().generation());
+            assertEquals(expected.regionSearch(0, 0, 200, 200),
+                    durable.regionSearch(0, 0, 200, 200));
+
+            durable.close();
+
+            //Save the next snapshot without resetting the log, as a crash
+            // between the two would
+            SkipList<String, Rectangle> all = Snapshot.read(snapshot)
+                    .toSkipList(new GeometricLevelGenerator(), false);
+            WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, 10, 64,
+                    all, generation).close();
+            Snapshot.write(snapshot, generation + 1, all, false);
+
+            durable = DurableDatabase.open(file, snapshot,
+                    WriteAheadLog.SyncPolicy.NEVER, 1 << 20, false);
+            assertEquals(0, durable.log().recoveredRecords());
+            assertEquals(generation + 1, durable.log().generation());
+            for (int i = 0; i < 200; i++) {
+                assertEquals(expected.search("r" + i),
+                        durable.search("r" + i));
+            }
+            durable.checkpoint();
+            assertEquals(generation + 2, durable.log().generation());
+            durable.close();
+
+            DurableDatabase plain = DurableDatabase.open(file,
+                    WriteAheadLog.SyncPolicy.NEVER);
+            plain.close();
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log needs the snapshot of generation "
+                         + durable.log().generation(), e.getMessage());
+        }
+        finally {
+            Files.deleteIfExists(snapshot);
+        }
+
+        try {
+            new DurableDatabase(new SkipListDatabase(), durable.log())
+                    .checkpoint();
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that a database reopened after checkpoints, with and without
+     * changes logged since the last one, holds every pair, and that every
+     * checkpoint leaves only the snapshot and the log behind
+     *
+     * @throws IOException if the files cannot be used
+     */
+    @Test
+    public void testCheckpointReopen() throws IOException {
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snp");
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName()
+                                                 + ".tmp");
+        Database expected = new SkipListDatabase();
+
+        try {
+            for (int round = 0; round < 3; round++) {
+                DurableDatabase durable = DurableDatabase.open(file, snapshot,
+                        WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1 << 20, false);
+                assertEquals(round, durable.log().generation());
+                long empty = (round == 0) ? durable.log().size() : -1;
+
+                for (int i = 0; i < 50; i++) {
+                    KVPair<String, Rectangle> pair = new KVPair<>(
+                            "c" + round + "_" + i,
+                            new Rectangle(i, round, 5, 5));
+                    assertEquals(expected.insert(pair),
+                            durable.insert(pair));
+                }
+                durable.checkpoint();
+                assertEquals(round + 1, durable.log().generation());
+                if (empty >= 0) {
+                    assertEquals(empty, durable.log().size());
+                }
+                assertTrue(Files.exists(snapshot));
+                assertFalse(Files.exists(temporary));
+
+                if (round == 1) {
+                    //Changes logged after the checkpoint are replayed
+                    assertNotNull(durable.remove("c0_0"));
+                    assertNotNull(expected.remove("c0_0"));
+                }
+                durable.close();
+
+                durable = DurableDatabase.open(file, snapshot,
+                        WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1 << 20, false);
+                assertEquals(round + 1, durable.log().generation());
+                assertEquals(expected.regionSearch(0, 0, 100, 100),
+                        durable.regionSearch(0, 0, 100, 100));
+                durable.close();
+            }
+        }
+        finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Tests that a change the log fails to take is not kept in the database,
+     * and that a failed log refuses every later change, so the database
+     * reopened from the log is the one the failure left
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testFailedLog() throws IOException {
+        DurableDatabase durable = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT);
+        Rectangle rect = new Rectangle(1, 1, 5, 5);
+        assertTrue(durable.insert(new KVPair<>("a", rect)));
+
+        //The key is accepted by the database but too long for the log
+        String longKey = "k".repeat(70_000);
+        try {
+            durable.insert(new KVPair<>("k", rect));
+            durable.insert(new KVPair<>(longKey, rect));
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNull(durable.search(longKey));
+            assertEquals(1, durable.search("k").size());
+        }
+
+        //An interrupted thread closes the channel of the log
+        Thread.currentThread().interrupt();
+        try {
+            durable.insert(new KVPair<>("b", rect));
+            fail();
+        }
+        catch (UncheckedIOException e) {
+            assertNull(durable.search("b"));
+        }
+        finally {
+            Thread.interrupted();
+        }
+
+        try {
+            durable.remove("a");
+            fail();
+        }
+        catch (UncheckedIOException e) {
+            assertEquals("Log failed", e.getCause().getMessage());
+        }
+        try {
+            durable.removeByValue(rect);
+            fail();
+        }
+        catch (UncheckedIOException e) {
+            assertEquals("Log failed", e.getCause().getMessage());
+        }
+        assertNull(durable.remove("c"));
+        assertNull(durable.removeByValue(new Rectangle(50, 50, 5, 5)));
+        List<KVPair<String, Rectangle>> left = durable.listAll(0, 10);
+        assertEquals(2, left.size());
+
+        try {
+            durable.close();
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log failed", e.getMessage());
+        }
+
+        DurableDatabase reopened = DurableDatabase.open(file,
+                WriteAheadLog.SyncPolicy.NEVER);
+        assertEquals(left, reopened.listAll(0, 10));
+        reopened.close();
+    }
+
+    /**
+     * Tests the invalid arguments
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testInvalidArguments() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+
+        try {
+            new DurableDatabase(null, log);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new DurableDatabase(new SkipListDatabase(), null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+        log.close();
+    }
+
+    /**
+     * Lists the intersecting pairs of the database in a fixed order
+     *
+     * @param data the database
+     * @return the intersecting pairs as sorted strings
+     */
+    private static List<String> sorted(Database data) {
+        List<String> pairs = new ArrayList<>();
+        for (Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>> pair
+                : data.intersections()) {
+            pairs.add(pair.toString());
+        }
+        Collections.sort(pairs);
+
+        return pairs;
+    }
+}
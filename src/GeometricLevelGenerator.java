@@ -0,0 +1,156 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements the LevelGenerator interface with levels following
+ * a geometric distribution: a node reaches every next level with probability
+ * p, up to the maximum level. Random numbers come from a xorshift generator
+ * whose state is kept per thread, so picking a level neither allocates nor
+ * contends with other threads. When p is one over a power of two, 2^-k, the
+ * level is read from a single random number: every run of k zero bits at its
+ * low end, counted with Long.numberOfTrailingZeros, is one more level.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GeometricLevelGenerator implements LevelGenerator {
+
+    //Probability of reaching the next level used by default
+    public static final double DEFAULT_PROBABILITY = 0.5;
+    //Highest level used by default
+    public static final int DEFAULT_MAX_LEVEL = 31;
+    //Highest level allowed, one less than the bits of a random number
+    public static final int LIMIT_LEVEL = Long.SIZE - 2;
+
+    //Source of the seeds of every new thread state, stepped by the golden
+    // ratio so that the seeds spread over the whole range
+    private static final AtomicLong SEEDS = new AtomicLong(System.nanoTime());
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final double probability; //Probability of the next level
+    private final int maxLevel; //Highest level returned
+    private final int bitsPerLevel; //Zero bits per level, 0 if p is not 2^-k
+    private final ThreadLocal<long[]> state; //Xorshift state of each thread
+
+    /**
+     * Initializes the generator with p = 1/2 and the default maximum level
+     */
+    public GeometricLevelGenerator() {
+        this(DEFAULT_PROBABILITY, DEFAULT_MAX_LEVEL);
+    }
+
+    /**
+     * Initializes the generator with the given probability and maximum level
+     *
+     * @param probability the probability of a node reaching the next level
+     * @param maxLevel    the highest level returned
+     * @throws IllegalArgumentException if probability is not between 0 and 1
+     *                                  excluded, or maxLevel is negative or
+     *                                  above LIMIT_LEVEL
+     */
+    public GeometricLevelGenerator(double probability, int maxLevel) {
+        if (!(probability > 0 && probability < 1) || maxLevel < 0
+            || maxLevel > LIMIT_LEVEL) {
+            throw new IllegalArgumentException();
+        }
+
+        this.probability = probability;
+        this.maxLevel = maxLevel;
+
+        int bits = (int) Math.round(-Math.log(probability) / Math.log(2));
+        bitsPerLevel = (Math.scalb(1.0, -bits) == probability) ? bits : 0;
+
+        state = ThreadLocal.withInitial(() -> new long[]{seed()});
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextLevel() {
+        long[] s = state.get();
+
+        if (bitsPerLevel > 0) {
+            int zeros = Long.numberOfTrailingZeros(next(s));
+            return Math.min(maxLevel, zeros / bitsPerLevel);
+        }
+
+        int level = 0;
+        while (level < maxLevel
+               && (next(s) >>> 11) * 0x1.0p-53 < probability) {
+            level++;
+        }
+
+        return level;
+    }
+
+    /**
+     * Spaces the levels by one over the probability: with p = 1/4 every
+     * fourth node reaches level 1, every sixteenth level 2 and so on.
+     *
+     * @param index the position of the node in the list, from 0
+     * @return a level between 0 and maxLevel(), both included
+     */
+    @Override
+    public int levelAt(long index) {
+        long position = index + 1;
+
+        if (bitsPerLevel > 0) {
+            return Math.min(maxLevel,
+                    Long.numberOfTrailingZeros(position) / bitsPerLevel);
+        }
+
+        long spacing = Math.max(2, Math.round(1 / probability));
+        int level = 0;
+        while (level < maxLevel && position % spacing == 0) {
+            position /= spacing;
+            level++;
+        }
+
+        return level;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Returns the probability of a node reaching the next level
+     *
+     * @return a number between 0 and 1 excluded
+     */
+    public double probability() {
+        return probability;
+    }
+
+    /**
+     * Steps the xorshift state of the thread
+     *
+     * @param s the state of the thread, holding one non-zero number
+     * @return the next random number, never 0
+     */
+    private static long next(long[] s) {
+        long x = s[0];
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        s[0] = x;
+        return x;
+    }
+
+    /**
+     * Returns a new non-zero seed, scrambled with the SplitMix64 finalizer
+     *
+     * @return the seed of a new thread state
+     */
+    private static long seed() {
+        long z = SEEDS.addAndGet(SEED_STEP);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z == 0) ? SEED_STEP : z;
+    }
+}
@@ -0,0 +1,207 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the levels picked by the
+ * GeometricLevelGenerator class and its use by the skip lists
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GeometricLevelGeneratorTest {
+
+    //Number of levels drawn to check the distribution
+    private static final int DRAWS = 200_000;
+
+    /**
+     * Tests the default probability and maximum level
+     */
+    @Test
+    public void testDefaults() {
+        GeometricLevelGenerator levels = new GeometricLevelGenerator();
+        assertEquals(GeometricLevelGenerator.DEFAULT_MAX_LEVEL,
+                levels.maxLevel());
+        assertEquals(0.5, levels.probability(), 0);
+    }
+
+    /**
+     * Tests that with p = 1/2 about half the nodes reach every next level
+     */
+    @Test
+    public void testHalfDistribution() {
+        assertDistribution(new GeometricLevelGenerator(0.5, 20), 0.5);
+    }
+
+    /**
+     * Tests that with p = 1/4, read from trailing zeros two bits at a time,
+     * about a quarter of the nodes reach every next level
+     */
+    @Test
+    public void testQuarterDistribution() {
+        assertDistribution(new GeometricLevelGenerator(0.25, 20), 0.25);
+    }
+
+    /**
+     * Tests that a probability not a power of two is drawn per level
+     */
+    @Test
+    public void testOtherDistribution() {
+        assertDistribution(new GeometricLevelGenerator(0.3, 20), 0.3);
+    }
+
+    /**
+     * Tests that levels never exceed the maximum level
+     */
+    @Test
+    public void testMaxLevel() {
+        GeometricLevelGenerator levels = new GeometricLevelGenerator(0.9, 2);
+        int top = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            int level = levels.nextLevel();
+            assertTrue(level >= 0 && level <= 2);
+            top = Math.max(top, level);
+        }
+        assertEquals(2, top);
+
+        GeometricLevelGenerator flat = new GeometricLevelGenerator(0.5, 0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, flat.nextLevel());
+        }
+    }
+
+    /**
+     * Tests invalid probabilities and maximum levels
+     */
+    @Test
+    public void testInvalidArguments() {
+        double[] probabilities = {0, 1, -0.5, 1.5, Double.NaN};
+        for (double p : probabilities) {
+            try {
+                new GeometricLevelGenerator(p, 10);
+                fail();
+            }
+            catch (IllegalArgumentException e) {
+                assertNotNull(e);
+            }
+        }
+
+        int[] maxLevels = {-1, GeometricLevelGenerator.LIMIT_LEVEL + 1};
+        for (int max : maxLevels) {
+            try {
+                new GeometricLevelGenerator(0.5, max);
+                fail();
+            }
+            catch (IllegalArgumentException e) {
+                assertNotNull(e);
+            }
+        }
+    }
+
+    /**
+     * Tests that the skip lists take their levels from the given generator
+     */
+    @Test
+    public void testSkipListsUseGenerator() {
+        LevelGenerator flat = new GeometricLevelGenerator(0.5, 0);
+
+        SkipList<String, String> list = new SkipList<>(flat);
+        ConcurrentSkipList<String, String> concurrent =
+                new ConcurrentSkipList<>(flat);
+        for (int i = 0; i < 10; i++) {
+            list.insert(new KVPair<>("k" + i, "v"));
+            concurrent.insert(new KVPair<>("k" + i, "v"));
+        }
+
+        assertFalse(list.dump().contains("depth 2"));
+        assertFalse(concurrent.dump().contains("depth 2"));
+        assertEquals(10, list.size());
+        assertEquals(10, concurrent.size());
+    }
+
+    /**
+     * Tests that the skip lists reject a null generator
+     */
+    @Test
+    public void testNullGenerator() {
+        try {
+            new SkipList<String, String>(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new ConcurrentSkipList<String, String>(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that the levels of a built list are spaced by one over the
+     * probability and capped at the maximum level
+     */
+    @Test
+    public void testLevelAt() {
+        GeometricLevelGenerator half = new GeometricLevelGenerator();
+        int[] expected = {0, 1, 0, 2, 0, 1, 0, 3};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], half.levelAt(i));
+        }
+
+        GeometricLevelGenerator quarter =
+                new GeometricLevelGenerator(0.25, 1);
+        assertEquals(0, quarter.levelAt(1));
+        assertEquals(1, quarter.levelAt(3));
+        assertEquals(1, quarter.levelAt(15));
+
+        GeometricLevelGenerator third = new GeometricLevelGenerator(0.3, 5);
+        assertEquals(0, third.levelAt(1));
+        assertEquals(1, third.levelAt(2));
+        assertEquals(2, third.levelAt(8));
+        assertEquals(3, third.levelAt(26));
+
+        LevelGenerator byDefault = new LevelGenerator() {
+            @Override
+            public int nextLevel() {
+                return 0;
+            }
+
+            @Override
+            public int maxLevel() {
+                return 2;
+            }
+        };
+        assertEquals(2, byDefault.levelAt(15));
+        assertEquals(1, byDefault.levelAt(5));
+    }
+
+    /**
+     * Checks that the share of levels reaching 1, 2 and 3 is close to the
+     * powers of the probability
+     *
+     * @param levels      the generator under test
+     * @param probability the probability of reaching the next level
+     */
+    private void assertDistribution(LevelGenerator levels,
+                                    double probability) {
+        int[] reached = new int[4];
+        for (int i = 0; i < DRAWS; i++) {
+            int level = levels.nextLevel();
+            for (int l = 0; l < reached.length && l <= level; l++) {
+                reached[l]++;
+            }
+        }
+
+        assertEquals(DRAWS, reached[0]);
+        for (int l = 1; l < reached.length; l++) {
+            double expected = Math.pow(probability, l);
+            assertEquals(expected, (double) reached[l] / DRAWS,
+                    expected * 0.1);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements the SpatialIndex interface with a uniform grid of
+ * square cells laid over a world box. Every item is listed in each cell its
+ * bounds overlap, so a region query only looks at the cells the region
+ * touches. An item listed in several of those cells is only reported by
+ * the cell holding the top left corner of its overlap with the region, so
+ * queries need no set of already reported items and change nothing, and
+ * may run on many threads at once while no item is inserted or removed.
+ * The cell size is either fixed or picked by a
+ * GridTuner from the sizes of the rectangles inserted so far, in which case
+ * the grid is rebuilt whenever the number of items doubles and the tuner
+ * picks another size. Rectangles reaching outside the world box are listed
+ * in the cells at its border.
+ *
+ * @param <T> the type of the items indexed by their bounds
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridIndex<T> implements SpatialIndex<T> {
+
+    //Number of items after which an auto-tuned grid is first reconsidered
+    private static final int FIRST_RETUNE = 64;
+
+    private final int worldWidth; //Width of the world box
+    private final int worldHeight; //Height of the world box
+    private final GridTuner tuner; //Picks the cell size, null if fixed
+    private int cellSize; //Side of the square cells
+    private int columns; //Number of cells along the x-axis
+    private int rows; //Number of cells along the y-axis
+    private List<Entry>[] cells; //Items of each cell, row after row
+    private int size; //Number of items in the grid
+    private int retuneAt; //Number of items at which to reconsider cell size
+
+    /**
+     * Initializes an empty grid whose cell size is picked from the sizes of
+     * the inserted rectangles.
+     *
+     * @param worldWidth  the width of the world box
+     * @param worldHeight the height of the world box
+     * @throws IllegalArgumentException if a world side is not positive
+     */
+    public GridIndex(int worldWidth, int worldHeight) {
+        this(worldWidth, worldHeight, new GridTuner());
+    }
+
+    /**
+     * Initializes an empty grid with a fixed cell size.
+     *
+     * @param worldWidth  the width of the world box
+     * @param worldHeight the height of the world box
+     * @param cellSize    the side of the square cells
+     * @throws IllegalArgumentException if a world side or the cell size is
+     *                                  not positive
+     */
+    public GridIndex(int worldWidth, int worldHeight, int cellSize) {
+        this(worldWidth, worldHeight, null);
+
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        allocate(cellSize);
+    }
+
+    /**
+     * Initializes an empty grid tuned by the given tuner.
+     *
+     * @param worldWidth  the width of the world box
+     * @param worldHeight the height of the world box
+     * @param tuner       the tuner picking the cell size, or null if fixed
+     */
+    private GridIndex(int worldWidth, int worldHeight, GridTuner tuner) {
+        if (worldWidth <= 0 || worldHeight <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.tuner = tuner;
+        retuneAt = FIRST_RETUNE;
+
+        if (tuner != null) {
+            allocate(tuner.cellSize(worldWidth, worldHeight));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        place(new Entry(bounds, item));
+        size++;
+
+        if (tuner != null) {
+            tuner.observe(bounds);
+
+            if (size >= retuneAt) {
+                retuneAt = size * 2;
+                int suggested = tuner.cellSize(worldWidth, worldHeight);
+                if (suggested != cellSize) {
+                    rebuild(suggested);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Entry target = new Entry(bounds, item);
+        int firstColumn = column(target.minX);
+        int lastColumn = column(target.maxX - 1);
+        int firstRow = row(target.minY);
+        int lastRow = row(target.maxY - 1);
+
+        //Every cell the item covers lists it, so look in the first one
+        Entry found = null;
+        for (Entry entry : cells[firstRow * columns + firstColumn]) {
+            if (entry.sameBounds(target) && entry.item.equals(item)) {
+                found = entry;
+                break;
+            }
+        }
+
+        if (found == null) {
+            return false;
+        }
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                List<Entry> cell = cells[r * columns + c];
+                int index = indexOf(cell, found);
+                cell.set(index, cell.get(cell.size() - 1));
+                cell.remove(cell.size() - 1);
+            }
+        }
+
+        size--;
+        if (tuner != null) {
+            tuner.forget(bounds);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> search(Rectangle region) {
+        if (region == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<T> found = new ArrayList<>();
+
+        //A region without area cannot share area with any rectangle
+        if (region.width <= 0 || region.height <= 0 || size == 0) {
+            return found;
+        }
+
+        Entry target = new Entry(region, null);
+
+        for (int r = row(target.minY); r <= row(target.maxY - 1); r++) {
+            for (int c = column(target.minX); c <= column(target.maxX - 1);
+                 c++) {
+                for (Entry entry : cells[r * columns + c]) {
+                    //Items covering several cells are only reported by the
+                    // cell holding the corner of their overlap
+                    if (entry.intersects(target)
+                        && column(Math.max(entry.minX, target.minX)) == c
+                        && row(Math.max(entry.minY, target.minY)) == r) {
+                        found.add(entry.item);
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An auto-tuned grid observes all the rectangles first, so the grid is
+     * laid out once with the cell size suiting all of them.
+     */
+    @Override
+    public void bulkLoad(List<Pair<Rectangle, T>> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int newCellSize = cellSize;
+        if (tuner != null) {
+            tuner.clear();
+            for (Pair<Rectangle, T> entry : entries) {
+                if (entry == null) {
+                    throw new IllegalArgumentException();
+                }
+                tuner.observe(entry.getVal1());
+            }
+
+            newCellSize = tuner.cellSize(worldWidth, worldHeight);
+            retuneAt = Math.max(FIRST_RETUNE, entries.size() * 2);
+        }
+
+        allocate(newCellSize);
+        size = 0;
+        for (Pair<Rectangle, T> entry : entries) {
+            if (entry == null) {
+                throw new IllegalArgumentException();
+            }
+
+            place(new Entry(entry.getVal1(), entry.getVal2()));
+            size++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the side of the square cells currently in use
+     *
+     * @return the cell size
+     */
+    public int cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Finds every pair of items whose bounds share some area. Only items
+     * listed in the same cell are compared, and a pair is only reported by
+     * the cell holding the top left corner of the area both items share,
+     * so every pair is reported exactly once.
+     *
+     * @return the pairs of items sharing some area, in no particular order
+     */
+    public List<Pair<T, T>> intersectingPairs() {
+        List<Pair<T, T>> pairs = new ArrayList<>();
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                List<Entry> cell = cells[r * columns + c];
+
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry a = cell.get(i);
+
+                    for (int j = i + 1; j < cell.size(); j++) {
+                        Entry b = cell.get(j);
+
+                        if (a.intersects(b)
+                            && column(Math.max(a.minX, b.minX)) == c
+                            && row(Math.max(a.minY, b.minY)) == r) {
+                            pairs.add(new Pair<>(a.item, b.item));
+                        }
+                    }
+                }
+            }
+        }
+
+        return pairs;
+    }
+
+    /**
+     * Lists the entry in every cell its bounds overlap.
+     *
+     * @param entry the entry to be listed
+     */
+    private void place(Entry entry) {
+        for (int r = row(entry.minY); r <= row(entry.maxY - 1); r++) {
+            for (int c = column(entry.minX); c <= column(entry.maxX - 1);
+                 c++) {
+                cells[r * columns + c].add(entry);
+            }
+        }
+    }
+
+    /**
+     * Lists all the entries again in a grid of the new cell size.
+     *
+     * @param newCellSize the new side of the square cells
+     */
+    private void rebuild(int newCellSize) {
+        //Collect every entry once, from the cell of its top left corner
+        List<Entry> entries = new ArrayList<>(size);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                for (Entry entry : cells[r * columns + c]) {
+                    if (column(entry.minX) == c && row(entry.minY) == r) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+
+        allocate(newCellSize);
+        for (Entry entry : entries) {
+            place(entry);
+        }
+    }
+
+    /**
+     * Creates empty cells of the given size covering the world box.
+     *
+     * @param newCellSize the side of the square cells
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int newCellSize) {
+        cellSize = newCellSize;
+        columns = (worldWidth + cellSize - 1) / cellSize;
+        rows = (worldHeight + cellSize - 1) / cellSize;
+        cells = (List<Entry>[]) Array.newInstance(List.class, columns * rows);
+
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the column of the cells holding the x coordinate, coordinates
+     * outside the world box belong to the border columns.
+     *
+     * @param x the x coordinate
+     * @return the column index
+     */
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    /**
+     * Returns the row of the cells holding the y coordinate, coordinates
+     * outside the world box belong to the border rows.
+     *
+     * @param y the y coordinate
+     * @return the row index
+     */
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+
+    /**
+     * Returns the position of the very same entry in the cell
+     *
+     * @param cell  the cell listing the entry
+     * @param entry the entry to look for
+     * @return the index of the entry, or -1 if not listed
+     */
+    private int indexOf(List<Entry> cell, Entry entry) {
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i) == entry) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * This class holds an indexed item together with its bounds, the right
+     * and bottom edges excluded.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class Entry {
+        private final int minX; //Left edge
+        private final int minY; //Top edge
+        private final int maxX; //Right edge, excluded
+        private final int maxY; //Bottom edge, excluded
+        private final T item; //The indexed item
+
+        /**
+         * Initializes the entry with the bounds and the item occupying them.
+         *
+         * @param bounds the bounds of the item
+         * @param item   the indexed item
+         */
+        public Entry(Rectangle bounds, T item) {
+            minX = bounds.x;
+            minY = bounds.y;
+            maxX = bounds.x + bounds.width;
+            maxY = bounds.y + bounds.height;
+            this.item = item;
+        }
+
+        /**
+         * Checks if the two entries share some area
+         *
+         * @param other the entry to check with
+         * @return true if the bounds overlap more than an edge
+         */
+        public boolean intersects(Entry other) {
+            return minX < other.maxX && other.minX < maxX
+                   && minY < other.maxY && other.minY < maxY;
+        }
+
+        /**
+         * Checks if both entries have the same bounds
+         *
+         * @param other the entry to check with
+         * @return true if the coordinates are equal
+         */
+        public boolean sameBounds(Entry other) {
+            return minX == other.minX && minY == other.minY
+                   && maxX == other.maxX && maxY == other.maxY;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the GridIndex class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridIndexTest {
+
+    //Represents a grid with cells of 10 holding rectangles A (0, 0, 10,
+    // 10), B (5, 5, 30, 30) and C (1000, 1000, 24, 24)
+    private GridIndex<String> gridABC;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        gridABC = new GridIndex<>(1024, 1024, 10);
+        gridABC.insert(new Rectangle(0, 0, 10, 10), "A");
+        gridABC.insert(new Rectangle(5, 5, 30, 30), "B");
+        gridABC.insert(new Rectangle(1000, 1000, 24, 24), "C");
+    }
+
+    /**
+     * Tests if a cell size of 0 is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCellSize() {
+        new GridIndex<String>(1024, 1024, 0);
+        fail();
+    }
+
+    /**
+     * Tests if a rectangle covering many cells is only found once
+     */
+    @Test
+    public void testABCSearchOnce() {
+        List<String> found = gridABC.search(new Rectangle(0, 0, 40, 40));
+
+        assertEquals(2, found.size());
+        assertTrue(found.contains("A"));
+        assertTrue(found.contains("B"));
+    }
+
+    /**
+     * Tests if a region only touching the edge of A finds nothing
+     */
+    @Test
+    public void testABCTouchingSearch() {
+        assertEquals(0, gridABC.search(new Rectangle(0, 35, 10, 5)).size());
+        assertEquals(0, gridABC.search(new Rectangle(3, 3, 0, 5)).size());
+    }
+
+    /**
+     * Tests if a removed rectangle is taken out of every cell it covers
+     */
+    @Test
+    public void testABCRemove() {
+        assertFalse(gridABC.remove(new Rectangle(5, 5, 30, 31), "B"));
+        assertTrue(gridABC.remove(new Rectangle(5, 5, 30, 30), "B"));
+
+        assertEquals(2, gridABC.size());
+        assertEquals(0, gridABC.search(new Rectangle(20, 20, 5, 5)).size());
+    }
+
+    /**
+     * Tests if every intersecting pair is reported exactly once
+     */
+    @Test
+    public void testABCIntersectingPairs() {
+        List<Pair<String, String>> pairs = gridABC.intersectingPairs();
+
+        assertEquals(1, pairs.size());
+        assertEquals(new Pair<>("A", "B"), pairs.get(0));
+    }
+
+    /**
+     * Tests if an auto-tuned grid changes its cell size as small
+     * rectangles are inserted and still finds all of them
+     */
+    @Test
+    public void testAutoTunedSearch() {
+        GridIndex<Integer> grid = new GridIndex<>(1024, 1024);
+        int initial = grid.cellSize();
+        Random random = new Random(5);
+        List<Rectangle> rects = new ArrayList<>();
+
+        for (int i = 0; i < 3000; i++) {
+            rects.add(new Rectangle(random.nextInt(1000),
+                    random.nextInt(1000), random.nextInt(8) + 1,
+                    random.nextInt(8) + 1));
+            grid.insert(rects.get(i), i);
+        }
+
+        assertTrue(grid.cellSize() < initial);
+
+        for (int q = 0; q < 100; q++) {
+            Rectangle region = new Rectangle(random.nextInt(1000),
+                    random.nextInt(1000), random.nextInt(100) + 1,
+                    random.nextInt(100) + 1);
+            List<Integer> found = grid.search(region);
+
+            int expected = 0;
+            for (int i = 0; i < rects.size(); i++) {
+                if (region.intersects(rects.get(i))) {
+                    expected++;
+                    assertTrue(found.contains(i));
+                }
+            }
+            assertEquals(expected, found.size());
+        }
+    }
+}
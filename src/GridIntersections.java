@@ -0,0 +1,90 @@
+import java.util.List;
+
+/**
+ * This class finds all the pairs of rectangles that share some area by
+ * putting them in a uniform grid over the world box and only comparing the
+ * rectangles listed in the same cell. When no cell size is given, it is
+ * picked by a GridTuner from the sizes of the rectangles being searched.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridIntersections extends AbstractIntersectionFinder {
+
+    private final int worldWidth; //Width of the world box
+    private final int worldHeight; //Height of the world box
+    private final int cellSize; //Side of the cells, 0 if picked by a tuner
+
+    /**
+     * Initializes the finder with a cell size picked for each search.
+     *
+     * @param worldWidth  the width of the world box
+     * @param worldHeight the height of the world box
+     * @throws IllegalArgumentException if a world side is not positive
+     */
+    public GridIntersections(int worldWidth, int worldHeight) {
+        if (worldWidth <= 0 || worldHeight <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.cellSize = 0;
+    }
+
+    /**
+     * Initializes the finder with a fixed cell size.
+     *
+     * @param worldWidth  the width of the world box
+     * @param worldHeight the height of the world box
+     * @param cellSize    the side of the square cells
+     * @throws IllegalArgumentException if a world side or the cell size is
+     *                                  not positive
+     */
+    public GridIntersections(int worldWidth, int worldHeight, int cellSize) {
+        if (worldWidth <= 0 || worldHeight <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[][] find(List<Rectangle> rects) {
+        if (rects == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int size = cellSize;
+        if (size == 0) {
+            GridTuner tuner = new GridTuner();
+            for (Rectangle rect : rects) {
+                tuner.observe(rect);
+            }
+            size = tuner.cellSize(worldWidth, worldHeight);
+        }
+
+        GridIndex<Integer> grid = new GridIndex<>(worldWidth, worldHeight,
+                size);
+        for (int i = 0; i < rects.size(); i++) {
+            grid.insert(rects.get(i), i);
+        }
+
+        PartnerCollector collector = new PartnerCollector(rects.size());
+        for (Pair<Integer, Integer> pair : grid.intersectingPairs()) {
+            int a = pair.getVal1();
+            int b = pair.getVal2();
+
+            if (rects.get(a) != rects.get(b)) {
+                collector.add(a, b);
+            }
+        }
+
+        return collector.partners();
+    }
+}
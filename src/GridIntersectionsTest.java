@@ -0,0 +1,69 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the GridIntersections class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridIntersectionsTest {
+
+    /**
+     * Tests if a cell size of 0 is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCellSize() {
+        new GridIntersections(1024, 1024, 0);
+        fail();
+    }
+
+    /**
+     * Tests if rectangles spanning many cells are paired once and the same
+     * rectangle object listed twice is not paired with itself
+     */
+    @Test
+    public void testSpanningFind() {
+        Rectangle big = new Rectangle(0, 0, 500, 500);
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(big);
+        rects.add(new Rectangle(100, 100, 400, 400));
+        rects.add(big);
+        rects.add(new Rectangle(500, 0, 10, 10));
+
+        int[][] partners = new GridIntersections(1024, 1024, 16).find(rects);
+
+        assertArrayEquals(new int[]{1}, partners[0]);
+        assertArrayEquals(new int[]{0, 2}, partners[1]);
+        assertArrayEquals(new int[]{1}, partners[2]);
+        assertArrayEquals(new int[]{}, partners[3]);
+    }
+
+    /**
+     * Tests if a tuned grid gives the same pairs as the plane sweep
+     */
+    @Test
+    public void testRandomFind() {
+        Random random = new Random(13);
+        List<Rectangle> rects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            rects.add(new Rectangle(x, y, random.nextInt(1024 - x) % 70 + 1,
+                    random.nextInt(1024 - y) % 70 + 1));
+        }
+
+        int[][] expected = new SweepLineIntersections().find(rects);
+        int[][] partners = new GridIntersections(1024, 1024).find(rects);
+
+        for (int i = 0; i < rects.size(); i++) {
+            assertArrayEquals(expected[i], partners[i]);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * This class observes the sizes of the rectangles put in a uniform grid and
+ * picks the cell size that suits them. The sizes are counted in power of two
+ * buckets of their larger side, and the cell size is the upper end of the
+ * bucket holding the median, so a typical rectangle covers one to four
+ * cells. The cell size is raised when the grid would otherwise have many
+ * more cells than rectangles.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridTuner {
+
+    //Number of cells allowed per observed rectangle
+    private static final int CELLS_PER_RECTANGLE = 4;
+    //Number of cells along the larger world side when nothing is observed
+    private static final int DEFAULT_CELLS_PER_SIDE = 16;
+
+    // the number of rectangles whose larger side is in [2^b, 2^(b+1))
+    private final int[] histogram = new int[Integer.SIZE];
+    // the number of rectangles observed
+    private int count;
+
+    /**
+     * Counts the size of the rectangle.
+     *
+     * @param rect the rectangle put in the grid
+     * @throws IllegalArgumentException if rect is null
+     */
+    public void observe(Rectangle rect) {
+        if (rect == null) {
+            throw new IllegalArgumentException();
+        }
+
+        histogram[bucket(rect)]++;
+        count++;
+    }
+
+    /**
+     * Stops counting the size of a rectangle that was observed before.
+     *
+     * @param rect the rectangle taken out of the grid
+     * @throws IllegalArgumentException if rect is null
+     */
+    public void forget(Rectangle rect) {
+        if (rect == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int bucket = bucket(rect);
+        if (histogram[bucket] > 0) {
+            histogram[bucket]--;
+            count--;
+        }
+    }
+
+    /**
+     * Forgets every observed rectangle.
+     */
+    public void clear() {
+        Arrays.fill(histogram, 0);
+        count = 0;
+    }
+
+    /**
+     * Returns the number of rectangles currently observed
+     *
+     * @return a positive integer indicating the number of rectangles
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Picks the cell size for a grid over a world of the given size holding
+     * the observed rectangles.
+     *
+     * @param worldWidth  the width of the world
+     * @param worldHeight the height of the world
+     * @return the side of the square cells, at least 1
+     */
+    public int cellSize(int worldWidth, int worldHeight) {
+        int worldSide = Math.max(1, Math.max(worldWidth, worldHeight));
+
+        if (count == 0) {
+            return Math.max(1, worldSide / DEFAULT_CELLS_PER_SIDE);
+        }
+
+        //Find the bucket holding the median rectangle
+        int bucket = 0;
+        int seen = histogram[0];
+        while (seen * 2 < count) {
+            seen += histogram[++bucket];
+        }
+
+        long size = 1L << (bucket + 1);
+
+        //Keep the number of cells in proportion to the rectangles
+        long minSize = (long) Math.ceil(Math.sqrt((double) worldWidth
+                * worldHeight / ((double) CELLS_PER_RECTANGLE * count)));
+
+        return (int) Math.max(1, Math.min(worldSide, Math.max(size, minSize)));
+    }
+
+    /**
+     * Returns the bucket counting the size of the rectangle
+     *
+     * @param rect the rectangle
+     * @return the index of the highest set bit of its larger side
+     */
+    private int bucket(Rectangle rect) {
+        int extent = Math.max(1, Math.max(rect.width, rect.height));
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(extent);
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the GridTuner class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class GridTunerTest {
+
+    // The tuner under test
+    private GridTuner tuner;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        tuner = new GridTuner();
+    }
+
+    /**
+     * Tests if null can be observed
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullObserve() {
+        tuner.observe(null);
+        fail();
+    }
+
+    /**
+     * Tests if nothing observed gives 16 cells along the world side
+     */
+    @Test
+    public void testEmptyCellSize() {
+        assertEquals(64, tuner.cellSize(1024, 1024));
+    }
+
+    /**
+     * Tests if the cell size follows the median rectangle and not the
+     * largest ones
+     */
+    @Test
+    public void testMedianCellSize() {
+        for (int i = 0; i < 10000; i++) {
+            tuner.observe(new Rectangle(0, 0, 5, 3));
+        }
+        for (int i = 0; i < 100; i++) {
+            tuner.observe(new Rectangle(0, 0, 900, 900));
+        }
+
+        assertEquals(8, tuner.cellSize(1024, 1024));
+        assertEquals(10100, tuner.count());
+    }
+
+    /**
+     * Tests if few rectangles do not get many more cells than rectangles
+     */
+    @Test
+    public void testFewRectanglesCellSize() {
+        tuner.observe(new Rectangle(0, 0, 1, 1));
+
+        assertEquals(512, tuner.cellSize(1024, 1024));
+    }
+
+    /**
+     * Tests if forgotten rectangles no longer count
+     */
+    @Test
+    public void testForget() {
+        tuner.observe(new Rectangle(0, 0, 5, 5));
+        tuner.forget(new Rectangle(0, 0, 5, 5));
+        tuner.forget(new Rectangle(0, 0, 5, 5));
+
+        assertEquals(0, tuner.count());
+    }
+}
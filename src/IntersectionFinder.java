@@ -0,0 +1,25 @@
+import java.util.List;
+
+/**
+ * This interface holds the functionality an algorithm should have to find
+ * all the pairs of rectangles that share some area. The rectangles are
+ * identified by their position in the given list, which lets the caller
+ * report the pairs in the order of its own container.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public interface IntersectionFinder {
+
+    /**
+     * Finds, for every rectangle, the rectangles that share some area with
+     * it. Rectangles only touching at an edge or a corner do not share area,
+     * and a rectangle object listed twice is not paired with itself.
+     *
+     * @param rects the rectangles, identified by their position in the list
+     * @return for every position, the sorted positions of the rectangles
+     * sharing area with the rectangle there
+     * @throws IllegalArgumentException if rects is null
+     */
+    int[][] find(List<Rectangle> rects);
+}
@@ -0,0 +1,283 @@
+import java.util.List;
+
+/**
+ * This class holds a set of half open integer intervals, each identified by
+ * an integer id, and finds all the intervals overlapping a query interval.
+ * It is a treap ordered by the start of the intervals in which every node
+ * also keeps the largest end found in its subtree, so whole subtrees ending
+ * before the query are skipped.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class IntervalTree {
+
+    private Node root; //Root of the treap
+    private int size; //Number of intervals in the tree
+    private long seed = 0x9E3779B97F4A7C15L; //State of the priority generator
+
+    /**
+     * Adds the interval [low, high) with the given id.
+     *
+     * @param low  the start of the interval, included
+     * @param high the end of the interval, excluded
+     * @param id   the id of the interval
+     */
+    public void insert(int low, int high, int id) {
+        root = insert(root, new Node(low, high, id, nextPriority()));
+        size++;
+    }
+
+    /**
+     * Removes the interval starting at low with the given id.
+     *
+     * @param low the start of the interval
+     * @param id  the id of the interval
+     * @return true if the interval was found and removed
+     */
+    public boolean remove(int low, int id) {
+        int before = size;
+        root = remove(root, low, id);
+        return size < before;
+    }
+
+    /**
+     * Adds the ids of all the intervals that share more than an end point
+     * with the interval [low, high) to the list.
+     *
+     * @param low   the start of the query interval, included
+     * @param high  the end of the query interval, excluded
+     * @param found the list the ids are added to
+     */
+    public void overlapping(int low, int high, List<Integer> found) {
+        overlapping(root, low, high, found);
+    }
+
+    /**
+     * Returns the number of intervals in the tree
+     *
+     * @return a positive integer indicating the number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the node below n, keeping the nodes ordered by start and id and
+     * the priorities of parents higher than those of their children.
+     *
+     * @param n    the root of the subtree
+     * @param node the node to be added
+     * @return the new root of the subtree
+     */
+    private Node insert(Node n, Node node) {
+        if (n == null) {
+            return node;
+        }
+
+        if (compare(node.low, node.id, n) < 0) {
+            n.left = insert(n.left, node);
+            if (n.left.priority > n.priority) {
+                n = rotateRight(n);
+            }
+        }
+        else {
+            n.right = insert(n.right, node);
+            if (n.right.priority > n.priority) {
+                n = rotateLeft(n);
+            }
+        }
+
+        update(n);
+        return n;
+    }
+
+    /**
+     * Removes the node with the start and id from the subtree.
+     *
+     * @param n   the root of the subtree
+     * @param low the start of the interval
+     * @param id  the id of the interval
+     * @return the new root of the subtree
+     */
+    private Node remove(Node n, int low, int id) {
+        if (n == null) {
+            return null;
+        }
+
+        int cmp = compare(low, id, n);
+        if (cmp < 0) {
+            n.left = remove(n.left, low, id);
+        }
+        else if (cmp > 0) {
+            n.right = remove(n.right, low, id);
+        }
+        else {
+            size--;
+            return merge(n.left, n.right);
+        }
+
+        update(n);
+        return n;
+    }
+
+    /**
+     * Joins two subtrees where every node of a is ordered before every node
+     * of b.
+     *
+     * @param a the subtree ordered first
+     * @param b the subtree ordered last
+     * @return the root of the joined subtree
+     */
+    private Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        else {
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+    }
+
+    /**
+     * Adds the ids of the intervals in the subtree that overlap [low, high)
+     * to the list.
+     *
+     * @param n     the root of the subtree
+     * @param low   the start of the query interval
+     * @param high  the end of the query interval
+     * @param found the list the ids are added to
+     */
+    private void overlapping(Node n, int low, int high, List<Integer> found) {
+        //Nothing below ends after the query starts
+        if (n == null || n.maxHigh <= low) {
+            return;
+        }
+
+        overlapping(n.left, low, high, found);
+
+        //This node and everything right of it starts after the query ends
+        if (n.low >= high) {
+            return;
+        }
+
+        if (n.high > low) {
+            found.add(n.id);
+        }
+
+        overlapping(n.right, low, high, found);
+    }
+
+    /**
+     * Compares an interval start and id with the ones of the node.
+     *
+     * @param low the start of the interval
+     * @param id  the id of the interval
+     * @param n   the node to compare with
+     * @return negative, zero or positive if the interval is ordered before,
+     * at or after the node
+     */
+    private int compare(int low, int id, Node n) {
+        int cmp = Integer.compare(low, n.low);
+        return (cmp != 0) ? cmp : Integer.compare(id, n.id);
+    }
+
+    /**
+     * Rotates the subtree so that the left child becomes its root.
+     *
+     * @param n the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node rotateRight(Node n) {
+        Node left = n.left;
+        n.left = left.right;
+        left.right = n;
+        update(n);
+        update(left);
+        return left;
+    }
+
+    /**
+     * Rotates the subtree so that the right child becomes its root.
+     *
+     * @param n the root of the subtree
+     * @return the new root of the subtree
+     */
+    private Node rotateLeft(Node n) {
+        Node right = n.right;
+        n.right = right.left;
+        right.left = n;
+        update(n);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Recomputes the largest end in the subtree of the node.
+     *
+     * @param n the node to update
+     */
+    private void update(Node n) {
+        int max = n.high;
+        if (n.left != null) {
+            max = Math.max(max, n.left.maxHigh);
+        }
+        if (n.right != null) {
+            max = Math.max(max, n.right.maxHigh);
+        }
+        n.maxHigh = max;
+    }
+
+    /**
+     * Returns the next pseudo random node priority
+     *
+     * @return a pseudo random integer
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+
+    /**
+     * This class implements a node of the treap holding one interval.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Node {
+        private final int low; //Start of the interval
+        private final int high; //End of the interval
+        private final int id; //Id of the interval
+        private final int priority; //Heap priority of the node
+        private int maxHigh; //Largest end in the subtree of this node
+        private Node left; //Nodes ordered before this one
+        private Node right; //Nodes ordered after this one
+
+        /**
+         * Initializes the node with its interval and priority.
+         *
+         * @param low      the start of the interval
+         * @param high     the end of the interval
+         * @param id       the id of the interval
+         * @param priority the heap priority of the node
+         */
+        public Node(int low, int high, int id, int priority) {
+            this.low = low;
+            this.high = high;
+            this.id = id;
+            this.priority = priority;
+            this.maxHigh = high;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the IntervalTree class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class IntervalTreeTest {
+
+    //Represents a tree with intervals 0: [0, 10), 1: [5, 15), 2: [20, 30)
+    private IntervalTree tree3;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        tree3 = new IntervalTree();
+        tree3.insert(0, 10, 0);
+        tree3.insert(5, 15, 1);
+        tree3.insert(20, 30, 2);
+    }
+
+    /**
+     * Tests if a query overlapping the first two intervals finds both
+     */
+    @Test
+    public void testTree3Overlapping() {
+        List<Integer> found = new ArrayList<>();
+        tree3.overlapping(8, 12, found);
+
+        assertEquals(2, found.size());
+        assertTrue(found.contains(0));
+        assertTrue(found.contains(1));
+    }
+
+    /**
+     * Tests if a query only touching the end points finds nothing
+     */
+    @Test
+    public void testTree3TouchingOverlapping() {
+        List<Integer> found = new ArrayList<>();
+        tree3.overlapping(15, 20, found);
+
+        assertEquals(0, found.size());
+    }
+
+    /**
+     * Tests if removed intervals are not found anymore
+     */
+    @Test
+    public void testTree3Remove() {
+        assertFalse(tree3.remove(5, 0));
+        assertTrue(tree3.remove(5, 1));
+        assertEquals(2, tree3.size());
+
+        List<Integer> found = new ArrayList<>();
+        tree3.overlapping(0, 30, found);
+
+        assertEquals(2, found.size());
+        assertFalse(found.contains(1));
+    }
+
+    /**
+     * Tests if many inserts and removes give the same results as checking
+     * every interval
+     */
+    @Test
+    public void testManyInsertRemoveOverlapping() {
+        IntervalTree tree = new IntervalTree();
+        Random random = new Random(3);
+        int[] lows = new int[1000];
+        int[] highs = new int[1000];
+
+        for (int i = 0; i < lows.length; i++) {
+            lows[i] = random.nextInt(1000);
+            highs[i] = lows[i] + random.nextInt(40) + 1;
+            tree.insert(lows[i], highs[i], i);
+        }
+        for (int i = 0; i < lows.length; i += 3) {
+            assertTrue(tree.remove(lows[i], i));
+        }
+
+        for (int q = 0; q < 100; q++) {
+            int low = random.nextInt(1000);
+            int high = low + random.nextInt(50) + 1;
+            List<Integer> found = new ArrayList<>();
+            tree.overlapping(low, high, found);
+
+            int expected = 0;
+            for (int i = 0; i < lows.length; i++) {
+                if (i % 3 != 0 && lows[i] < high && low < highs[i]) {
+                    expected++;
+                    assertTrue(found.contains(i));
+                }
+            }
+            assertEquals(expected, found.size());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * This interface holds the functionality a naming policy should have to tell
+ * the keys the database accepts from the ones it rejects. Validators can be
+ * combined into a rule set with and, all of whose rules must accept a key.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+@FunctionalInterface
+public interface KeyValidator {
+
+    /**
+     * Checks if the key is accepted by this policy
+     *
+     * @param key the key to check, not null
+     * @return true if the key is valid
+     */
+    boolean isValid(CharSequence key);
+
+    /**
+     * Returns a validator accepting only the keys both this validator and
+     * the other one accept. The other validator is only asked about keys
+     * this one accepts.
+     *
+     * @param other the validator checked after this one
+     * @return the combined validator
+     * @throws IllegalArgumentException if other is null
+     */
+    default KeyValidator and(KeyValidator other) {
+        if (other == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return key -> isValid(key) && other.isValid(key);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * This interface holds the functionality of the strategy picking the level
+ * of every node inserted in a skip list. The level is the index of the
+ * highest forward reference of the node, so a node of level 0 is only linked
+ * on the bottom level.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public interface LevelGenerator {
+
+    /**
+     * Picks the level of the next inserted node. May be called from many
+     * threads at the same time.
+     *
+     * @return a level between 0 and maxLevel(), both included
+     */
+    int nextLevel();
+
+    /**
+     * Returns the highest level nextLevel can return
+     *
+     * @return a non-negative integer indicating the highest level
+     */
+    int maxLevel();
+
+    /**
+     * Picks the level of the node at the index of a list built at once from
+     * sorted pairs. The levels are spread evenly instead of at random, so
+     * building the same pairs twice gives the same list. By default every
+     * second node reaches level 1, every fourth level 2 and so on, the
+     * spacing a probability of 1/2 gives on average.
+     *
+     * @param index the position of the node in the list, from 0
+     * @return a level between 0 and maxLevel(), both included
+     */
+    default int levelAt(long index) {
+        return Math.min(maxLevel(), Long.numberOfTrailingZeros(index + 1));
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class reads a command file through memory mapped chunks, so files far
+ * larger than the heap are read without copying them through a stream. The
+ * file is cut into chunks ending at the end of a line, each chunk is decoded
+ * and split into a CommandBatch by a pool of worker threads, and the batches
+ * are handed back in the order of the file, so the commands are processed in
+ * exactly the order they are written while the next chunks are parsed. Only
+ * a few chunks are parsed ahead, so memory stays bounded however big the
+ * file is.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class MappedCommandReader {
+
+    //Bytes of the file mapped and parsed at once, unless given
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    //Largest chunk, for lines longer than the chunk size
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+    //Chunks parsed ahead of the processing, for every worker
+    private static final int CHUNKS_AHEAD = 2;
+
+    /**
+     * This interface takes the commands of the file, one at a time and in
+     * the order of the file.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    @FunctionalInterface
+    public interface CommandSink {
+
+        /**
+         * Takes a command
+         *
+         * @param batch the batch holding the command
+         * @param index position of the command in the batch
+         * @throws IOException if handling the command fails
+         */
+        void accept(CommandBatch batch, int index) throws IOException;
+    }
+
+    private final Path file; //File of commands
+    private final Charset charset; //Charset the file is written in
+    private final int workers; //Number of parsing threads
+    private final int chunkSize; //Bytes mapped and parsed at once
+
+    /**
+     * Initializes a reader of a file in the default charset, with a worker
+     * for every processor and the default chunk size
+     *
+     * @param file the file of commands
+     * @throws IllegalArgumentException if file is null
+     */
+    public MappedCommandReader(Path file) {
+        this(file, Charset.defaultCharset(),
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Initializes a reader. The charset must write a line feed as the single
+     * byte 10, as ASCII, UTF-8 and the ISO-8859 charsets do, since chunks are
+     * cut at that byte.
+     *
+     * @param file      the file of commands
+     * @param charset   the charset the file is written in
+     * @param workers   the number of threads parsing chunks
+     * @param chunkSize the number of bytes mapped and parsed at once, more
+     *                  for lines longer than this
+     * @throws IllegalArgumentException if any object is null, the charset
+     *                                  does not write a line feed as one
+     *                                  byte, or a number is not positive
+     */
+    public MappedCommandReader(Path file, Charset charset, int workers,
+                               int chunkSize) {
+        if (file == null || charset == null || workers <= 0
+            || chunkSize <= 0 || !Arrays.equals("\n".getBytes(charset),
+                new byte[]{'\n'})) {
+            throw new IllegalArgumentException();
+        }
+
+        this.file = file;
+        this.charset = charset;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the whole file and hands every command to the sink, in the order
+     * of the file, on the calling thread. Chunks still being parsed are
+     * cancelled if the sink or a worker fails.
+     *
+     * @param sink takes every command
+     * @return the number of commands handed over
+     * @throws IOException              if reading the file or the sink fails
+     * @throws IllegalArgumentException if sink is null
+     */
+    public long feed(CommandSink sink) throws IOException {
+        if (sink == null) {
+            throw new IllegalArgumentException();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "command-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<CommandBatch>> parsing = new ArrayDeque<>();
+        long fed = 0;
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+
+            while (position < size || !parsing.isEmpty()) {
+                //Keep the workers busy with the next chunks
+                while (position < size
+                       && parsing.size() < workers * CHUNKS_AHEAD) {
+                    MappedByteBuffer chunk = map(channel, position, size);
+                    position += chunk.limit();
+                    parsing.add(pool.submit(
+                            () -> CommandBatch.parse(chunk, charset)));
+                }
+
+                CommandBatch batch = await(parsing.poll());
+                for (int i = 0; i < batch.size(); i++) {
+                    sink.accept(batch, i);
+                }
+                fed += batch.size();
+            }
+        }
+        finally {
+            for (Future<CommandBatch> future : parsing) {
+                future.cancel(true);
+            }
+            pool.shutdownNow();
+        }
+
+        return fed;
+    }
+
+    /**
+     * Maps the chunk starting at the position, cut after the last line feed
+     * in it. The chunk grows for a line longer than the chunk size, and the
+     * last chunk of the file ends at the end of the file.
+     *
+     * @param channel  the channel of the file
+     * @param position the first byte of the chunk
+     * @param size     the size of the file
+     * @return the chunk, from 0 to its limit
+     * @throws IOException if mapping fails or a line is too long to map
+     */
+    private MappedByteBuffer map(FileChannel channel, long position,
+                                 long size) throws IOException {
+        long length = chunkSize;
+
+        while (true) {
+            length = Math.min(length, size - position);
+            MappedByteBuffer chunk = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length == size) {
+                return chunk;
+            }
+
+            for (int i = (int) length - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') {
+                    chunk.limit(i + 1);
+                    return chunk;
+                }
+            }
+
+            if (length == MAX_CHUNK_SIZE) {
+                throw new IOException("Line too long at byte " + position);
+            }
+            length = Math.min(length * 2, MAX_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Waits for a chunk to be parsed
+     *
+     * @param future the parsing of the chunk
+     * @return the batch of commands of the chunk
+     * @throws IOException if the waiting is interrupted
+     */
+    private static CommandBatch await(Future<CommandBatch> future)
+            throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Reading interrupted");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
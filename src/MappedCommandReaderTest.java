@@ -0,0 +1,175 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the MappedCommandReader
+ * class hands over every command of a file once and in order, whatever the
+ * chunk size and number of workers
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class MappedCommandReaderTest {
+
+    // The file of commands read by the tests
+    private Path file;
+
+    /**
+     * Creates the file before each test
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("commands", ".txt");
+    }
+
+    /**
+     * Deletes the file after each test
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that the commands are handed over in the order of the file, the
+     * same as read by Scanner, for chunks smaller and larger than the lines
+     *
+     * @throws IOException if reading fails
+     */
+    @Test
+    public void testOrder() throws IOException {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        String[] separators = {"\n", "\r\n", "\r", "\n\n  \n"};
+        for (int i = 0; i < 2000; i++) {
+            text.append("  insert r").append(i).append(' ')
+                    .append(random.nextInt(1000)).append(" 1 2 3")
+                    .append(separators[random.nextInt(separators.length)]);
+        }
+        text.append("dump");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> expected = new ArrayList<>();
+        Scanner scanner = new Scanner(text.toString());
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine().trim();
+            if (!line.isEmpty()) {
+                expected.add(line);
+            }
+        }
+
+        int[][] settings = {{1, 7}, {3, 16}, {4, 1000}, {2, 1 << 20}};
+        for (int[] setting : settings) {
+            MappedCommandReader reader = new MappedCommandReader(file,
+                    StandardCharsets.UTF_8, setting[0], setting[1]);
+            List<String> read = new ArrayList<>();
+
+            long fed = reader.feed((batch, index) ->
+                    read.add(batch.line(index).toString()));
+
+            assertEquals(expected.size(), fed);
+            assertEquals(expected, read);
+        }
+    }
+
+    /**
+     * Tests that an empty file has no commands
+     *
+     * @throws IOException if reading fails
+     */
+    @Test
+    public void testEmptyFile() throws IOException {
+        MappedCommandReader reader = new MappedCommandReader(file);
+
+        assertEquals(0, reader.feed((batch, index) -> fail()));
+    }
+
+    /**
+     * Tests that a failing sink stops the reading and its exception is
+     * thrown
+     *
+     * @throws IOException if writing the file fails
+     */
+    @Test
+    public void testSinkFailure() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("search r").append(i).append('\n');
+        }
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        MappedCommandReader reader = new MappedCommandReader(file,
+                StandardCharsets.UTF_8, 2, 64);
+        int[] seen = {0};
+
+        try {
+            reader.feed((batch, index) -> {
+                if (++seen[0] == 10) {
+                    throw new IOException("stop");
+                }
+            });
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("stop", e.getMessage());
+        }
+
+        assertEquals(10, seen[0]);
+    }
+
+    /**
+     * Tests the invalid arguments
+     *
+     * @throws IOException if reading fails
+     */
+    @Test
+    public void testInvalidArguments() throws IOException {
+        try {
+            new MappedCommandReader(file, StandardCharsets.UTF_16, 1, 64);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new MappedCommandReader(file, StandardCharsets.UTF_8, 0, 64);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new MappedCommandReader(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new MappedCommandReader(file).feed(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
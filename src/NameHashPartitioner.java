@@ -0,0 +1,71 @@
+/**
+ * This class spreads the pairs over the shards by the hash code of their
+ * names, so all the pairs with a name are kept by one shard and a search by
+ * name only asks that shard. The hash code is mixed before it is reduced to
+ * a shard, so names differing only in their last chars are spread as well.
+ * The shards are found without any regard to where the rectangles are, so
+ * every shard may hold rectangles in any region.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class NameHashPartitioner implements Partitioner {
+
+    private final int shards; //Number of shards
+
+    /**
+     * Initializes the partitioner
+     *
+     * @param shards the number of shards
+     * @throws IllegalArgumentException if shards is not positive
+     */
+    public NameHashPartitioner(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.shards = shards;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shardOf(KVPair<String, Rectangle> pair) {
+        return shardOfName(pair.getKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shardOfName(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shardOfValue(Rectangle rectangle) {
+        return SPREAD;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean mayOverlap(int shard, int x, int y, int width,
+                              int height) {
+        return true;
+    }
+}
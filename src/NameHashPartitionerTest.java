@@ -0,0 +1,64 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the NameHashPartitioner class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class NameHashPartitionerTest {
+
+    /**
+     * Tests if no shards are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoShards() {
+        new NameHashPartitioner(0);
+        fail();
+    }
+
+    /**
+     * Tests if pairs are given the shard of their name, whatever their
+     * rectangles, and rectangles and regions are spread over all shards
+     */
+    @Test
+    public void testShardOfName() {
+        NameHashPartitioner partitioner = new NameHashPartitioner(4);
+        assertEquals(4, partitioner.shards());
+
+        int shard = partitioner.shardOfName("a1");
+        assertEquals(shard, partitioner.shardOf(
+                new KVPair<>("a1", new Rectangle(0, 0, 10, 10))));
+        assertEquals(shard, partitioner.shardOf(
+                new KVPair<>("a1", new Rectangle(900, 900, 1, 1))));
+        assertEquals(Partitioner.SPREAD,
+                partitioner.shardOfValue(new Rectangle(0, 0, 10, 10)));
+        for (int s = 0; s < 4; s++) {
+            assertTrue(partitioner.mayOverlap(s, 0, 0, 1, 1));
+        }
+
+        assertEquals(0, new NameHashPartitioner(1).shardOfName("a1"));
+    }
+
+    /**
+     * Tests if names differing only in their last chars are spread evenly
+     * over the shards
+     */
+    @Test
+    public void testSpread() {
+        NameHashPartitioner partitioner = new NameHashPartitioner(8);
+        int[] counts = new int[8];
+        for (int i = 0; i < 8000; i++) {
+            int shard = partitioner.shardOfName("r" + i);
+            assertTrue(shard >= 0 && shard < 8);
+            counts[shard]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class finds all the pairs of rectangles that share some area on the
+ * threads of a ForkJoinPool. The world is cut into horizontal bands as high
+ * as the average rectangle, the tiles of the search, and every rectangle is
+ * listed in each band it covers, in x order. Within a band, each rectangle
+ * is compared with the ones after it until one starts right of its right
+ * edge. A pair is only reported in the band holding the top of the area
+ * both share, so a pair of rectangles crossing the border of two bands is
+ * reported once, whichever thread sweeps them.
+ * <p>
+ * The bands are split in halves holding about as many listed rectangles as
+ * each other, and the halves are swept as separate tasks until a run of
+ * bands holds few enough to sweep on one thread. The pairs of every run are
+ * kept apart and handed to the collector in band order once all tasks are
+ * done, so the result is the same for any number of threads. Searches share
+ * no state, so many can run at the same time.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ParallelIntersections extends AbstractIntersectionFinder {
+
+    //Fewest listed rectangles worth sweeping on another thread
+    private static final int MIN_TASK_SIZE = 4096;
+    //Tasks created for every thread of the pool, so threads done with a
+    // sparse run of bands take over the rest of a dense one
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final ForkJoinPool pool; //Threads sweeping the bands
+
+    /**
+     * Initializes the finder on the common pool, with as many threads as
+     * the machine has processors less one
+     */
+    public ParallelIntersections() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes the finder on a pool of its own with the given number of
+     * threads, which stop once they have been idle for a while
+     *
+     * @param parallelism the number of threads sweeping at the same time
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ParallelIntersections(int parallelism) {
+        this(newPool(parallelism));
+    }
+
+    /**
+     * Initializes the finder on the given pool
+     *
+     * @param pool the threads sweeping the bands
+     * @throws IllegalArgumentException if pool is null
+     */
+    public ParallelIntersections(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the number of threads sweeping at the same time
+     *
+     * @return the parallelism of the pool
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[][] find(List<Rectangle> rects) {
+        if (rects == null) {
+            throw new IllegalArgumentException();
+        }
+
+        PartnerCollector collector = new PartnerCollector(rects.size());
+        Search search = new Search(rects);
+        if (search.bands == 0) {
+            return collector.partners();
+        }
+
+        int listed = search.start[search.bands];
+        int taskSize = Math.max(MIN_TASK_SIZE,
+                listed / (pool.getParallelism() * TASKS_PER_THREAD));
+        if (listed <= taskSize) {
+            search.sweep(0, search.bands);
+        }
+        else {
+            pool.invoke(new Sweep(search, 0, search.bands, taskSize));
+        }
+
+        for (int[] pairs : search.found) {
+            if (pairs != null) {
+                for (int p = 0; p < pairs.length; p += 2) {
+                    collector.add(pairs[p], pairs[p + 1]);
+                }
+            }
+        }
+
+        return collector.partners();
+    }
+
+    /**
+     * Creates a pool with the given number of threads
+     *
+     * @param parallelism the number of threads
+     * @return the pool
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    private static ForkJoinPool newPool(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * This class holds the rectangles of one search, with area and in x
+     * order, the bands they are listed in and the pairs found in every run
+     * of bands. Only the pairs are written once the bands are listed, each
+     * run by the one task sweeping it.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static final class Search {
+        private final List<Rectangle> rects; //Rectangles searched
+        private final int[] position; //Position in rects of every slot
+        private final int[] xs; //x coordinate of every slot
+        private final int[] ys; //y coordinate of every slot
+        private final int[] widths; //Width of every slot
+        private final int[] heights; //Height of every slot
+        private long top; //Top of the first band
+        private long bandHeight; //Height of every band
+        private int bands; //Number of bands
+        private int[] start; //Index in listed of the first slot of a band
+        private int[] listed; //Slots of every band in x order, band by band
+        //Both members of every pair, one after another, of every run of
+        // bands at the index of its first band
+        private int[][] found;
+
+        /**
+         * Copies the rectangles with area in x order and lists them in the
+         * bands they cover
+         *
+         * @param rects the rectangles searched
+         */
+        Search(List<Rectangle> rects) {
+            this.rects = rects;
+
+            long[] byX = new long[rects.size()];
+            int count = 0;
+            for (int i = 0; i < rects.size(); i++) {
+                Rectangle rect = rects.get(i);
+                if (rect.width > 0 && rect.height > 0) {
+                    byX[count++] = ((long) rect.x << 32) | i;
+                }
+            }
+            Arrays.sort(byX, 0, count);
+
+            position = new int[count];
+            xs = new int[count];
+            ys = new int[count];
+            widths = new int[count];
+            heights = new int[count];
+            for (int slot = 0; slot < count; slot++) {
+                position[slot] = (int) byX[slot];
+                Rectangle rect = rects.get(position[slot]);
+                xs[slot] = rect.x;
+                ys[slot] = rect.y;
+                widths[slot] = rect.width;
+                heights[slot] = rect.height;
+            }
+
+            if (count > 0) {
+                listBands();
+            }
+        }
+
+        /**
+         * Cuts the world into bands as high as the average rectangle, at
+         * most one per rectangle, and lists every slot in the bands it
+         * covers
+         */
+        private void listBands() {
+            int count = xs.length;
+            top = Long.MAX_VALUE;
+            long bottom = Long.MIN_VALUE;
+            long total = 0;
+            for (int slot = 0; slot < count; slot++) {
+                top = Math.min(top, ys[slot]);
+                bottom = Math.max(bottom, (long) ys[slot] + heights[slot]);
+                total += heights[slot];
+            }
+
+            bandHeight = Math.max(total / count,
+                    (bottom - top + count - 1) / count);
+            bands = (int) ((bottom - top - 1) / bandHeight) + 1;
+
+            start = new int[bands + 1];
+            for (int slot = 0; slot < count; slot++) {
+                for (int b = firstBand(slot); b <= lastBand(slot); b++) {
+                    start[b + 1]++;
+                }
+            }
+            for (int b = 0; b < bands; b++) {
+                start[b + 1] += start[b];
+            }
+
+            listed = new int[start[bands]];
+            int[] filled = Arrays.copyOf(start, bands);
+            for (int slot = 0; slot < count; slot++) {
+                for (int b = firstBand(slot); b <= lastBand(slot); b++) {
+                    listed[filled[b]++] = slot;
+                }
+            }
+
+            found = new int[bands][];
+        }
+
+        /**
+         * Sweeps a run of bands and keeps the pairs found at the index of
+         * its first band
+         *
+         * @param from the first band of the run
+         * @param to   the band after the last one of the run
+         */
+        void sweep(int from, int to) {
+            int[] pairs = new int[16];
+            int count = 0;
+
+            for (int band = from; band < to; band++) {
+                for (int k = start[band]; k < start[band + 1]; k++) {
+                    int a = listed[k];
+                    int ay = ys[a];
+                    long right = (long) xs[a] + widths[a];
+                    long below = (long) ay + heights[a];
+
+                    for (int m = k + 1; m < start[band + 1]; m++) {
+                        int c = listed[m];
+                        if (xs[c] >= right) {
+                            break;
+                        }
+
+                        int cy = ys[c];
+                        if (cy >= below || ay >= (long) cy + heights[c]
+                            || (Math.max(ay, cy) - top) / bandHeight
+                               != band) {
+                            continue;
+                        }
+
+                        //A rectangle object listed twice is not paired
+                        // with itself
+                        if (rects.get(position[a])
+                            == rects.get(position[c])) {
+                            continue;
+                        }
+
+                        if (count + 2 > pairs.length) {
+                            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                        }
+                        pairs[count++] = position[a];
+                        pairs[count++] = position[c];
+                    }
+                }
+            }
+
+            found[from] = Arrays.copyOf(pairs, count);
+        }
+
+        /**
+         * Finds the band holding the top edge of the rectangle in the slot
+         *
+         * @param slot the slot
+         * @return the number of the band
+         */
+        private int firstBand(int slot) {
+            return (int) ((ys[slot] - top) / bandHeight);
+        }
+
+        /**
+         * Finds the band holding the last row of the rectangle in the slot
+         *
+         * @param slot the slot
+         * @return the number of the band
+         */
+        private int lastBand(int slot) {
+            return (int) (((long) ys[slot] + heights[slot] - 1 - top)
+                          / bandHeight);
+        }
+    }
+
+    /**
+     * This class sweeps a run of bands, split in two tasks of about as many
+     * listed rectangles while it holds more than a task should sweep.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static final class Sweep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search; //Search the bands belong to
+        private final int from; //First band of the run
+        private final int to; //Band after the last one of the run
+        private final int taskSize; //Most listed rectangles of a task
+
+        /**
+         * Initializes the task
+         *
+         * @param search   the search the bands belong to
+         * @param from     the first band of the run
+         * @param to       the band after the last one of the run
+         * @param taskSize the most listed rectangles one task sweeps
+         */
+        Sweep(Search search, int from, int to, int taskSize) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            int[] start = search.start;
+            if (to - from == 1 || start[to] - start[from] <= taskSize) {
+                search.sweep(from, to);
+                return;
+            }
+
+            //The first band starting past the middle of the listed slots
+            int middle = Arrays.binarySearch(start, from, to,
+                    start[from] + (start[to] - start[from]) / 2);
+            middle = (middle < 0) ? -middle - 1 : middle;
+            middle = Math.max(from + 1, Math.min(to - 1, middle));
+
+            invokeAll(new Sweep(search, from, middle, taskSize),
+                    new Sweep(search, middle, to, taskSize));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the ParallelIntersections class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ParallelIntersectionsTest {
+
+    // The finder under test, on two threads of its own
+    private ParallelIntersections parallel;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        parallel = new ParallelIntersections(2);
+    }
+
+    /**
+     * Tests if null can be searched for intersections
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFind() {
+        parallel.find(null);
+        fail();
+    }
+
+    /**
+     * Tests if no threads are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new ParallelIntersections(0);
+        fail();
+    }
+
+    /**
+     * Tests if a null pool is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPool() {
+        new ParallelIntersections((ForkJoinPool) null);
+        fail();
+    }
+
+    /**
+     * Tests if the parallelism is the one of the pool
+     */
+    @Test
+    public void testParallelism() {
+        assertEquals(2, parallel.parallelism());
+        assertEquals(ForkJoinPool.getCommonPoolParallelism(),
+                new ParallelIntersections().parallelism());
+    }
+
+    /**
+     * Tests if an empty list, or one without area, has no intersections
+     */
+    @Test
+    public void testEmptyFind() {
+        assertEquals(0, parallel.find(new ArrayList<>()).length);
+
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(new Rectangle(0, 0, 0, 10));
+        rects.add(new Rectangle(0, 0, 10, -1));
+        int[][] partners = parallel.find(rects);
+        assertEquals(0, partners[0].length);
+        assertEquals(0, partners[1].length);
+    }
+
+    /**
+     * Tests if rectangles touching at edges and corners do not intersect
+     * but overlapping and nested ones do, and the same rectangle object
+     * listed twice is not paired with itself
+     */
+    @Test
+    public void testTouchingNestedFind() {
+        Rectangle rect = new Rectangle(0, 0, 10, 10);
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(rect);
+        rects.add(new Rectangle(10, 0, 10, 10));
+        rects.add(new Rectangle(10, 10, 10, 10));
+        rects.add(new Rectangle(2, 2, 3, 3));
+        rects.add(new Rectangle(15, 5, 10, 10));
+        rects.add(rect);
+
+        int[][] partners = parallel.find(rects);
+
+        assertArrayEquals(new int[]{3}, partners[0]);
+        assertArrayEquals(new int[]{4}, partners[1]);
+        assertArrayEquals(new int[]{4}, partners[2]);
+        assertArrayEquals(new int[]{0, 5}, partners[3]);
+        assertArrayEquals(new int[]{1, 2}, partners[4]);
+        assertArrayEquals(new int[]{3}, partners[5]);
+    }
+
+    /**
+     * Tests if random rectangles, small and tall, wide and outside the
+     * world box, give the same pairs as the sweep line on one, two and
+     * four threads, with enough rectangles to be split into many tasks
+     */
+    @Test
+    public void testRandomFind() {
+        Random random = new Random(20);
+        SweepLineIntersections sweep = new SweepLineIntersections();
+        ParallelIntersections[] finders = {new ParallelIntersections(1),
+            parallel, new ParallelIntersections(4)};
+
+        for (int round = 0; round < 4; round++) {
+            List<Rectangle> rects = new ArrayList<>();
+            for (int i = 0; i < 500 + 6000 * round; i++) {
+                int side = (i % 50 == 0) ? 900 : 30;
+                rects.add(new Rectangle(random.nextInt(1200) - 100,
+                        random.nextInt(1200) - 100,
+                        random.nextInt(side) + (round == 3 ? 0 : 1),
+                        random.nextInt(i % 70 == 0 ? 1000 : 30) + 1));
+            }
+            rects.add(rects.get(3));
+
+            int[][] expected = sweep.find(rects);
+            for (ParallelIntersections finder : finders) {
+                int[][] partners = finder.find(rects);
+                for (int i = 0; i < rects.size(); i++) {
+                    assertArrayEquals(expected[i], partners[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests if searches running at the same time on the same finder all
+     * find the pairs of their own rectangles
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testConcurrentFind() throws InterruptedException {
+        List<List<Rectangle>> lists = new ArrayList<>();
+        Random random = new Random(21);
+        for (int t = 0; t < 4; t++) {
+            List<Rectangle> rects = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                rects.add(new Rectangle(random.nextInt(1000),
+                        random.nextInt(1000), random.nextInt(20) + 1,
+                        random.nextInt(20) + 1));
+            }
+            lists.add(rects);
+        }
+
+        int[][][] results = new int[lists.size()][][];
+        Thread[] threads = new Thread[lists.size()];
+        for (int t = 0; t < threads.length; t++) {
+            int index = t;
+            threads[t] = new Thread(() ->
+                    results[index] = parallel.find(lists.get(index)));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SweepLineIntersections sweep = new SweepLineIntersections();
+        for (int t = 0; t < threads.length; t++) {
+            int[][] expected = sweep.find(lists.get(t));
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], results[t][i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * This interface holds the functionality a partitioner should have to
+ * spread the rectangles of a ShardedDatabase over its shards. Every pair is
+ * kept by exactly one shard, the one the partitioner picks for it, so the
+ * shards can be changed independently of each other. A partitioner tells
+ * when all the pairs with a name or a rectangle are bound to be kept by
+ * one shard, and which shards may hold rectangles inside a region, so the
+ * queries only ask the shards that may answer them.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public interface Partitioner {
+
+    //Returned when pairs with the same name or rectangle may be kept by
+    // any shard
+    int SPREAD = -1;
+
+    /**
+     * Returns the number of shards the pairs are spread over
+     *
+     * @return the number of shards, at least one
+     */
+    int shards();
+
+    /**
+     * Picks the shard keeping the pair. The same pair is always given the
+     * same shard.
+     *
+     * @param pair the pair to keep, not null
+     * @return the index of the shard, from 0 to shards() - 1
+     */
+    int shardOf(KVPair<String, Rectangle> pair);
+
+    /**
+     * Finds the one shard keeping all the pairs with the name, if there is
+     * one
+     *
+     * @param name the name, not null
+     * @return the index of the shard, or SPREAD if any shard may keep them
+     */
+    int shardOfName(String name);
+
+    /**
+     * Finds the one shard keeping all the pairs with the rectangle, if
+     * there is one
+     *
+     * @param rectangle the rectangle, not null
+     * @return the index of the shard, or SPREAD if any shard may keep them
+     */
+    int shardOfValue(Rectangle rectangle);
+
+    /**
+     * Checks if the shard may keep rectangles sharing some area with the
+     * region
+     *
+     * @param shard  the index of the shard
+     * @param x      x-Coordinate of the region
+     * @param y      y-Coordinate of the region
+     * @param width  width of the region
+     * @param height height of the region
+     * @return false only if no rectangle of the shard can be in the region
+     */
+    boolean mayOverlap(int shard, int x, int y, int width, int height);
+}
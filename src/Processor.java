@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * This is the interface for the processor that will be used
  * to process any input line
@@ -23,4 +25,44 @@ public interface Processor {
      * @throws IllegalArgumentException if input parameter is null
      */
     String process(String input);
+
+    /**
+     * Processes the line the same as process(String), but writes the output
+     * into the given Appendable instead of returning it, so no String of the
+     * whole output is made. Nothing is written after the output, not even a
+     * line separator.
+     *
+     * @param input a single line from the text file
+     * @param out   the Appendable receiving the output of the processing
+     * @throws IOException              if writing to out fails
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    default void process(String input, Appendable out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException();
+        }
+
+        out.append(process(input));
+    }
+
+    /**
+     * Processes a line of a batch the same as process(String, Appendable).
+     * Processors that can use the words already split in the batch override
+     * this, by default the line is processed as a String.
+     *
+     * @param batch the batch holding the line
+     * @param index position of the line in the batch
+     * @param out   the Appendable receiving the output of the processing
+     * @throws IOException               if writing to out fails
+     * @throws IllegalArgumentException  if batch or out is null
+     * @throws IndexOutOfBoundsException if there is no line at index
+     */
+    default void process(CommandBatch batch, int index, Appendable out)
+            throws IOException {
+        if (batch == null) {
+            throw new IllegalArgumentException();
+        }
+
+        process(batch.line(index).toString(), out);
+    }
 }
@@ -0,0 +1,676 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class implements the SpatialIndex interface with an R-tree. Every node
+ * holds up to a fixed number of entries together with the minimum bounding
+ * box of everything below it, so a region query only descends into the
+ * subtrees whose boxes overlap the region. Single insertions use Guttman's
+ * quadratic split and the whole tree can be built at once with the
+ * Sort-Tile-Recursive (STR) bulk-load.
+ *
+ * @param <T> the type of the items indexed by their bounds
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class RTree<T> implements SpatialIndex<T> {
+
+    //Number of entries a node holds if none is specified
+    private static final int DEFAULT_MAX_ENTRIES = 16;
+
+    private final int maxEntries; //Entries a node can hold before splitting
+    private final int minEntries; //Entries a node needs to not be dissolved
+    private Node root; //Top node of the tree
+    private int size; //Number of items in the tree
+
+    /**
+     * Initializes an empty tree with the default node capacity
+     */
+    public RTree() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Initializes an empty tree whose nodes split once they have more than
+     * the given number of entries.
+     *
+     * @param maxEntries the maximum number of entries in a node
+     * @throws IllegalArgumentException if maxEntries is less than 4
+     */
+    public RTree(int maxEntries) {
+        if (maxEntries < 4) {
+            throw new IllegalArgumentException();
+        }
+
+        this.maxEntries = maxEntries;
+        this.minEntries = Math.max(2, maxEntries * 2 / 5);
+        root = new Node(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        insertAt(new Entry(bounds, item), 0);
+        size++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Rectangle bounds, T item) {
+        if (bounds == null || item == null) {
+            throw new IllegalArgumentException();
+        }
+
+        //Entries of nodes that became too small while removing
+        List<Entry> orphans = new ArrayList<>();
+        if (!remove(root, new Box(bounds), item, orphans)) {
+            return false;
+        }
+
+        size--;
+
+        //Start over from a leaf if every node was dissolved
+        if (root.count == 0) {
+            root = new Node(0);
+        }
+
+        for (Entry orphan : orphans) {
+            insertAt(orphan, 0);
+        }
+
+        //Shorten the tree while the root only points to a single node
+        while (root.height > 0 && root.count == 1) {
+            root = (Node) root.children[0];
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> search(Rectangle region) {
+        if (region == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<T> found = new ArrayList<>();
+
+        //A region without area cannot share area with any rectangle
+        if (region.width <= 0 || region.height <= 0 || size == 0) {
+            return found;
+        }
+
+        search(root, new Box(region), found);
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The tree is built with the Sort-Tile-Recursive algorithm: the entries
+     * are sorted into vertical slices by their x center and every slice is
+     * packed into full nodes by the y center, level after level until a
+     * single root remains.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void bulkLoad(List<Pair<Rectangle, T>> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<Box> level = new ArrayList<>(entries.size());
+        for (Pair<Rectangle, T> entry : entries) {
+            if (entry == null) {
+                throw new IllegalArgumentException();
+            }
+
+            level.add(new Entry(entry.getVal1(), entry.getVal2()));
+        }
+
+        size = level.size();
+        if (level.isEmpty()) {
+            root = new Node(0);
+            return;
+        }
+
+        int height = 0;
+        do {
+            level = pack(level, height++);
+        } while (level.size() > 1);
+
+        root = (Node) level.get(0);
+    }
+
+    /**
+     * Returns the number of node levels in the tree, a tree with a single
+     * leaf node has a height of 1
+     *
+     * @return the height of the tree
+     */
+    public int height() {
+        return root.height + 1;
+    }
+
+    /**
+     * Adds the box in a node of the given height, splitting the root if it
+     * overflows.
+     *
+     * @param box    the entry or node to be added
+     * @param height the height of the node that should hold the box
+     */
+    private void insertAt(Box box, int height) {
+        Node sibling = insert(root, box, height);
+
+        if (sibling != null) { //Grow the tree by one level
+            Node newRoot = new Node(root.height + 1);
+            newRoot.add(root);
+            newRoot.add(sibling);
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Descends from the node to the node of the given height which needs
+     * the least enlargement to hold the box, adds it there and splits the
+     * nodes on the way back up when they overflow.
+     *
+     * @param node   the root of the subtree to insert in
+     * @param box    the entry or node to be added
+     * @param height the height of the node that should hold the box
+     * @return the node split off from this node, or null if no split happened
+     */
+    private Node insert(Node node, Box box, int height) {
+        if (node.height == height) {
+            node.add(box);
+        }
+        else {
+            Node sibling = insert(chooseSubtree(node, box), box, height);
+            node.include(box);
+
+            if (sibling != null) {
+                node.add(sibling);
+            }
+        }
+
+        return (node.count > maxEntries) ? split(node) : null;
+    }
+
+    /**
+     * Picks the child of the node whose box grows the least when the given
+     * box is added to it, ties are broken by the smaller area.
+     *
+     * @param node the node to pick the child from
+     * @param box  the box to be added
+     * @return the chosen child
+     */
+    @SuppressWarnings("unchecked")
+    private Node chooseSubtree(Node node, Box box) {
+        Node best = null;
+        long bestEnlargement = Long.MAX_VALUE;
+        long bestArea = Long.MAX_VALUE;
+
+        for (int i = 0; i < node.count; i++) {
+            Node child = (Node) node.children[i];
+            long enlargement = child.enlargement(box);
+            long area = child.area();
+
+            if (enlargement < bestEnlargement
+                || (enlargement == bestEnlargement && area < bestArea)) {
+                best = child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Splits an overflowing node in two with the quadratic split. The two
+     * entries that would waste the most area together start the two groups
+     * and the rest are added one by one, always the one with the strongest
+     * preference for either group first.
+     *
+     * @param node the overflowing node, it keeps the first group
+     * @return the new node holding the second group
+     */
+    private Node split(Node node) {
+        Box[] all = Arrays.copyOf(node.children, node.count);
+        Node sibling = new Node(node.height);
+        node.clear();
+
+        //Pick the two seeds that are the most wasteful together
+        int seed1 = 0;
+        int seed2 = 1;
+        long worst = Long.MIN_VALUE;
+        for (int i = 0; i < all.length; i++) {
+            for (int j = i + 1; j < all.length; j++) {
+                long waste = all[i].unionArea(all[j]) - all[i].area()
+                             - all[j].area();
+                if (waste > worst) {
+                    worst = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+
+        boolean[] assigned = new boolean[all.length];
+        node.add(all[seed1]);
+        sibling.add(all[seed2]);
+        assigned[seed1] = true;
+        assigned[seed2] = true;
+        int remaining = all.length - 2;
+
+        while (remaining > 0) {
+            //Give the rest to a group if it needs them all to be big enough
+            Node needy = (node.count + remaining == minEntries) ? node :
+                    (sibling.count + remaining == minEntries) ? sibling : null;
+            if (needy != null) {
+                for (int i = 0; i < all.length; i++) {
+                    if (!assigned[i]) {
+                        needy.add(all[i]);
+                    }
+                }
+                break;
+            }
+
+            //Pick the entry with the greatest preference for one group
+            int next = -1;
+            long nextDiff = -1;
+            long growth1 = 0;
+            long growth2 = 0;
+            for (int i = 0; i < all.length; i++) {
+                if (!assigned[i]) {
+                    long d1 = node.enlargement(all[i]);
+                    long d2 = sibling.enlargement(all[i]);
+
+                    if (Math.abs(d1 - d2) > nextDiff) {
+                        next = i;
+                        nextDiff = Math.abs(d1 - d2);
+                        growth1 = d1;
+                        growth2 = d2;
+                    }
+                }
+            }
+
+            Node target;
+            if (growth1 != growth2) {
+                target = (growth1 < growth2) ? node : sibling;
+            }
+            else if (node.area() != sibling.area()) {
+                target = (node.area() < sibling.area()) ? node : sibling;
+            }
+            else {
+                target = (node.count <= sibling.count) ? node : sibling;
+            }
+
+            target.add(all[next]);
+            assigned[next] = true;
+            remaining--;
+        }
+
+        return sibling;
+    }
+
+    /**
+     * Removes the item from the subtree. Nodes left with too few entries on
+     * the way are taken out of the tree and their entries are collected to
+     * be inserted again.
+     *
+     * @param node    the root of the subtree to remove from
+     * @param target  the bounds the item was inserted with
+     * @param item    the item to be removed
+     * @param orphans the list collecting entries of dissolved nodes
+     * @return true if the item was found and removed
+     */
+    @SuppressWarnings("unchecked")
+    private boolean remove(Node node, Box target, T item,
+                           List<Entry> orphans) {
+        for (int i = 0; i < node.count; i++) {
+            if (node.height == 0) {
+                Entry entry = (Entry) node.children[i];
+
+                if (entry.sameBounds(target) && entry.item.equals(item)) {
+                    node.removeAt(i);
+                    node.recompute();
+                    return true;
+                }
+            }
+            else {
+                Node child = (Node) node.children[i];
+
+                if (child.contains(target)
+                    && remove(child, target, item, orphans)) {
+                    if (child.count < minEntries) {
+                        node.removeAt(i);
+                        collectEntries(child, orphans);
+                    }
+
+                    node.recompute();
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds all the leaf entries below the node to the list.
+     *
+     * @param node    the node to collect from
+     * @param entries the list to add the entries to
+     */
+    @SuppressWarnings("unchecked")
+    private void collectEntries(Node node, List<Entry> entries) {
+        for (int i = 0; i < node.count; i++) {
+            if (node.height == 0) {
+                entries.add((Entry) node.children[i]);
+            }
+            else {
+                collectEntries((Node) node.children[i], entries);
+            }
+        }
+    }
+
+    /**
+     * Adds the items below the node whose bounds overlap the target to the
+     * list.
+     *
+     * @param node   the root of the subtree to search
+     * @param target the region to search in
+     * @param found  the list to add found items to
+     */
+    @SuppressWarnings("unchecked")
+    private void search(Node node, Box target, List<T> found) {
+        for (int i = 0; i < node.count; i++) {
+            Box child = node.children[i];
+
+            if (child.intersects(target)) {
+                if (node.height == 0) {
+                    found.add(((Entry) child).item);
+                }
+                else {
+                    search((Node) child, target, found);
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs one level of the STR bulk-load into full nodes of the given
+     * height.
+     *
+     * @param boxes  the entries or nodes of the level below
+     * @param height the height of the nodes to be created
+     * @return the created nodes
+     */
+    private List<Box> pack(List<Box> boxes, int height) {
+        int nodeCount = (boxes.size() + maxEntries - 1) / maxEntries;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * maxEntries;
+
+        boxes.sort(Comparator.comparingLong(Box::centerX));
+
+        List<Box> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < boxes.size(); i += sliceSize) {
+            List<Box> slice = boxes.subList(i,
+                    Math.min(i + sliceSize, boxes.size()));
+            slice.sort(Comparator.comparingLong(Box::centerY));
+
+            for (int j = 0; j < slice.size(); j += maxEntries) {
+                Node node = new Node(height);
+                for (int k = j; k < Math.min(j + maxEntries, slice.size());
+                     k++) {
+                    node.add(slice.get(k));
+                }
+                nodes.add(node);
+            }
+        }
+
+        return nodes;
+    }
+
+    /**
+     * This class holds an axis aligned box with its right and bottom edges
+     * excluded, as either the bounds of an item or of a whole node.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static class Box {
+        protected int minX; //Left edge
+        protected int minY; //Top edge
+        protected int maxX; //Right edge, excluded
+        protected int maxY; //Bottom edge, excluded
+
+        /**
+         * Initializes an empty box
+         */
+        public Box() {
+            //Bounds are set once something is added
+        }
+
+        /**
+         * Initializes the box with the coordinates of the rectangle.
+         *
+         * @param rect the rectangle to copy the coordinates from
+         */
+        public Box(Rectangle rect) {
+            minX = rect.x;
+            minY = rect.y;
+            maxX = rect.x + rect.width;
+            maxY = rect.y + rect.height;
+        }
+
+        /**
+         * Checks if the two boxes share some area
+         *
+         * @param other the box to check with
+         * @return true if the boxes overlap more than an edge
+         */
+        public boolean intersects(Box other) {
+            return minX < other.maxX && other.minX < maxX
+                   && minY < other.maxY && other.minY < maxY;
+        }
+
+        /**
+         * Checks if the other box is completely inside this one
+         *
+         * @param other the box to check with
+         * @return true if this box contains the other
+         */
+        public boolean contains(Box other) {
+            return minX <= other.minX && minY <= other.minY
+                   && other.maxX <= maxX && other.maxY <= maxY;
+        }
+
+        /**
+         * Checks if both boxes have the same coordinates
+         *
+         * @param other the box to check with
+         * @return true if the coordinates are equal
+         */
+        public boolean sameBounds(Box other) {
+            return minX == other.minX && minY == other.minY
+                   && maxX == other.maxX && maxY == other.maxY;
+        }
+
+        /**
+         * Grows this box to cover the other one as well
+         *
+         * @param other the box to cover
+         */
+        public void include(Box other) {
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+        }
+
+        /**
+         * Returns the area of the box
+         *
+         * @return the area
+         */
+        public long area() {
+            return ((long) maxX - minX) * ((long) maxY - minY);
+        }
+
+        /**
+         * Returns the area of the smallest box covering both boxes
+         *
+         * @param other the box to be covered along with this one
+         * @return the area of the covering box
+         */
+        public long unionArea(Box other) {
+            return ((long) Math.max(maxX, other.maxX)
+                    - Math.min(minX, other.minX))
+                   * ((long) Math.max(maxY, other.maxY)
+                      - Math.min(minY, other.minY));
+        }
+
+        /**
+         * Returns how much the area of this box grows to cover the other
+         *
+         * @param other the box to be covered
+         * @return the growth in area
+         */
+        public long enlargement(Box other) {
+            return unionArea(other) - area();
+        }
+
+        /**
+         * Returns twice the horizontal center of the box
+         *
+         * @return the sum of the left and right edges
+         */
+        public long centerX() {
+            return (long) minX + maxX;
+        }
+
+        /**
+         * Returns twice the vertical center of the box
+         *
+         * @return the sum of the top and bottom edges
+         */
+        public long centerY() {
+            return (long) minY + maxY;
+        }
+    }
+
+    /**
+     * This class holds an indexed item in a leaf node together with its
+     * bounds.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class Entry extends Box {
+        private final T item; //The indexed item
+
+        /**
+         * Initializes the entry with the bounds and the item occupying them.
+         *
+         * @param bounds the bounds of the item
+         * @param item   the indexed item
+         */
+        public Entry(Rectangle bounds, T item) {
+            super(bounds);
+            this.item = item;
+        }
+    }
+
+    /**
+     * This class implements a node of the tree. Leaves, with a height of 0,
+     * hold entries and all the other nodes hold nodes one level lower.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class Node extends Box {
+        private final int height; //Distance from the leaves
+        private final Box[] children; //Entries or nodes, one more than fits
+        private int count; //Number of children in use
+
+        /**
+         * Initializes an empty node at the given height
+         *
+         * @param height the distance of the node from the leaves
+         */
+        public Node(int height) {
+            this.height = height;
+            children = new Box[maxEntries + 1];
+        }
+
+        /**
+         * Adds the child and grows the bounds to cover it
+         *
+         * @param child the entry or node to be added
+         */
+        public void add(Box child) {
+            children[count++] = child;
+
+            if (count == 1) {
+                minX = child.minX;
+                minY = child.minY;
+                maxX = child.maxX;
+                maxY = child.maxY;
+            }
+            else {
+                include(child);
+            }
+        }
+
+        /**
+         * Removes the child at the index by moving the last child in its
+         * place.
+         *
+         * @param index the index of the child to be removed
+         */
+        public void removeAt(int index) {
+            children[index] = children[--count];
+            children[count] = null;
+        }
+
+        /**
+         * Removes all the children
+         */
+        public void clear() {
+            Arrays.fill(children, null);
+            count = 0;
+        }
+
+        /**
+         * Shrinks the bounds to exactly cover the current children
+         */
+        public void recompute() {
+            Box[] current = Arrays.copyOf(children, count);
+            clear();
+
+            for (Box child : current) {
+                add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the RTree class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class RTreeTest {
+
+    //Represents an empty tree
+    private RTree<String> treeEmpty;
+    //Represents a tree with rectangles A (0, 0, 10, 10), B (10, 10, 990,
+    // 990) and C (1000, 1000, 24, 24)
+    private RTree<String> treeABC;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        treeEmpty = new RTree<>();
+
+        treeABC = new RTree<>();
+        treeABC.insert(new Rectangle(0, 0, 10, 10), "A");
+        treeABC.insert(new Rectangle(10, 10, 990, 990), "B");
+        treeABC.insert(new Rectangle(1000, 1000, 24, 24), "C");
+    }
+
+    /**
+     * Tests if a node capacity less than 4 is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallCapacity() {
+        new RTree<String>(3);
+        fail();
+    }
+
+    /**
+     * Tests if null can be inserted
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullInsert() {
+        treeEmpty.insert(null, "A");
+        fail();
+    }
+
+    /**
+     * Tests if searching an empty tree finds nothing
+     */
+    @Test
+    public void testEmptySearch() {
+        assertEquals(0, treeEmpty.search(new Rectangle(0, 0, 1024,
+                1024)).size());
+        assertEquals(0, treeEmpty.size());
+    }
+
+    /**
+     * Tests if a region only touching the edges of A and B finds nothing
+     */
+    @Test
+    public void testABCTouchingSearch() {
+        assertEquals(0, treeABC.search(new Rectangle(10, 0, 5, 10)).size());
+        assertEquals(0, treeABC.search(new Rectangle(0, 10, 10, 0)).size());
+    }
+
+    /**
+     * Tests if a region overlapping A and B finds both
+     */
+    @Test
+    public void testABCOverlappingSearch() {
+        List<String> found = treeABC.search(new Rectangle(5, 5, 10, 10));
+
+        assertEquals(2, found.size());
+        assertTrue(found.contains("A"));
+        assertTrue(found.contains("B"));
+    }
+
+    /**
+     * Tests if removing an item with different bounds fails and with the
+     * correct bounds succeeds
+     */
+    @Test
+    public void testABCRemove() {
+        assertFalse(treeABC.remove(new Rectangle(0, 0, 10, 11), "A"));
+        assertTrue(treeABC.remove(new Rectangle(0, 0, 10, 10), "A"));
+        assertFalse(treeABC.remove(new Rectangle(0, 0, 10, 10), "A"));
+
+        assertEquals(2, treeABC.size());
+        assertEquals(0, treeABC.search(new Rectangle(0, 0, 10, 10)).size());
+    }
+
+    /**
+     * Tests if a region without area finds nothing
+     */
+    @Test
+    public void testABCEmptyRegionSearch() {
+        assertEquals(0, treeABC.search(new Rectangle(5, 5, 0, 10)).size());
+    }
+
+    /**
+     * Tests if many inserts and removes give the same results as checking
+     * every rectangle
+     */
+    @Test
+    public void testManyInsertRemoveSearch() {
+        RTree<Integer> tree = new RTree<>(4);
+        List<Rectangle> rects = randomRectangles(2000);
+
+        for (int i = 0; i < rects.size(); i++) {
+            tree.insert(rects.get(i), i);
+        }
+        assertTrue(tree.height() > 1);
+
+        for (int i = 0; i < rects.size(); i += 2) {
+            assertTrue(tree.remove(rects.get(i), i));
+        }
+        assertEquals(1000, tree.size());
+
+        assertSameAsScan(tree, rects, 0);
+    }
+
+    /**
+     * Tests if a bulk-loaded tree gives the same results as checking every
+     * rectangle and keeps working after removes and inserts
+     */
+    @Test
+    public void testBulkLoadSearch() {
+        RTree<Integer> tree = new RTree<>();
+        List<Rectangle> rects = randomRectangles(3000);
+        List<Pair<Rectangle, Integer>> entries = new ArrayList<>();
+
+        for (int i = 0; i < rects.size(); i++) {
+            entries.add(new Pair<>(rects.get(i), i));
+        }
+        tree.bulkLoad(entries);
+        assertEquals(3000, tree.size());
+        assertSameAsScan(tree, rects, -1);
+
+        for (int i = 1; i < rects.size(); i += 2) {
+            assertTrue(tree.remove(rects.get(i), i));
+        }
+        assertSameAsScan(tree, rects, 1);
+    }
+
+    /**
+     * Tests if bulk-loading nothing gives an empty tree
+     */
+    @Test
+    public void testEmptyBulkLoad() {
+        treeABC.bulkLoad(new ArrayList<>());
+        assertEquals(0, treeABC.size());
+        assertEquals(1, treeABC.height());
+    }
+
+    /**
+     * Checks searches on the tree against checking every rectangle whose
+     * index is not skipped.
+     *
+     * @param tree  the tree under test
+     * @param rects the rectangles, indexed by their position
+     * @param skip  the remainder of the positions removed from the tree when
+     *              divided by 2, or -1 to skip none
+     */
+    private void assertSameAsScan(RTree<Integer> tree, List<Rectangle> rects,
+                                  int skip) {
+        Random random = new Random(7);
+
+        for (int q = 0; q < 200; q++) {
+            Rectangle region = new Rectangle(random.nextInt(1024),
+                    random.nextInt(1024), random.nextInt(200) + 1,
+                    random.nextInt(200) + 1);
+
+            List<Integer> found = tree.search(region);
+            int expected = 0;
+            for (int i = 0; i < rects.size(); i++) {
+                if ((skip == -1 || i % 2 != skip)
+                    && region.intersects(rects.get(i))) {
+                    expected++;
+                    assertTrue(found.contains(i));
+                }
+            }
+
+            assertEquals(expected, found.size());
+        }
+    }
+
+    /**
+     * Creates random rectangles inside the world box
+     *
+     * @param count the number of rectangles
+     * @return the rectangles
+     */
+    private List<Rectangle> randomRectangles(int count) {
+        Random random = new Random(count);
+        List<Rectangle> rects = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            rects.add(new Rectangle(x, y, random.nextInt(1024 - x) % 50 + 1,
+                    random.nextInt(1024 - y) % 50 + 1));
+        }
+
+        return rects;
+    }
+}
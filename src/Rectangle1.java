@@ -1,5 +1,9 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 // On my honor:
@@ -22,6 +26,42 @@ import java.util.Scanner;
  * will take a command line file argument which include the commands to be read
  * and creates the appropriate SkipList object and outputs the correct results
  * to the console as specified in the file.
+ * <p>
+ * By default every result is printed on its own with println. Options after
+ * the file name switch to a BufferedChannelWriter, which writes the results
+ * into a large buffer handed to the console in big chunks:
+ * <pre>
+ * --buffered            buffer the output, flushing when the buffer is full
+ * --flush=command|full  buffer the output, flushing after every command or
+ *                       when the buffer is full
+ * --buffer-size=chars   buffer the output in a buffer of the given size
+ * </pre>
+ * The file itself can be read through a MappedCommandReader instead of a
+ * Scanner, which parses it on worker threads ahead of the processing. The
+ * output of the commands is buffered when the file is read that way:
+ * <pre>
+ * --mapped              read the file in memory mapped chunks
+ * --workers=threads     read the file in memory mapped chunks, parsed by
+ *                       the given number of threads
+ * --pipeline=threads    read the file in memory mapped chunks and process
+ *                       the commands on the given number of threads,
+ *                       queries at the same time and changes one at a time,
+ *                       writing the results in the order of the file
+ * </pre>
+ * The database can be made durable with a write-ahead log, which is
+ * recovered before the commands of the file are processed and logs the
+ * changes they make:
+ * <pre>
+ * --wal=file                      recover from and log to the file
+ * --fsync=commit|interval|never   force the log after every change, every
+ *                                 few milliseconds or only at the end,
+ *                                 every change by default
+ * --snapshot=file                 recover from and checkpoint to the
+ *                                 snapshot file, with a log
+ * --checkpoint=bytes              checkpoint when the log grows past the
+ *                                 size, 64 MiB by default
+ * --compress                      compress the snapshots
+ * </pre>
  *
  * @author Muhammad Ali Qadri
  * @version 1
@@ -32,7 +72,7 @@ public class Rectangle1 {
      * The entry point of the application.
      *
      * @param args The name of the command file passed in as a command line
-     *             argument.
+     *             argument, followed by the output options.
      */
     public static void main(String[] args) {
         // the file object
@@ -43,27 +83,164 @@ public class Rectangle1 {
             return;
         }
 
+        // the output options
+        boolean buffered = false;
+        BufferedChannelWriter.FlushPolicy policy =
+                BufferedChannelWriter.FlushPolicy.WHEN_FULL;
+        int bufferSize = BufferedChannelWriter.DEFAULT_BUFFER_SIZE;
+        // the input options
+        boolean mapped = false;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int pipeline = 0;
+        // the durability options
+        String wal = null;
+        WriteAheadLog.SyncPolicy sync = WriteAheadLog.SyncPolicy.EVERY_COMMIT;
+        String snapshot = null;
+        long checkpointBytes = DurableDatabase.DEFAULT_CHECKPOINT_BYTES;
+        boolean compress = false;
+
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--buffered")) {
+                buffered = true;
+            }
+            else if (args[i].equals("--flush=command")) {
+                buffered = true;
+                policy = BufferedChannelWriter.FlushPolicy.EVERY_COMMAND;
+            }
+            else if (args[i].equals("--flush=full")) {
+                buffered = true;
+                policy = BufferedChannelWriter.FlushPolicy.WHEN_FULL;
+            }
+            else if (args[i].matches("--buffer-size=[1-9]\\d{0,8}")) {
+                buffered = true;
+                bufferSize = Integer.parseInt(
+                        args[i].substring("--buffer-size=".length()));
+            }
+            else if (args[i].equals("--mapped")) {
+                mapped = true;
+            }
+            else if (args[i].matches("--workers=[1-9]\\d{0,3}")) {
+                mapped = true;
+                workers = Integer.parseInt(
+                        args[i].substring("--workers=".length()));
+            }
+            else if (args[i].matches("--pipeline=[1-9]\\d{0,3}")) {
+                mapped = true;
+                pipeline = Integer.parseInt(
+                        args[i].substring("--pipeline=".length()));
+            }
+            else if (args[i].startsWith("--wal=")
+                     && args[i].length() > "--wal=".length()) {
+                wal = args[i].substring("--wal=".length());
+            }
+            else if (args[i].equals("--fsync=commit")) {
+                sync = WriteAheadLog.SyncPolicy.EVERY_COMMIT;
+            }
+            else if (args[i].equals("--fsync=interval")) {
+                sync = WriteAheadLog.SyncPolicy.INTERVAL;
+            }
+            else if (args[i].equals("--fsync=never")) {
+                sync = WriteAheadLog.SyncPolicy.NEVER;
+            }
+            else if (args[i].startsWith("--snapshot=")
+                     && args[i].length() > "--snapshot=".length()) {
+                snapshot = args[i].substring("--snapshot=".length());
+            }
+            else if (args[i].matches("--checkpoint=[1-9]\\d{0,17}")) {
+                checkpointBytes = Long.parseLong(
+                        args[i].substring("--checkpoint=".length()));
+            }
+            else if (args[i].equals("--compress")) {
+                compress = true;
+            }
+            else {
+                System.out.println("Invalid option: " + args[i]);
+                return;
+            }
+        }
+
+        if (snapshot != null && wal == null) {
+            System.out.println("Invalid option: --snapshot=" + snapshot);
+            return;
+        }
+
         // Attempts to open the file and scan through it
         try {
             // takes the first command line argument and opens that file
             file = new File(args[0]);
 
-            // creates a scanner object
-            Scanner scanner = new Scanner(file);
+            // creates a scanner object, unless the file is mapped
+            Scanner scanner = null;
+            if (!mapped) {
+                scanner = new Scanner(file);
+            }
+            else if (!file.isFile()) {
+                throw new FileNotFoundException(args[0]);
+            }
+
+            // recovers the database from its log, if any
+            DurableDatabase durable;
+            try {
+                if (wal == null) {
+                    durable = null;
+                }
+                else if (snapshot == null) {
+                    durable = DurableDatabase.open(Paths.get(wal), sync);
+                }
+                else {
+                    durable = DurableDatabase.open(Paths.get(wal),
+                            Paths.get(snapshot), sync, checkpointBytes,
+                            compress);
+                }
+            }
+            catch (IOException e) {
+                System.out.println("Invalid log: " + wal);
+                System.err.println(e.getMessage());
+                return;
+            }
 
             // creates a command processor object
-            Processor cmdProc = new RectangleCommandProcessor();
-            // reads the entire file and processes the commands
-            // line by line
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                // determines if the file has more lines to read
-                if (!line.trim().isEmpty()) {
-                    System.out.println(cmdProc.process(line.trim()));
+            Database data = (durable == null) ? new SkipListDatabase()
+                    : durable;
+            Processor cmdProc = new RectangleCommandProcessor(data);
+
+            try {
+                // reads the entire file and processes the commands
+                // line by line
+                if (pipeline > 0) {
+                    processPipelined(new MappedCommandReader(file.toPath(),
+                                    Charset.defaultCharset(), workers,
+                                    MappedCommandReader.DEFAULT_CHUNK_SIZE),
+                            new CommandPipeline(new ConcurrentDatabase(data),
+                                    new BufferedChannelWriter(System.out,
+                                            bufferSize, policy), pipeline,
+                                    CommandPipeline.DEFAULT_WINDOW));
+                }
+                else if (mapped) {
+                    processMapped(new MappedCommandReader(file.toPath(),
+                                    Charset.defaultCharset(), workers,
+                                    MappedCommandReader.DEFAULT_CHUNK_SIZE),
+                            cmdProc, new BufferedChannelWriter(System.out,
+                                    bufferSize, policy));
+                }
+                else if (buffered) {
+                    processBuffered(scanner, cmdProc,
+                            new BufferedChannelWriter(System.out, bufferSize,
+                                    policy));
+                }
+                else {
+                    processConsole(scanner, cmdProc);
+                }
+            }
+            finally {
+                // closes the scanner and forces the log
+                if (scanner != null) {
+                    scanner.close();
+                }
+                if (durable != null) {
+                    durable.close();
                 }
             }
-            // closes the scanner
-            scanner.close();
         }
         // catches the exception if the file cannot be found
         // and outputs the correct information to the console
@@ -71,6 +248,98 @@ public class Rectangle1 {
             System.out.println("Invalid file: " + args[0]);
             e.printStackTrace();
         }
+        // catches the exception if the output or the log cannot be written
+        catch (IOException | UncheckedIOException e) {
+            System.err.println("Output failed: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Processes every line and prints every result with println.
+     *
+     * @param scanner the scanner reading the command file
+     * @param cmdProc the processor of the commands
+     */
+    private static void processConsole(Scanner scanner, Processor cmdProc) {
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            // determines if the file has more lines to read
+            if (!line.trim().isEmpty()) {
+                System.out.println(cmdProc.process(line.trim()));
+            }
+        }
+    }
+
+    /**
+     * Processes every line and writes every result straight into the
+     * buffered writer, which is flushed but not closed at the end so the
+     * console stays open.
+     *
+     * @param scanner the scanner reading the command file
+     * @param cmdProc the processor of the commands
+     * @param out     the writer receiving the results
+     * @throws IOException if writing the results fails
+     */
+    private static void processBuffered(Scanner scanner, Processor cmdProc,
+                                        BufferedChannelWriter out)
+            throws IOException {
+        String separator = System.lineSeparator();
+
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            // determines if the file has more lines to read
+            if (!line.trim().isEmpty()) {
+                cmdProc.process(line.trim(), out);
+                out.write(separator);
+                out.commandDone();
+            }
+        }
+
+        out.flush();
+    }
+
+
+    /**
+     * Processes every command the reader hands over, in the order of the
+     * file, and writes every result straight into the buffered writer, which
+     * is flushed but not closed at the end so the console stays open.
+     *
+     * @param reader  the reader of the command file
+     * @param cmdProc the processor of the commands
+     * @param out     the writer receiving the results
+     * @throws IOException if reading the file or writing the results fails
+     */
+    private static void processMapped(MappedCommandReader reader,
+                                      Processor cmdProc,
+                                      BufferedChannelWriter out)
+            throws IOException {
+        String separator = System.lineSeparator();
 
+        reader.feed((batch, index) -> {
+            cmdProc.process(batch, index, out);
+            out.write(separator);
+            out.commandDone();
+        });
+
+        out.flush();
+    }
+
+
+    /**
+     * Hands every command the reader reads to the pipeline, which writes
+     * the results in the order of the file, and stops the pipeline once
+     * all results are written.
+     *
+     * @param reader   the reader of the command file
+     * @param pipeline the pipeline processing the commands
+     * @throws IOException if reading the file or writing the results fails
+     */
+    private static void processPipelined(MappedCommandReader reader,
+                                         CommandPipeline pipeline)
+            throws IOException {
+        try (pipeline) {
+            reader.feed(pipeline);
+        }
     }
 }
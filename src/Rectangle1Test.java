@@ -179,6 +179,128 @@ public class Rectangle1Test {
         assertTrue(out.contains("SkipList size is: 1"));
     }
 
+    /**
+     * Test if the buffered output and mapped input options give the same
+     * output as printing every result
+     *
+     * @throws IOException if the file for test cannot be written on
+     */
+    @Test
+    public void testBufferedOutput() throws IOException {
+        String fileName = "testBufferedOutput.txt";
+        createFile(fileName);
+
+        FileWriter fr = new FileWriter(fileName);
+        fr.write("insert A1 1 1 1 1\ninsert B1 0 0 5 5\n\nintersections");
+        fr.write("\nregionSearch 0 0 10 10\nregionSearch 0 0 0 10\nabc");
+        fr.close();
+
+        Rectangle1.main(new String[]{fileName});
+        String console = outContent.toString();
+
+        String[][] options = {{"--buffered"}, {"--flush=command"},
+            {"--flush=full", "--buffer-size=3"}, {"--mapped"},
+            {"--workers=2", "--flush=command"}};
+        for (String[] option : options) {
+            outContent.reset();
+            String[] args = new String[option.length + 1];
+            args[0] = fileName;
+            System.arraycopy(option, 0, args, 1, option.length);
+            Rectangle1.main(args);
+
+            assertEquals(console, outContent.toString());
+        }
+
+        deleteFile(fileName);
+        assertTrue(console.contains("Rectangles intersecting region "
+                                    + "(0, 0, 10, 10):"));
+    }
+
+
+    /**
+     * Test if a second run with the same write-ahead log, and snapshot if
+     * any, starts from the rectangles the first run left, and a file that is
+     * not a log is rejected
+     *
+     * @throws IOException if the files for test cannot be written on
+     */
+    @Test
+    public void testWriteAheadLog() throws IOException {
+        String first = "insert A1 1 1 1 1\ninsert B1 0 0 5 5\n"
+                       + "insert C1 2 2 9 9\nremove B1\n";
+        String second = "search A1\nsearch B1\nintersections\n"
+                        + "regionSearch 0 0 10 10";
+        String logName = "testWriteAheadLog.log";
+        String fileName = "testWriteAheadLog.txt";
+        createFile(fileName);
+
+        FileWriter fr = new FileWriter(fileName);
+        fr.write(first + second);
+        fr.close();
+        Rectangle1.main(new String[]{fileName});
+        String whole = outContent.toString();
+
+        fr = new FileWriter(fileName);
+        fr.write(first);
+        fr.close();
+        Rectangle1.main(new String[]{fileName, "--wal=" + logName});
+
+        fr = new FileWriter(fileName);
+        fr.write(second);
+        fr.close();
+        outContent.reset();
+        Rectangle1.main(new String[]{fileName, "--wal=" + logName,
+            "--fsync=never"});
+        String recovered = outContent.toString();
+
+        outContent.reset();
+        Rectangle1.main(new String[]{logName, "--wal=" + fileName});
+        String invalid = outContent.toString();
+
+        fr = new FileWriter(fileName);
+        fr.write(first);
+        fr.close();
+        deleteFile(logName);
+        Rectangle1.main(new String[]{fileName, "--wal=" + logName,
+            "--snapshot=" + logName + ".snp", "--checkpoint=1",
+            "--compress"});
+
+        fr = new FileWriter(fileName);
+        fr.write(second);
+        fr.close();
+        outContent.reset();
+        Rectangle1.main(new String[]{fileName, "--wal=" + logName,
+            "--snapshot=" + logName + ".snp"});
+        String checkpointed = outContent.toString();
+
+        outContent.reset();
+        Rectangle1.main(new String[]{fileName, "--snapshot=a.snp"});
+        String noLog = outContent.toString();
+
+        deleteFile(fileName);
+        deleteFile(logName);
+        deleteFile(logName + ".snp");
+        assertEquals(recovered, checkpointed);
+        assertEquals("Invalid option: --snapshot=a.snp"
+                     + System.lineSeparator(), noLog);
+        assertTrue(recovered.contains("(A1, 1, 1, 1, 1)"));
+        assertTrue(whole.endsWith(recovered));
+        assertEquals("Invalid log: " + fileName + System.lineSeparator(),
+                invalid);
+    }
+
+
+    /**
+     * Test if an unknown option writes "Invalid option" and nothing else
+     */
+    @Test
+    public void testInvalidOption() {
+        Rectangle1.main(new String[]{"a", "--fast"});
+
+        assertEquals("Invalid option: --fast" + System.lineSeparator(),
+                outContent.toString());
+    }
+
     /**
      * Creates a file for testing
      *
@@ -205,4 +327,4 @@ public class Rectangle1Test {
         File file = new File(name);
         file.delete();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,304 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * This class keeps the coordinates of rectangles off the heap as a struct
+ * of arrays: one int column each for x, y, width and height, all in a
+ * direct ByteBuffer and indexed by slot. Scanning a column reads adjacent
+ * ints instead of following a pointer to a Rectangle object per rectangle,
+ * and the columns are neither moved nor scanned by the garbage collector.
+ * The slots from 0 to size - 1 are in use, so a removed slot is filled by
+ * moving the last one into it. The columns double their capacity when
+ * full, and the old buffer is freed once it is collected.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class RectangleColumns {
+
+    //Slots of a new store with no capacity given
+    private static final int DEFAULT_CAPACITY = 64;
+    //Number of columns
+    private static final int COLUMNS = 4;
+
+    private ByteBuffer buffer; //Bytes of the four columns, one after another
+    private IntBuffer xs; //Column of the x coordinates
+    private IntBuffer ys; //Column of the y coordinates
+    private IntBuffer widths; //Column of the widths
+    private IntBuffer heights; //Column of the heights
+    private int capacity; //Number of slots the columns have room for
+    private int size; //Number of slots in use
+
+    /**
+     * Initializes empty columns with room for 64 rectangles
+     */
+    public RectangleColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes empty columns with room for the given number of
+     * rectangles
+     *
+     * @param capacity the number of rectangles before the columns grow
+     * @throws IllegalArgumentException if capacity is not positive or the
+     *                                  columns would not fit in one buffer
+     */
+    public RectangleColumns(int capacity) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / Integer.BYTES
+                                        / COLUMNS) {
+            throw new IllegalArgumentException();
+        }
+
+        allocate(capacity);
+    }
+
+    /**
+     * Adds a rectangle in the slot after the last one
+     *
+     * @param x      x-Coordinate of the rectangle
+     * @param y      y-Coordinate of the rectangle
+     * @param width  width of the rectangle
+     * @param height height of the rectangle
+     * @return the slot of the rectangle
+     */
+    public int add(int x, int y, int width, int height) {
+        if (size == capacity) {
+            grow();
+        }
+
+        set(size, x, y, width, height);
+        return size++;
+    }
+
+    /**
+     * Moves the rectangle of the last slot into the given slot and frees
+     * the last slot, so the slots in use stay together
+     *
+     * @param slot the slot to fill
+     * @return the slot that was moved, which is free now
+     * @throws IllegalArgumentException if slot is not in use
+     */
+    public int removeByMovingLast(int slot) {
+        checkSlot(slot);
+
+        int last = --size;
+        if (slot != last) {
+            set(slot, xs.get(last), ys.get(last), widths.get(last),
+                    heights.get(last));
+        }
+
+        return last;
+    }
+
+    /**
+     * Frees every slot, keeping the capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the x coordinate of the rectangle in the slot
+     *
+     * @param slot a slot in use
+     * @return the x coordinate
+     */
+    public int x(int slot) {
+        return xs.get(slot);
+    }
+
+    /**
+     * Returns the y coordinate of the rectangle in the slot
+     *
+     * @param slot a slot in use
+     * @return the y coordinate
+     */
+    public int y(int slot) {
+        return ys.get(slot);
+    }
+
+    /**
+     * Returns the width of the rectangle in the slot
+     *
+     * @param slot a slot in use
+     * @return the width
+     */
+    public int width(int slot) {
+        return widths.get(slot);
+    }
+
+    /**
+     * Returns the height of the rectangle in the slot
+     *
+     * @param slot a slot in use
+     * @return the height
+     */
+    public int height(int slot) {
+        return heights.get(slot);
+    }
+
+    /**
+     * Checks if the rectangle in the slot has the given coordinates
+     *
+     * @param slot   a slot in use
+     * @param x      x-Coordinate to compare with
+     * @param y      y-Coordinate to compare with
+     * @param width  width to compare with
+     * @param height height to compare with
+     * @return true if all four are equal
+     */
+    public boolean equals(int slot, int x, int y, int width, int height) {
+        return xs.get(slot) == x && ys.get(slot) == y
+               && widths.get(slot) == width && heights.get(slot) == height;
+    }
+
+    /**
+     * Finds the slots of all the rectangles sharing some area with the
+     * given one, in slot order, by scanning the x column and reading the
+     * other columns only for the rectangles it lets through. As with
+     * Rectangle.intersects, rectangles only touching at an edge or a
+     * corner, or without area, share none.
+     *
+     * @param x      x-Coordinate of the other rectangle
+     * @param y      y-Coordinate of the other rectangle
+     * @param width  width of the other rectangle
+     * @param height height of the other rectangle
+     * @return the slots found
+     */
+    public int[] overlapping(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return new int[0];
+        }
+        int[] found = new int[16];
+        int count = 0;
+
+        IntBuffer xColumn = xs;
+        IntBuffer yColumn = ys;
+        IntBuffer wColumn = widths;
+        IntBuffer hColumn = heights;
+        long right = (long) x + width;
+        long below = (long) y + height;
+
+        for (int slot = 0; slot < size; slot++) {
+            int sx = xColumn.get(slot);
+            if (sx >= right) {
+                continue;
+            }
+            int sw = wColumn.get(slot);
+            if ((long) sx + sw <= x || sw <= 0) {
+                continue;
+            }
+            int sy = yColumn.get(slot);
+            int sh = hColumn.get(slot);
+            if (sy >= below || (long) sy + sh <= y || sh <= 0) {
+                continue;
+            }
+
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = slot;
+        }
+
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Returns the number of slots in use
+     *
+     * @return the number of rectangles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots the columns have room for before they
+     * grow
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the bytes of the columns in native order: the x column first,
+     * then the y, width and height columns, each of capacity() ints. Only
+     * valid until the columns grow.
+     *
+     * @return the buffer of the columns
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Writes the rectangle in the slot
+     *
+     * @param slot   the slot, below the capacity
+     * @param x      x-Coordinate of the rectangle
+     * @param y      y-Coordinate of the rectangle
+     * @param width  width of the rectangle
+     * @param height height of the rectangle
+     */
+    private void set(int slot, int x, int y, int width, int height) {
+        xs.put(slot, x);
+        ys.put(slot, y);
+        widths.put(slot, width);
+        heights.put(slot, height);
+    }
+
+    /**
+     * Checks that the slot is in use
+     *
+     * @param slot the slot
+     * @throws IllegalArgumentException if it is not
+     */
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Doubles the capacity, copying the slots in use to the new columns
+     */
+    private void grow() {
+        if (capacity > Integer.MAX_VALUE / Integer.BYTES / COLUMNS / 2) {
+            throw new IllegalStateException("Columns full");
+        }
+
+        IntBuffer[] old = {xs, ys, widths, heights};
+        allocate(capacity * 2);
+        IntBuffer[] columns = {xs, ys, widths, heights};
+
+        for (int c = 0; c < COLUMNS; c++) {
+            columns[c].put(0, old[c], 0, size);
+        }
+    }
+
+    /**
+     * Allocates one direct buffer and cuts it into the four columns
+     *
+     * @param slots the number of slots of every column
+     */
+    private void allocate(int slots) {
+        int bytes = slots * Integer.BYTES;
+        buffer = ByteBuffer.allocateDirect(bytes * COLUMNS)
+                .order(ByteOrder.nativeOrder());
+
+        xs = buffer.slice(0, bytes).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        ys = buffer.slice(bytes, bytes).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        widths = buffer.slice(bytes * 2, bytes)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        heights = buffer.slice(bytes * 3, bytes)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        capacity = slots;
+    }
+}
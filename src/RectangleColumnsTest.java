@@ -0,0 +1,88 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the RectangleColumns class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class RectangleColumnsTest {
+
+    /**
+     * Tests if the columns grow past their capacity and keep every
+     * rectangle, negative coordinates included
+     */
+    @Test
+    public void testGrow() {
+        RectangleColumns columns = new RectangleColumns(2);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, columns.add(i, -i, i + 1, 2 * i + 1));
+        }
+
+        assertEquals(100, columns.size());
+        assertTrue(columns.capacity() >= 100);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(columns.equals(i, i, -i, i + 1, 2 * i + 1));
+            assertEquals(-i, columns.y(i));
+        }
+    }
+
+    /**
+     * Tests if removing a slot moves the last rectangle into it
+     */
+    @Test
+    public void testRemoveByMovingLast() {
+        RectangleColumns columns = new RectangleColumns();
+        columns.add(1, 1, 1, 1);
+        columns.add(2, 2, 2, 2);
+        columns.add(3, 3, 3, 3);
+
+        assertEquals(2, columns.removeByMovingLast(0));
+        assertTrue(columns.equals(0, 3, 3, 3, 3));
+        assertEquals(1, columns.removeByMovingLast(1));
+        assertEquals(1, columns.size());
+        assertEquals(0, columns.removeByMovingLast(0));
+
+        try {
+            columns.removeByMovingLast(0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests if overlapping agrees with Rectangle.intersects for touching,
+     * nested, empty and far rectangles
+     */
+    @Test
+    public void testOverlapping() {
+        RectangleColumns columns = new RectangleColumns();
+        columns.add(0, 0, 10, 10);
+        columns.add(5, 5, 0, 10);
+        columns.add(Integer.MAX_VALUE - 5, 0, 10, 10);
+        columns.add(3, 3, 4, 4);
+
+        assertArrayEquals(new int[]{0, 3}, columns.overlapping(2, 2, 3, 3));
+        assertArrayEquals(new int[]{0}, columns.overlapping(-5, -5, 6, 6));
+        assertArrayEquals(new int[0], columns.overlapping(10, 0, 10, 10));
+        assertArrayEquals(new int[0], columns.overlapping(0, 10, 10, 10));
+        assertArrayEquals(new int[0], columns.overlapping(2, 2, 0, 3));
+        assertArrayEquals(new int[]{2}, columns.overlapping(
+                Integer.MAX_VALUE - 1, 5, 1, 1));
+        assertArrayEquals(new int[]{0, 3}, columns.overlapping(0, 0, 10, 10));
+    }
+
+    /**
+     * Tests if a capacity that is not positive is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new RectangleColumns(0);
+        fail();
+    }
+}
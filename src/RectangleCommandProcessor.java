@@ -1,7 +1,8 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The purpose of this class is to parse a text file into its appropriate, line
@@ -12,10 +13,15 @@ import java.util.regex.Pattern;
  */
 public class RectangleCommandProcessor implements Processor {
 
+    //Opcode of no binary command, given to one that cannot be decoded
+    private static final byte UNDECODED = 0;
+
     // the database object to manipulate the
     // commands that the command processor
     // feeds to it
     private final Database data;
+    //Splits every line into its words, reused for every line
+    private final CommandTokenizer tokens;
 
     /**
      * The constructor for the command processor requires a database instance to
@@ -25,7 +31,24 @@ public class RectangleCommandProcessor implements Processor {
      * the database object to manipulate
      */
     public RectangleCommandProcessor() {
-        data = new SkipListDatabase();
+        this(new SkipListDatabase());
+    }
+
+
+    /**
+     * The constructor for the command processor feeding the commands to the
+     * given database, such as a DurableDatabase recovered from its log.
+     *
+     * @param data the database object to manipulate
+     * @throws IllegalArgumentException if data is null
+     */
+    public RectangleCommandProcessor(Database data) {
+        if (data == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.data = data;
+        tokens = new CommandTokenizer();
     }
 
 
@@ -34,136 +57,286 @@ public class RectangleCommandProcessor implements Processor {
      */
     @Override
     public String process(String input) {
-        if (input == null) {
-            throw new IllegalArgumentException();
-        }
-        //stores all the words form input
-        List<String> allInputs = new ArrayList<>();
-        //finds all the words in the input statement
-        Matcher matcher = Pattern.compile("[\\S]+").matcher(input);
+        StringBuilder result = new StringBuilder();
 
-        while (matcher.find()) {
-            allInputs.add(matcher.group());
+        try {
+            process(input, result);
+        }
+        catch (IOException e) {
+            //A StringBuilder never fails to append
+            throw new UncheckedIOException(e);
         }
 
-        StringBuilder result = new StringBuilder();
+        return result.toString();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void process(String input, Appendable out) throws IOException {
+        process((CharSequence) input, out);
+    }
 
-        //allInputs.get(0) is the command to operate
-        if (allInputs.get(0).equalsIgnoreCase("insert")) {
-            result.append(processInsertion(allInputs));
+
+    /**
+     * Processes the line the same as process(String, Appendable), reading
+     * it straight from the CharSequence, so a line can be handed over from
+     * a buffer without making a String of it.
+     *
+     * @param input a single line from the text file
+     * @param out   the Appendable receiving the output of the processing
+     * @throws IOException              if writing to out fails
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public void process(CharSequence input, Appendable out)
+            throws IOException {
+        if (input == null || out == null) {
+            throw new IllegalArgumentException();
         }
-        else if (allInputs.get(0).equalsIgnoreCase("remove")) {
-            result.append(processRemove(allInputs));
+
+        dispatch(tokens.reset(input), out);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The words split when the batch was made are used as they are, so the
+     * line is not scanned again.
+     */
+    @Override
+    public void process(CommandBatch batch, int index, Appendable out)
+            throws IOException {
+        if (batch == null || out == null) {
+            throw new IllegalArgumentException();
         }
-        else if (allInputs.get(0).equalsIgnoreCase("regionSearch")) {
-            result.append(processRegionSearch(allInputs));
+
+        dispatch(tokens.load(batch, index), out);
+    }
+
+
+    /**
+     * Processes a command of the binary format and writes the frame of its
+     * response, as BinaryCommandCodec describes them. The command is
+     * performed the same as its line would be, but the pairs are written
+     * as they are, without formatting any of them, and a command that cannot
+     * be decoded is answered with INVALID.
+     *
+     * @param request the body of the command frame, from its position to
+     *                its limit
+     * @param out     the buffer the response frame is written to
+     * @return the buffer holding the response, out or a larger copy of it
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public ByteBuffer process(ByteBuffer request, ByteBuffer out) {
+        if (request == null || out == null) {
+            throw new IllegalArgumentException();
         }
-        else if (allInputs.get(0).equalsIgnoreCase("intersections")) {
-            result.append(processIntersections());
+
+        //Decode the whole command before performing any of it
+        byte opcode;
+        String name = null;
+        Rectangle rect = null;
+        try {
+            opcode = request.get();
+            if (opcode == BinaryCommandCodec.INSERT
+                || opcode == BinaryCommandCodec.REMOVE
+                || opcode == BinaryCommandCodec.SEARCH) {
+                name = BinaryCommandCodec.getName(request);
+            }
+            if (opcode == BinaryCommandCodec.INSERT
+                || opcode == BinaryCommandCodec.REMOVE_BY_VALUE
+                || opcode == BinaryCommandCodec.REGION_SEARCH) {
+                rect = BinaryCommandCodec.getRectangle(request);
+            }
+            if (request.hasRemaining()) {
+                opcode = UNDECODED;
+            }
         }
-        else if (allInputs.get(0).equalsIgnoreCase("search")) {
-            result.append(processSearch(allInputs.get(1)));
+        catch (BufferUnderflowException e) {
+            opcode = UNDECODED;
         }
-        else if (allInputs.get(0).equalsIgnoreCase("dump")) {
-            result.append(processDump());
+
+        //Room for the length, the status and a count
+        out = BinaryCommandCodec.ensure(out,
+                BinaryCommandCodec.FRAME_HEADER_SIZE + 1 + 4);
+        int start = BinaryCommandCodec.startFrame(out);
+        switch (opcode) {
+            case BinaryCommandCodec.INSERT:
+                out.put(data.insert(new KVPair<>(name, rect))
+                        ? BinaryCommandCodec.OK : BinaryCommandCodec.REJECTED);
+                break;
+            case BinaryCommandCodec.REMOVE:
+                out = removed(data.remove(name), out);
+                break;
+            case BinaryCommandCodec.REMOVE_BY_VALUE:
+                out = data.validateRectangle(rect)
+                        ? removed(data.removeByValue(rect), out)
+                        : out.put(BinaryCommandCodec.REJECTED);
+                break;
+            case BinaryCommandCodec.REGION_SEARCH:
+                out = regionSearched(rect, out);
+                break;
+            case BinaryCommandCodec.INTERSECTIONS:
+                out = intersected(out);
+                break;
+            case BinaryCommandCodec.SEARCH:
+                out = searched(data.search(name), out);
+                break;
+            case BinaryCommandCodec.DUMP:
+                out = BinaryCommandCodec.putText(
+                        out.put(BinaryCommandCodec.OK), data.dump());
+                break;
+            default:
+                out.put(BinaryCommandCodec.INVALID);
+                break;
         }
 
-        return result.toString();
+        return BinaryCommandCodec.endFrame(out, start);
+    }
+
+
+    /**
+     * Performs the command the tokenizer holds
+     *
+     * @param opcode the command of the line
+     * @param out    receives the result of the command
+     * @throws IOException if writing to out fails
+     */
+    private void dispatch(CommandTokenizer.Opcode opcode, Appendable out)
+            throws IOException {
+        switch (opcode) {
+            case INSERT:
+                processInsertion(out);
+                break;
+            case REMOVE:
+                processRemove(out);
+                break;
+            case REGION_SEARCH:
+                processRegionSearch(out);
+                break;
+            case INTERSECTIONS:
+                processIntersections(out);
+                break;
+            case SEARCH:
+                processSearch(tokens.token(1), out);
+                break;
+            case DUMP:
+                processDump(out);
+                break;
+            default:
+                //Unknown commands give no output
+                break;
+        }
     }
 
     /**
      * Validates inputs to the insert operation and performs insert if valid.
      *
-     * @param operationInput The input values of the operation to be performed
-     * @return result of the operation
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
      */
-    private String processInsertion(List<String> operationInput) {
+    private void processInsertion(Appendable out) throws IOException {
         //Parse all input values
-        int x = Integer.parseInt(operationInput.get(2));
-        int y = Integer.parseInt(operationInput.get(3));
-        int w = Integer.parseInt(operationInput.get(4));
-        int h = Integer.parseInt(operationInput.get(5));
+        int x = tokens.intAt(2);
+        int y = tokens.intAt(3);
+        int w = tokens.intAt(4);
+        int h = tokens.intAt(5);
 
-        KVPair<String, Rectangle> pair = new KVPair<>(operationInput.get(1),
+        KVPair<String, Rectangle> pair = new KVPair<>(tokens.token(1),
                 new Rectangle(x, y, w, h));
 
-        //return message in either case of failure or success
-        return ((data.insert(pair)) ? "Rectangle inserted: (" :
-                "Rectangle rejected: (") + pair + ")";
+        //write message in either case of failure or success
+        out.append((data.insert(pair)) ? "Rectangle inserted: (" :
+                "Rectangle rejected: (").append(pair.toString()).append(")");
     }
 
 
     /**
      * Validates inputs to the remove operation and performs remove if valid.
      *
-     * @param operationInput The input values of the operation to be performed
-     * @return result of the operation
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
      */
-    private String processRemove(List<String> operationInput) {
+    private void processRemove(Appendable out) throws IOException {
         KVPair<String, Rectangle> pair; //Removed value
-        Boolean result = false;
 
-        if (operationInput.size() == 2) { //remove by key only
-            pair = data.remove(operationInput.get(1));
+        if (tokens.count() == 2) { //remove by key only
+            pair = data.remove(tokens.token(1));
         }
         else { //remove by value
-            int x = Integer.parseInt(operationInput.get(1));
-            int y = Integer.parseInt(operationInput.get(2));
-            int w = Integer.parseInt(operationInput.get(3));
-            int h = Integer.parseInt(operationInput.get(4));
+            int x = tokens.intAt(1);
+            int y = tokens.intAt(2);
+            int w = tokens.intAt(3);
+            int h = tokens.intAt(4);
 
             Rectangle rect = new Rectangle(x, y, w, h);
             if (!data.validateRectangle(rect)) {
-                return "Rectangle rejected: " +
-                       getRectangleRepresentation(operationInput);
+                out.append("Rectangle rejected: ");
+                appendRectangleRepresentation(out);
+                return;
             }
 
             pair = data.removeByValue(rect);
         }
 
-        return ((pair != null) ?
-                "Rectangle removed: (" + pair + ")" :
-                "Rectangle not removed: " +
-                getRectangleRepresentation(operationInput));
+        if (pair != null) {
+            out.append("Rectangle removed: (").append(pair.toString())
+                    .append(")");
+        }
+        else {
+            out.append("Rectangle not removed: ");
+            appendRectangleRepresentation(out);
+        }
     }
 
 
     /**
      * Validates inputs to the remove operation and performs remove if valid.
      *
-     * @param operationInput The input values of the operation to be performed
-     * @return result of the operation
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
      */
-    private String processRegionSearch(List<String> operationInput) {
-        int x = Integer.parseInt(operationInput.get(1));
-        int y = Integer.parseInt(operationInput.get(2));
-        int w = Integer.parseInt(operationInput.get(3));
-        int h = Integer.parseInt(operationInput.get(4));
-
-        List<KVPair<String, Rectangle>> rectangles =
-                data.regionSearch(x, y, w, h);
-
-        if (rectangles == null) {
-            return "Rectangle rejected: " +
-                   getRectangleRepresentation(operationInput);
-        }
-        else {
-            StringBuilder sb =
-                    new StringBuilder("Rectangles intersecting region ");
-            sb.append(getRectangleRepresentation(operationInput)).append(":");
-
-            if (rectangles.size() > 0) {
-                sb.append("\n");
-
-                String prefix = "";
-                for (KVPair<String, Rectangle> pair : rectangles) {
-                    sb.append(prefix);
-                    prefix = "\n";
-                    sb.append("(").append(pair).append(")");
+    private void processRegionSearch(Appendable out) throws IOException {
+        int x = tokens.intAt(1);
+        int y = tokens.intAt(2);
+        int w = tokens.intAt(3);
+        int h = tokens.intAt(4);
+
+        //The heading is only known to be needed once the region is accepted,
+        // which is certain once the first rectangle is found
+        boolean[] headed = {false};
+        Boolean searched;
+
+        try {
+            //Write every rectangle as it is found
+            searched = data.regionSearch(x, y, w, h, pair -> {
+                try {
+                    if (!headed[0]) {
+                        headed[0] = true;
+                        appendRegionHeading(out);
+                    }
+
+                    out.append("\n(").append(pair.toString()).append(")");
+                    return true;
                 }
-            }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
 
-            return sb.toString();
+        if (searched == null) {
+            out.append("Rectangle rejected: ");
+            appendRectangleRepresentation(out);
+        }
+        else if (!headed[0]) {
+            appendRegionHeading(out);
         }
     }
 
@@ -172,85 +345,192 @@ public class RectangleCommandProcessor implements Processor {
      * Validates inputs to the intersection operation and find
      * all pairs of rectangles that intersect.
      *
-     * @return result of the operation
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
      */
-    private String processIntersections() {
-        StringBuilder output = new StringBuilder("Intersections pairs:");
-
-        List<Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>>
-                rectangles = data.intersections();
-
-        //print out intersections
-        if (rectangles != null) {
-            String prefix = "\n";
-            for (Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>
-                    pair : rectangles) {
-                output.append(prefix);
-                prefix = "\n";
-                output.append("(").append(pair).append(")");
-            }
+    private void processIntersections(Appendable out) throws IOException {
+        out.append("Intersections pairs:");
+
+        try {
+            //Write every pair as it is found
+            data.intersections(pair -> {
+                try {
+                    out.append("\n(").append(pair.toString()).append(")");
+                    return true;
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-
-        return output.toString();
     }
 
     /**
-     * Searches the key in the database and returns the list
-     * of rectangles that match this key.
+     * Searches the key in the database and writes the rectangles that match
+     * this key.
      *
-     * @return result of the operation
+     * @param key the name to search for
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
      */
-    private String processSearch(String key) {
-        StringBuilder output = new StringBuilder();
-
+    private void processSearch(String key, Appendable out)
+            throws IOException {
         List<KVPair<String, Rectangle>> rectangles = data.search(key);
 
         //Print out rectangles found from search
         if (rectangles != null) {
-            output.append("Rectangles found:\n");
+            out.append("Rectangles found:\n");
             String prefix = "";
             for (KVPair<String, Rectangle> pair : rectangles) {
-                output.append(prefix);
+                out.append(prefix);
                 prefix = "\n";
-                output.append("(").append(pair).append(")");
+                out.append("(").append(pair.toString()).append(")");
             }
-
-            return output.toString();
         }
         else {
-            return "Rectangle not found: " + key;
+            out.append("Rectangle not found: ").append(key);
         }
     }
 
     /**
      * Gives detail dump of the database
      *
-     * @return result of the operation
+     * @param out receives the result of the operation
+     * @throws IOException if writing to out fails
+     */
+    private void processDump(Appendable out) throws IOException {
+        out.append(data.dump());
+    }
+
+
+    /**
+     * Writes the heading of the result of a region search
+     *
+     * @param out receives the heading
+     * @throws IOException if writing to out fails
      */
-    private String processDump() {
-        return data.dump();
+    private void appendRegionHeading(Appendable out) throws IOException {
+        out.append("Rectangles intersecting region ");
+        appendRectangleRepresentation(out);
+        out.append(":");
     }
 
 
     /**
-     * Returns the dump string for the input rectangle
+     * Writes the dump string for the input rectangle, made of the words of
+     * the line after the command
      *
-     * @param stringInputs The input values of the operation to be performed
-     * @return string representing the input values in readable form
+     * @param out receives the input values in readable form
+     * @throws IOException if writing to out fails
      */
-    private String getRectangleRepresentation(List<String> stringInputs) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("(");
-
-        for (int i = 1; i < stringInputs.size(); i++) {
-            sb.append(stringInputs.get(i));
-            if (i != stringInputs.size() - 1) {
-                sb.append(", ");
+    private void appendRectangleRepresentation(Appendable out)
+            throws IOException {
+        out.append("(");
+
+        for (int i = 1; i < tokens.count(); i++) {
+            tokens.appendToken(i, out);
+            if (i != tokens.count() - 1) {
+                out.append(", ");
             }
         }
 
-        sb.append(")");
+        out.append(")");
+    }
+
+
+    /**
+     * Writes the binary result of a removal
+     *
+     * @param pair the pair removed, or null if none was
+     * @param out  the buffer the result is written to
+     * @return the buffer holding the result
+     */
+    private static ByteBuffer removed(KVPair<String, Rectangle> pair,
+                                      ByteBuffer out) {
+        if (pair == null) {
+            return out.put(BinaryCommandCodec.NOT_FOUND);
+        }
+
+        return BinaryCommandCodec.putPair(out.put(BinaryCommandCodec.OK),
+                pair);
+    }
+
+
+    /**
+     * Writes the binary result of a search by name
+     *
+     * @param pairs the pairs found, or null if there are none
+     * @param out   the buffer the result is written to
+     * @return the buffer holding the result
+     */
+    private static ByteBuffer searched(List<KVPair<String, Rectangle>> pairs,
+                                       ByteBuffer out) {
+        if (pairs == null) {
+            return out.put(BinaryCommandCodec.NOT_FOUND);
+        }
 
-        return sb.toString();
+        out.put(BinaryCommandCodec.OK).putInt(pairs.size());
+        for (KVPair<String, Rectangle> pair : pairs) {
+            out = BinaryCommandCodec.putPair(out, pair);
+        }
+        return out;
+    }
+
+
+    /**
+     * Writes the binary result of a region search, every pair as it is
+     * found, and the number of pairs once all are
+     *
+     * @param region the region searched
+     * @param out    the buffer the result is written to
+     * @return the buffer holding the result
+     */
+    private ByteBuffer regionSearched(Rectangle region, ByteBuffer out) {
+        int status = out.position();
+        //The buffer the visitor writes to, replaced when it grows
+        ByteBuffer[] written = {out.put(BinaryCommandCodec.OK).putInt(0)};
+        int[] count = {0};
+
+        Boolean searched = data.regionSearch(region.x, region.y,
+                region.width, region.height, pair -> {
+                    written[0] = BinaryCommandCodec.putPair(written[0], pair);
+                    count[0]++;
+                    return true;
+                });
+
+        if (searched == null) {
+            return written[0].position(status)
+                    .put(BinaryCommandCodec.REJECTED);
+        }
+        return written[0].putInt(status + 1, count[0]);
+    }
+
+
+    /**
+     * Writes the binary result of intersections, every couple as it is
+     * found, and the number of couples once all are
+     *
+     * @param out the buffer the result is written to
+     * @return the buffer holding the result
+     */
+    private ByteBuffer intersected(ByteBuffer out) {
+        int status = out.position();
+        //The buffer the visitor writes to, replaced when it grows
+        ByteBuffer[] written = {out.put(BinaryCommandCodec.OK).putInt(0)};
+        int[] count = {0};
+
+        data.intersections(couple -> {
+            written[0] = BinaryCommandCodec.putPair(written[0],
+                    couple.getVal1());
+            written[0] = BinaryCommandCodec.putPair(written[0],
+                    couple.getVal2());
+            count[0]++;
+            return true;
+        });
+
+        return written[0].putInt(status + 1, count[0]);
     }
 }
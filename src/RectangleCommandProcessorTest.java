@@ -1,6 +1,10 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -259,4 +263,166 @@ public class RectangleCommandProcessorTest {
                      "\n(A2, 2, 2, 2, 2)",
                 processor.process("regionsearch 0 0 10 10"));
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Test if writing into an Appendable gives the same output as returning
+     * it, for every command whose output does not depend on random levels
+     *
+     * @throws IOException if appending fails
+     */
+    @Test
+    public void testProcessIntoAppendable() throws IOException {
+        Processor other = new RectangleCommandProcessor();
+        String[] commands = {"insert A1 1 1 5 5", "insert B1 2 2 5 5",
+            "insert C1 -1 1 1 1", "regionSearch 0 0 10 10",
+            "regionSearch 0 0 -1 10", "regionSearch 500 500 10 10",
+            "intersections", "search A1", "search Z1", "remove B1",
+            "remove 1 1 5 5", "remove 1 1 5 5", "remove -1 1 5 5",
+            "abc"};
+
+        for (String command : commands) {
+            StringBuilder out = new StringBuilder("> ");
+            other.process(command, out);
+            assertEquals("> " + processor.process(command), out.toString());
+        }
+    }
+
+
+    /**
+     * Tests if binary commands are performed the same as their lines, and
+     * answered with their statuses and the pairs they found
+     */
+    @Test
+    public void testBinaryProcess() {
+        RectangleCommandProcessor binary = new RectangleCommandProcessor();
+        KVPair<String, Rectangle> a = new KVPair<>("a", new Rectangle(1, 1,
+                10, 10));
+        KVPair<String, Rectangle> b = new KVPair<>("b", new Rectangle(5, 5,
+                10, 10));
+
+        assertEquals(BinaryCommandCodec.OK, binary(binary,
+                BinaryCommandCodec.insert(ByteBuffer.allocate(64), a)).get());
+        assertEquals(BinaryCommandCodec.OK, binary(binary,
+                BinaryCommandCodec.insert(ByteBuffer.allocate(64), b)).get());
+        assertEquals(BinaryCommandCodec.REJECTED, binary(binary,
+                BinaryCommandCodec.insert(ByteBuffer.allocate(64),
+                        new KVPair<>("c", new Rectangle(0, 0, 0, 0)))).get());
+
+        ByteBuffer found = binary(binary, BinaryCommandCodec.search(
+                ByteBuffer.allocate(64), "a"));
+        assertEquals(BinaryCommandCodec.OK, found.get());
+        assertEquals(List.of(a), BinaryCommandCodec.getPairs(found));
+        assertEquals(BinaryCommandCodec.NOT_FOUND, binary(binary,
+                BinaryCommandCodec.search(ByteBuffer.allocate(64), "c"))
+                .get());
+
+        ByteBuffer region = binary(binary, BinaryCommandCodec.regionSearch(
+                ByteBuffer.allocate(64), new Rectangle(0, 0, 6, 6)));
+        assertEquals(BinaryCommandCodec.OK, region.get());
+        assertEquals(List.of(a, b), BinaryCommandCodec.getPairs(region));
+        assertEquals(BinaryCommandCodec.REJECTED, binary(binary,
+                BinaryCommandCodec.regionSearch(ByteBuffer.allocate(64),
+                        new Rectangle(0, 0, -1, 6))).get());
+
+        ByteBuffer couples = binary(binary, BinaryCommandCodec.intersections(
+                ByteBuffer.allocate(64)));
+        assertEquals(BinaryCommandCodec.OK, couples.get());
+        assertEquals(2, couples.getInt());
+        assertEquals(List.of(a, b, b, a), List.of(
+                BinaryCommandCodec.getPair(couples),
+                BinaryCommandCodec.getPair(couples),
+                BinaryCommandCodec.getPair(couples),
+                BinaryCommandCodec.getPair(couples)));
+
+        ByteBuffer dump = binary(binary, BinaryCommandCodec.dump(
+                ByteBuffer.allocate(64)));
+        assertEquals(BinaryCommandCodec.OK, dump.get());
+        assertEquals(binary.process("dump"),
+                BinaryCommandCodec.getText(dump));
+
+        ByteBuffer removed = binary(binary, BinaryCommandCodec.remove(
+                ByteBuffer.allocate(64), "a"));
+        assertEquals(BinaryCommandCodec.OK, removed.get());
+        assertEquals(a, BinaryCommandCodec.getPair(removed));
+        assertEquals(BinaryCommandCodec.NOT_FOUND, binary(binary,
+                BinaryCommandCodec.remove(ByteBuffer.allocate(64), "a")).get());
+
+        removed = binary(binary, BinaryCommandCodec.removeByValue(
+                ByteBuffer.allocate(64), b.getValue()));
+        assertEquals(BinaryCommandCodec.OK, removed.get());
+        assertEquals(b, BinaryCommandCodec.getPair(removed));
+        assertEquals(BinaryCommandCodec.REJECTED, binary(binary,
+                BinaryCommandCodec.removeByValue(ByteBuffer.allocate(64),
+                        new Rectangle(0, 0, 0, 0))).get());
+    }
+
+
+    /**
+     * Tests if binary commands that cannot be decoded are answered with
+     * INVALID and change nothing
+     */
+    @Test
+    public void testInvalidBinaryProcess() {
+        RectangleCommandProcessor binary = new RectangleCommandProcessor();
+        ByteBuffer unknown = ByteBuffer.allocate(8).putInt(1).put((byte) 9);
+        ByteBuffer trailing = BinaryCommandCodec.dump(ByteBuffer.allocate(8))
+                .put((byte) 0);
+        trailing.putInt(0, 2);
+        ByteBuffer cut = BinaryCommandCodec.insert(ByteBuffer.allocate(64),
+                new KVPair<>("a", new Rectangle(1, 1, 1, 1)));
+        cut.putInt(0, cut.position() - 8).position(cut.position() - 4);
+
+        for (ByteBuffer request : List.of(unknown, trailing, cut)) {
+            ByteBuffer response = binary(binary, request);
+            assertEquals(BinaryCommandCodec.INVALID, response.get());
+            assertFalse(response.hasRemaining());
+        }
+        assertEquals("Intersections pairs:", binary.process("intersections"));
+    }
+
+
+    /**
+     * Tests if the response buffer grows to hold a large result, keeping
+     * what it held
+     */
+    @Test
+    public void testBinaryProcessGrows() {
+        RectangleCommandProcessor binary = new RectangleCommandProcessor();
+        for (int i = 0; i < 100; i++) {
+            binary.process("insert a" + i + " 1 1 5 5");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(8).put((byte) 42);
+        ByteBuffer request = BinaryCommandCodec.nextFrame(
+                BinaryCommandCodec.regionSearch(ByteBuffer.allocate(64),
+                        new Rectangle(0, 0, 2, 2)).flip(), 64);
+        out = binary.process(request, out).flip();
+
+        assertEquals(42, out.get());
+        ByteBuffer response = BinaryCommandCodec.nextFrame(out,
+                Integer.MAX_VALUE);
+        assertEquals(BinaryCommandCodec.OK, response.get());
+        assertEquals(100, BinaryCommandCodec.getPairs(response).size());
+        assertFalse(out.hasRemaining());
+    }
+
+
+    /**
+     * Processes a binary command frame
+     *
+     * @param binary  the processor
+     * @param request the buffer the frame was written to
+     * @return the body of the response frame
+     */
+    private static ByteBuffer binary(RectangleCommandProcessor binary,
+                                     ByteBuffer request) {
+        ByteBuffer body = BinaryCommandCodec.nextFrame(request.flip(),
+                Integer.MAX_VALUE);
+        ByteBuffer out = binary.process(body, ByteBuffer.allocate(16)).flip();
+        ByteBuffer response = BinaryCommandCodec.nextFrame(out,
+                Integer.MAX_VALUE);
+        assertFalse(out.hasRemaining());
+        return response;
+    }
+}
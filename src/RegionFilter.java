@@ -0,0 +1,49 @@
+/**
+ * This interface holds the functionality a filter should have to find the
+ * rectangles of RectangleColumns that share some area with a region, by
+ * scanning every slot. Filters differ only in how fast they scan, so any
+ * filter finds the same slots in the same order.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+@FunctionalInterface
+public interface RegionFilter {
+
+    //Filter testing one rectangle after the other, on any Java runtime
+    RegionFilter SCALAR = RectangleColumns::overlapping;
+
+    //Module of the Vector API, only loaded when asked for on the command line
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Finds the slots of all the rectangles sharing some area with the
+     * region. As with Rectangle.intersects, rectangles only touching at an
+     * edge or a corner, or without area, share none.
+     *
+     * @param columns the rectangles to scan, not null
+     * @param x       x-Coordinate of the region
+     * @param y       y-Coordinate of the region
+     * @param width   width of the region
+     * @param height  height of the region
+     * @return the slots found, in slot order
+     */
+    int[] overlapping(RectangleColumns columns, int x, int y, int width,
+                      int height);
+
+    /**
+     * Returns the fastest filter the running Java supports: the one testing
+     * many rectangles per instruction with the Vector API if its incubating
+     * module was added with --add-modules jdk.incubator.vector, or SCALAR
+     * otherwise
+     *
+     * @return the filter
+     */
+    static RegionFilter preferred() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return SCALAR;
+        }
+
+        return new VectorRegionFilter();
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * This interface is for the callers that take the results of a query one at
+ * a time, as they are found, instead of a list of all of them. Returning
+ * false from visit stops the query, so no more results are found or
+ * visited.
+ *
+ * @param <T> the type of the results
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+@FunctionalInterface
+public interface ResultVisitor<T> {
+
+    /**
+     * Takes the next result of the query
+     *
+     * @param result the result
+     * @return true to go on with the query, false to stop it
+     */
+    boolean visit(T result);
+
+    /**
+     * Wraps the visitor so that the query stops after the given number of
+     * results, or earlier if the visitor stops it.
+     *
+     * @param limit   the largest number of results to visit
+     * @param visitor the visitor taking the results
+     * @param <T>     the type of the results
+     * @return the visitor stopping after limit results
+     * @throws IllegalArgumentException if limit is negative or visitor is
+     *                                  null
+     */
+    static <T> ResultVisitor<T> limit(long limit, ResultVisitor<T> visitor) {
+        if (limit < 0 || visitor == null) {
+            throw new IllegalArgumentException();
+        }
+
+        long[] left = {limit};
+        return result -> left[0] > 0 && visitor.visit(result)
+                         && --left[0] > 0;
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the limit wrapper of the
+ * ResultVisitor interface
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ResultVisitorTest {
+
+    /**
+     * Tests that the wrapped visitor gets at most limit results
+     */
+    @Test
+    public void testLimit() {
+        List<Integer> seen = new ArrayList<>();
+        ResultVisitor<Integer> visitor = ResultVisitor.limit(2, seen::add);
+
+        assertTrue(visitor.visit(1));
+        assertFalse(visitor.visit(2));
+        assertFalse(visitor.visit(3));
+        assertEquals("[1, 2]", seen.toString());
+    }
+
+    /**
+     * Tests that a limit of 0 visits nothing
+     */
+    @Test
+    public void testZeroLimit() {
+        List<Integer> seen = new ArrayList<>();
+        ResultVisitor<Integer> visitor = ResultVisitor.limit(0, seen::add);
+        assertFalse(visitor.visit(1));
+        assertTrue(seen.isEmpty());
+    }
+
+    /**
+     * Tests that the wrapped visitor can still stop early by itself
+     */
+    @Test
+    public void testVisitorStops() {
+        ResultVisitor<Integer> visitor = ResultVisitor.limit(5, r -> r < 2);
+        assertTrue(visitor.visit(1));
+        assertFalse(visitor.visit(2));
+    }
+
+    /**
+     * Tests invalid arguments
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            ResultVisitor.limit(-1, r -> true);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            ResultVisitor.limit(1, null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * This class holds a stored pair together with the sequence number it was
+ * inserted with, as it is kept in the spatial index of a database. The
+ * SkipList keeps pairs with equal names with the latest inserted first, so
+ * ordering by name and then by descending sequence number gives the order
+ * of the list. Two objects are equal when they hold the very same pair,
+ * which is how a spatial index finds the entry of a removed pair.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SequencedPair implements Comparable<SequencedPair> {
+
+    // the stored pair
+    private final KVPair<String, Rectangle> pair;
+    // the order of insertion of the pair
+    private final long sequence;
+
+    /**
+     * Initializes the pair with its sequence number
+     *
+     * @param pair     the stored pair
+     * @param sequence the sequence number of the pair
+     * @throws IllegalArgumentException if pair is null
+     */
+    public SequencedPair(KVPair<String, Rectangle> pair, long sequence) {
+        if (pair == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.pair = pair;
+        this.sequence = sequence;
+    }
+
+
+    /**
+     * Returns the stored pair
+     *
+     * @return the stored pair
+     */
+    public KVPair<String, Rectangle> getPair() {
+        return pair;
+    }
+
+
+    /**
+     * Returns the sequence number of the pair
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+
+    /**
+     * Compares the position of both pairs in the SkipList.
+     *
+     * @param other the pair to compare to
+     * @return negative if this pair is before the other one, zero if they
+     * are at the same position and positive if it is after the other one
+     */
+    @Override
+    public int compareTo(SequencedPair other) {
+        int cmp = pair.compareTo(other.pair);
+        return (cmp != 0) ? cmp : Long.compare(other.sequence, sequence);
+    }
+
+
+    /**
+     * Checks if both objects hold the same pair.
+     *
+     * @param o the object to check equals with
+     * @return true if both hold the very same pair
+     */
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof SequencedPair)
+               && ((SequencedPair) o).pair == pair;
+    }
+
+
+    /**
+     * Generate hashcode for this object
+     */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(pair);
+    }
+}
@@ -0,0 +1,75 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the SequencedPair class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SequencedPairTest {
+
+    //A pair with key "A" and rectangle (0, 0, 10, 10)
+    private KVPair<String, Rectangle> pairA;
+    //The pair A inserted first
+    private SequencedPair firstA;
+
+    /**
+     * Set up the pair objects with values to test before
+     * every test case execution.
+     */
+    @Before
+    public void setUp() {
+        pairA = new KVPair<>("A", new Rectangle(0, 0, 10, 10));
+        firstA = new SequencedPair(pairA, 0);
+    }
+
+    /**
+     * Tests if null can be sequenced
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPair() {
+        new SequencedPair(null, 0);
+        fail();
+    }
+
+    /**
+     * Tests if equal names are ordered with the latest inserted first and
+     * different names by name
+     */
+    @Test
+    public void testCompareTo() {
+        SequencedPair secondA = new SequencedPair(new KVPair<>("A",
+                new Rectangle(1, 1, 1, 1)), 1);
+        SequencedPair thirdB = new SequencedPair(new KVPair<>("B",
+                new Rectangle(1, 1, 1, 1)), 2);
+
+        assertTrue(secondA.compareTo(firstA) < 0);
+        assertTrue(firstA.compareTo(thirdB) < 0);
+        assertEquals(0, firstA.compareTo(firstA));
+    }
+
+    /**
+     * Tests if only objects holding the very same pair are equal
+     */
+    @Test
+    public void testEquals() {
+        assertEquals(firstA, new SequencedPair(pairA, 5));
+        assertEquals(firstA.hashCode(), new SequencedPair(pairA, 5).hashCode());
+        assertNotEquals(firstA, new SequencedPair(new KVPair<>("A",
+                new Rectangle(0, 0, 10, 10)), 0));
+        assertNotEquals(firstA, pairA);
+    }
+
+    /**
+     * Tests if the getters return the values given
+     */
+    @Test
+    public void testGetters() {
+        assertSame(pairA, firstA.getPair());
+        assertEquals(0, firstA.getSequence());
+    }
+}
@@ -0,0 +1,609 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class spreads the rectangles over independent databases, its shards,
+ * so changes to different shards do not wait for each other. A partitioner
+ * picks the shard of every pair. A change or a search by name or by
+ * rectangle that the partitioner binds to one shard only asks that shard.
+ * Other queries ask every shard that may answer them and merge what the
+ * shards found, so every query answers in the same order as one
+ * SkipListDatabase holding all the rectangles would: sorted by name, with
+ * the latest inserted first among equal names. Intersections are found
+ * over the merged rectangles of all the shards, so pairs of rectangles kept
+ * by different shards are found as well.
+ * <p>
+ * When the partitioner spreads equal names over the shards, the insert
+ * order of the pairs is kept beside the shards to merge equal names the
+ * same as one list would. A pair object inserted more than once is merged
+ * by its latest insert.
+ * <p>
+ * The database is as safe to share between threads as its shards, by
+ * default a ConcurrentDatabase each. A query spanning many shards sees
+ * each shard as it was when that shard was asked, so it is only the same
+ * as on one database when no change is made while it runs.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ShardedDatabase implements Database {
+
+    private final Partitioner partitioner; //Picks the shard of every pair
+    private final List<Database> shards; //Databases keeping the rectangles
+    private final IntersectionFinder finder; //Finds intersecting rectangles
+
+    //Insert order of the pairs whose names are spread over the shards
+    private final ConcurrentHashMap<Identity, Long> sequences =
+            new ConcurrentHashMap<>();
+    //Sequence number given to the next inserted pair
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Initializes the database with the given number of shards, picked by
+     * the hash code of the names
+     *
+     * @param shards the number of shards
+     * @throws IllegalArgumentException if shards is not positive
+     */
+    public ShardedDatabase(int shards) {
+        this(new NameHashPartitioner(shards));
+    }
+
+    /**
+     * Initializes the database with as many shards as the partitioner
+     * spreads the pairs over, each a ConcurrentDatabase over a new
+     * SkipListDatabase
+     *
+     * @param partitioner picks the shard of every pair
+     * @throws IllegalArgumentException if partitioner is null
+     */
+    public ShardedDatabase(Partitioner partitioner) {
+        this(partitioner, newShards(partitioner),
+                new SweepLineIntersections());
+    }
+
+    /**
+     * Initializes the database over the given shards, each dumping its
+     * rectangles the same as a SkipListDatabase. The shards must only be
+     * changed through this database afterwards.
+     *
+     * @param partitioner picks the shard of every pair
+     * @param shards      the empty databases keeping the rectangles, as
+     *                    many as the partitioner spreads the pairs over
+     * @param finder      the algorithm finding the intersecting rectangles
+     * @throws IllegalArgumentException if any parameter or shard is null,
+     *                                  a shard is not empty or the number of
+     *                                  shards is not the partitioner's
+     */
+    public ShardedDatabase(Partitioner partitioner, List<Database> shards,
+                           IntersectionFinder finder) {
+        if (partitioner == null || shards == null || finder == null
+            || shards.size() != partitioner.shards()) {
+            throw new IllegalArgumentException();
+        }
+        for (Database shard : shards) {
+            if (shard == null || !shard.listAll(0, 1).isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        this.partitioner = partitioner;
+        this.shards = new ArrayList<>(shards);
+        this.finder = finder;
+    }
+
+    /**
+     * Returns the number of shards
+     *
+     * @return the number of shards
+     */
+    public int shards() {
+        return shards.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean insert(KVPair<String, Rectangle> pair) {
+        if (pair == null) {
+            throw new IllegalArgumentException();
+        }
+
+        //The sequence is known before the pair can be found
+        boolean spread = spread(pair.getKey());
+        if (spread) {
+            sequences.put(new Identity(pair), sequence.getAndIncrement());
+        }
+
+        Boolean inserted = shards.get(partitioner.shardOf(pair)).insert(pair);
+        if (spread && !Boolean.TRUE.equals(inserted)) {
+            sequences.remove(new Identity(pair));
+        }
+
+        return inserted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * When the name is spread over the shards, the latest inserted pair
+     * with the name is found in every shard and removed from the shard
+     * holding the latest of all.
+     */
+    @Override
+    public KVPair<String, Rectangle> remove(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int shard = partitioner.shardOfName(name);
+        if (shard == Partitioner.SPREAD) {
+            KVPair<String, Rectangle> latest = null;
+            for (int s = 0; s < shards.size(); s++) {
+                List<KVPair<String, Rectangle>> found =
+                        shards.get(s).search(name, 0, 1);
+                if (found == null) {
+                    return null;
+                }
+                if (!found.isEmpty() && (latest == null
+                        || order(found.get(0), latest) < 0)) {
+                    latest = found.get(0);
+                    shard = s;
+                }
+            }
+            if (latest == null) {
+                return null;
+            }
+        }
+
+        return forget(shards.get(shard).remove(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     * When the rectangle is spread over the shards, the first pair with
+     * the rectangle is found in every shard and removed from the shard
+     * holding the first of all.
+     */
+    @Override
+    public KVPair<String, Rectangle> removeByValue(Rectangle rectangle) {
+        if (rectangle == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int shard = partitioner.shardOfValue(rectangle);
+        if (shard == Partitioner.SPREAD) {
+            if (!validateRectangle(rectangle)) {
+                return null;
+            }
+
+            KVPair<String, Rectangle> first = null;
+            for (int s = 0; s < shards.size(); s++) {
+                for (KVPair<String, Rectangle> pair : shards.get(s)
+                        .regionSearch(rectangle.x, rectangle.y,
+                                rectangle.width, rectangle.height)) {
+                    if (pair.getValue().equals(rectangle)) {
+                        if (first == null || order(pair, first) < 0) {
+                            first = pair;
+                            shard = s;
+                        }
+                        break;
+                    }
+                }
+            }
+            if (first == null) {
+                return null;
+            }
+        }
+
+        return forget(shards.get(shard).removeByValue(rectangle));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the shards the partitioner tells may hold rectangles inside the
+     * region are searched.
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> regionSearch(int x, int y, int w,
+                                                        int h) {
+        List<List<KVPair<String, Rectangle>>> found = new ArrayList<>();
+        for (int s = 0; s < shards.size(); s++) {
+            //The first shard is always asked, to reject a region the same
+            // as every shard would
+            if (s == 0 || partitioner.mayOverlap(s, x, y, w, h)) {
+                List<KVPair<String, Rectangle>> pairs =
+                        shards.get(s).regionSearch(x, y, w, h);
+                if (pairs == null) {
+                    return null;
+                }
+                found.add(pairs);
+            }
+        }
+
+        return merge(found, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersections() {
+        List<KVPair<String, Rectangle>> pairs = listAll(0, Integer.MAX_VALUE);
+        List<Rectangle> rectangles = new ArrayList<>(pairs.size());
+        for (KVPair<String, Rectangle> pair : pairs) {
+            rectangles.add(pair.getValue());
+        }
+
+        //Positions of the rectangles intersecting the one at each position
+        int[][] partners = finder.find(rectangles);
+
+        List<Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>>
+                intersectingPairs = new ArrayList<>();
+        for (int i = 0; i < partners.length; i++) {
+            for (int partner : partners[i]) {
+                intersectingPairs.add(new Pair<>(pairs.get(i),
+                        pairs.get(partner)));
+            }
+        }
+
+        return intersectingPairs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int shard = partitioner.shardOfName(name);
+        if (shard != Partitioner.SPREAD) {
+            return shards.get(shard).search(name);
+        }
+
+        List<List<KVPair<String, Rectangle>>> found = new ArrayList<>();
+        for (Database data : shards) {
+            List<KVPair<String, Rectangle>> pairs = data.search(name);
+            if (pairs != null) {
+                found.add(pairs);
+            }
+        }
+
+        return found.isEmpty() ? null : merge(found, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> prefixSearch(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<List<KVPair<String, Rectangle>>> found = new ArrayList<>();
+        for (Database data : shards) {
+            found.add(data.prefixSearch(prefix));
+        }
+
+        return merge(found, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * When the name is spread over the shards, the first offset plus count
+     * pairs of every shard are merged.
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name, int offset,
+                                                  int count) {
+        if (name == null || offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int shard = partitioner.shardOfName(name);
+        if (shard != Partitioner.SPREAD) {
+            return shards.get(shard).search(name, offset, count);
+        }
+
+        List<List<KVPair<String, Rectangle>>> found = new ArrayList<>();
+        for (Database data : shards) {
+            List<KVPair<String, Rectangle>> pairs =
+                    data.search(name, 0, pageEnd(offset, count));
+            if (pairs == null) {
+                return null;
+            }
+            found.add(pairs);
+        }
+
+        return merge(found, offset, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The first offset plus count pairs of every shard are merged.
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> listAll(int offset, int count) {
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        List<List<KVPair<String, Rectangle>>> found = new ArrayList<>();
+        for (Database data : shards) {
+            found.add(data.listAll(0, pageEnd(offset, count)));
+        }
+
+        return merge(found, offset, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The nodes of the dumps of all the shards are listed in the order of
+     * their pairs, after a head as high as the highest head of the shards.
+     */
+    @Override
+    public String dump() {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        int head = 0;
+        int size = 0;
+        for (int s = 0; s < shards.size(); s++) {
+            List<KVPair<String, Rectangle>> pairs;
+            String[] lines;
+            //A shard changed between its listing and its dump is asked again
+            do {
+                pairs = shards.get(s).listAll(0, Integer.MAX_VALUE);
+                lines = shards.get(s).dump().split("\n");
+            } while (lines.length != pairs.size() + 3);
+
+            String depth = lines[1].substring("Node has depth ".length(),
+                    lines[1].indexOf(','));
+            head = Math.max(head, Integer.parseInt(depth));
+            size += pairs.size();
+            if (!pairs.isEmpty()) {
+                cursors.add(new Cursor(pairs, lines, s));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder("SkipList dump:");
+        sb.append("\nNode has depth ").append(head).append(", Value (null)");
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            sb.append('\n').append(cursor.lines[cursor.index + 2]);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        sb.append("\nSkipList size is: ").append(size);
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean validateRectangle(Rectangle rectangle) {
+        return shards.get(0).validateRectangle(rectangle);
+    }
+
+    /**
+     * Creates a ConcurrentDatabase for every shard of the partitioner
+     *
+     * @param partitioner picks the shard of every pair
+     * @return the shards
+     * @throws IllegalArgumentException if partitioner is null
+     */
+    private static List<Database> newShards(Partitioner partitioner) {
+        if (partitioner == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<Database> shards = new ArrayList<>(partitioner.shards());
+        for (int s = 0; s < partitioner.shards(); s++) {
+            shards.add(new ConcurrentDatabase());
+        }
+
+        return shards;
+    }
+
+    /**
+     * Finds the number of pairs a shard must return for a page to be cut
+     * from the merged pairs of all the shards
+     *
+     * @param offset the number of pairs to skip
+     * @param count  the number of pairs at most
+     * @return offset plus count, at most Integer.MAX_VALUE
+     */
+    private static int pageEnd(int offset, int count) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) offset + count);
+    }
+
+    /**
+     * Checks if pairs with the name may be kept by any shard
+     *
+     * @param name the name
+     * @return true if the name is spread over the shards
+     */
+    private boolean spread(String name) {
+        return partitioner.shardOfName(name) == Partitioner.SPREAD;
+    }
+
+    /**
+     * Forgets the insert order of a removed pair
+     *
+     * @param removed the removed pair, or null
+     * @return the removed pair
+     */
+    private KVPair<String, Rectangle> forget(
+            KVPair<String, Rectangle> removed) {
+        if (removed != null && spread(removed.getKey())) {
+            sequences.remove(new Identity(removed));
+        }
+
+        return removed;
+    }
+
+    /**
+     * Compares the positions two pairs of different shards would have in
+     * one list: by name, and the latest inserted first among equal names
+     *
+     * @param pair  a pair
+     * @param other the pair to compare to
+     * @return negative if pair comes first, positive if other comes first
+     */
+    private int order(KVPair<String, Rectangle> pair,
+                      KVPair<String, Rectangle> other) {
+        int cmp = pair.compareTo(other);
+        if (cmp != 0 || !spread(pair.getKey())) {
+            return cmp;
+        }
+
+        return Long.compare(sequences.getOrDefault(new Identity(other), 0L),
+                sequences.getOrDefault(new Identity(pair), 0L));
+    }
+
+    /**
+     * Merges the sorted pairs of the shards into one sorted list and cuts a
+     * page from it
+     *
+     * @param found  the pairs of every shard, each sorted
+     * @param offset the number of merged pairs to skip
+     * @param count  the number of pairs at most
+     * @return the pairs of the page
+     */
+    private List<KVPair<String, Rectangle>> merge(
+            List<List<KVPair<String, Rectangle>>> found, int offset,
+            int count) {
+        if (found.size() == 1) {
+            List<KVPair<String, Rectangle>> pairs = found.get(0);
+            int from = Math.min(offset, pairs.size());
+            return new ArrayList<>(pairs.subList(from,
+                    Math.min(pairs.size(), pageEnd(from, count))));
+        }
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        for (int s = 0; s < found.size(); s++) {
+            if (!found.get(s).isEmpty()) {
+                cursors.add(new Cursor(found.get(s), null, s));
+            }
+        }
+
+        List<KVPair<String, Rectangle>> merged = new ArrayList<>();
+        for (int skipped = 0; !cursors.isEmpty()
+                              && merged.size() < count;) {
+            Cursor cursor = cursors.poll();
+            if (skipped < offset) {
+                skipped++;
+            }
+            else {
+                merged.add(cursor.pair());
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * This class walks the sorted pairs of one shard while they are merged
+     * with the pairs of the other shards. Cursors are ordered by the pair
+     * they are at, and by shard between pairs at the same position.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private final class Cursor implements Comparable<Cursor> {
+        private final List<KVPair<String, Rectangle>> pairs; //Sorted pairs
+        private final String[] lines; //Dump of the shard, or null
+        private final int shard; //Index of the shard
+        private int index; //Index of the pair the cursor is at
+
+        /**
+         * Initializes the cursor at the first pair
+         *
+         * @param pairs the sorted pairs of the shard, not empty
+         * @param lines the lines of the dump of the shard, or null
+         * @param shard the index of the shard
+         */
+        Cursor(List<KVPair<String, Rectangle>> pairs, String[] lines,
+               int shard) {
+            this.pairs = pairs;
+            this.lines = lines;
+            this.shard = shard;
+        }
+
+        /**
+         * Returns the pair the cursor is at
+         *
+         * @return the pair
+         */
+        KVPair<String, Rectangle> pair() {
+            return pairs.get(index);
+        }
+
+        /**
+         * Moves the cursor to the next pair
+         *
+         * @return false if the cursor was at the last pair
+         */
+        boolean advance() {
+            return ++index < pairs.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(Cursor other) {
+            int cmp = order(pair(), other.pair());
+            return (cmp != 0) ? cmp : Integer.compare(shard, other.shard);
+        }
+    }
+
+    /**
+     * This class holds a pair as a key of the insert order, equal only to
+     * the very same pair object.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static final class Identity {
+        private final KVPair<String, Rectangle> pair; //Pair held
+
+        /**
+         * Initializes the key
+         *
+         * @param pair the pair held
+         */
+        Identity(KVPair<String, Rectangle> pair) {
+            this.pair = pair;
+        }
+
+        /**
+         * Checks if both keys hold the very same pair
+         *
+         * @param o the object to check equals with
+         * @return true if both hold the same pair object
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).pair == pair;
+        }
+
+        /**
+         * Generate hashcode for this object
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(pair);
+        }
+    }
+}
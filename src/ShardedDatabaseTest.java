@@ -0,0 +1,209 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing that the ShardedDatabase class
+ * answers every query the same as one SkipListDatabase holding all the
+ * rectangles, whichever way the pairs are spread over the shards
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class ShardedDatabaseTest {
+
+    /**
+     * Tests if a null partitioner is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPartitioner() {
+        new ShardedDatabase(null);
+        fail();
+    }
+
+    /**
+     * Tests if fewer shards than the partitioner spreads over are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongShardCount() {
+        List<Database> shards = new ArrayList<>();
+        shards.add(new SkipListDatabase());
+        new ShardedDatabase(new NameHashPartitioner(2), shards,
+                new SweepLineIntersections());
+        fail();
+    }
+
+    /**
+     * Tests if a shard already holding rectangles is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFilledShard() {
+        List<Database> shards = new ArrayList<>();
+        shards.add(new SkipListDatabase());
+        shards.get(0).insert(new KVPair<>("a", new Rectangle(0, 0, 1, 1)));
+        new ShardedDatabase(new NameHashPartitioner(1), shards,
+                new SweepLineIntersections());
+        fail();
+    }
+
+    /**
+     * Tests if the database has the shards of its partitioner, and an
+     * empty one answers the same as an empty SkipListDatabase
+     */
+    @Test
+    public void testEmpty() {
+        ShardedDatabase data = new ShardedDatabase(4);
+        assertEquals(4, data.shards());
+        assertEquals(6, new ShardedDatabase(new TilePartitioner(3, 2))
+                .shards());
+
+        assertSame(new SkipListDatabase(), data);
+        assertNull(data.remove("a"));
+        assertNull(data.removeByValue(new Rectangle(0, 0, 1, 1)));
+    }
+
+    /**
+     * Tests if rectangles kept by different tiles are found to intersect,
+     * and a region is only searched in the tiles that may hold it
+     */
+    @Test
+    public void testCrossShardIntersections() {
+        ShardedDatabase data =
+                new ShardedDatabase(new TilePartitioner(2, 2));
+        data.insert(new KVPair<>("a", new Rectangle(500, 500, 30, 30)));
+        data.insert(new KVPair<>("b", new Rectangle(520, 520, 10, 10)));
+        data.insert(new KVPair<>("c", new Rectangle(0, 0, 5, 5)));
+
+        assertEquals("[a, 500, 500, 30, 30 | b, 520, 520, 10, 10, "
+                     + "b, 520, 520, 10, 10 | a, 500, 500, 30, 30]",
+                data.intersections().toString());
+        assertEquals("[a, 500, 500, 30, 30, b, 520, 520, 10, 10]",
+                data.regionSearch(515, 515, 10, 10).toString());
+        assertEquals("[c, 0, 0, 5, 5]",
+                data.regionSearch(0, 0, 10, 10).toString());
+        assertNull(data.regionSearch(0, 0, 0, 10));
+    }
+
+    /**
+     * Tests if random changes, with names and rectangles repeated, leave
+     * databases spread by name and by tile answering every query the same
+     * as one SkipListDatabase
+     */
+    @Test
+    public void testRandomOperations() {
+        Partitioner[] partitioners = {new NameHashPartitioner(1),
+            new NameHashPartitioner(4), new TilePartitioner(3, 2)};
+
+        for (Partitioner partitioner : partitioners) {
+            Random random = new Random(22);
+            SkipListDatabase expected = new SkipListDatabase();
+            ShardedDatabase data = new ShardedDatabase(partitioner);
+            List<Rectangle> used = new ArrayList<>();
+
+            for (int op = 0; op < 1500; op++) {
+                String name = "n" + random.nextInt(12);
+                int choice = random.nextInt(10);
+                if (choice < 6) {
+                    Rectangle rect = (!used.isEmpty() && choice == 0)
+                            ? used.get(random.nextInt(used.size()))
+                            : new Rectangle(random.nextInt(1100) - 20,
+                            random.nextInt(1100) - 20,
+                            random.nextInt(120), random.nextInt(120));
+                    used.add(rect);
+                    KVPair<String, Rectangle> pair = new KVPair<>(
+                            (choice == 5) ? "1" + name : name, rect);
+                    assertEquals(expected.insert(pair), data.insert(pair));
+                }
+                else if (choice < 8) {
+                    assertEquals(expected.remove(name), data.remove(name));
+                }
+                else if (!used.isEmpty()) {
+                    Rectangle rect = used.get(random.nextInt(used.size()));
+                    assertEquals(expected.removeByValue(rect),
+                            data.removeByValue(rect));
+                }
+
+                if (op % 50 == 0) {
+                    assertSame(expected, data);
+                    int offset = random.nextInt(5);
+                    int count = random.nextInt(5);
+                    assertEquals(expected.search(name, offset, count),
+                            data.search(name, offset, count));
+                    assertEquals(expected.listAll(offset, count),
+                            data.listAll(offset, count));
+                    int x = random.nextInt(1100) - 50;
+                    int y = random.nextInt(1100) - 50;
+                    int w = random.nextInt(400) - 10;
+                    int h = random.nextInt(400) - 10;
+                    assertEquals(expected.regionSearch(x, y, w, h),
+                            data.regionSearch(x, y, w, h));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests if pairs inserted and removed by many threads at the same time
+     * all end in the right shards, listed in order
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        ShardedDatabase data = new ShardedDatabase(4);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String prefix = "t" + t + "_";
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 500; k++) {
+                    data.insert(new KVPair<>(prefix + k,
+                            new Rectangle(k, k, 10, 10)));
+                }
+                for (int k = 0; k < 500; k += 2) {
+                    data.remove(prefix + k);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SkipListDatabase expected = new SkipListDatabase();
+        for (int t = 0; t < threads.length; t++) {
+            for (int k = 1; k < 500; k += 2) {
+                expected.insert(new KVPair<>("t" + t + "_" + k,
+                        new Rectangle(k, k, 10, 10)));
+            }
+        }
+        assertSame(expected, data);
+    }
+
+    /**
+     * Asserts that the database answers the queries not depending on a
+     * name the same as the expected one, and its dump lists the same
+     * nodes, whatever their random depths
+     *
+     * @param expected the database holding the expected rectangles
+     * @param data     the sharded database
+     */
+    private static void assertSame(Database expected, ShardedDatabase data) {
+        assertEquals(expected.listAll(0, Integer.MAX_VALUE),
+                data.listAll(0, Integer.MAX_VALUE));
+        for (int n = 0; n < 12; n++) {
+            assertEquals(expected.search("n" + n), data.search("n" + n));
+        }
+        assertEquals(expected.search("1n"), data.search("1n"));
+        assertEquals(expected.prefixSearch("n1"), data.prefixSearch("n1"));
+        assertEquals(expected.regionSearch(0, 0, 1024, 1024),
+                data.regionSearch(0, 0, 1024, 1024));
+        assertEquals(expected.intersections().toString(),
+                data.intersections().toString());
+        assertEquals(expected.dump().replaceAll("depth \\d+", "depth"),
+                data.dump().replaceAll("depth \\d+", "depth"));
+    }
+}
@@ -1,12 +1,33 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * This class implements the Container interface and represents
  * the skip list data structure to fulfil the interface functionalities
+ * <p>
+ * The list can optionally keep a hash index from every value to the nodes
+ * holding it, so removeByValue finds its node without walking the list and
+ * then finds the nodes before it by searching for its position, in
+ * O(log n) expected time instead of O(n). Values in an indexed list must
+ * not change while they are in the list, as their hash codes would.
+ * <p>
+ * Every node also points back to the node before it on the lowest level,
+ * so ranges, floor, ceiling and last search for their first node once and
+ * then walk the lowest level either way, in O(log n + k) expected time for
+ * k pairs. The iterators of ranges and of the descending view are lazy and
+ * search when they are created, so they see the list as it is then.
+ * <p>
+ * Every link also holds its span, the number of lowest level steps it
+ * skips, so the pair at an index and the index of a key are found by one
+ * search from the head, adding up the spans walked, and a page of pairs
+ * starts at its offset in O(log n) expected time instead of walking the
+ * pairs before it.
  *
  * @param <K> Key
  * @param <V> Value
@@ -18,13 +39,115 @@ public class SkipList<K extends Comparable<? super K>, V>
     private SkipNode head; // First element of the top level
     private int size; // number of entries in the Skip List
     private int level; //Highest level in the skip list
+    private final LevelGenerator levels; //Picks the level of new nodes
+    private long sequence; //Sequence number of the last inserted node
+    // the first node of every value, chained to the other nodes holding an
+    // equal value, or null if values are not indexed
+    private final Map<V, SkipNode> valueIndex;
 
     /**
-     * Initializes the fields head, size and level
+     * Initializes the fields head, size and level, with levels picked by a
+     * GeometricLevelGenerator with p = 1/2
      */
     public SkipList() {
+        this(new GeometricLevelGenerator());
+    }
+
+    /**
+     * Initializes the fields head, size and level, with levels picked by the
+     * given generator
+     *
+     * @param levels the generator picking the level of every new node
+     * @throws IllegalArgumentException if levels is null
+     */
+    public SkipList(LevelGenerator levels) {
+        this(levels, false);
+    }
+
+    /**
+     * Initializes the fields head, size and level, with levels picked by the
+     * given generator and values indexed if asked for
+     *
+     * @param levels      the generator picking the level of every new node
+     * @param indexValues true to keep the hash index of the values
+     * @throws IllegalArgumentException if levels is null
+     */
+    public SkipList(LevelGenerator levels, boolean indexValues) {
+        if (levels == null) {
+            throw new IllegalArgumentException();
+        }
+
         head = new SkipNode(null, 0);
         level = -1;
+        this.levels = levels;
+        valueIndex = indexValues ? new HashMap<>() : null;
+    }
+
+    /**
+     * Initializes the list with the given pairs, sorted by key in the order
+     * the list keeps them, so pairs with equal keys come newest first, as a
+     * list iterates them. The list is built bottom-up in one pass, O(n)
+     * instead of the O(n log n) of inserting every pair, with the levels the
+     * generator spaces evenly for every position instead of random ones.
+     *
+     * @param levels      the generator picking the level of every node
+     * @param indexValues true to keep the hash index of the values
+     * @param sorted      the pairs, sorted by key
+     * @throws IllegalArgumentException if any parameter or pair is null, or
+     *                                  the pairs are not sorted
+     */
+    public SkipList(LevelGenerator levels, boolean indexValues,
+                    Iterable<KVPair<K, V>> sorted) {
+        this(levels, indexValues);
+        if (sorted == null) {
+            throw new IllegalArgumentException();
+        }
+
+        //Last node linked on every level, null while it is the head
+        List<SkipNode> tails = new ArrayList<>();
+        SkipNode previous = null;
+
+        for (KVPair<K, V> pair : sorted) {
+            if (pair == null) {
+                throw new IllegalArgumentException();
+            }
+            if (previous != null && previous.element().getKey()
+                                            .compareTo(pair.getKey()) > 0) {
+                throw new IllegalArgumentException("Pairs not sorted");
+            }
+
+            int newLevel = levels.levelAt(size);
+            if (newLevel > level) { //Adjust header if new node is deeper
+                adjustHead(newLevel);
+                adjustLevel(newLevel);
+            }
+
+            SkipNode newNode = new SkipNode(pair, newLevel);
+            //Equal keys come newest first, with the higher sequence number,
+            // and nodes inserted later number up from 1
+            newNode.seq = -size;
+
+            newNode.backward = previous;
+            for (int i = 0; i <= newLevel; i++) {
+                if (i < tails.size()) {
+                    tails.get(i).forward[i] = newNode;
+                    tails.set(i, newNode);
+                }
+                else {
+                    head.forward[i] = newNode;
+                    tails.add(newNode);
+                }
+            }
+
+            if (valueIndex != null) {
+                newNode.sameValue = valueIndex.put(pair.getValue(), newNode);
+            }
+
+            previous = newNode;
+            size++;
+        }
+
+        countSpans();
     }
 
     /**
@@ -77,6 +200,121 @@ public class SkipList<K extends Comparable<? super K>, V>
                 null : head.forward[0].element();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> last() {
+        SkipNode last = lastNotAfter(null);
+        return (last == head) ? null : last.element();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<KVPair<K, V>> range(K fromKey, K toKey) {
+        if (fromKey != null && toKey != null
+            && fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return () -> new RangeIterator((fromKey == null) ? head.forward[0]
+                : firstNotBefore(fromKey), toKey, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> get(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        SkipNode found = nodeAt(index);
+        return (found == null) ? null : found.element();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int rankOf(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SkipNode current = head;
+        int traversed = 0;
+
+        for (int i = level; i > -1; i--) {
+            while (checkIfSmallerFound(current, key, i)) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+        }
+
+        return traversed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<KVPair<K, V>> page(int offset, int count) {
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return () -> new RangeIterator(nodeAt(offset), null, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> floor(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SkipNode found = lastNotAfter(key);
+        if (found == head) {
+            return null;
+        }
+
+        //The search stops at the oldest of equal keys, the newest comes first
+        K foundKey = found.element().getKey();
+        if (found.backward != null
+            && found.backward.element().getKey().equals(foundKey)) {
+            found = firstNotBefore(foundKey);
+        }
+
+        return found.element();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KVPair<K, V> ceiling(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SkipNode found = firstNotBefore(key);
+        return (found == null) ? null : found.element();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<KVPair<K, V>> descending() {
+        return () -> new DescendingIterator(lastNotAfter(null));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -96,7 +334,7 @@ public class SkipList<K extends Comparable<? super K>, V>
             throw new IllegalArgumentException();
         }
 
-        int newLevel = randomLevel();
+        int newLevel = levels.nextLevel();
         if (newLevel > level) { //Adjust header if new node is deeper
             adjustHead(newLevel);
             adjustLevel(newLevel);
@@ -105,28 +343,127 @@ public class SkipList<K extends Comparable<? super K>, V>
         //The nodes who will point to newNode on their respective level
         SkipNode[] update = (SkipNode[]) Array.newInstance(SkipNode.class,
                 level + 1);
+        //The position of the node in update on every level, from 1
+        int[] rank = new int[level + 1];
         SkipNode current = head;
+        int traversed = 0;
 
         //Find insertion point for the new item
         for (int i = level; i > -1; i--) {
             while (checkIfSmallerFound(current, it.getKey(), i)) {
+                traversed += current.span[i];
                 current = current.forward[i];
             }
             update[i] = current;
+            rank[i] = traversed;
         }
 
         SkipNode newNode = new SkipNode(it, newLevel);
+        newNode.seq = ++sequence;
 
-        for (int i = 0; i <= newLevel; i++) {
-            //who the new node points to
-            newNode.forward[i] = update[i].forward[i];
-            update[i].forward[i] = newNode; //who points to the new node
+        for (int i = 0; i <= level; i++) {
+            linkAfter(newNode, update[i], rank[i], rank[0], i);
+        }
+        linkBackward(newNode, update[0]);
+
+        if (valueIndex != null) {
+            newNode.sameValue = valueIndex.put(it.getValue(), newNode);
         }
 
         size++;
     }
 
 
+    /**
+     * Inserts every pair in one pass over the list instead of one search
+     * from the head per pair. The pairs are sorted by key, the pairs given
+     * later first among equal keys, and merged into the list from left to
+     * right: on every level the walk for a pair starts from the node the
+     * pair before was linked after, so every level of the list is walked
+     * once for the whole batch, and the spans are counted again in one
+     * more walk. A batch much smaller than the list is
+     * inserted pair by pair, as the walk would cost more than the searches.
+     * No pair is inserted if one is null.
+     *
+     * @param pairs the pairs to be inserted
+     * @throws IllegalArgumentException if pairs or any pair is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void insertAll(Iterable<KVPair<K, V>> pairs) {
+        if (pairs == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<K, V>> batch = new ArrayList<>();
+        for (KVPair<K, V> pair : pairs) {
+            if (pair == null) {
+                throw new IllegalArgumentException();
+            }
+            batch.add(pair);
+        }
+
+        if ((long) batch.size() * (level + 2) < size) {
+            for (KVPair<K, V> pair : batch) {
+                insert(pair);
+            }
+            return;
+        }
+
+        SkipNode[] nodes = (SkipNode[]) Array.newInstance(SkipNode.class,
+                batch.size());
+        int top = level;
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new SkipNode(batch.get(i), levels.nextLevel());
+            nodes[i].seq = sequence + 1 + i;
+            top = Math.max(top, nodes[i].level);
+        }
+
+        if (top > level) { //Adjust header if a new node is deeper
+            adjustHead(top);
+            adjustLevel(top);
+        }
+
+        Arrays.sort(nodes, (a, b) -> {
+            int cmp = a.element().getKey().compareTo(b.element().getKey());
+            return (cmp != 0) ? cmp : Long.compare(b.seq, a.seq);
+        });
+
+        //The node the last new node was linked after on every level, which
+        // is before every later new node
+        SkipNode[] update = (SkipNode[]) Array.newInstance(SkipNode.class,
+                level + 1);
+        Arrays.fill(update, head);
+
+        for (SkipNode newNode : nodes) {
+            K key = newNode.element().getKey();
+
+            for (int i = 0; i <= newNode.level; i++) {
+                SkipNode current = update[i];
+                while (checkIfSmallerFound(current, key, i)) {
+                    current = current.forward[i];
+                }
+
+                newNode.forward[i] = current.forward[i];
+                current.forward[i] = newNode;
+                update[i] = newNode;
+                if (i == 0) {
+                    linkBackward(newNode, current);
+                }
+            }
+
+            if (valueIndex != null) {
+                newNode.sameValue = valueIndex.put(newNode.element()
+                        .getValue(), newNode);
+            }
+        }
+
+        sequence += nodes.length;
+        size += nodes.length;
+        countSpans();
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -162,6 +499,7 @@ public class SkipList<K extends Comparable<? super K>, V>
         }
 
         removeNodePointers(update, curr);
+        unindexValue(curr);
 
         size--;
         return curr.element();
@@ -172,7 +510,6 @@ public class SkipList<K extends Comparable<? super K>, V>
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     public KVPair<K, V> removeByValue(V val) {
         //Checks for null input and empty list
         if (val == null) {
@@ -182,39 +519,27 @@ public class SkipList<K extends Comparable<? super K>, V>
             return null;
         }
 
-        SkipNode current = head;
-
-        //Find the node with value
-        while (current != null && current.forward[0] != null
-               && !current.forward[0].element().getValue().equals(val)) {
-            current = current.forward[0];
+        SkipNode toBeRemoved;
+        if (valueIndex != null) {
+            toBeRemoved = firstWithValue(val);
+        }
+        else {
+            //Find the node with value
+            toBeRemoved = head.forward[0];
+            while (toBeRemoved != null
+                   && !toBeRemoved.element().getValue().equals(val)) {
+                toBeRemoved = toBeRemoved.forward[0];
+            }
         }
 
         //return null if not found
-        if (current == null || current.forward[0] == null) {
+        if (toBeRemoved == null) {
             return null;
         }
 
-        SkipNode toBeRemoved = current.forward[0];
-
-        current = head;
-        SkipNode[] update = (SkipNode[]) Array.newInstance(SkipNode.class,
-                level + 1);
-
-        //Find all nodes pointing to the to be deleted node
-        while (current != null && current != toBeRemoved) {
-            for (int i = current.level; i > -1; i--) {
-                if (current.forward[i] != null &&
-                    current.forward[i] == toBeRemoved) {
-                    update[i] = current;
-                }
-            }
-
-            current = current.forward[0];
-        }
-
         //Remove node from list
-        removeNodePointers(update, toBeRemoved);
+        removeNodePointers(findPredecessors(toBeRemoved), toBeRemoved);
+        unindexValue(toBeRemoved);
 
         size--;
 
@@ -264,26 +589,259 @@ public class SkipList<K extends Comparable<? super K>, V>
 
     /**
      * Disconnect the removed node from the list. All previous nodes pointing
-     * to it will be nullified, and they will be connected to what the
-     * removed node was pointing to.
+     * to it will be connected to what the removed node was pointing to.
      *
      * @param update     the update array
      * @param removeNode the node to remove
      */
     private void removeNodePointers(SkipNode[] update, SkipNode removeNode) {
-        //Disconnect all previous nodes connected to value
+        //Connect all previous nodes connected to value to the nodes value
+        // was pointing to. Links over the removed node on levels above it
+        // only skip one node less.
         for (int i = 0; i < update.length; i++) {
-            if (update[i] != null) {
-                update[i].forward[i] = null;
+            if (update[i].forward[i] == removeNode) {
+                update[i].span[i] += removeNode.span[i] - 1;
+                update[i].forward[i] = removeNode.forward[i];
+            }
+            else {
+                update[i].span[i]--;
             }
         }
 
-        //Connect all previous nodes connected to nodes value was pointing to
-        for (int i = 0; i < removeNode.forward.length; i++) {
-            if (update[i] != null) {
-                update[i].forward[i] = removeNode.forward[i];
+        if (removeNode.forward[0] != null) {
+            removeNode.forward[0].backward = removeNode.backward;
+        }
+    }
+
+
+    /**
+     * Links the new node after the node on the level, if the new node is
+     * that high, or counts the new node in the span of the link over it
+     * otherwise
+     *
+     * @param newNode      the node being inserted
+     * @param previous     the node before the new node on the level
+     * @param previousRank the position of previous, from 1
+     * @param rank         the position of the node before the new node on
+     *                     the lowest level, from 1
+     * @param i            the level
+     */
+    private void linkAfter(SkipNode newNode, SkipNode previous,
+                           int previousRank, int rank, int i) {
+        if (i > newNode.level) {
+            previous.span[i]++;
+            return;
+        }
+
+        //who the new node points to
+        newNode.forward[i] = previous.forward[i];
+        newNode.span[i] = previous.span[i] - (rank - previousRank);
+        previous.forward[i] = newNode; //who points to the new node
+        previous.span[i] = rank - previousRank + 1;
+    }
+
+
+    /**
+     * Counts the span of every link again in one walk of the lowest level,
+     * for the links made without counting them
+     */
+    @SuppressWarnings("unchecked")
+    private void countSpans() {
+        //Last node reached on every level and its position, from 1
+        SkipNode[] last = (SkipNode[]) Array.newInstance(SkipNode.class,
+                level + 1);
+        Arrays.fill(last, head);
+        int[] rank = new int[level + 1];
+        int position = 0;
+
+        for (SkipNode node = head.forward[0]; node != null;
+             node = node.forward[0]) {
+            position++;
+            for (int i = 0; i <= node.level; i++) {
+                last[i].span[i] = position - rank[i];
+                last[i] = node;
+                rank[i] = position;
+            }
+        }
+
+        for (int i = 0; i <= level; i++) {
+            last[i].span[i] = size - rank[i];
+        }
+    }
+
+
+    /**
+     * Points the inserted node and the node after it back on the lowest
+     * level
+     *
+     * @param newNode  the node just linked on the lowest level
+     * @param previous the node it was linked after, maybe the head
+     */
+    private void linkBackward(SkipNode newNode, SkipNode previous) {
+        newNode.backward = (previous == head) ? null : previous;
+        if (newNode.forward[0] != null) {
+            newNode.forward[0].backward = newNode;
+        }
+    }
+
+
+    /**
+     * Finds the node at the index by adding up the spans of the links
+     * walked from the head
+     *
+     * @param index the index of the node, from 0
+     * @return the node, or null if the index is not less than the size
+     */
+    private SkipNode nodeAt(int index) {
+        if (index >= size) {
+            return null;
+        }
+
+        SkipNode current = head;
+        int traversed = 0;
+
+        for (int i = level; i > -1; i--) {
+            while (current.forward[i] != null
+                   && traversed + current.span[i] <= index + 1) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+        }
+
+        return current;
+    }
+
+
+    /**
+     * Finds the first node with a key greater than or equal to the key
+     *
+     * @param key the key to look for
+     * @return the node, or null if every key is less
+     */
+    private SkipNode firstNotBefore(K key) {
+        SkipNode current = head;
+
+        for (int i = level; i > -1; i--) {
+            while (checkIfSmallerFound(current, key, i)) {
+                current = current.forward[i];
+            }
+        }
+
+        return current.forward[0];
+    }
+
+
+    /**
+     * Finds the last node with a key less than or equal to the key, or the
+     * last node of the list if the key is null
+     *
+     * @param key the key to look for, or null
+     * @return the node, or the head if every key is greater
+     */
+    private SkipNode lastNotAfter(K key) {
+        SkipNode current = head;
+
+        for (int i = level; i > -1; i--) {
+            while (current.forward[i] != null && (key == null
+                    || current.forward[i].element().getKey()
+                               .compareTo(key) <= 0)) {
+                current = current.forward[i];
+            }
+        }
+
+        return current;
+    }
+
+
+    /**
+     * Finds the nodes pointing to the given node on each level by searching
+     * for its position, its key and then its sequence number among the
+     * nodes with an equal key.
+     *
+     * @param target the node in the list
+     * @return the node right before target on every level of the list
+     */
+    @SuppressWarnings("unchecked")
+    private SkipNode[] findPredecessors(SkipNode target) {
+        SkipNode[] update = (SkipNode[]) Array.newInstance(SkipNode.class,
+                level + 1);
+        SkipNode current = head;
+
+        for (int i = level; i > -1; i--) {
+            while (current.forward[i] != null
+                   && isBefore(current.forward[i], target)) {
+                current = current.forward[i];
+            }
+
+            update[i] = current;
+        }
+
+        return update;
+    }
+
+
+    /**
+     * Checks if the node comes before the other in the list, by key and then
+     * by sequence number as later inserted nodes come first among equal keys
+     *
+     * @param node  the node under consideration
+     * @param other the node to compare with
+     * @return true if node is before other
+     */
+    private boolean isBefore(SkipNode node, SkipNode other) {
+        int cmp = node.element().getKey().compareTo(other.element().getKey());
+        return cmp < 0 || (cmp == 0 && node.seq > other.seq);
+    }
+
+
+    /**
+     * Returns the first node in the list holding the value, from the nodes
+     * the value index chains together for it
+     *
+     * @param val the value to look for
+     * @return the first node with an equal value, or null if there is none
+     */
+    private SkipNode firstWithValue(V val) {
+        SkipNode first = valueIndex.get(val);
+
+        for (SkipNode node = first; node != null; node = node.sameValue) {
+            if (isBefore(node, first)) {
+                first = node;
             }
         }
+
+        return first;
+    }
+
+
+    /**
+     * Takes the removed node out of the chain of its value in the value
+     * index, if values are indexed
+     *
+     * @param removed the node removed from the list
+     */
+    private void unindexValue(SkipNode removed) {
+        if (valueIndex == null) {
+            return;
+        }
+
+        V val = removed.element().getValue();
+        SkipNode node = valueIndex.get(val);
+
+        if (node == removed) {
+            if (removed.sameValue == null) {
+                valueIndex.remove(val);
+            }
+            else {
+                valueIndex.put(val, removed.sameValue);
+            }
+            return;
+        }
+
+        while (node.sameValue != removed) {
+            node = node.sameValue;
+        }
+        node.sameValue = removed.sameValue;
     }
 
 
@@ -311,6 +869,9 @@ public class SkipList<K extends Comparable<? super K>, V>
         SkipNode node = new SkipNode(null, newLevel);
         System.arraycopy(head.forward, 0, node.forward, 0,
                 head.forward.length);
+        System.arraycopy(head.span, 0, node.span, 0, head.span.length);
+        //The new levels lead past every node
+        Arrays.fill(node.span, head.span.length, node.span.length, size);
         head = node;
     }
 
@@ -323,21 +884,6 @@ public class SkipList<K extends Comparable<? super K>, V>
         level = newLevel;
     }
 
-    /**
-     * Returns a random level number which is used as the depth of the SkipNode
-     *
-     * @return a random level number
-     */
-    private int randomLevel() {
-        int lev = 0;
-        Random value = new Random();
-        while (Math.abs(value.nextInt()) % 2 == 0) {
-            lev++;
-        }
-
-        return lev; // returns a random level
-    }
-
     /**
      * This class implements a SkipNode for the SkipList data structure.
      *
@@ -349,8 +895,17 @@ public class SkipList<K extends Comparable<? super K>, V>
         private final KVPair<K, V> pair;
         // what is this
         private final SkipNode[] forward;
+        // the number of lowest level steps every forward link skips, or
+        // the number of nodes after this one for a null link
+        private final int[] span;
         // the number of levels
         private final int level;
+        // the sequence number, later inserted nodes have higher ones
+        private long seq;
+        // the next node holding an equal value, if values are indexed
+        private SkipNode sameValue;
+        // the node before on the lowest level, null for the first node
+        private SkipNode backward;
 
         /**
          * Initializes the fields with the required KVPair and the number of
@@ -364,6 +919,7 @@ public class SkipList<K extends Comparable<? super K>, V>
             pair = tempPair;
             forward = (SkipNode[]) Array.newInstance(SkipList.SkipNode.class,
                     level + 1);
+            span = new int[level + 1];
             this.level = level;
         }
 
@@ -420,4 +976,105 @@ public class SkipList<K extends Comparable<? super K>, V>
 
     }
 
+    /**
+     * This class implements an iterator over the nodes of a range, from its
+     * first node on the lowest level to the end of the range or of its
+     * count of nodes.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class RangeIterator implements Iterator<KVPair<K, V>> {
+        private SkipNode current; //Next node, null after the range
+        private final K toKey; //Key the range ends before, or null
+        private int remaining; //Number of nodes left to return at most
+
+        /**
+         * Constructs this class object.
+         *
+         * @param first the first node of the range, or null
+         * @param toKey the key the range ends before, or null
+         * @param count the number of nodes to return at most
+         */
+        public RangeIterator(SkipNode first, K toKey, int count) {
+            this.toKey = toKey;
+            remaining = count;
+            current = first;
+            if (current != null && (remaining == 0 || toKey != null
+                    && current.element().getKey().compareTo(toKey) >= 0)) {
+                current = null;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public KVPair<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+
+            KVPair<K, V> pair = current.element();
+            current = current.forward[0];
+            remaining--;
+            if (current != null && (remaining == 0 || toKey != null
+                    && current.element().getKey().compareTo(toKey) >= 0)) {
+                current = null;
+            }
+
+            return pair;
+        }
+
+    }
+
+    /**
+     * This class implements an iterator walking the lowest level back from
+     * the last node to the first.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class DescendingIterator implements Iterator<KVPair<K, V>> {
+        private SkipNode current; //Next node, null after the first node
+
+        /**
+         * Constructs this class object.
+         *
+         * @param last the last node of the list, or the head if it is empty
+         */
+        public DescendingIterator(SkipNode last) {
+            current = (last == head) ? null : last;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public KVPair<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+
+            KVPair<K, V> pair = current.element();
+            current = current.backward;
+            return pair;
+        }
+
+    }
+
 }
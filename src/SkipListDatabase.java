@@ -1,6 +1,10 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is responsible for interfacing between the command processor and
@@ -17,21 +21,136 @@ import java.util.regex.Pattern;
 public class SkipListDatabase implements Database {
 
     //Size of the world box
-    private static final int WORLD_BOX_WIDTH = 1024;
-    private static final int WORLD_BOX_HEIGHT = 1024;
+    public static final int WORLD_BOX_WIDTH = 1024;
+    public static final int WORLD_BOX_HEIGHT = 1024;
 
     // this is the SkipList object that we are using
     // a string for the name of the rectangle and then
     // a rectangle object, these are stored in a KVPair,
     // see the KVPair class for more information
-    private final SkipList<String, Rectangle> list;
+    private final Container<String, Rectangle> list;
+
+    // the spatial index kept beside the list so that region searches only
+    // look at the rectangles near the region
+    private final SpatialIndex<SequencedPair> index;
+
+    // the sequence number given to the next inserted pair, used to return
+    // pairs with equal names in the order the list holds them
+    private long sequence;
+
+    // the algorithm finding the intersecting rectangles
+    private final IntersectionFinder finder;
+
+    // the naming policy telling the keys accepted from the rejected ones
+    private final KeyValidator keyValidator;
 
     /**
      * Constructor for Database class, will be responsible
      * for initializing the SkipList.
      */
     public SkipListDatabase() {
-        list = new SkipList<>();
+        this(new SkipList<>(new GeometricLevelGenerator(), true),
+                new RTree<>(), new SweepLineIntersections());
+    }
+
+    /**
+     * Constructor for Database class with the given spatial index for region
+     * searches and algorithm for intersections.
+     *
+     * @param index  an empty spatial index to keep the rectangles in
+     * @param finder the algorithm finding the intersecting rectangles
+     * @throws IllegalArgumentException if any parameter is null or the index
+     *                                  is not empty
+     */
+    public SkipListDatabase(SpatialIndex<SequencedPair> index,
+                            IntersectionFinder finder) {
+        this(new SkipList<>(new GeometricLevelGenerator(), true), index,
+                finder);
+    }
+
+    /**
+     * Constructor for Database class over an already filled container. The
+     * spatial index is bulk-loaded from the rectangles in the container.
+     *
+     * @param list the container holding the rectangles of this database
+     * @throws IllegalArgumentException if list is null
+     */
+    public SkipListDatabase(Container<String, Rectangle> list) {
+        this(list, new RTree<>(), new SweepLineIntersections());
+    }
+
+    /**
+     * Constructor for Database class over the given container, which may
+     * already hold rectangles, for instance a ConcurrentSkipList. The
+     * spatial index is bulk-loaded from the rectangles in the container.
+     * <p>
+     * Only the container may be safe to share between threads, the database
+     * itself is not: inserts and removals change the spatial index and the
+     * sequence numbers without any lock, so readers searching while a loader
+     * inserts race with it even on a ConcurrentSkipList. Readers that scale
+     * with a loader would need a concurrent spatial index and an atomic
+     * sequence, which this class does not have; threads sharing the
+     * database must go through an external lock, such as a
+     * ConcurrentDatabase wrapping it.
+     *
+     * @param list   the container holding the rectangles of this database
+     * @param index  an empty spatial index to keep the rectangles in
+     * @param finder the algorithm finding the intersecting rectangles
+     * @throws IllegalArgumentException if any parameter is null or the index
+     *                                  is not empty
+     */
+    public SkipListDatabase(Container<String, Rectangle> list,
+                            SpatialIndex<SequencedPair> index,
+                            IntersectionFinder finder) {
+        this(list, index, finder, AsciiKeyValidator.STANDARD);
+    }
+
+    /**
+     * Constructor for Database class over the given container with the
+     * given naming policy. Keys the policy rejects are neither inserted nor
+     * searched for nor removed. The rectangles already in the container are
+     * kept whatever their keys.
+     *
+     * @param list         the container holding the rectangles of this
+     *                     database
+     * @param index        an empty spatial index to keep the rectangles in
+     * @param finder       the algorithm finding the intersecting rectangles
+     * @param keyValidator the naming policy of the keys
+     * @throws IllegalArgumentException if any parameter is null or the index
+     *                                  is not empty
+     */
+    public SkipListDatabase(Container<String, Rectangle> list,
+                            SpatialIndex<SequencedPair> index,
+                            IntersectionFinder finder,
+                            KeyValidator keyValidator) {
+        if (list == null || index == null || finder == null
+            || keyValidator == null || index.size() != 0) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<String, Rectangle>> pairs = new ArrayList<>();
+        for (KVPair<String, Rectangle> pair : list) {
+            pairs.add(pair);
+        }
+
+        //Pairs earlier in the list must have higher sequence numbers, the
+        // same as if the later ones had been inserted first
+        List<Pair<Rectangle, SequencedPair>> entries =
+                new ArrayList<>(pairs.size());
+        sequence = pairs.size();
+        for (int i = 0; i < pairs.size(); i++) {
+            entries.add(new Pair<>(pairs.get(i).getValue(),
+                    new SequencedPair(pairs.get(i), sequence - 1 - i)));
+        }
+
+        if (!entries.isEmpty()) {
+            index.bulkLoad(entries);
+        }
+
+        this.list = list;
+        this.index = index;
+        this.finder = finder;
+        this.keyValidator = keyValidator;
     }
 
     /**
@@ -51,6 +170,7 @@ public class SkipListDatabase implements Database {
         }
 
         list.insert(pair);
+        index.insert(pair.getValue(), new SequencedPair(pair, sequence++));
 
         return true;
     }
@@ -68,7 +188,7 @@ public class SkipListDatabase implements Database {
             return null;
         }
 
-        return list.remove(name);
+        return unindex(list.remove(name));
     }
 
     /**
@@ -84,7 +204,7 @@ public class SkipListDatabase implements Database {
             return null;
         }
 
-        return list.removeByValue(rectangle);
+        return unindex(list.removeByValue(rectangle));
     }
 
     /**
@@ -93,44 +213,55 @@ public class SkipListDatabase implements Database {
     @Override
     public List<KVPair<String, Rectangle>> regionSearch(int x, int y
             , int w, int h) {
-
-        //Reject if height or width < 0
-        if (w <= 0 || h <= 0) {
+        List<SequencedPair> found = regionCandidates(x, y, w, h);
+        if (found == null) {
             return null;
         }
 
-        //No need to perform actual search if region outside world box
-        if (x + w < 0 || y + h < 0) {
-            return new ArrayList<>();
+        List<KVPair<String, Rectangle>> rectangles =
+                new ArrayList<>(found.size());
+        for (SequencedPair sequenced : found) {
+            rectangles.add(sequenced.getPair());
         }
 
-        //Adjust x, y, width and height of region
-        if (x < 0) {
-            w = w + x;
-            x = 0;
-        }
+        return rectangles;
+    }
 
-        if (y < 0) {
-            h = h + y;
-            y = 0;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean regionSearch(int x, int y, int w, int h,
+                                ResultVisitor<KVPair<String, Rectangle>>
+                                        visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException();
         }
 
-        w = Math.min(w, WORLD_BOX_WIDTH);
-        h = Math.min(h, WORLD_BOX_HEIGHT);
-
-        Rectangle region = new Rectangle(x, y, w, h);
-        List<KVPair<String, Rectangle>> rectangles = new ArrayList<>();
+        List<SequencedPair> found = regionCandidates(x, y, w, h);
+        if (found == null) {
+            return null;
+        }
 
-        //Find the rectangles that intersect or are contained within the region
-        for (KVPair<String, Rectangle> pair : list) {
-            if (region.intersects(pair.getValue())
-                || pair.getValue().intersects(region)
-                || region.contains(pair.getValue())) {
-                rectangles.add(pair);
+        for (SequencedPair sequenced : found) {
+            if (!visitor.visit(sequenced.getPair())) {
+                return false;
             }
         }
 
-        return rectangles;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<KVPair<String, Rectangle>> regionSearchStream(int x, int y,
+                                                                int w,
+                                                                int h) {
+        List<SequencedPair> found = regionCandidates(x, y, w, h);
+        return (found == null) ? Stream.empty()
+                : found.stream().map(SequencedPair::getPair);
     }
 
     /**
@@ -139,25 +270,47 @@ public class SkipListDatabase implements Database {
     @Override
     public List<Pair<KVPair<String, Rectangle>,
             KVPair<String, Rectangle>>> intersections() {
+        IntersectionSpliterator found = new IntersectionSpliterator();
 
         List<Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>>
-                intersectingPairs = new ArrayList<>();
-
-        //Loop through each rectangle and compare with each other
-        for (KVPair<String, Rectangle> outer : list) {
-            for (KVPair<String, Rectangle> inner : list) {
-                //If rectangle not compared with itself, and rectangles
-                // intersect each-other, and rectangles are not nested within
-                // each-other then true, otherwise false.
-                if (outer.getValue() != inner.getValue()
-                    && ((outer.getValue().intersects(inner.getValue())
-                         || inner.getValue().intersects(outer.getValue())))) {
-                    intersectingPairs.add(new Pair<>(outer, inner));
-                }
+                intersectingPairs = new ArrayList<>((int) found.count);
+        found.forEachRemaining(intersectingPairs::add);
+
+        return intersectingPairs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean intersections(ResultVisitor<Pair<KVPair<String,
+            Rectangle>, KVPair<String, Rectangle>>> visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException();
+        }
+
+        IntersectionSpliterator found = new IntersectionSpliterator();
+        for (Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>> pair =
+             found.next(); pair != null; pair = found.next()) {
+            if (!visitor.visit(pair)) {
+                return false;
             }
         }
 
-        return intersectingPairs;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The intersecting rectangles are only found once the stream is
+     * consumed, and every pair is only created when it is reached.
+     */
+    @Override
+    public Stream<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> intersectionStream() {
+        return StreamSupport.stream(IntersectionSpliterator::new,
+                IntersectionSpliterator.CHARACTERISTICS, false);
     }
 
     /**
@@ -176,6 +329,95 @@ public class SkipListDatabase implements Database {
         return list.search(name);
     }
 
+    /**
+     * {@inheritDoc}
+     * The names are searched as the range from the prefix to the least
+     * string greater than every name starting with it.
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> prefixSearch(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<String, Rectangle>> found = new ArrayList<>();
+        for (KVPair<String, Rectangle> pair
+                : list.range(prefix, prefixEnd(prefix))) {
+            found.add(pair);
+        }
+
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The page starts at the index of the first rectangle with the name
+     * plus the offset, without walking the rectangles before it when the
+     * list finds indexes by searching.
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> search(String name, int offset,
+                                                  int count) {
+        if (name == null || offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (!validateKey(name)) {
+            return null;
+        }
+
+        List<KVPair<String, Rectangle>> found = new ArrayList<>();
+        long start = (long) list.rankOf(name) + offset;
+        if (start >= list.size()) {
+            return found;
+        }
+
+        for (KVPair<String, Rectangle> pair : list.page((int) start, count)) {
+            if (!pair.getKey().equals(name)) {
+                break;
+            }
+            found.add(pair);
+        }
+
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<KVPair<String, Rectangle>> listAll(int offset, int count) {
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        List<KVPair<String, Rectangle>> found = new ArrayList<>();
+        for (KVPair<String, Rectangle> pair : list.page(offset, count)) {
+            found.add(pair);
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the least string greater than every string starting with the
+     * prefix, by increasing its last char that is not the greatest char
+     * and cutting off the chars after it
+     *
+     * @param prefix the prefix
+     * @return the string, or null if every char is the greatest
+     */
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -185,15 +427,74 @@ public class SkipListDatabase implements Database {
     }
 
     /**
-     * Checks if the input is a valid key for SkipLists Database.
+     * Removes the pair from the spatial index if it was removed from the
+     * list.
+     *
+     * @param removed the pair removed from the list, or null
+     * @return the removed pair
+     */
+    private KVPair<String, Rectangle> unindex(
+            KVPair<String, Rectangle> removed) {
+        if (removed != null) {
+            index.remove(removed.getValue(), new SequencedPair(removed, 0));
+        }
+
+        return removed;
+    }
+
+    /**
+     * Finds the pairs whose rectangles share some area with the region, in
+     * the order the list holds them.
+     *
+     * @param x x-Coordinate of the region
+     * @param y y-Coordinate of the region
+     * @param w width of the region
+     * @param h height of the region
+     * @return the sorted pairs found, or null if the region is rejected
+     */
+    private List<SequencedPair> regionCandidates(int x, int y, int w, int h) {
+        //Reject if height or width < 0
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+
+        //No need to perform actual search if region outside world box
+        if (x + w < 0 || y + h < 0) {
+            return new ArrayList<>();
+        }
+
+        //Adjust x, y, width and height of region
+        if (x < 0) {
+            w = w + x;
+            x = 0;
+        }
+
+        if (y < 0) {
+            h = h + y;
+            y = 0;
+        }
+
+        w = Math.min(w, WORLD_BOX_WIDTH);
+        h = Math.min(h, WORLD_BOX_HEIGHT);
+
+        //Find the rectangles that intersect or are contained within the region
+        List<SequencedPair> found =
+                index.search(new Rectangle(x, y, w, h));
+
+        //Return them in the order the list holds them
+        Collections.sort(found);
+        return found;
+    }
+
+    /**
+     * Checks if the input is a valid key for SkipLists Database, by the
+     * naming policy it was given.
      *
      * @param key the possible key to check
      * @return boolean value of validation result
      */
-    private Boolean validateKey(String key) {
-        //Regex match starting with letter,
-        // then any character or digit or underscore
-        return Pattern.compile("^[a-zA-Z][\\w_]*$").matcher(key).find();
+    private boolean validateKey(String key) {
+        return keyValidator.isValid(key);
     }
 
     /**
@@ -207,4 +508,98 @@ public class SkipListDatabase implements Database {
                     || rectangle.x + rectangle.width > WORLD_BOX_WIDTH
                     || rectangle.y + rectangle.height > WORLD_BOX_HEIGHT);
     }
+
+    /**
+     * This class finds the intersecting rectangles of the list when created
+     * and then hands out the intersecting pairs one at a time, from both
+     * sides and in the order of the list, creating each pair only when it
+     * is reached.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private class IntersectionSpliterator extends Spliterators
+            .AbstractSpliterator<Pair<KVPair<String, Rectangle>,
+            KVPair<String, Rectangle>>> {
+
+        //Characteristics of the spliterator and the streams made from it
+        private static final int CHARACTERISTICS = ORDERED | NONNULL | SIZED;
+
+        private final List<KVPair<String, Rectangle>> pairs; //Pairs of the
+                                                             // list in order
+        private final int[][] partners; //Partners of every position
+        private final long count; //Number of intersecting pairs
+        private int position; //Position whose partners are handed out
+        private int next; //Index of the next partner of position
+        private long handedOut; //Number of pairs handed out
+
+        /**
+         * Finds the intersecting rectangles of the list
+         */
+        public IntersectionSpliterator() {
+            super(Long.MAX_VALUE, CHARACTERISTICS);
+
+            pairs = new ArrayList<>(list.size());
+            List<Rectangle> rectangles = new ArrayList<>(list.size());
+            for (KVPair<String, Rectangle> pair : list) {
+                pairs.add(pair);
+                rectangles.add(pair.getValue());
+            }
+
+            //Positions of the rectangles intersecting the one at each
+            // position
+            partners = finder.find(rectangles);
+
+            long total = 0;
+            for (int[] row : partners) {
+                total += row.length;
+            }
+            count = total;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Pair<KVPair<String,
+                Rectangle>, KVPair<String, Rectangle>>> action) {
+            Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>> pair =
+                    next();
+            if (pair == null) {
+                return false;
+            }
+
+            action.accept(pair);
+            return true;
+        }
+
+        /**
+         * Creates the next intersecting pair
+         *
+         * @return the next pair, or null if all were handed out
+         */
+        public Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>
+                next() {
+            while (position < partners.length
+                   && next == partners[position].length) {
+                position++;
+                next = 0;
+            }
+
+            if (position == partners.length) {
+                return null;
+            }
+
+            handedOut++;
+            return new Pair<>(pairs.get(position),
+                    pairs.get(partners[position][next++]));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long estimateSize() {
+            return count - handedOut;
+        }
+    }
 }
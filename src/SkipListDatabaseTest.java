@@ -3,6 +3,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -1249,4 +1250,373 @@ public class SkipListDatabaseTest {
     public void testValidateRectangle() {
         assertFalse(rectEmpty.validateRectangle(null));
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Tests if region search returns rectangles with equal names in the
+     * order of the SkipList, that is the latest inserted first
+     */
+    @Test
+    public void testDuplicateNamesRegionSearchOrder() {
+        rectEmpty.insert(new KVPair<>("D", new Rectangle(5, 5, 10, 10)));
+        rectEmpty.insert(new KVPair<>("A", new Rectangle(0, 0, 10, 10)));
+        rectEmpty.insert(new KVPair<>("D", new Rectangle(1, 1, 10, 10)));
+
+        List<KVPair<String, Rectangle>> found =
+                rectEmpty.regionSearch(0, 0, 20, 20);
+
+        assertEquals("[A, 0, 0, 10, 10, D, 1, 1, 10, 10, D, 5, 5, 10, 10]",
+                found.toString());
+    }
+
+
+    /**
+     * Tests if rectangles removed by name and by value are not found by
+     * region search anymore
+     */
+    @Test
+    public void testRect3RemovedRegionSearch() {
+        rect3.remove("A");
+        rect3.removeByValue(new Rectangle(1000, 1000, 24, 24));
+
+        List<KVPair<String, Rectangle>> found =
+                rect3.regionSearch(0, 0, 1024, 1024);
+
+        assertEquals(1, found.size());
+        assertEquals(rectBMiddle, found.get(0));
+    }
+
+
+    /**
+     * Tests if a database created over a filled SkipList finds its
+     * rectangles by region in the order of the list
+     */
+    @Test
+    public void testFilledListRegionSearch() {
+        SkipList<String, Rectangle> list = new SkipList<>();
+        list.insert(rectCBottomRight);
+        list.insert(new KVPair<>("A", new Rectangle(2, 2, 5, 5)));
+        list.insert(rectAUpperLeft);
+
+        SkipListDatabase db = new SkipListDatabase(list);
+        db.insert(new KVPair<>("A", new Rectangle(3, 3, 5, 5)));
+
+        assertEquals("[A, 3, 3, 5, 5, A, 0, 0, 10, 10, A, 2, 2, 5, 5]",
+                db.regionSearch(0, 0, 20, 20).toString());
+        assertEquals(1, db.regionSearch(1000, 1000, 10, 10).size());
+    }
+
+
+    /**
+     * Tests if intersections reports every pair from both sides in the
+     * order of the SkipList
+     */
+    @Test
+    public void testIntersectionOrder() {
+        rectEmpty.insert(new KVPair<>("r3", new Rectangle(7, 7, 10, 10)));
+        rectEmpty.insert(new KVPair<>("r1", new Rectangle(10, 10, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r2", new Rectangle(15, 15, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r4", new Rectangle(20, 20, 5, 5)));
+
+        assertEquals("[r1, 10, 10, 5, 5 | r3, 7, 7, 10, 10, "
+                     + "r2, 15, 15, 5, 5 | r3, 7, 7, 10, 10, "
+                     + "r3, 7, 7, 10, 10 | r1, 10, 10, 5, 5, "
+                     + "r3, 7, 7, 10, 10 | r2, 15, 15, 5, 5]",
+                rectEmpty.intersections().toString());
+    }
+
+
+    /**
+     * Tests if a database on a grid finds rectangles by region and
+     * intersections like the default one
+     */
+    @Test
+    public void testGridDatabase() {
+        SkipListDatabase grid = new SkipListDatabase(
+                new GridIndex<>(SkipListDatabase.WORLD_BOX_WIDTH,
+                        SkipListDatabase.WORLD_BOX_HEIGHT, 32),
+                new GridIntersections(SkipListDatabase.WORLD_BOX_WIDTH,
+                        SkipListDatabase.WORLD_BOX_HEIGHT));
+        grid.insert(rectAUpperLeft);
+        grid.insert(rectBMiddle);
+        grid.insert(new KVPair<>("ULI", new Rectangle(0, 0, 15, 15)));
+        grid.remove("A");
+
+        assertEquals("[B, 10, 10, 990, 990, ULI, 0, 0, 15, 15]",
+                grid.regionSearch(0, 0, 20, 20).toString());
+        assertEquals("[B, 10, 10, 990, 990 | ULI, 0, 0, 15, 15, "
+                     + "ULI, 0, 0, 15, 15 | B, 10, 10, 990, 990]",
+                grid.intersections().toString());
+    }
+
+
+    /**
+     * Tests if a database on off-heap columns finds rectangles by region
+     * and intersections like the default one, after removals move slots
+     */
+    @Test
+    public void testColumnDatabase() {
+        SkipListDatabase columns = new SkipListDatabase(new ColumnIndex<>(),
+                new ColumnIntersections());
+        for (SkipListDatabase db : new SkipListDatabase[]{columns, rect3}) {
+            db.insert(new KVPair<>("ULI", new Rectangle(0, 0, 15, 15)));
+            db.insert(new KVPair<>("D", new Rectangle(500, 500, 30, 30)));
+            db.insert(new KVPair<>("E", new Rectangle(520, 0, 30, 600)));
+            db.remove("ULI");
+        }
+        columns.insert(rectBMiddle);
+        columns.insert(rectCBottomRight);
+        columns.insert(rectAUpperLeft);
+
+        assertEquals(rect3.regionSearch(0, 0, 1024, 1024),
+                columns.regionSearch(0, 0, 1024, 1024));
+        assertEquals(rect3.regionSearch(510, 20, 20, 500),
+                columns.regionSearch(510, 20, 20, 500));
+        assertEquals(rect3.intersections(), columns.intersections());
+        assertEquals(rect3.removeByValue(new Rectangle(500, 500, 30, 30)),
+                columns.removeByValue(new Rectangle(500, 500, 30, 30)));
+        assertEquals(rect3.intersections(), columns.intersections());
+    }
+
+
+    /**
+     * Tests if a database cannot be created on an index that is not empty
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFilledIndexDatabase() {
+        RTree<SequencedPair> index = new RTree<>();
+        index.insert(rectAUpperLeft.getValue(),
+                new SequencedPair(rectAUpperLeft, 0));
+
+        new SkipListDatabase(index, new SweepLineIntersections());
+        fail();
+    }
+
+
+    /**
+     * Tests if a database on a filled ConcurrentSkipList and grid index
+     * returns rectangles in the order of the list
+     */
+    @Test
+    public void testConcurrentListDatabase() {
+        ConcurrentSkipList<String, Rectangle> list =
+                new ConcurrentSkipList<>();
+        list.insert(rectCBottomRight);
+        list.insert(new KVPair<>("A", new Rectangle(2, 2, 5, 5)));
+        list.insert(rectAUpperLeft);
+
+        SkipListDatabase db = new SkipListDatabase(list,
+                new GridIndex<>(SkipListDatabase.WORLD_BOX_WIDTH,
+                        SkipListDatabase.WORLD_BOX_HEIGHT),
+                new SweepLineIntersections());
+        db.insert(new KVPair<>("A", new Rectangle(3, 3, 5, 5)));
+
+        assertEquals("[A, 3, 3, 5, 5, A, 0, 0, 10, 10, A, 2, 2, 5, 5]",
+                db.regionSearch(0, 0, 20, 20).toString());
+        assertEquals("A, 3, 3, 5, 5", db.remove("A").toString());
+        assertEquals(2, db.regionSearch(0, 0, 20, 20).size());
+        assertEquals(3, list.size());
+    }
+
+
+    /**
+     * Tests that the visiting and stream variants of regionSearch return the
+     * same rectangles in the same order as the list variant, and stop early
+     */
+    @Test
+    public void testRegionSearchVisitorAndStream() {
+        rectEmpty.insert(new KVPair<>("r3", new Rectangle(7, 7, 10, 10)));
+        rectEmpty.insert(new KVPair<>("r1", new Rectangle(10, 10, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r2", new Rectangle(15, 15, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r1", new Rectangle(0, 0, 5, 5)));
+
+        List<KVPair<String, Rectangle>> expected =
+                rectEmpty.regionSearch(0, 0, 100, 100);
+        List<KVPair<String, Rectangle>> visited = new ArrayList<>();
+        assertTrue(rectEmpty.regionSearch(0, 0, 100, 100, visited::add));
+        assertEquals(expected, visited);
+        assertEquals(expected, rectEmpty.regionSearchStream(0, 0, 100, 100)
+                .collect(Collectors.toList()));
+
+        visited.clear();
+        assertFalse(rectEmpty.regionSearch(0, 0, 100, 100,
+                ResultVisitor.limit(2, visited::add)));
+        assertEquals(expected.subList(0, 2), visited);
+        assertEquals(expected.subList(0, 1), rectEmpty
+                .regionSearchStream(0, 0, 100, 100).limit(1)
+                .collect(Collectors.toList()));
+
+        assertNull(rectEmpty.regionSearch(0, 0, 0, 100, visited::add));
+        assertEquals(0, rectEmpty.regionSearchStream(0, 0, 0, 100).count());
+    }
+
+    /**
+     * Tests that the visiting and stream variants of intersections return
+     * the same pairs in the same order as the list variant, and stop early
+     */
+    @Test
+    public void testIntersectionsVisitorAndStream() {
+        rectEmpty.insert(new KVPair<>("r3", new Rectangle(7, 7, 10, 10)));
+        rectEmpty.insert(new KVPair<>("r1", new Rectangle(10, 10, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r2", new Rectangle(15, 15, 5, 5)));
+        rectEmpty.insert(new KVPair<>("r4", new Rectangle(20, 20, 5, 5)));
+
+        String expected = rectEmpty.intersections().toString();
+        List<Pair<KVPair<String, Rectangle>, KVPair<String, Rectangle>>>
+                visited = new ArrayList<>();
+        assertTrue(rectEmpty.intersections(visited::add));
+        assertEquals(expected, visited.toString());
+        assertEquals(expected, rectEmpty.intersectionStream()
+                .collect(Collectors.toList()).toString());
+        assertEquals(4, rectEmpty.intersectionStream().count());
+
+        visited.clear();
+        assertFalse(rectEmpty.intersections(
+                ResultVisitor.limit(3, visited::add)));
+        assertEquals(3, visited.size());
+        assertEquals("r1, 10, 10, 5, 5 | r3, 7, 7, 10, 10",
+                rectEmpty.intersectionStream().findFirst().get().toString());
+    }
+
+    /**
+     * Tests that the visiting variants reject a null visitor
+     */
+    @Test
+    public void testNullVisitor() {
+        try {
+            rectEmpty.regionSearch(0, 0, 1, 1, null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            rectEmpty.intersections(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+
+    /**
+     * Tests that a database with its own naming policy inserts, searches
+     * and removes only the keys the policy accepts
+     */
+    @Test
+    public void testKeyValidator() {
+        KeyValidator policy = new AsciiKeyValidator("a-z", "a-z0-9-", 8)
+                .and(key -> !key.toString().equals("admin"));
+        SkipListDatabase db = new SkipListDatabase(new SkipList<>(),
+                new RTree<>(), new SweepLineIntersections(), policy);
+
+        assertTrue(db.insert(new KVPair<>("rect-1", new Rectangle(1, 1, 2,
+                2))));
+        assertFalse(db.insert(new KVPair<>("Rect1", new Rectangle(1, 1, 2,
+                2))));
+        assertFalse(db.insert(new KVPair<>("admin", new Rectangle(1, 1, 2,
+                2))));
+        assertFalse(db.insert(new KVPair<>("rectangle", new Rectangle(1, 1,
+                2, 2))));
+
+        assertNull(db.search("Rect1"));
+        assertEquals(1, db.search("rect-1").size());
+        assertNull(db.remove("admin"));
+        assertEquals("rect-1, 1, 1, 2, 2", db.remove("rect-1").toString());
+
+        try {
+            new SkipListDatabase(new SkipList<>(), new RTree<>(),
+                    new SweepLineIntersections(), null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that a prefix search finds every name starting with the prefix
+     * and no other, in the order of a dump, on the SkipList and on a list
+     * that does not override range
+     */
+    @Test
+    public void testPrefixSearch() {
+        List<Database> databases = new ArrayList<>();
+        databases.add(rect3);
+        databases.add(new SkipListDatabase(new ConcurrentSkipList<>()));
+        for (String name : new String[]{"A", "B", "C"}) {
+            databases.get(1).insert(rect3.search(name).get(0));
+        }
+
+        for (Database db : databases) {
+            db.insert(new KVPair<>("tenant1_a", new Rectangle(1, 1, 2, 2)));
+            db.insert(new KVPair<>("tenant1_b", new Rectangle(2, 2, 2, 2)));
+            db.insert(new KVPair<>("tenant1", new Rectangle(3, 3, 2, 2)));
+            db.insert(new KVPair<>("tenant1_a", new Rectangle(4, 4, 2, 2)));
+            db.insert(new KVPair<>("tenant2_a", new Rectangle(5, 5, 2, 2)));
+            db.insert(new KVPair<>("tenant10", new Rectangle(6, 6, 2, 2)));
+
+            assertEquals("[tenant1, 3, 3, 2, 2, tenant10, 6, 6, 2, 2, "
+                         + "tenant1_a, 4, 4, 2, 2, tenant1_a, 1, 1, 2, 2, "
+                         + "tenant1_b, 2, 2, 2, 2]",
+                    db.prefixSearch("tenant1").toString());
+            assertEquals(2, db.prefixSearch("tenant1_a").size());
+            assertEquals(9, db.prefixSearch("").size());
+            assertEquals("[]", db.prefixSearch("tenant3").toString());
+            assertEquals("[]", db.prefixSearch("\uffff").toString());
+            assertEquals(6, db.prefixSearch("t").size());
+            assertEquals(1, db.prefixSearch("B").size());
+        }
+
+        try {
+            rect3.prefixSearch(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that pages of a search and of all the rectangles hold the
+     * rectangles search and a dump list at their offsets
+     */
+    @Test
+    public void testPagination() {
+        for (int i = 0; i < 25; i++) {
+            rect3.insert(new KVPair<>("B", new Rectangle(i, i, 5, 5)));
+        }
+        List<KVPair<String, Rectangle>> named = rect3.search("B");
+        List<KVPair<String, Rectangle>> all = rect3.listAll(0, 100);
+
+        assertEquals(28, all.size());
+        assertEquals(rectAUpperLeft, all.get(0));
+        assertEquals(named, all.subList(1, 27));
+        assertEquals(named.subList(10, 20), rect3.search("B", 10, 10));
+        assertEquals(named.subList(20, 26), rect3.search("B", 20, 10));
+        assertEquals(all.subList(25, 28), rect3.listAll(25, 10));
+        assertEquals(0, rect3.search("B", 26, 10).size());
+        assertEquals(0, rect3.search("D", 0, 10).size());
+        assertEquals(0, rect3.listAll(28, 10).size());
+        assertEquals(0, rect3.search("B", Integer.MAX_VALUE, 1).size());
+        assertNull(rect3.search("1B", 0, 10));
+
+        try {
+            rect3.search("B", -1, 10);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            rect3.listAll(0, -1);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+}
@@ -3,6 +3,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -572,4 +575,526 @@ public class SkipListTest {
         assertTrue(dump.contains("Node has depth 1, Value (null)"));
         assertTrue(dump.contains("SkipList size is: 0"));
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Tests that removeByValue on an indexed list removes the first pair in
+     * the list holding the value, among equal keys the latest inserted
+     */
+    @Test
+    public void testIndexedRemoveByValueOrder() {
+        SkipList<String, String> list = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        list.insert(new KVPair<>("C", "1"));
+        list.insert(new KVPair<>("B", "1"));
+        list.insert(new KVPair<>("B", "2"));
+        list.insert(new KVPair<>("B", "1"));
+        list.insert(new KVPair<>("A", "3"));
+
+        assertEquals("[(A, 3), (B, 1), (B, 2), (B, 1), (C, 1)]:5",
+                list.toString());
+        assertSame(list.search("B").get(0), list.removeByValue("1"));
+        assertEquals("[(A, 3), (B, 2), (B, 1), (C, 1)]:4", list.toString());
+        assertEquals("B, 1", list.removeByValue("1").toString());
+        assertEquals("C, 1", list.removeByValue("1").toString());
+        assertNull(list.removeByValue("1"));
+        assertEquals("[(A, 3), (B, 2)]:2", list.toString());
+    }
+
+    /**
+     * Tests that removing by key keeps the value index of an indexed list
+     * up to date
+     */
+    @Test
+    public void testIndexedRemoveKeepsIndex() {
+        SkipList<String, String> list = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        list.insert(new KVPair<>("A", "1"));
+        list.insert(new KVPair<>("B", "1"));
+        list.insert(new KVPair<>("C", "2"));
+
+        assertEquals("A, 1", list.remove("A").toString());
+        assertEquals("B, 1", list.removeByValue("1").toString());
+        assertNull(list.removeByValue("1"));
+        assertEquals("C, 2", list.removeByValue("2").toString());
+        assertTrue(list.isEmpty());
+
+        list.insert(new KVPair<>("D", "2"));
+        assertEquals("D, 2", list.removeByValue("2").toString());
+    }
+
+    /**
+     * Tests that indexed and plain lists remove the same pairs by value
+     * through a long random sequence of changes
+     */
+    @Test
+    public void testIndexedMatchesPlain() {
+        SkipList<String, String> plain = new SkipList<>();
+        SkipList<String, String> indexed = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(20);
+            String value = "v" + random.nextInt(20);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    KVPair<String, String> pair = new KVPair<>(key, value);
+                    plain.insert(pair);
+                    indexed.insert(pair);
+                    break;
+                case 1:
+                    assertSame(plain.remove(key), indexed.remove(key));
+                    break;
+                default:
+                    assertSame(plain.removeByValue(value),
+                            indexed.removeByValue(value));
+                    break;
+            }
+        }
+
+        assertEquals(plain.toString(), indexed.toString());
+    }
+
+    /**
+     * Tests that a list built from sorted pairs holds them in the same
+     * order as a list they were inserted in, and keeps working as one
+     */
+    @Test
+    public void testSortedConstructor() {
+        SkipList<String, String> inserted = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            inserted.insert(new KVPair<>("k" + random.nextInt(300),
+                    "v" + random.nextInt(50)));
+        }
+
+        SkipList<String, String> built = new SkipList<>(
+                new GeometricLevelGenerator(), true, inserted);
+        assertEquals(inserted.toString(), built.toString());
+        assertEquals(inserted.size(), built.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(inserted.search("k" + i), built.search("k" + i));
+        }
+
+        for (int i = 0; i < 3000; i++) {
+            String key = "k" + random.nextInt(300);
+            String value = "v" + random.nextInt(50);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    KVPair<String, String> pair = new KVPair<>(key, value);
+                    inserted.insert(pair);
+                    built.insert(pair);
+                    break;
+                case 1:
+                    assertSame(inserted.remove(key), built.remove(key));
+                    break;
+                default:
+                    assertSame(inserted.removeByValue(value),
+                            built.removeByValue(value));
+                    break;
+            }
+        }
+        assertEquals(inserted.toString(), built.toString());
+    }
+
+    /**
+     * Tests that building the same pairs twice gives the same levels, spaced
+     * the way the generator spaces them
+     */
+    @Test
+    public void testSortedConstructorLevels() {
+        List<KVPair<String, String>> pairs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            pairs.add(new KVPair<>("k" + i, "v"));
+        }
+
+        SkipList<String, String> first = new SkipList<>(
+                new GeometricLevelGenerator(), false, pairs);
+        SkipList<String, String> second = new SkipList<>(
+                new GeometricLevelGenerator(), false, pairs);
+
+        assertEquals(first.dump(), second.dump());
+        assertEquals("SkipList dump:\nNode has depth 4, Value (null)"
+                     + "\nNode has depth 1, Value (k0, v)"
+                     + "\nNode has depth 2, Value (k1, v)"
+                     + "\nNode has depth 1, Value (k2, v)"
+                     + "\nNode has depth 3, Value (k3, v)"
+                     + "\nNode has depth 1, Value (k4, v)"
+                     + "\nNode has depth 2, Value (k5, v)"
+                     + "\nNode has depth 1, Value (k6, v)"
+                     + "\nNode has depth 4, Value (k7, v)"
+                     + "\nSkipList size is: 8", first.dump());
+        assertEquals("[]:0", new SkipList<String, String>(
+                new GeometricLevelGenerator(), false,
+                new ArrayList<>()).toString());
+    }
+
+    /**
+     * Tests that pairs out of order or null are rejected
+     */
+    @Test
+    public void testSortedConstructorInvalid() {
+        List<KVPair<String, String>> pairs = new ArrayList<>();
+        pairs.add(new KVPair<>("B", "1"));
+        pairs.add(new KVPair<>("A", "1"));
+
+        try {
+            new SkipList<>(new GeometricLevelGenerator(), false, pairs);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        pairs.set(1, null);
+        try {
+            new SkipList<>(new GeometricLevelGenerator(), false, pairs);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            new SkipList<String, String>(new GeometricLevelGenerator(),
+                    false, null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that inserting batches at once gives the same list as inserting
+     * their pairs one by one, for batches larger and smaller than the list
+     * and with keys equal to each other and to keys in the list
+     */
+    @Test
+    public void testInsertAllMatchesInsert() {
+        SkipList<String, String> one = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        SkipList<String, String> all = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        Random random = new Random(17);
+        int[] batchSizes = {0, 1, 500, 3, 2000, 40, 1, 7000};
+
+        for (int batchSize : batchSizes) {
+            List<KVPair<String, String>> batch = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(new KVPair<>("k" + random.nextInt(400),
+                        "v" + random.nextInt(30)));
+            }
+
+            for (KVPair<String, String> pair : batch) {
+                one.insert(pair);
+            }
+            all.insertAll(batch);
+            assertEquals(one.toString(), all.toString());
+
+            for (int i = 0; i < 50; i++) {
+                String value = "v" + random.nextInt(30);
+                assertSame(one.removeByValue(value), all.removeByValue(value));
+                String key = "k" + random.nextInt(400);
+                assertSame(one.remove(key), all.remove(key));
+            }
+        }
+
+        assertEquals(one.toString(), all.toString());
+        for (int i = 0; i < 400; i++) {
+            assertEquals(one.search("k" + i), all.search("k" + i));
+        }
+    }
+
+    /**
+     * Tests that a stream is inserted in its order, and nothing is inserted
+     * from a batch holding a null pair
+     */
+    @Test
+    public void testInsertAllStreamAndNull() {
+        listA1B2C3.insertAll(Stream.of(new KVPair<>("B", "4"),
+                new KVPair<>("D", "5"), new KVPair<>("B", "6")));
+        assertEquals("[(A, 1), (B, 6), (B, 4), (B, 2), (C, 3), (D, 5)]:6",
+                listA1B2C3.toString());
+
+        List<KVPair<String, String>> batch = new ArrayList<>();
+        batch.add(new KVPair<>("E", "7"));
+        batch.add(null);
+        try {
+            listEmpty.insertAll(batch);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+        assertEquals("[]:0", listEmpty.toString());
+
+        try {
+            listEmpty.insertAll((Iterable<KVPair<String, String>>) null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests ranges, floor, ceiling and last with equal keys, bounds between
+     * keys, open bounds and empty ranges
+     */
+    @Test
+    public void testRangeFloorCeiling() {
+        listA1B2C3.insert(new KVPair<>("B", "4"));
+
+        assertEquals("[B, 4, B, 2]", contents(listA1B2C3.range("B", "C")));
+        assertEquals("[B, 4, B, 2]", contents(listA1B2C3.range("AA", "BB")));
+        assertEquals("[A, 1]", contents(listA1B2C3.range(null, "B")));
+        assertEquals("[B, 4, B, 2, C, 3]",
+                contents(listA1B2C3.range("B", null)));
+        assertEquals("[]", contents(listA1B2C3.range("B", "B")));
+        assertEquals("[]", contents(listA1B2C3.range("D", null)));
+        assertEquals("[]", contents(listEmpty.range(null, null)));
+        assertEquals("[C, 3, B, 2, B, 4, A, 1]",
+                contents(listA1B2C3.descending()));
+        assertEquals("[]", contents(listEmpty.descending()));
+
+        assertEquals("4", listA1B2C3.floor("B").getValue());
+        assertEquals("4", listA1B2C3.floor("BZ").getValue());
+        assertEquals("3", listA1B2C3.floor("Z").getValue());
+        assertNull(listA1B2C3.floor("0"));
+        assertEquals("4", listA1B2C3.ceiling("AZ").getValue());
+        assertEquals("1", listA1B2C3.ceiling("0").getValue());
+        assertNull(listA1B2C3.ceiling("D"));
+        assertEquals("3", listA1B2C3.last().getValue());
+        assertNull(listEmpty.last());
+        assertNull(listEmpty.floor("A"));
+
+        try {
+            listA1B2C3.range("C", "A");
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            listA1B2C3.floor(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            listA1B2C3.range("C", null).iterator().next();
+            listA1B2C3.range("D", null).iterator().next();
+            fail();
+        }
+        catch (NoSuchElementException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Tests that ranges, floor, ceiling and the descending view agree with
+     * the ConcurrentSkipList, which finds them by iterating, while pairs
+     * are inserted, inserted in batches and removed, and on a list built
+     * from sorted pairs
+     */
+    @Test
+    public void testNavigationMatchesConcurrent() {
+        SkipList<String, String> list = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        ConcurrentSkipList<String, String> expected =
+                new ConcurrentSkipList<>();
+        Random random = new Random(19);
+
+        for (int round = 0; round < 30; round++) {
+            List<KVPair<String, String>> batch = new ArrayList<>();
+            for (int i = random.nextInt(200); i > 0; i--) {
+                batch.add(new KVPair<>("k" + random.nextInt(300),
+                        "v" + random.nextInt(40)));
+            }
+            if (round % 2 == 0) {
+                list.insertAll(batch);
+            }
+            else {
+                for (KVPair<String, String> pair : batch) {
+                    list.insert(pair);
+                }
+            }
+            expected.insertAll(batch);
+
+            for (int i = random.nextInt(60); i > 0; i--) {
+                String key = "k" + random.nextInt(300);
+                assertSame(expected.remove(key), list.remove(key));
+                String value = "v" + random.nextInt(40);
+                assertSame(expected.removeByValue(value),
+                        list.removeByValue(value));
+            }
+
+            assertNavigation(expected, list, random);
+        }
+
+        SkipList<String, String> built = new SkipList<>(
+                new GeometricLevelGenerator(), false, list);
+        assertNavigation(expected, built, random);
+        built.remove(built.first().getKey());
+        built.remove(built.last().getKey());
+        expected.remove(expected.first().getKey());
+        expected.remove(expected.last().getKey());
+        assertNavigation(expected, built, random);
+    }
+
+    /**
+     * Tests that get, rankOf and page agree with iterating the list while
+     * pairs are inserted, inserted in batches and removed, and on a list
+     * built from sorted pairs
+     */
+    @Test
+    public void testRankAndSelect() {
+        SkipList<String, String> list = new SkipList<>(
+                new GeometricLevelGenerator(), true);
+        Random random = new Random(23);
+
+        for (int round = 0; round < 30; round++) {
+            List<KVPair<String, String>> batch = new ArrayList<>();
+            for (int i = random.nextInt(300); i > 0; i--) {
+                batch.add(new KVPair<>("k" + random.nextInt(200),
+                        "v" + random.nextInt(40)));
+            }
+            if (round % 3 == 0) {
+                for (KVPair<String, String> pair : batch) {
+                    list.insert(pair);
+                }
+            }
+            else {
+                list.insertAll(batch);
+            }
+
+            for (int i = random.nextInt(100); i > 0; i--) {
+                list.remove("k" + random.nextInt(200));
+                list.removeByValue("v" + random.nextInt(40));
+            }
+
+            assertRankAndSelect(list, random);
+        }
+
+        assertRankAndSelect(new SkipList<>(new GeometricLevelGenerator(),
+                false, list), random);
+        assertNull(listEmpty.get(0));
+        assertEquals(0, listEmpty.rankOf("A"));
+        assertEquals("[]", contents(listEmpty.page(0, 10)));
+        assertEquals("[B, 2, C, 3]", contents(listA1B2C3.page(1, 5)));
+        assertEquals("[]", contents(listA1B2C3.page(1, 0)));
+        assertEquals(3, listA1B2C3.rankOf("D"));
+
+        try {
+            listA1B2C3.get(-1);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            listA1B2C3.page(0, -1);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Checks get at every index, rankOf for every key and random pages
+     * against the pairs of the list in their order
+     *
+     * @param list   the list under test
+     * @param random picks the pages
+     */
+    private static void assertRankAndSelect(SkipList<String, String> list,
+                                            Random random) {
+        List<KVPair<String, String>> all = new ArrayList<>();
+        for (KVPair<String, String> pair : list) {
+            all.add(pair);
+        }
+
+        for (int i = 0; i < all.size(); i++) {
+            assertSame(all.get(i), list.get(i));
+        }
+        assertNull(list.get(all.size()));
+
+        for (int k = 0; k < 200; k++) {
+            String key = "k" + k;
+            int rank = 0;
+            while (rank < all.size()
+                   && all.get(rank).getKey().compareTo(key) < 0) {
+                rank++;
+            }
+            assertEquals(rank, list.rankOf(key));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            int offset = random.nextInt(all.size() + 2);
+            int count = random.nextInt(50);
+            assertEquals(all.subList(Math.min(offset, all.size()),
+                    Math.min(offset + count, all.size())).toString(),
+                    contents(list.page(offset, count)));
+        }
+    }
+
+    /**
+     * Checks that the list answers random ranges, floors and ceilings and
+     * its descending view the same as the expected container
+     *
+     * @param expected the container with the same pairs
+     * @param list     the list under test
+     * @param random   picks the keys
+     */
+    private static void assertNavigation(
+            Container<String, String> expected, SkipList<String, String> list,
+            Random random) {
+        assertEquals(contents(expected.descending()),
+                contents(list.descending()));
+        assertEquals(expected.last(), list.last());
+
+        for (int i = 0; i < 40; i++) {
+            String from = "k" + random.nextInt(300);
+            String to = "k" + random.nextInt(300);
+            if (from.compareTo(to) > 0) {
+                String swap = from;
+                from = to;
+                to = swap;
+            }
+
+            assertEquals(contents(expected.range(from, to)),
+                    contents(list.range(from, to)));
+            assertEquals(contents(expected.range(null, to)),
+                    contents(list.range(null, to)));
+            assertEquals(contents(expected.range(from, null)),
+                    contents(list.range(from, null)));
+            assertSame(expected.floor(from), list.floor(from));
+            assertSame(expected.ceiling(to), list.ceiling(to));
+        }
+    }
+
+    /**
+     * Lists the pairs of an iterable
+     *
+     * @param pairs the pairs
+     * @return the pairs in a list
+     */
+    private static String contents(Iterable<KVPair<String, String>> pairs) {
+        List<KVPair<String, String>> all = new ArrayList<>();
+        for (KVPair<String, String> pair : pairs) {
+            all.add(pair);
+        }
+
+        return all.toString();
+    }
+}
@@ -0,0 +1,531 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class holds the pairs of a container saved to a file at a moment, so
+ * the container can be rebuilt from the file in one pass instead of from
+ * every change that made it. A snapshot belongs to a generation of the
+ * write-ahead log: it holds every change of the logs of older generations,
+ * and the log of its own generation holds the changes made after it.
+ * <p>
+ * The file starts with the magic number "RSNP", the format version, the
+ * flags, the generation and the number of pairs. The pairs follow sorted by
+ * key, each as the number of UTF-8 bytes its key shares with the key before
+ * it, the rest of the key and the four ints of the rectangle, all numbers
+ * as variable length integers, so nearby keys and small rectangles take a
+ * few bytes. The pairs and the CRC32 of their bytes after them may be
+ * compressed with deflate. A snapshot is written to a temporary file first
+ * and moved over the old one once complete, so a crash leaves either the
+ * old snapshot or the new one. The directory is forced once the file is
+ * moved, so the new snapshot is on the disk before write returns and the
+ * log it belongs to is reset; otherwise a crash could keep the reset log
+ * and lose the move, leaving a log no snapshot on the disk belongs to.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public final class Snapshot {
+
+    //First bytes of the file, "RSNP", and the version of the format
+    private static final int MAGIC = 0x52534E50;
+    private static final int VERSION = 1;
+    //Flag of a snapshot whose pairs are compressed
+    private static final int COMPRESSED = 1;
+    //Bytes of the streams reading and writing the file
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    //Longest key, in UTF-8 bytes
+    private static final int MAX_KEY_BYTES = 1 << 24;
+    //Longest encoding of a pair without its key: two lengths, four ints
+    private static final int MAX_FIXED_BYTES = 6 * 5;
+
+    private final long generation; //Generation of the log it belongs to
+    private final boolean compressed; //Whether the pairs were compressed
+    private final List<KVPair<String, Rectangle>> pairs; //Pairs, by key
+
+    /**
+     * Initializes the snapshot read from a file
+     *
+     * @param generation the generation of the log it belongs to
+     * @param compressed whether the pairs were compressed
+     * @param pairs      the pairs, sorted by key
+     */
+    private Snapshot(long generation, boolean compressed,
+                     List<KVPair<String, Rectangle>> pairs) {
+        this.generation = generation;
+        this.compressed = compressed;
+        this.pairs = Collections.unmodifiableList(pairs);
+    }
+
+    /**
+     * Saves the pairs of the container, in the order it iterates them, to
+     * the file, replacing the snapshot already there only once the new one
+     * is complete and forced to the disk, and forcing the replacement too
+     *
+     * @param file       the snapshot file
+     * @param generation the generation of the log the snapshot belongs to
+     * @param source     the container, iterating its pairs sorted by key
+     * @param compress   true to compress the pairs
+     * @throws IOException                     if the file cannot be written
+     * @throws IllegalArgumentException        if any object is null, the
+     *                                         generation is negative, the
+     *                                         pairs are not sorted or a key
+     *                                         is longer than 16 MiB
+     * @throws ConcurrentModificationException if the container changed while
+     *                                         it was written
+     */
+    public static void write(Path file, long generation,
+                             Container<String, Rectangle> source,
+                             boolean compress) throws IOException {
+        if (file == null || source == null || generation < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream raw = new BufferedOutputStream(
+                    Channels.newOutputStream(channel), STREAM_BUFFER_SIZE);
+            DataOutputStream header = new DataOutputStream(raw);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(compress ? COMPRESSED : 0);
+            header.writeLong(generation);
+            header.writeLong(source.size());
+
+            Deflater deflater = compress ? new Deflater() : null;
+            try {
+                OutputStream body = compress ? new DeflaterOutputStream(raw,
+                        deflater, STREAM_BUFFER_SIZE) : raw;
+                writePairs(body, source);
+                if (compress) {
+                    ((DeflaterOutputStream) body).finish();
+                }
+                raw.flush();
+            }
+            finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+            channel.force(true);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces the entries of the directory to the disk, so a file moved into
+     * it stays moved after a crash
+     *
+     * @param directory the directory
+     * @throws IOException if the directory cannot be forced
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory,
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the snapshot saved in the file
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException              if the file cannot be read, is not a
+     *                                  snapshot or is corrupt
+     * @throws IllegalArgumentException if file is null
+     */
+    public static Snapshot read(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException();
+        }
+
+        try (InputStream raw = new BufferedInputStream(
+                Files.newInputStream(file), STREAM_BUFFER_SIZE)) {
+            DataInputStream header = new DataInputStream(raw);
+            if (header.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+            if (header.readInt() != VERSION) {
+                throw new IOException("Unsupported snapshot version");
+            }
+            int flags = header.readInt();
+            long generation = header.readLong();
+            long count = header.readLong();
+            if ((flags & ~COMPRESSED) != 0 || generation < 0 || count < 0
+                || count > Integer.MAX_VALUE - 8) {
+                throw new IOException("Corrupt snapshot");
+            }
+
+            boolean compressed = (flags & COMPRESSED) != 0;
+            Inflater inflater = compressed ? new Inflater() : null;
+            try {
+                InputStream body = compressed ? new InflaterInputStream(raw,
+                        inflater, STREAM_BUFFER_SIZE) : raw;
+                List<KVPair<String, Rectangle>> pairs =
+                        readPairs(new Input(body), (int) count);
+
+                return new Snapshot(generation, compressed, pairs);
+            }
+            finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+        catch (EOFException e) {
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    /**
+     * Returns the generation of the log the snapshot belongs to
+     *
+     * @return a non-negative number
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Returns whether the pairs were compressed in the file
+     *
+     * @return true if the pairs were compressed
+     */
+    public boolean compressed() {
+        return compressed;
+    }
+
+    /**
+     * Returns the pairs of the snapshot
+     *
+     * @return the pairs, sorted by key, in a list that cannot be changed
+     */
+    public List<KVPair<String, Rectangle>> pairs() {
+        return pairs;
+    }
+
+    /**
+     * Builds a skip list of the pairs of the snapshot bottom-up, see
+     * SkipList(LevelGenerator, boolean, Iterable)
+     *
+     * @param levels      the generator picking the level of every node
+     * @param indexValues true to keep the hash index of the values
+     * @return the skip list holding the pairs
+     * @throws IllegalArgumentException if levels is null
+     */
+    public SkipList<String, Rectangle> toSkipList(LevelGenerator levels,
+                                                  boolean indexValues) {
+        return new SkipList<>(levels, indexValues, pairs);
+    }
+
+    /**
+     * Writes the pairs and the checksum of their bytes
+     *
+     * @param out    the stream of the pairs
+     * @param source the container of the pairs
+     * @throws IOException if writing fails
+     */
+    private static void writePairs(OutputStream out,
+                                   Container<String, Rectangle> source)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] record = new byte[64];
+        byte[] previous = new byte[0];
+        String previousKey = null;
+        long written = 0;
+
+        for (KVPair<String, Rectangle> pair : source) {
+            String key = pair.getKey();
+            if (previousKey != null && previousKey.compareTo(key) > 0) {
+                throw new IllegalArgumentException("Pairs not sorted");
+            }
+
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Key too long");
+            }
+            int shared = 0;
+            int limit = Math.min(bytes.length, previous.length);
+            while (shared < limit && bytes[shared] == previous[shared]) {
+                shared++;
+            }
+
+            int needed = MAX_FIXED_BYTES + bytes.length - shared;
+            if (record.length < needed) {
+                record = new byte[Math.max(needed, record.length * 2)];
+            }
+
+            Rectangle r = pair.getValue();
+            int length = putVarint(record, 0, shared);
+            length = putVarint(record, length, bytes.length - shared);
+            System.arraycopy(bytes, shared, record, length,
+                    bytes.length - shared);
+            length += bytes.length - shared;
+            length = putVarint(record, length, zigzag(r.x));
+            length = putVarint(record, length, zigzag(r.y));
+            length = putVarint(record, length, zigzag(r.width));
+            length = putVarint(record, length, zigzag(r.height));
+
+            out.write(record, 0, length);
+            crc.update(record, 0, length);
+            previous = bytes;
+            previousKey = key;
+            written++;
+        }
+
+        if (written != source.size()) {
+            throw new ConcurrentModificationException();
+        }
+
+        int value = (int) crc.getValue();
+        out.write(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16),
+            (byte) (value >>> 8), (byte) value});
+    }
+
+    /**
+     * Reads the pairs and checks the checksum of their bytes
+     *
+     * @param in    the input of the pairs
+     * @param count the number of pairs
+     * @return the pairs, sorted by key
+     * @throws IOException if reading fails or the pairs are corrupt
+     */
+    private static List<KVPair<String, Rectangle>> readPairs(Input in,
+                                                             int count)
+            throws IOException {
+        List<KVPair<String, Rectangle>> pairs = new ArrayList<>(
+                Math.min(count, STREAM_BUFFER_SIZE));
+        byte[] key = new byte[64];
+        int keyLength = 0;
+        String previous = null;
+
+        for (int i = 0; i < count; i++) {
+            int shared = in.readVarint();
+            int rest = in.readVarint();
+            if (shared < 0 || rest < 0 || shared > keyLength
+                || rest > MAX_KEY_BYTES - shared) {
+                throw new IOException("Corrupt snapshot");
+            }
+
+            if (key.length < shared + rest) {
+                byte[] grown = new byte[Math.max(shared + rest,
+                        key.length * 2)];
+                System.arraycopy(key, 0, grown, 0, shared);
+                key = grown;
+            }
+            in.readFully(key, shared, rest);
+            keyLength = shared + rest;
+
+            String name = new String(key, 0, keyLength,
+                    StandardCharsets.UTF_8);
+            if (previous != null && previous.compareTo(name) > 0) {
+                throw new IOException("Corrupt snapshot");
+            }
+
+            pairs.add(new KVPair<>(name, new Rectangle(
+                    unzigzag(in.readVarint()), unzigzag(in.readVarint()),
+                    unzigzag(in.readVarint()), unzigzag(in.readVarint()))));
+            previous = name;
+        }
+
+        int expected = in.checksum();
+        int stored = (in.readByte() << 24) | (in.readByte() << 16)
+                     | (in.readByte() << 8) | in.readByte();
+        if (stored != expected || !in.atEnd()) {
+            throw new IOException("Corrupt snapshot");
+        }
+
+        return pairs;
+    }
+
+    /**
+     * Writes the number as a variable length integer, seven bits per byte
+     * from the lowest, with the top bit set on every byte but the last
+     *
+     * @param buffer   the buffer to write in
+     * @param position the position to write at
+     * @param value    the number, taken as unsigned
+     * @return the position after the number
+     */
+    private static int putVarint(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Maps a signed number to an unsigned one small for small magnitudes,
+     * 0, -1, 1, -2 to 0, 1, 2, 3
+     *
+     * @param value the signed number
+     * @return the mapped number
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Maps a number back, see zigzag
+     *
+     * @param value the mapped number
+     * @return the signed number
+     */
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * This class reads the bytes of the pairs through its own buffer,
+     * keeping the checksum of the bytes read so far.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    private static final class Input {
+        private final InputStream in; //Stream of the pairs
+        private final byte[] buffer; //Bytes read from the stream
+        private final CRC32 crc; //Checksum of the bytes before mark
+        private int position; //Position of the next byte in buffer
+        private int limit; //Number of valid bytes in buffer
+        private int mark; //Position up to which crc is updated
+
+        /**
+         * Initializes the input
+         *
+         * @param in the stream of the pairs
+         */
+        Input(InputStream in) {
+            this.in = in;
+            buffer = new byte[STREAM_BUFFER_SIZE];
+            crc = new CRC32();
+        }
+
+        /**
+         * Reads a byte
+         *
+         * @return the byte, from 0 to 255
+         * @throws IOException if reading fails or the stream ended
+         */
+        int readByte() throws IOException {
+            if (position == limit && !fill()) {
+                throw new EOFException();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /**
+         * Reads a variable length integer, see putVarint
+         *
+         * @return the number
+         * @throws IOException if reading fails or the number is too long
+         */
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt snapshot");
+        }
+
+        /**
+         * Reads the given number of bytes
+         *
+         * @param bytes  the array to read into
+         * @param offset the position of the first byte in the array
+         * @param length the number of bytes
+         * @throws IOException if reading fails or the stream ended
+         */
+        void readFully(byte[] bytes, int offset, int length)
+                throws IOException {
+            while (length > 0) {
+                if (position == limit && !fill()) {
+                    throw new EOFException();
+                }
+                int n = Math.min(length, limit - position);
+                System.arraycopy(buffer, position, bytes, offset, n);
+                position += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * Returns the checksum of every byte read so far
+         *
+         * @return the CRC32 of the bytes read
+         */
+        int checksum() {
+            crc.update(buffer, mark, position - mark);
+            mark = position;
+            return (int) crc.getValue();
+        }
+
+        /**
+         * Checks that every byte of the stream was read
+         *
+         * @return true if the stream has no byte left
+         * @throws IOException if reading fails
+         */
+        boolean atEnd() throws IOException {
+            return position == limit && !fill();
+        }
+
+        /**
+         * Reads the next bytes of the stream into the empty buffer
+         *
+         * @return false if the stream ended
+         * @throws IOException if reading fails
+         */
+        private boolean fill() throws IOException {
+            crc.update(buffer, mark, position - mark);
+            int n = in.read(buffer, 0, buffer.length);
+            position = 0;
+            mark = 0;
+            limit = Math.max(n, 0);
+            return n > 0;
+        }
+    }
+}
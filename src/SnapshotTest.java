@@ -0,0 +1,193 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the writing, reading and
+ * checking of the Snapshot class, and the lists built from snapshots
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SnapshotTest {
+
+    // The snapshot file of the tests
+    private Path file;
+
+    /**
+     * Creates a name for the snapshot file before each test
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("snapshot", ".snp");
+        Files.delete(file);
+    }
+
+    /**
+     * Deletes the snapshot file after each test
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that a list written and read back, compressed or not, holds the
+     * same pairs in the same order, equal keys and negative numbers included
+     *
+     * @throws IOException if the snapshot cannot be used
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        SkipList<String, Rectangle> list = filledList(5000);
+        list.insert(new KVPair<>("r1", new Rectangle(-5, -1, 0, -300000)));
+        list.insert(new KVPair<>("été",
+                new Rectangle(Integer.MIN_VALUE, Integer.MAX_VALUE, 1, 1)));
+
+        for (boolean compress : new boolean[]{false, true}) {
+            Snapshot.write(file, 7, list, compress);
+            Snapshot snapshot = Snapshot.read(file);
+
+            assertEquals(7, snapshot.generation());
+            assertEquals(compress, snapshot.compressed());
+            assertEquals(list.size(), snapshot.pairs().size());
+            SkipList<String, Rectangle> built = snapshot.toSkipList(
+                    new GeometricLevelGenerator(), true);
+            assertEquals(list.toString(), built.toString());
+            assertFalse(Files.exists(
+                    file.resolveSibling(file.getFileName() + ".tmp")));
+        }
+
+        Snapshot.write(file, 0, new SkipList<>(), true);
+        assertEquals(0, Snapshot.read(file).pairs().size());
+    }
+
+    /**
+     * Tests that sorted keys sharing prefixes take less than their full
+     * length, and compressing shrinks the file further
+     *
+     * @throws IOException if the snapshot cannot be used
+     */
+    @Test
+    public void testCompact() throws IOException {
+        SkipList<String, Rectangle> list = new SkipList<>();
+        for (int i = 0; i < 10000; i++) {
+            list.insert(new KVPair<>("rectangle_" + i,
+                    new Rectangle(i % 1024, i % 512, 10, 20)));
+        }
+
+        Snapshot.write(file, 1, list, false);
+        long plain = Files.size(file);
+        Snapshot.write(file, 1, list, true);
+        long compressed = Files.size(file);
+
+        //A key of 14 or 15 chars and four ints take 30 bytes without both
+        assertTrue(plain < 10000 * 12);
+        assertTrue(compressed < plain);
+    }
+
+    /**
+     * Tests that a changed byte, a cut file and a file that is not a
+     * snapshot are rejected
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Test
+    public void testCorrupt() throws IOException {
+        Snapshot.write(file, 3, filledList(200), false);
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[bytes.length / 2] ^= 4;
+        Files.write(file, bytes);
+        assertRejected("Corrupt snapshot");
+
+        bytes[bytes.length / 2] ^= 4;
+        byte[] cut = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, cut, 0, cut.length);
+        Files.write(file, cut);
+        assertRejected("Corrupt snapshot");
+
+        Files.write(file, "insert a 1 1 1 1".getBytes());
+        assertRejected("Not a snapshot");
+
+        Files.write(file, bytes);
+        assertEquals(200, Snapshot.read(file).pairs().size());
+    }
+
+    /**
+     * Tests the invalid arguments
+     *
+     * @throws IOException if the snapshot cannot be used
+     */
+    @Test
+    public void testInvalidArguments() throws IOException {
+        try {
+            Snapshot.write(file, -1, new SkipList<>(), false);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            Snapshot.write(null, 0, new SkipList<>(), false);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            Snapshot.read(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+    }
+
+    /**
+     * Checks that reading the file fails with the message
+     *
+     * @param message the expected message
+     */
+    private void assertRejected(String message) {
+        try {
+            Snapshot.read(file);
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    /**
+     * Fills a list with random pairs, with many equal keys
+     *
+     * @param size the number of pairs
+     * @return the list
+     */
+    private static SkipList<String, Rectangle> filledList(int size) {
+        SkipList<String, Rectangle> list = new SkipList<>();
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            list.insert(new KVPair<>("r" + random.nextInt(size / 2),
+                    new Rectangle(random.nextInt(1024), random.nextInt(1024),
+                            1 + random.nextInt(100),
+                            1 + random.nextInt(100))));
+        }
+
+        return list;
+    }
+}
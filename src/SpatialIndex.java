@@ -0,0 +1,68 @@
+import java.util.List;
+
+/**
+ * This interface holds the functionality a spatial index should have to
+ * answer region queries over rectangles without scanning every item. The
+ * index stores items together with the bounds they were inserted with and
+ * sits beside a key-ordered container, so it does not decide the order in
+ * which found items are returned.
+ *
+ * @param <T> the type of the items indexed by their bounds
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public interface SpatialIndex<T> {
+
+    /**
+     * Adds the item to the index under the given bounds. The coordinates of
+     * the bounds are copied, so the same item can later be removed with any
+     * rectangle of equal coordinates.
+     *
+     * @param bounds the rectangle the item occupies
+     * @param item   the item to be indexed
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    void insert(Rectangle bounds, T item);
+
+
+    /**
+     * Removes an item equal to the given one that was inserted with the
+     * given bounds. Only one item is removed even if several equal items
+     * are stored under the same bounds.
+     *
+     * @param bounds the rectangle the item was inserted with
+     * @param item   the item to be removed
+     * @return true if the item was found and removed
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    boolean remove(Rectangle bounds, T item);
+
+
+    /**
+     * Finds all the items whose bounds share some area with the region.
+     * Items that only touch a side or a corner of the region are not found.
+     *
+     * @param region the region to search in
+     * @return the list of items found, in no particular order
+     * @throws IllegalArgumentException if region is null
+     */
+    List<T> search(Rectangle region);
+
+
+    /**
+     * Replaces everything in the index with the given items, which may be
+     * faster than inserting them one by one.
+     *
+     * @param entries the pairs of bounds and the item that occupies them
+     * @throws IllegalArgumentException if entries or any pair is null
+     */
+    void bulkLoad(List<Pair<Rectangle, T>> entries);
+
+
+    /**
+     * Returns the number of items in the index
+     *
+     * @return a positive integer indicating the number of items
+     */
+    int size();
+}
@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class finds all the pairs of rectangles that share some area with a
+ * plane sweep. A vertical line moves over the left and right edges of the
+ * rectangles in increasing x order, the rectangles the line currently
+ * crosses are kept in an interval tree by their y interval, and each
+ * rectangle is checked against that tree when the line reaches its left
+ * edge. Finding all k pairs of n rectangles takes O(n log n + k) time
+ * instead of comparing every rectangle with every other one.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SweepLineIntersections extends AbstractIntersectionFinder {
+
+    //Bit set in the events at the left edge of a rectangle
+    private static final long START = 1L << 31;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[][] find(List<Rectangle> rects) {
+        if (rects == null) {
+            throw new IllegalArgumentException();
+        }
+
+        long[] events = sortedEvents(rects);
+        PartnerCollector collector = new PartnerCollector(rects.size());
+
+        IntervalTree active = new IntervalTree();
+        List<Integer> overlapping = new ArrayList<>();
+
+        for (long event : events) {
+            int i = (int) (event & Integer.MAX_VALUE);
+            Rectangle rect = rects.get(i);
+
+            if ((event & START) == 0) { //The line leaves the rectangle
+                active.remove(rect.y, i);
+                continue;
+            }
+
+            //Every active rectangle overlaps this one on the x-axis
+            overlapping.clear();
+            active.overlapping(rect.y, rect.y + rect.height, overlapping);
+
+            for (int j : overlapping) {
+                if (rects.get(j) != rect) {
+                    collector.add(i, j);
+                }
+            }
+
+            active.insert(rect.y, rect.y + rect.height, i);
+        }
+
+        return collector.partners();
+    }
+
+    /**
+     * Creates the sorted left and right edge events of the rectangles. Each
+     * event holds the x coordinate in the upper half, then whether it is a
+     * left edge and the position of the rectangle. Right edges sort before
+     * left edges at the same x, so rectangles that only touch are never
+     * active together. Rectangles without area create no events.
+     *
+     * @param rects the rectangles
+     * @return the sorted events
+     */
+    private long[] sortedEvents(List<Rectangle> rects) {
+        long[] events = new long[rects.size() * 2];
+        int count = 0;
+
+        for (int i = 0; i < rects.size(); i++) {
+            Rectangle rect = rects.get(i);
+
+            if (rect.width > 0 && rect.height > 0) {
+                events[count++] = ((long) rect.x << 32) | START | i;
+                events[count++] = ((long) (rect.x + rect.width) << 32) | i;
+            }
+        }
+
+        events = Arrays.copyOf(events, count);
+        Arrays.sort(events);
+        return events;
+    }
+}
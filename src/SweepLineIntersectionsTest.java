@@ -0,0 +1,119 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the SweepLineIntersections class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class SweepLineIntersectionsTest {
+
+    // The sweep under test
+    private SweepLineIntersections sweep;
+
+    /**
+     * Set up variables for testing.
+     * Executed before every test case.
+     */
+    @Before
+    public void setUp() {
+        sweep = new SweepLineIntersections();
+    }
+
+    /**
+     * Tests if null can be searched for intersections
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFind() {
+        sweep.find(null);
+        fail();
+    }
+
+    /**
+     * Tests if an empty list has no intersections
+     */
+    @Test
+    public void testEmptyFind() {
+        assertEquals(0, sweep.find(new ArrayList<>()).length);
+    }
+
+    /**
+     * Tests if rectangles touching at edges and corners do not intersect
+     * but overlapping and nested ones do
+     */
+    @Test
+    public void testTouchingNestedFind() {
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(new Rectangle(0, 0, 10, 10));
+        rects.add(new Rectangle(10, 0, 10, 10));
+        rects.add(new Rectangle(10, 10, 10, 10));
+        rects.add(new Rectangle(2, 2, 3, 3));
+        rects.add(new Rectangle(15, 5, 10, 10));
+
+        int[][] partners = sweep.find(rects);
+
+        assertArrayEquals(new int[]{3}, partners[0]);
+        assertArrayEquals(new int[]{4}, partners[1]);
+        assertArrayEquals(new int[]{4}, partners[2]);
+        assertArrayEquals(new int[]{0}, partners[3]);
+        assertArrayEquals(new int[]{1, 2}, partners[4]);
+    }
+
+    /**
+     * Tests if the same rectangle object listed twice is not paired with
+     * itself while an equal but distinct one is
+     */
+    @Test
+    public void testSameObjectFind() {
+        Rectangle rect = new Rectangle(0, 0, 10, 10);
+        List<Rectangle> rects = new ArrayList<>();
+        rects.add(rect);
+        rects.add(rect);
+        rects.add(new Rectangle(0, 0, 10, 10));
+
+        int[][] partners = sweep.find(rects);
+
+        assertArrayEquals(new int[]{2}, partners[0]);
+        assertArrayEquals(new int[]{2}, partners[1]);
+        assertArrayEquals(new int[]{0, 1}, partners[2]);
+    }
+
+    /**
+     * Tests if random rectangles give the same pairs as comparing every
+     * rectangle with every other one
+     */
+    @Test
+    public void testRandomFind() {
+        Random random = new Random(11);
+        List<Rectangle> rects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rects.add(new Rectangle(random.nextInt(1000),
+                    random.nextInt(1000), random.nextInt(60) + 1,
+                    random.nextInt(60) + 1));
+        }
+
+        int[][] partners = sweep.find(rects);
+
+        for (int i = 0; i < rects.size(); i++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int j = 0; j < rects.size(); j++) {
+                if (i != j && rects.get(i).intersects(rects.get(j))) {
+                    expected.add(j);
+                }
+            }
+
+            assertEquals(expected.size(), partners[i].length);
+            for (int k = 0; k < partners[i].length; k++) {
+                assertEquals((int) expected.get(k), partners[i][k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This class spreads the pairs over the shards by where their rectangles
+ * are. The world box is cut into a grid of equal tiles, one per shard, and
+ * every pair is kept by the tile holding the top left corner of its
+ * rectangle, so all the pairs with a rectangle are kept by one shard. As a
+ * rectangle may reach past the right and bottom edges of its tile, a region
+ * can only be told to be out of reach of the tiles starting right of or
+ * below it. Pairs with the same name may be kept by any shard.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class TilePartitioner implements Partitioner {
+
+    private final int columns; //Number of tiles across the world box
+    private final int rows; //Number of tiles down the world box
+
+    /**
+     * Initializes the partitioner with a grid of columns by rows tiles
+     *
+     * @param columns the number of tiles across the world box
+     * @param rows    the number of tiles down the world box
+     * @throws IllegalArgumentException if columns or rows is not positive
+     *                                  or greater than the world box
+     */
+    public TilePartitioner(int columns, int rows) {
+        if (columns <= 0 || rows <= 0
+            || columns > SkipListDatabase.WORLD_BOX_WIDTH
+            || rows > SkipListDatabase.WORLD_BOX_HEIGHT) {
+            throw new IllegalArgumentException();
+        }
+
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shards() {
+        return columns * rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shardOf(KVPair<String, Rectangle> pair) {
+        return shardOfValue(pair.getValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int shardOfName(String name) {
+        return SPREAD;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Rectangles with their corner outside the world box are given the
+     * nearest tile.
+     */
+    @Override
+    public int shardOfValue(Rectangle rectangle) {
+        return tileOf(rectangle.y, rows, SkipListDatabase.WORLD_BOX_HEIGHT)
+               * columns
+               + tileOf(rectangle.x, columns,
+                SkipListDatabase.WORLD_BOX_WIDTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean mayOverlap(int shard, int x, int y, int width,
+                              int height) {
+        return firstOf(shard % columns, columns,
+                SkipListDatabase.WORLD_BOX_WIDTH) < (long) x + width
+               && firstOf(shard / columns, rows,
+                SkipListDatabase.WORLD_BOX_HEIGHT) < (long) y + height;
+    }
+
+    /**
+     * Finds the tile holding a coordinate along one side of the world box
+     *
+     * @param coordinate the coordinate
+     * @param tiles      the number of tiles along the side
+     * @param side       the length of the side
+     * @return the index of the tile along the side
+     */
+    private static int tileOf(int coordinate, int tiles, int side) {
+        long tile = (long) coordinate * tiles / side;
+        return (int) Math.max(0, Math.min(tiles - 1, tile));
+    }
+
+    /**
+     * Finds the least coordinate held by a tile along one side of the world
+     * box
+     *
+     * @param tile  the index of the tile along the side
+     * @param tiles the number of tiles along the side
+     * @param side  the length of the side
+     * @return the first coordinate of the tile
+     */
+    private static long firstOf(int tile, int tiles, int side) {
+        return ((long) tile * side + tiles - 1) / tiles;
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the TilePartitioner class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class TilePartitionerTest {
+
+    /**
+     * Tests if no columns are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoColumns() {
+        new TilePartitioner(0, 2);
+        fail();
+    }
+
+    /**
+     * Tests if more rows than the world box is high are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyRows() {
+        new TilePartitioner(2, SkipListDatabase.WORLD_BOX_HEIGHT + 1);
+        fail();
+    }
+
+    /**
+     * Tests if pairs are given the tile of the top left corner of their
+     * rectangles, whatever their names, and corners outside the world box
+     * the nearest tile
+     */
+    @Test
+    public void testShardOfValue() {
+        TilePartitioner partitioner = new TilePartitioner(3, 2);
+        assertEquals(6, partitioner.shards());
+
+        assertEquals(0, partitioner.shardOfValue(new Rectangle(0, 0, 1, 1)));
+        assertEquals(0, partitioner.shardOfValue(
+                new Rectangle(341, 511, 500, 500)));
+        assertEquals(1, partitioner.shardOfValue(
+                new Rectangle(342, 0, 1, 1)));
+        assertEquals(5, partitioner.shardOfValue(
+                new Rectangle(683, 512, 1, 1)));
+        assertEquals(3, partitioner.shardOfValue(
+                new Rectangle(-5, 2000, 1, 1)));
+        assertEquals(2, partitioner.shardOfValue(
+                new Rectangle(Integer.MAX_VALUE, Integer.MIN_VALUE, 1, 1)));
+
+        assertEquals(4, partitioner.shardOf(new KVPair<>("a",
+                new Rectangle(400, 600, 1, 1))));
+        assertEquals(Partitioner.SPREAD, partitioner.shardOfName("a"));
+    }
+
+    /**
+     * Tests if only the tiles starting right of or below a region are told
+     * to be out of its reach
+     */
+    @Test
+    public void testMayOverlap() {
+        TilePartitioner partitioner = new TilePartitioner(3, 2);
+
+        boolean[] expected = {true, true, false, true, true, false};
+        for (int s = 0; s < 6; s++) {
+            assertEquals(expected[s],
+                    partitioner.mayOverlap(s, 300, 500, 43, 13));
+        }
+
+        assertTrue(partitioner.mayOverlap(5, 0, 0, 684, 513));
+        assertFalse(partitioner.mayOverlap(5, 0, 0, 683, 1000));
+        assertFalse(partitioner.mayOverlap(1, -10, 0, 352, 10));
+        assertTrue(partitioner.mayOverlap(5, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+}
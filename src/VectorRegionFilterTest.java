@@ -0,0 +1,113 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing each scenario of each method in
+ * the VectorRegionFilter class, which the tests load as surefire adds the
+ * jdk.incubator.vector module
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class VectorRegionFilterTest {
+
+    /**
+     * Tests if the preferred filter is the vector filter when the module is
+     * added
+     */
+    @Test
+    public void testPreferred() {
+        assertTrue(RegionFilter.preferred() instanceof VectorRegionFilter);
+        assertTrue(new VectorRegionFilter().lanes() > 0);
+    }
+
+    /**
+     * Tests if null columns are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullColumns() {
+        new VectorRegionFilter().overlapping(null, 0, 0, 1, 1);
+        fail();
+    }
+
+    /**
+     * Tests if touching, empty and far rectangles, and ones whose ends wrap
+     * past Integer.MAX_VALUE, are found the same as by the scalar filter
+     */
+    @Test
+    public void testEdges() {
+        RectangleColumns columns = new RectangleColumns();
+        columns.add(0, 0, 10, 10);
+        columns.add(5, 5, 0, 10);
+        columns.add(Integer.MAX_VALUE - 5, 0, 10, 10);
+        columns.add(3, 3, 4, 4);
+        columns.add(0, Integer.MAX_VALUE - 5, Integer.MAX_VALUE,
+                Integer.MAX_VALUE);
+        columns.add(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MAX_VALUE);
+
+        VectorRegionFilter filter = new VectorRegionFilter();
+        assertArrayEquals(new int[]{0, 3},
+                filter.overlapping(columns, 2, 2, 3, 3));
+        assertArrayEquals(new int[0],
+                filter.overlapping(columns, 10, 0, 10, 10));
+        assertArrayEquals(new int[0],
+                filter.overlapping(columns, 2, 2, 0, 3));
+        assertArrayEquals(new int[]{2}, filter.overlapping(columns,
+                Integer.MAX_VALUE - 1, 5, 1, 1));
+        assertArrayEquals(new int[]{4}, filter.overlapping(columns,
+                Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1, 1, 1));
+        assertArrayEquals(new int[]{5}, filter.overlapping(columns,
+                -5, -5, 5, 5));
+
+        int[][] regions = {{-10, -10, 20, 20}, {0, 0, Integer.MAX_VALUE,
+            Integer.MAX_VALUE}, {Integer.MIN_VALUE, Integer.MIN_VALUE,
+            Integer.MAX_VALUE, Integer.MAX_VALUE}, {Integer.MAX_VALUE - 2,
+            -1, Integer.MAX_VALUE, Integer.MAX_VALUE}};
+        for (int[] r : regions) {
+            assertArrayEquals(RegionFilter.SCALAR.overlapping(columns, r[0],
+                    r[1], r[2], r[3]), filter.overlapping(columns, r[0],
+                    r[1], r[2], r[3]));
+        }
+    }
+
+    /**
+     * Tests if random regions over random rectangles, at sizes that are and
+     * are not a multiple of the lanes, find the same slots as the scalar
+     * filter, also after removing and clearing
+     */
+    @Test
+    public void testMatchesScalar() {
+        Random random = new Random(19);
+        VectorRegionFilter filter = new VectorRegionFilter();
+        RectangleColumns columns = new RectangleColumns(4);
+
+        for (int size = 0; size < 200; size++) {
+            while (columns.size() < size) {
+                columns.add(random.nextInt(200) - 50,
+                        random.nextInt(200) - 50, random.nextInt(40) - 2,
+                        random.nextInt(40) - 2);
+            }
+            if (size % 7 == 6) {
+                columns.removeByMovingLast(random.nextInt(size));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                int x = random.nextInt(240) - 70;
+                int y = random.nextInt(240) - 70;
+                int width = random.nextInt(80) - 2;
+                int height = random.nextInt(80) - 2;
+                assertArrayEquals(RegionFilter.SCALAR.overlapping(columns, x,
+                        y, width, height), filter.overlapping(columns, x, y,
+                        width, height));
+            }
+        }
+
+        columns.clear();
+        assertArrayEquals(new int[0],
+                filter.overlapping(columns, 0, 0, 100, 100));
+    }
+}
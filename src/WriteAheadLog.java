@@ -0,0 +1,787 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only binary log of the changes made to a
+ * database: inserts, removals by name and removals by value. Replaying the
+ * log into an empty container rebuilds the container, so a database can be
+ * recovered without replaying the commands that made it.
+ * <p>
+ * The file starts with the magic number "RWAL", the format version and the
+ * generation of the log, then holds one record per change: the length of the
+ * payload, its CRC32 and the payload, which is the opcode followed by the key
+ * as a short length and UTF-8 bytes and/or the four ints of the rectangle. A
+ * record that is cut short or fails its checksum marks the end of the log; it
+ * and everything after it is dropped on recovery, since only the last write can
+ * be torn by a crash.
+ * <p>
+ * Once its records are saved in a Snapshot, the log is reset to a new,
+ * empty generation. A log older than the snapshot it is opened with was
+ * saved in the snapshot before a crash stopped the reset, so it is started
+ * over instead of replayed a second time.
+ * <p>
+ * Records are gathered in a buffer and written in large writes. When they
+ * are forced to the disk is chosen by the sync policy: after every change,
+ * every few milliseconds on a background thread, or never before the log is
+ * closed. Forcing is a group commit: a thread forcing the log forces every
+ * record appended so far, and threads whose records were forced meanwhile
+ * return without forcing again, so threads logging at the same time share
+ * one force. Once a write or force fails, the log cannot tell which records
+ * reached the file, so it takes no more records and every later change,
+ * sync or close throws. The log is safe to share between threads.
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * This enum holds the moments the records are forced to the disk, on top
+     * of when the log is synced or closed.
+     *
+     * @author Muhammad Ali Qadri
+     */
+    public enum SyncPolicy {
+        //Before every change returns, sharing forces between threads
+        EVERY_COMMIT,
+        //Every few milliseconds, on a background thread
+        INTERVAL,
+        //Only when synced or closed, leaving the rest to the system
+        NEVER
+    }
+
+    //Bytes of records gathered before they are written, unless given
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    //Time between forces of the INTERVAL policy, unless given
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+
+    //First bytes of the file, "RWAL", and the version of the format
+    private static final int MAGIC = 0x5257414C;
+    private static final int VERSION = 2;
+    private static final int FILE_HEADER_SIZE = 16;
+    //Length and checksum in front of every payload
+    private static final int RECORD_HEADER_SIZE = 8;
+    //Longest key, in UTF-8 bytes
+    private static final int MAX_KEY_BYTES = 0xFFFF;
+    //Longest payload: the opcode, the key with its length and four ints
+    private static final int MAX_PAYLOAD_SIZE = 1 + 2 + MAX_KEY_BYTES + 16;
+    //Bytes read at once while recovering
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    //Opcodes of the records
+    private static final byte INSERT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte REMOVE_BY_VALUE = 3;
+
+    private final FileChannel channel; //Channel of the log file
+    private final SyncPolicy policy; //When records are forced
+    private final ByteBuffer buffer; //Records not yet written
+    private final CRC32 crc; //Checksum of the records
+    private final Object syncLock; //Held by the thread forcing the log
+    private final ScheduledExecutorService syncer; //Forces the log, INTERVAL
+    private final long recoveredRecords; //Records replayed when opened
+    private final long truncatedBytes; //Torn bytes dropped when opened
+    private long appended; //Position after the last record
+    private volatile long durable; //Position up to which the log is forced
+    private volatile IOException failure; //First failed write or force
+    private volatile long syncs; //Number of forces, changed under syncLock
+    private boolean closed; //Whether close was called
+    private long generation; //Generation of the log, changed by reset
+
+    /**
+     * Initializes the log over an open channel positioned at its end
+     *
+     * @param channel            the channel of the log file
+     * @param policy             when records are forced
+     * @param syncIntervalMillis time between forces of the INTERVAL policy
+     * @param bufferSize         bytes of records gathered before writing
+     * @param generation         the generation of the log
+     * @param end                the position after the last record
+     * @param recoveredRecords   the number of records replayed
+     * @param truncatedBytes     the number of torn bytes dropped
+     */
+    private WriteAheadLog(FileChannel channel, SyncPolicy policy,
+                          long syncIntervalMillis, int bufferSize,
+                          long generation, long end, long recoveredRecords,
+                          long truncatedBytes) {
+        this.channel = channel;
+        this.generation = generation;
+        this.policy = policy;
+        this.recoveredRecords = recoveredRecords;
+        this.truncatedBytes = truncatedBytes;
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize,
+                RECORD_HEADER_SIZE + MAX_PAYLOAD_SIZE));
+        crc = new CRC32();
+        syncLock = new Object();
+        appended = end;
+        durable = end;
+
+        if (policy == SyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::backgroundSync,
+                    syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Opens the log with the default buffer size and sync interval,
+     * replaying it into the container first. See open(Path, SyncPolicy,
+     * long, int, Container).
+     *
+     * @param file   the log file, created if missing
+     * @param policy when records are forced
+     * @param target the container the records are replayed into
+     * @return the log, positioned after its last valid record
+     * @throws IOException              if the file cannot be read or written,
+     *                                  or is not a log
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    public static WriteAheadLog open(Path file, SyncPolicy policy,
+                                     Container<String, Rectangle> target)
+            throws IOException {
+        return open(file, policy, DEFAULT_SYNC_INTERVAL_MILLIS,
+                DEFAULT_BUFFER_SIZE, target);
+    }
+
+    /**
+     * Opens the log of the first generation, with no snapshot, see
+     * open(Path, SyncPolicy, long, int, Container, long)
+     *
+     * @param file               the log file, created if missing
+     * @param policy             when records are forced
+     * @param syncIntervalMillis time between forces of the INTERVAL policy
+     * @param bufferSize         bytes of records gathered before writing
+     * @param target             the container the records are replayed
+     *                           into
+     * @return the log, positioned after its last valid record
+     * @throws IOException              if the file cannot be read or written,
+     *                                  is not a log or needs a snapshot
+     * @throws IllegalArgumentException if any object is null or a number is
+     *                                  not positive
+     */
+    public static WriteAheadLog open(Path file, SyncPolicy policy,
+                                     long syncIntervalMillis, int bufferSize,
+                                     Container<String, Rectangle> target)
+            throws IOException {
+        return open(file, policy, syncIntervalMillis, bufferSize, target, 0);
+    }
+
+    /**
+     * Opens the log, creating it if missing, over a container holding the
+     * snapshot of the given generation. Every valid record already in the
+     * log is replayed into the container, in order, and any torn tail after
+     * the last valid record is cut off, so new records follow the last
+     * valid one. A log of an older generation is already in the snapshot
+     * and is started over, empty, in the generation of the snapshot.
+     *
+     * @param file               the log file, created if missing
+     * @param policy             when records are forced
+     * @param syncIntervalMillis time between forces of the INTERVAL policy
+     * @param bufferSize         bytes of records gathered before writing
+     * @param target             the container the records are replayed
+     *                           into
+     * @param snapshotGeneration the generation of the snapshot the container
+     *                           holds, 0 if it holds none
+     * @return the log, positioned after its last valid record
+     * @throws IOException              if the file cannot be read or written,
+     *                                  is not a log or is newer than the
+     *                                  snapshot
+     * @throws IllegalArgumentException if any object is null or a number is
+     *                                  not positive
+     */
+    public static WriteAheadLog open(Path file, SyncPolicy policy,
+                                     long syncIntervalMillis, int bufferSize,
+                                     Container<String, Rectangle> target,
+                                     long snapshotGeneration)
+            throws IOException {
+        if (file == null || policy == null || target == null
+            || syncIntervalMillis <= 0 || bufferSize <= 0
+            || snapshotGeneration < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            long size = channel.size();
+            long end = FILE_HEADER_SIZE;
+            long records = 0;
+            long truncated = 0;
+            long generation = (size < FILE_HEADER_SIZE) ? -1
+                    : readFileHeader(channel);
+
+            if (generation > snapshotGeneration) {
+                throw new IOException("Log needs the snapshot of generation "
+                                      + generation);
+            }
+            if (generation < snapshotGeneration) {
+                //New, torn before its header was complete, or in the snapshot
+                writeFileHeader(channel, snapshotGeneration);
+            }
+            else {
+                long[] replayed = replay(channel, target);
+                end = replayed[0];
+                records = replayed[1];
+                truncated = size - end;
+                if (truncated > 0) {
+                    channel.truncate(end);
+                    channel.force(false);
+                }
+            }
+            channel.position(end);
+
+            return new WriteAheadLog(channel, policy, syncIntervalMillis,
+                    bufferSize, snapshotGeneration, end, records, truncated);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Logs the insertion of a pair
+     *
+     * @param pair the inserted pair
+     * @throws IOException              if writing or forcing the log fails
+     * @throws IllegalArgumentException if pair is null or its key is longer
+     *                                  than 65535 UTF-8 bytes
+     */
+    public void logInsert(KVPair<String, Rectangle> pair) throws IOException {
+        if (pair == null) {
+            throw new IllegalArgumentException();
+        }
+
+        commit(append(INSERT, pair.getKey(), pair.getValue()));
+    }
+
+    /**
+     * Logs the removal of a pair by its key
+     *
+     * @param key the key the pair was removed by
+     * @throws IOException              if writing or forcing the log fails
+     * @throws IllegalArgumentException if key is null or longer than 65535
+     *                                  UTF-8 bytes
+     */
+    public void logRemove(String key) throws IOException {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        commit(append(REMOVE, key, null));
+    }
+
+    /**
+     * Logs the removal of a pair by its rectangle
+     *
+     * @param rectangle the rectangle the pair was removed by
+     * @throws IOException              if writing or forcing the log fails
+     * @throws IllegalArgumentException if rectangle is null
+     */
+    public void logRemoveByValue(Rectangle rectangle) throws IOException {
+        if (rectangle == null) {
+            throw new IllegalArgumentException();
+        }
+
+        commit(append(REMOVE_BY_VALUE, null, rectangle));
+    }
+
+    /**
+     * Forces every record logged so far to the disk
+     *
+     * @throws IOException if writing or forcing the log fails
+     */
+    public void sync() throws IOException {
+        long position;
+        synchronized (this) {
+            ensureOpen();
+            position = appended;
+        }
+
+        sync(position);
+    }
+
+    /**
+     * Discards every record, once they are saved in the snapshot of the
+     * generation, and starts the log over, empty, in that generation. Must
+     * not run at the same time as records are logged.
+     *
+     * @param newGeneration the generation of the snapshot holding the
+     *                      records
+     * @throws IOException              if writing the log fails
+     * @throws IllegalArgumentException if the generation is not newer than
+     *                                  the generation of the log
+     */
+    public void reset(long newGeneration) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                ensureOpen();
+                if (newGeneration <= generation) {
+                    throw new IllegalArgumentException();
+                }
+
+                buffer.clear();
+                try {
+                    writeFileHeader(channel, newGeneration);
+                }
+                catch (IOException e) {
+                    fail(e);
+                    throw e;
+                }
+                generation = newGeneration;
+                appended = FILE_HEADER_SIZE;
+                durable = FILE_HEADER_SIZE;
+            }
+        }
+    }
+
+    /**
+     * Returns the generation of the log, the generation of the snapshot it
+     * follows
+     *
+     * @return a non-negative number
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Returns the policy choosing when records are forced
+     *
+     * @return the sync policy
+     */
+    public SyncPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Returns the size of the log, header and buffered records included
+     *
+     * @return the number of bytes of the log
+     */
+    public synchronized long size() {
+        return appended;
+    }
+
+    /**
+     * Returns the number of times the log was forced to the disk, which is
+     * lower than the number of changes when forces were shared
+     *
+     * @return the number of forces
+     */
+    public long syncCount() {
+        return syncs;
+    }
+
+    /**
+     * Returns the number of records replayed when the log was opened
+     *
+     * @return the number of recovered records
+     */
+    public long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Returns the number of bytes after the last valid record that were cut
+     * off when the log was opened
+     *
+     * @return the number of torn bytes
+     */
+    public long truncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /**
+     * Forces every record to the disk and closes the file. Closing again has
+     * no effect.
+     *
+     * @throws IOException if writing, forcing or closing the log fails, or
+     *                     an earlier write or force failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+
+                try {
+                    //A failed log cannot tell which records it still holds
+                    ensureOpen();
+                    drain();
+                    force();
+                    durable = appended;
+                }
+                finally {
+                    closed = true;
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a record to the buffer, writing the buffer first if the record
+     * does not fit
+     *
+     * @param opcode    the opcode of the record
+     * @param key       the key of the record, null if it has none
+     * @param rectangle the rectangle of the record, null if it has none
+     * @return the position after the record
+     * @throws IOException if writing the log fails
+     */
+    private synchronized long append(byte opcode, String key,
+                                     Rectangle rectangle) throws IOException {
+        ensureOpen();
+
+        byte[] keyBytes = (key == null) ? null
+                : key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes != null && keyBytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Key too long");
+        }
+
+        int payload = 1 + ((keyBytes == null) ? 0 : 2 + keyBytes.length)
+                      + ((rectangle == null) ? 0 : 16);
+        if (buffer.remaining() < RECORD_HEADER_SIZE + payload) {
+            drain();
+        }
+
+        int start = buffer.position();
+        buffer.putInt(payload);
+        buffer.putInt(0);
+        buffer.put(opcode);
+        if (keyBytes != null) {
+            buffer.putShort((short) keyBytes.length);
+            buffer.put(keyBytes);
+        }
+        if (rectangle != null) {
+            buffer.putInt(rectangle.x);
+            buffer.putInt(rectangle.y);
+            buffer.putInt(rectangle.width);
+            buffer.putInt(rectangle.height);
+        }
+
+        ByteBuffer written = buffer.duplicate();
+        written.position(start + RECORD_HEADER_SIZE).limit(buffer.position());
+        crc.reset();
+        crc.update(written);
+        buffer.putInt(start + 4, (int) crc.getValue());
+
+        appended += RECORD_HEADER_SIZE + payload;
+        return appended;
+    }
+
+    /**
+     * Forces the record ending at the position if the policy asks for it
+     *
+     * @param position the position after the record
+     * @throws IOException if writing or forcing the log fails
+     */
+    private void commit(long position) throws IOException {
+        if (policy == SyncPolicy.EVERY_COMMIT) {
+            sync(position);
+        }
+    }
+
+    /**
+     * Forces the log up to at least the position. Only one thread forces at
+     * a time; it forces every record appended before it started, so the
+     * threads waiting behind it usually find their records already forced.
+     *
+     * @param position the position the log must be forced up to
+     * @throws IOException if writing or forcing the log fails
+     */
+    private void sync(long position) throws IOException {
+        if (durable >= position) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (durable >= position) {
+                return;
+            }
+
+            long target;
+            synchronized (this) {
+                ensureOpen();
+                drain();
+                target = appended;
+            }
+
+            force();
+            durable = target;
+            syncs++;
+        }
+    }
+
+    /**
+     * Forces the log on the background thread, whose failure is thrown from
+     * the next change
+     */
+    private void backgroundSync() {
+        try {
+            sync();
+        }
+        catch (IOException e) {
+            //Kept as the failure of the log by drain or force
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file. A write failing partway
+     * leaves the file and the buffer out of step, so the log is failed and
+     * takes no more records.
+     *
+     * @throws IOException if writing fails
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Forces the written records to the disk. A failed force may have lost
+     * any of them, so the log is failed and takes no more records.
+     *
+     * @throws IOException if forcing fails
+     */
+    private void force() throws IOException {
+        try {
+            channel.force(false);
+        }
+        catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Keeps the first failure of the log, thrown from every later change
+     *
+     * @param e the failure
+     */
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Checks that the log is open and no write or force failed
+     *
+     * @throws IOException if the log is closed or failed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Log closed");
+        }
+        if (failure != null) {
+            throw new IOException("Log failed", failure);
+        }
+    }
+
+    /**
+     * Writes the header of a new log over whatever the file holds
+     *
+     * @param channel    the channel of the log file
+     * @param generation the generation of the log
+     * @throws IOException if writing fails
+     */
+    private static void writeFileHeader(FileChannel channel, long generation)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation).flip();
+
+        channel.truncate(0);
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Checks that the file starts with the header of a log and reads its
+     * generation
+     *
+     * @param channel the channel of the log file
+     * @return the generation of the log
+     * @throws IOException if reading fails or the file is not a log
+     */
+    private static long readFileHeader(FileChannel channel)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        channel.position(0);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            //Read until the header is full
+        }
+        header.flip();
+
+        long generation = header.getLong(8);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION
+            || generation < 0) {
+            throw new IOException("Not a write-ahead log");
+        }
+
+        return generation;
+    }
+
+    /**
+     * Replays every valid record after the header into the container. Runs
+     * of inserts are gathered and inserted at once with insertAll, which
+     * inserts them the same as one by one.
+     *
+     * @param channel the channel of the log file, after its header
+     * @param target  the container the records are replayed into
+     * @return the position after the last valid record, and the number of
+     * records replayed
+     * @throws IOException if reading fails
+     */
+    private static long[] replay(FileChannel channel,
+                                 Container<String, Rectangle> target)
+            throws IOException {
+        ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        CRC32 checksum = new CRC32();
+        List<KVPair<String, Rectangle>> inserts = new ArrayList<>();
+        long end = FILE_HEADER_SIZE;
+        long records = 0;
+        boolean eof = false;
+
+        channel.position(FILE_HEADER_SIZE);
+        while (true) {
+            //Make sure a whole record is buffered, or the file has ended
+            if (!eof && in.position() < in.capacity()) {
+                eof = channel.read(in) < 0;
+                if (!eof && in.hasRemaining()) {
+                    continue;
+                }
+            }
+            in.flip();
+
+            while (in.remaining() >= RECORD_HEADER_SIZE) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > MAX_PAYLOAD_SIZE) {
+                    target.insertAll(inserts);
+                    return new long[]{end, records};
+                }
+                if (in.remaining() < RECORD_HEADER_SIZE + length) {
+                    break;
+                }
+
+                int expected = in.getInt(in.position() + 4);
+                ByteBuffer payload = in.duplicate();
+                payload.position(in.position() + RECORD_HEADER_SIZE)
+                        .limit(in.position() + RECORD_HEADER_SIZE + length);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != expected
+                    || !apply(payload, target, inserts)) {
+                    target.insertAll(inserts);
+                    return new long[]{end, records};
+                }
+
+                in.position(in.position() + RECORD_HEADER_SIZE + length);
+                end += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+
+            if (eof) {
+                target.insertAll(inserts);
+                return new long[]{end, records};
+            }
+            in.compact();
+        }
+    }
+
+    /**
+     * Replays a record into the container
+     *
+     * @param payload the payload of the record, from position to limit
+     * @param target  the container the record is replayed into
+     * @param inserts the inserts not yet made, made before a removal
+     * @return false if the payload is not a valid record
+     */
+    private static boolean apply(ByteBuffer payload,
+                                 Container<String, Rectangle> target,
+                                 List<KVPair<String, Rectangle>> inserts) {
+        byte opcode = payload.get();
+        String key = null;
+        Rectangle rectangle = null;
+
+        if (opcode == INSERT || opcode == REMOVE) {
+            if (payload.remaining() < 2) {
+                return false;
+            }
+            int length = payload.getShort() & 0xFFFF;
+            if (payload.remaining() < length) {
+                return false;
+            }
+
+            byte[] bytes = new byte[length];
+            payload.get(bytes);
+            key = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (opcode == INSERT || opcode == REMOVE_BY_VALUE) {
+            if (payload.remaining() < 16) {
+                return false;
+            }
+            rectangle = new Rectangle(payload.getInt(), payload.getInt(),
+                    payload.getInt(), payload.getInt());
+        }
+        if (payload.hasRemaining()) {
+            return false;
+        }
+
+        switch (opcode) {
+            case INSERT:
+                inserts.add(new KVPair<>(key, rectangle));
+                return true;
+            case REMOVE:
+                target.insertAll(inserts);
+                inserts.clear();
+                target.remove(key);
+                return true;
+            case REMOVE_BY_VALUE:
+                target.insertAll(inserts);
+                inserts.clear();
+                target.removeByValue(rectangle);
+                return true;
+            default:
+                return false;
+        }
+    }
+}
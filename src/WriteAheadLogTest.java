@@ -0,0 +1,476 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This test class is responsible for testing the logging, recovery, torn
+ * tail handling and sync policies of the WriteAheadLog class
+ *
+ * @author Muhammad Ali Qadri
+ * @version 1
+ */
+public class WriteAheadLogTest {
+
+    // The log file of the tests
+    private Path file;
+
+    /**
+     * Creates a name for the log file before each test, the file itself is
+     * left for the log to create
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("wal", ".log");
+        Files.delete(file);
+    }
+
+    /**
+     * Deletes the log file after each test
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that replaying the log makes the same changes, in the same
+     * order, as were made to the list when they were logged
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        SkipList<String, Rectangle> expected = new SkipList<>();
+        Random random = new Random(5);
+
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, 10, 64, new SkipList<>());
+        assertEquals(0, log.recoveredRecords());
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(5);
+            String key = "r" + random.nextInt(50);
+            Rectangle rect = new Rectangle(random.nextInt(5),
+                    random.nextInt(5), 1 + random.nextInt(3), 1);
+
+            if (op < 3) {
+                expected.insert(new KVPair<>(key, rect));
+                log.logInsert(new KVPair<>(key, rect));
+            }
+            else if (op == 3) {
+                expected.remove(key);
+                log.logRemove(key);
+            }
+            else {
+                expected.removeByValue(rect);
+                log.logRemoveByValue(rect);
+            }
+        }
+        long size = log.size();
+        log.close();
+        assertEquals(size, Files.size(file));
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        WriteAheadLog reopened = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, recovered);
+        assertEquals(3000, reopened.recoveredRecords());
+        assertEquals(0, reopened.truncatedBytes());
+        assertEquals(size, reopened.size());
+        reopened.close();
+
+        assertEquals(contents(expected), contents(recovered));
+    }
+
+    /**
+     * Tests that a record cut short by a crash is dropped, and records
+     * logged after recovery follow the last whole record
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testTornTail() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT, new SkipList<>());
+        log.logInsert(new KVPair<>("a", new Rectangle(1, 1, 1, 1)));
+        log.logInsert(new KVPair<>("b", new Rectangle(2, 2, 2, 2)));
+        long whole = log.size();
+        log.logInsert(new KVPair<>("c", new Rectangle(3, 3, 3, 3)));
+        log.close();
+
+        //Cut the last record in the middle
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.WRITE)) {
+            channel.truncate(whole + 10);
+        }
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.EVERY_COMMIT,
+                recovered);
+        assertEquals(2, log.recoveredRecords());
+        assertEquals(10, log.truncatedBytes());
+        assertEquals(whole, Files.size(file));
+        log.logRemove("a");
+        log.close();
+
+        recovered = new SkipList<>();
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER,
+                recovered);
+        log.close();
+        assertEquals("[b, 2, 2, 2, 2]", contents(recovered));
+    }
+
+    /**
+     * Tests that a record failing its checksum ends the log, dropping every
+     * record after it
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testCorruptRecord() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+        log.logInsert(new KVPair<>("a", new Rectangle(1, 1, 1, 1)));
+        long first = log.size();
+        log.logInsert(new KVPair<>("b", new Rectangle(2, 2, 2, 2)));
+        log.logInsert(new KVPair<>("c", new Rectangle(3, 3, 3, 3)));
+        long size = log.size();
+        log.close();
+
+        //Flip a byte of the rectangle of the second record
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, first + 14);
+            b.put(0, (byte) (b.get(0) ^ 1));
+            b.rewind();
+            channel.write(b, first + 14);
+        }
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER,
+                recovered);
+        log.close();
+
+        assertEquals(1, log.recoveredRecords());
+        assertEquals(size - first, log.truncatedBytes());
+        assertEquals("[a, 1, 1, 1, 1]", contents(recovered));
+    }
+
+    /**
+     * Tests that a file that is not a log is not touched, and a file torn
+     * before its header was complete is started over
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Test
+    public void testFileHeader() throws IOException {
+        Files.write(file, "insert a 1 1 1 1\n".getBytes());
+        try {
+            WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER,
+                    new SkipList<>());
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Not a write-ahead log", e.getMessage());
+        }
+        assertEquals(17, Files.size(file));
+
+        Files.write(file, new byte[]{'R', 'W'});
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+        assertEquals(16, log.size());
+        assertEquals(0, log.truncatedBytes());
+        assertEquals(0, log.generation());
+        log.close();
+    }
+
+    /**
+     * Tests that a reset log starts over in the new generation, an older log
+     * than the snapshot is started over instead of replayed, and a newer
+     * one is rejected
+     *
+     * @throws IOException if the log cannot be used
+     */
+    @Test
+    public void testGenerations() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+        log.logInsert(new KVPair<>("a", new Rectangle(1, 1, 1, 1)));
+        log.reset(1);
+        assertEquals(1, log.generation());
+        assertEquals(16, log.size());
+        log.logInsert(new KVPair<>("b", new Rectangle(2, 2, 2, 2)));
+        log.close();
+
+        try {
+            WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER,
+                    new SkipList<>());
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log needs the snapshot of generation 1",
+                    e.getMessage());
+        }
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, 10,
+                64, recovered, 1);
+        assertEquals(1, log.recoveredRecords());
+        assertEquals("[b, 2, 2, 2, 2]", contents(recovered));
+        try {
+            log.reset(1);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+        log.close();
+
+        //The snapshot of generation 2 was saved, the reset did not happen
+        recovered = new SkipList<>();
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, 10,
+                64, recovered, 2);
+        assertEquals(0, log.recoveredRecords());
+        assertEquals(2, log.generation());
+        assertEquals(16, Files.size(file));
+        assertTrue(recovered.isEmpty());
+        log.close();
+    }
+
+    /**
+     * Tests that threads logging at the same time with a force per commit
+     * lose no record and never force more often than they commit
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testGroupCommit() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT, new SkipList<>());
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "_";
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50; i++) {
+                        log.logInsert(new KVPair<>(prefix + i,
+                                new Rectangle(i, i, 1, 1)));
+                    }
+                }
+                catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty());
+        assertTrue(log.syncCount() >= 1);
+        assertTrue(log.syncCount() <= 200);
+        log.close();
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, recovered)
+                .close();
+        assertEquals(200, recovered.size());
+    }
+
+    /**
+     * Tests that the INTERVAL policy forces the log in the background and
+     * the NEVER policy only when asked
+     *
+     * @throws Exception if the log cannot be used
+     */
+    @Test
+    public void testSyncPolicies() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.INTERVAL, 5, 1024, new SkipList<>());
+        assertEquals(WriteAheadLog.SyncPolicy.INTERVAL, log.policy());
+        log.logRemove("a");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (log.syncCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(log.syncCount() > 0);
+        log.close();
+
+        log = WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER,
+                new SkipList<>());
+        log.logRemove("b");
+        assertEquals(0, log.syncCount());
+        log.sync();
+        assertEquals(1, log.syncCount());
+        log.sync();
+        assertEquals(1, log.syncCount());
+        log.close();
+    }
+
+    /**
+     * Tests that a closed log rejects records and can be closed again
+     *
+     * @throws IOException if the log cannot be opened
+     */
+    @Test
+    public void testClosed() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+        log.close();
+        log.close();
+
+        try {
+            log.logRemove("a");
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log closed", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests that a log whose write failed takes no more records, throws the
+     * failure from every later change, sync and close, and still recovers
+     * the records written before it
+     *
+     * @throws IOException if the log cannot be opened
+     */
+    @Test
+    public void testFailedWrite() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.EVERY_COMMIT, new SkipList<>());
+        log.logInsert(new KVPair<>("a", new Rectangle(1, 1, 1, 1)));
+
+        //An interrupted thread closes the channel it writes to
+        Thread.currentThread().interrupt();
+        try {
+            log.logInsert(new KVPair<>("b", new Rectangle(2, 2, 2, 2)));
+            fail();
+        }
+        catch (IOException e) {
+            assertNotNull(e);
+        }
+        finally {
+            Thread.interrupted();
+        }
+
+        try {
+            log.logRemove("a");
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log failed", e.getMessage());
+        }
+        try {
+            log.sync();
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log failed", e.getMessage());
+        }
+        try {
+            log.close();
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Log failed", e.getMessage());
+        }
+        log.close();
+
+        SkipList<String, Rectangle> recovered = new SkipList<>();
+        WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, recovered)
+                .close();
+        assertEquals(1, recovered.size());
+        assertEquals("a", recovered.iterator().next().getKey());
+    }
+
+    /**
+     * Tests the invalid arguments
+     *
+     * @throws IOException if the log cannot be opened
+     */
+    @Test
+    public void testInvalidArguments() throws IOException {
+        try {
+            WriteAheadLog.open(file, null, new SkipList<>());
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            WriteAheadLog.open(file, WriteAheadLog.SyncPolicy.NEVER, 0, 10,
+                    new SkipList<>());
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        WriteAheadLog log = WriteAheadLog.open(file,
+                WriteAheadLog.SyncPolicy.NEVER, new SkipList<>());
+        try {
+            log.logInsert(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            log.logRemove(new String(new char[70000]).replace('\0', 'a'));
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+
+        try {
+            log.logRemoveByValue(null);
+            fail();
+        }
+        catch (IllegalArgumentException e) {
+            assertNotNull(e);
+        }
+        log.close();
+    }
+
+    /**
+     * Lists the pairs of the list in its order
+     *
+     * @param list the list
+     * @return the pairs of the list as a string
+     */
+    private static String contents(SkipList<String, Rectangle> list) {
+        List<String> pairs = new ArrayList<>();
+        for (KVPair<String, Rectangle> pair : list) {
+            pairs.add(pair.toString());
+        }
+
+        return pairs.toString();
+    }
+}